@@ -0,0 +1,69 @@
+package com.moduleforge.libraries.javafx.shape;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/*
+ * The encoding of faces into the face array, and the VertexIndex objects it goes through
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = { "-Xmx4g", "-Djava.awt.headless=true" })
+public class CoordinateArrayBenchmark {
+
+   @Param({ "1000", "10000", "100000", "1000000" })
+   public int triangles;
+
+   private List<TriangleMeshFaceWrapper> faces;
+   private int[] indices;
+
+   @Setup
+   public void setUp() {
+      Random random = new Random(1);
+      int pointCount = Math.max(3, triangles / 2);
+      indices = new int[triangles * TriangleMeshFaceWrapper.TRIANGLE_VERTEX_COUNT];
+      faces = new ArrayList<>(triangles);
+      for (int f = 0; f < triangles; f++) {
+         for (int k = 0; k < TriangleMeshFaceWrapper.TRIANGLE_VERTEX_COUNT; k++) {
+            indices[f * 3 + k] = random.nextInt(pointCount);
+         }
+         faces.add(TriangleMeshFaceWrapper.fromOrderedNoTexture(VertexIndex.from(indices[f * 3]),
+               VertexIndex.from(indices[f * 3 + 1]), VertexIndex.from(indices[f * 3 + 2])));
+      }
+   }
+
+   @Benchmark
+   public int[] makeCoordinateArrayFrom() {
+      return TriangleMeshWrapper.makeCoordinateArrayFrom(faces);
+   }
+
+   @Benchmark
+   public int[] makeCoordinateArrayFromParallel() {
+      return TriangleMeshWrapper.makeCoordinateArrayFrom(faces, MeshBuildOptions.defaults().parallel());
+   }
+
+   @Benchmark
+   public void vertexIndexFrom(Blackhole blackhole) {
+      for (int index : indices) {
+         blackhole.consume(VertexIndex.from(index));
+      }
+   }
+}
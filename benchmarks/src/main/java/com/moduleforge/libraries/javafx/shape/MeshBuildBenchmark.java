@@ -0,0 +1,69 @@
+package com.moduleforge.libraries.javafx.shape;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javafx.scene.shape.TriangleMesh;
+
+/*
+ * TriangleMeshFacade.from, from the sets of faces and vertices to the arrays of the TriangleMesh
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = { "-Xmx4g", "-Djava.awt.headless=true" })
+public class MeshBuildBenchmark {
+
+   @Param({ "1000", "10000", "100000", "1000000" })
+   public int triangles;
+
+   @Param({ "GRID", "SPHERE" })
+   public String shape;
+
+   @Param({ "true", "false" })
+   public boolean textured;
+
+   private Set<TriangleMeshFace> faces;
+   private Set<Vertex> vertices;
+
+   @Setup
+   public void setUp() {
+      faces = "GRID".equals(shape) ? MeshInputs.grid(triangles, textured) : MeshInputs.sphere(triangles, textured);
+      vertices = MeshInputs.verticesOf(faces);
+   }
+
+   @Benchmark
+   public TriangleMesh from() {
+      return TriangleMeshFacade.from(vertices, faces).toTriangleMesh();
+   }
+
+   @Benchmark
+   public TriangleMesh fromParallel() {
+      return TriangleMeshFacade.from(vertices, faces, MeshBuildOptions.defaults().parallel()).toTriangleMesh();
+   }
+
+   @Benchmark
+   public TriangleMesh fromWithLocalityOrdering() {
+      return TriangleMeshFacade.from(vertices, faces, MeshBuildOptions.defaults().localityOrdering(true))
+            .toTriangleMesh();
+   }
+
+   @Benchmark
+   public TriangleMesh fromWithSmoothNormals() {
+      return TriangleMeshFacade.from(vertices, faces, MeshBuildOptions.defaults().smoothNormals()).toTriangleMesh();
+   }
+}
@@ -0,0 +1,111 @@
+package com.moduleforge.libraries.javafx.shape;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import javafx.geometry.Point2D;
+
+/*
+ * Inputs of the benchmarks, always the same for the same parameters
+ */
+final class MeshInputs {
+
+   private MeshInputs() {
+   }
+
+   /*
+    * a square grid on the plane z = 0 with about the given number of triangles
+    */
+   static Set<TriangleMeshFace> grid(int triangleCount, boolean textured) {
+      int size = Math.max(1, (int) Math.round(Math.sqrt(triangleCount / 2.0)));
+      Vertex[][] vertices = new Vertex[size + 1][size + 1];
+      for (int i = 0; i <= size; i++) {
+         for (int j = 0; j <= size; j++) {
+            vertices[i][j] = Vertex.from(i, j, 0);
+         }
+      }
+      Set<TriangleMeshFace> faces = new LinkedHashSet<>();
+      for (int i = 0; i < size; i++) {
+         for (int j = 0; j < size; j++) {
+            faces.add(face(textured, size, size, vertices[i][j], i, j, vertices[i + 1][j], i + 1, j,
+                  vertices[i + 1][j + 1], i + 1, j + 1));
+            faces.add(face(textured, size, size, vertices[i][j], i, j, vertices[i + 1][j + 1], i + 1, j + 1,
+                  vertices[i][j + 1], i, j + 1));
+         }
+      }
+      return faces;
+   }
+
+   /*
+    * a sphere of radius 1 made of stacks and slices, with about the given number of triangles
+    */
+   static Set<TriangleMeshFace> sphere(int triangleCount, boolean textured) {
+      // 2 * slices * (stacks - 1) triangles, with twice as many slices as stacks
+      int stacks = Math.max(2, (int) Math.round(Math.sqrt(triangleCount / 4.0)) + 1);
+      int slices = 2 * stacks;
+      Vertex[][] rings = new Vertex[stacks + 1][slices];
+      for (int i = 0; i <= stacks; i++) {
+         double polar = Math.PI * i / stacks;
+         for (int j = 0; j < slices; j++) {
+            double azimuth = 2 * Math.PI * j / slices;
+            if ((i == 0 || i == stacks) && j > 0) {
+               rings[i][j] = rings[i][0]; // poles
+               continue;
+            }
+            rings[i][j] = Vertex.from(Math.sin(polar) * Math.cos(azimuth), Math.sin(polar) * Math.sin(azimuth),
+                  Math.cos(polar));
+         }
+      }
+      Set<TriangleMeshFace> faces = new LinkedHashSet<>();
+      for (int i = 0; i < stacks; i++) {
+         for (int j = 0; j < slices; j++) {
+            int next = (j + 1) % slices;
+            Vertex a = rings[i][j], b = rings[i + 1][j], c = rings[i + 1][next], d = rings[i][next];
+            if (i > 0)
+               faces.add(face(textured, stacks, slices, a, i, j, b, i + 1, j, d, i, j + 1));
+            if (i < stacks - 1)
+               faces.add(face(textured, stacks, slices, d, i, j + 1, b, i + 1, j, c, i + 1, j + 1));
+         }
+      }
+      return faces;
+   }
+
+   /*
+    * a counterclockwise polygon on the plane z = 0: a circle, or a star whose vertices alternate
+    * between two radii if it is not convex
+    */
+   static List<Vertex> polygon(int vertexCount, boolean convex) {
+      List<Vertex> vertices = new ArrayList<>(vertexCount);
+      for (int i = 0; i < vertexCount; i++) {
+         double angle = 2 * Math.PI * i / vertexCount;
+         double radius = convex || i % 2 == 0 ? 1000 : 900;
+         vertices.add(Vertex.from(radius * Math.cos(angle), radius * Math.sin(angle), 0));
+      }
+      return vertices;
+   }
+
+   static Set<Vertex> verticesOf(Set<TriangleMeshFace> faces) {
+      Set<Vertex> vertices = new LinkedHashSet<>();
+      for (TriangleMeshFace face : faces) {
+         vertices.addAll(face.getVerticesWithCreationOrdering());
+      }
+      return vertices;
+   }
+
+   /*
+    * the texture vertex of each vertex is its grid position scaled to [0, 1]
+    */
+   private static TriangleMeshFace face(boolean textured, int rows, int columns, Vertex a, int ai, int aj,
+         Vertex b, int bi, int bj, Vertex c, int ci, int cj) {
+      List<Vertex> vertices = Arrays.asList(a, b, c);
+      if (!textured)
+         return TriangleMeshFace.fromOrderedTriplet(vertices);
+      List<Point2D> texture = Arrays.asList(new Point2D((double) aj / columns, (double) ai / rows),
+            new Point2D((double) bj / columns, (double) bi / rows),
+            new Point2D((double) cj / columns, (double) ci / rows));
+      return TriangleMeshFace.fromOrdered(vertices, texture);
+   }
+}
@@ -0,0 +1,46 @@
+package com.moduleforge.libraries.javafx.shape;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/*
+ * TriangleMeshFace.connectedFromOrdered on large convex and concave polygons
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = { "-Xmx4g", "-Djava.awt.headless=true" })
+public class PolygonBenchmark {
+
+   @Param({ "1000", "10000", "100000" })
+   public int vertices;
+
+   @Param({ "true", "false" })
+   public boolean convex;
+
+   private List<Vertex> polygon;
+
+   @Setup
+   public void setUp() {
+      polygon = MeshInputs.polygon(vertices, convex);
+   }
+
+   @Benchmark
+   public List<TriangleMeshFace> connectedFromOrdered() {
+      return TriangleMeshFace.connectedFromOrdered(polygon);
+   }
+}
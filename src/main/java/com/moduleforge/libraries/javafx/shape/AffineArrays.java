@@ -0,0 +1,96 @@
+package com.moduleforge.libraries.javafx.shape;
+
+import javafx.scene.transform.Affine;
+import javafx.scene.transform.Transform;
+
+/*
+ * Affine transforms applied in place to ranges of the primitive arrays of a mesh, see
+ * PointTransform for the points
+ *
+ * A transform is given as its 3x4 matrix, row by row: mxx, mxy, mxz, tx, myx, ... tz.
+ */
+final class AffineArrays {
+
+   private AffineArrays() {
+      //
+   }
+
+   static double[] matrixOf(Transform transform) {
+      return new double[] { transform.getMxx(), transform.getMxy(), transform.getMxz(), transform.getTx(),
+            transform.getMyx(), transform.getMyy(), transform.getMyz(), transform.getTy(), transform.getMzx(),
+            transform.getMzy(), transform.getMzz(), transform.getTz() };
+   }
+
+   static Affine toAffine(double[] m) {
+      return new Affine(m[0], m[1], m[2], m[3], m[4], m[5], m[6], m[7], m[8], m[9], m[10], m[11]);
+   }
+
+   /*
+    * the transform that applies before and then after
+    */
+   static double[] concatenate(double[] after, double[] before) {
+      double[] m = new double[12];
+      for (int row = 0; row < 3; row++) {
+         for (int column = 0; column < 4; column++) {
+            double value = column == 3 ? after[row * 4 + 3] : 0;
+            for (int k = 0; k < 3; k++) {
+               value += after[row * 4 + k] * before[k * 4 + column];
+            }
+            m[row * 4 + column] = value;
+         }
+      }
+      return m;
+   }
+
+   static double determinant(double[] m) {
+      return m[0] * (m[5] * m[10] - m[6] * m[9]) - m[1] * (m[4] * m[10] - m[6] * m[8])
+            + m[2] * (m[4] * m[9] - m[5] * m[8]);
+   }
+
+   /*
+    * Normals go through the inverse transpose of the linear part, here its cofactor matrix, which
+    * only differs by the determinant: its sign is kept so normals keep facing out, and its size
+    * does not matter since they are normalized again.
+    */
+   static void transformNormals(double[] m, float[] normals, int from, int to) {
+      double sign = Math.signum(determinant(m));
+      double c00 = sign * (m[5] * m[10] - m[6] * m[9]), c01 = sign * (m[6] * m[8] - m[4] * m[10]),
+            c02 = sign * (m[4] * m[9] - m[5] * m[8]);
+      double c10 = sign * (m[2] * m[9] - m[1] * m[10]), c11 = sign * (m[0] * m[10] - m[2] * m[8]),
+            c12 = sign * (m[1] * m[8] - m[0] * m[9]);
+      double c20 = sign * (m[1] * m[6] - m[2] * m[5]), c21 = sign * (m[2] * m[4] - m[0] * m[6]),
+            c22 = sign * (m[0] * m[5] - m[1] * m[4]);
+      for (int i = from; i < to; i += 3) {
+         double x = normals[i], y = normals[i + 1], z = normals[i + 2];
+         double nx = c00 * x + c01 * y + c02 * z;
+         double ny = c10 * x + c11 * y + c12 * z;
+         double nz = c20 * x + c21 * y + c22 * z;
+         double length = Math.sqrt(nx * nx + ny * ny + nz * nz);
+         if (length > 0) {
+            nx /= length;
+            ny /= length;
+            nz /= length;
+         }
+         normals[i] = (float) nx;
+         normals[i + 1] = (float) ny;
+         normals[i + 2] = (float) nz;
+      }
+   }
+
+   /*
+    * Swaps the second and third vertex of each face in faces[from, to), with all their indices, so
+    * the faces keep facing out after a transform that mirrors them
+    */
+   static void reverseWinding(int[] faces, int from, int to, int faceStride) {
+      int vertexStride = faceStride / TriangleMeshFaceWrapper.TRIANGLE_VERTEX_COUNT;
+      for (int face = from; face < to; face += faceStride) {
+         for (int k = 0; k < vertexStride; k++) {
+            int second = face + vertexStride + k;
+            int third = face + 2 * vertexStride + k;
+            int index = faces[second];
+            faces[second] = faces[third];
+            faces[third] = index;
+         }
+      }
+   }
+}
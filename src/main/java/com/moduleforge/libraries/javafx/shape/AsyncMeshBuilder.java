@@ -0,0 +1,248 @@
+package com.moduleforge.libraries.javafx.shape;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+import com.google.common.base.Preconditions;
+
+import javafx.application.Platform;
+import javafx.scene.shape.TriangleMesh;
+
+/**
+ *
+ * Builds meshes away from the JavaFX application thread
+ *
+ * Everything TriangleMeshFacade.from() does runs in the given executor. Only
+ * the last step, sending the finished arrays to the TriangleMesh with one call
+ * per array, is done on the JavaFX application thread, for as many meshes as
+ * fit in a time budget each time, so a scene that streams in many meshes does
+ * not stall a frame.
+ *
+ * A build holds one of a fixed number of permits from the moment it starts
+ * until its mesh is published, so no more builds run, and no more finished
+ * arrays wait to be published, than that number. Further builds wait in order
+ * without blocking the caller.
+ *
+ * Cancelling a future drops the build if it has not started, and skips
+ * publishing it if it has. The faces must not be changed until the future is
+ * complete.
+ *
+ * If the meshes cannot be handed to the JavaFX application thread, as when the
+ * toolkit is not running, the builds waiting to be published fail.
+ *
+ */
+public final class AsyncMeshBuilder {
+
+   /**
+    * The time spent publishing meshes on the JavaFX application thread at a
+    * time, in nanoseconds
+    */
+   public static final long DEFAULT_PUBLISH_BUDGET_NANOS = 4_000_000;
+
+   private final Executor executor;
+   private final Executor publisher;
+   private final Semaphore permits;
+   private final long publishBudgetNanos;
+   private final Queue<Job<?>> waiting = new ConcurrentLinkedQueue<>();
+   private final Queue<Job<?>> publishing = new ConcurrentLinkedQueue<>();
+   private final AtomicBoolean publishScheduled = new AtomicBoolean();
+
+   private AsyncMeshBuilder(Executor executor, Executor publisher, int maximumBuilds, long publishBudgetNanos) {
+      this.executor = executor;
+      this.publisher = publisher;
+      permits = new Semaphore(maximumBuilds);
+      this.publishBudgetNanos = publishBudgetNanos;
+   }
+
+   /**
+    * As many builds at a time as there are processors
+    */
+   public static AsyncMeshBuilder create(Executor executor) {
+      return create(executor, Runtime.getRuntime().availableProcessors(), DEFAULT_PUBLISH_BUDGET_NANOS);
+   }
+
+   /**
+    * @param maximumBuilds
+    *           that are running or waiting to be published at a time
+    * @param publishBudgetNanos
+    *           the time spent publishing meshes on the JavaFX application
+    *           thread at a time; at least one mesh is published each time
+    */
+   public static AsyncMeshBuilder create(Executor executor, int maximumBuilds, long publishBudgetNanos) {
+      return create(executor, Platform::runLater, maximumBuilds, publishBudgetNanos);
+   }
+
+   /*
+    * meshes are published in the given executor instead of on the JavaFX application thread
+    */
+   static AsyncMeshBuilder create(Executor executor, Executor publisher, int maximumBuilds,
+         long publishBudgetNanos) {
+      Preconditions.checkNotNull(executor);
+      Preconditions.checkNotNull(publisher);
+      if (maximumBuilds < 1)
+         throw new IllegalArgumentException("At least one build must be allowed at a time.");
+      if (publishBudgetNanos < 0)
+         throw new IllegalArgumentException("The publish budget cannot be negative.");
+      return new AsyncMeshBuilder(executor, publisher, maximumBuilds, publishBudgetNanos);
+   }
+
+   public CompletableFuture<TriangleMesh> build(Set<TriangleMeshFace> faces) {
+      return build(faces, MeshBuildOptions.defaults());
+   }
+
+   /**
+    * @return the mesh, complete once its arrays are set, on the JavaFX
+    *         application thread
+    */
+   public CompletableFuture<TriangleMesh> build(Set<TriangleMeshFace> faces, MeshBuildOptions options) {
+      return submit(null, faces, options, TriangleMeshFacade::toTriangleMesh);
+   }
+
+   /**
+    * As TriangleMeshFacade.from(), with the facade complete once the arrays of
+    * its TriangleMesh are set, on the JavaFX application thread
+    */
+   public CompletableFuture<TriangleMeshFacade> buildFacade(Set<Vertex> vertices, Set<TriangleMeshFace> faces,
+         MeshBuildOptions options) {
+      Preconditions.checkNotNull(vertices);
+      return submit(vertices, faces, options, Function.identity());
+   }
+
+   /**
+    * The builds that have not started yet
+    */
+   public int getWaitingCount() {
+      return waiting.size();
+   }
+
+   private <T> CompletableFuture<T> submit(Set<Vertex> vertices, Set<TriangleMeshFace> faces,
+         MeshBuildOptions options, Function<TriangleMeshFacade, T> result) {
+      Preconditions.checkNotNull(faces);
+      Preconditions.checkNotNull(options);
+      Job<T> job = new Job<>(vertices, faces, options, result);
+      waiting.add(job);
+      dispatch();
+      return job.future;
+   }
+
+   /*
+    * starts waiting builds while there are permits; called whenever a build is added or a
+    * permit released, so a build never waits while a permit is free
+    */
+   private void dispatch() {
+      while (!waiting.isEmpty() && permits.tryAcquire()) {
+         Job<?> job = waiting.poll();
+         if (job == null || job.future.isDone()) {
+            permits.release();
+            continue;
+         }
+         try {
+            executor.execute(() -> run(job));
+         } catch (RejectedExecutionException e) {
+            job.future.completeExceptionally(e);
+            permits.release();
+         }
+      }
+   }
+
+   private <T> void run(Job<T> job) {
+      if (job.future.isDone()) {
+         finish();
+         return;
+      }
+      try {
+         Set<Vertex> vertices = job.vertices != null ? job.vertices : TriangleMeshFacade.verticesOf(job.faces);
+         job.staged = TriangleMeshFacade.fromStaged(vertices, job.faces, job.options);
+      } catch (RuntimeException e) {
+         job.future.completeExceptionally(e);
+         finish();
+         return;
+      }
+      publishing.add(job);
+      schedulePublishing();
+   }
+
+   private <T> void publish(Job<T> job) {
+      try {
+         if (!job.future.isDone()) {
+            job.staged.publish.run();
+            job.future.complete(job.result.apply(job.staged.facade));
+         }
+      } catch (RuntimeException e) {
+         job.future.completeExceptionally(e);
+      } finally {
+         finish();
+      }
+   }
+
+   private void finish() {
+      permits.release();
+      dispatch();
+   }
+
+   private void schedulePublishing() {
+      if (!publishScheduled.compareAndSet(false, true))
+         return;
+      try {
+         publisher.execute(this::publishWithinBudget);
+      } catch (RuntimeException e) {
+         // as when the JavaFX toolkit is not running; the meshes waiting would never be published
+         publishScheduled.set(false);
+         failPublishing(e);
+      }
+   }
+
+   private void failPublishing(RuntimeException e) {
+      List<Job<?>> failed = new ArrayList<>();
+      for (Job<?> job = publishing.poll(); job != null; job = publishing.poll()) {
+         failed.add(job);
+      }
+      for (Job<?> job : failed) {
+         job.future.completeExceptionally(e);
+         permits.release();
+      }
+      dispatch();
+   }
+
+   private void publishWithinBudget() {
+      long start = System.nanoTime();
+      Job<?> next;
+      do {
+         next = publishing.poll();
+         if (next != null)
+            publish(next);
+      } while (next != null && System.nanoTime() - start < publishBudgetNanos);
+      publishScheduled.set(false);
+      // the rest, and meshes finished meanwhile, are left for the next time
+      if (!publishing.isEmpty())
+         schedulePublishing();
+   }
+
+   private static final class Job<T> {
+
+      final Set<Vertex> vertices;
+      final Set<TriangleMeshFace> faces;
+      final MeshBuildOptions options;
+      final Function<TriangleMeshFacade, T> result;
+      final CompletableFuture<T> future = new CompletableFuture<>();
+      // set by the build, read when publishing
+      TriangleMeshFacade.Staged staged;
+
+      Job(Set<Vertex> vertices, Set<TriangleMeshFace> faces, MeshBuildOptions options,
+            Function<TriangleMeshFacade, T> result) {
+         this.vertices = vertices;
+         this.faces = faces;
+         this.options = options;
+         this.result = result;
+      }
+   }
+}
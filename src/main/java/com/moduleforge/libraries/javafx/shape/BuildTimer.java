@@ -0,0 +1,80 @@
+package com.moduleforge.libraries.javafx.shape;
+
+import java.lang.management.ManagementFactory;
+
+/*
+ * Measures the phases of a build for a MeshBuildListener
+ *
+ * With MeshBuildListener.NOOP the timer is inactive and every call returns at once, so a build
+ * without a listener does not read the clock.
+ */
+final class BuildTimer {
+
+   private static final BuildTimer INACTIVE = new BuildTimer(MeshBuildListener.NOOP);
+   // null if the Java virtual machine cannot measure the bytes allocated by a thread
+   private static final com.sun.management.ThreadMXBean THREADS = allocationMeasuringThreadBean();
+
+   private final MeshBuildListener listener;
+   private final long threadId;
+   private long buildStart;
+   private long buildStartBytes;
+   private long phaseStart;
+   private long phaseStartBytes;
+
+   private BuildTimer(MeshBuildListener listener) {
+      this.listener = listener;
+      threadId = Thread.currentThread().getId();
+   }
+
+   static BuildTimer start(MeshBuildListener listener) {
+      if (listener == MeshBuildListener.NOOP)
+         return INACTIVE;
+      BuildTimer timer = new BuildTimer(listener);
+      timer.buildStartBytes = timer.allocatedBytes();
+      timer.phaseStartBytes = timer.buildStartBytes;
+      timer.buildStart = System.nanoTime();
+      timer.phaseStart = timer.buildStart;
+      return timer;
+   }
+
+   /*
+    * the phase ran from the end of the previous one until now
+    */
+   void phaseCompleted(MeshBuildPhase phase, long elementCount, long arraySize) {
+      if (this == INACTIVE)
+         return;
+      long now = System.nanoTime();
+      long bytes = allocatedBytes();
+      listener.phaseCompleted(phase, now - phaseStart, elementCount, arraySize,
+            bytes < 0 ? -1 : bytes - phaseStartBytes);
+      // the time spent in the listener is not counted in the next phase
+      phaseStartBytes = allocatedBytes();
+      phaseStart = System.nanoTime();
+   }
+
+   void buildCompleted(int vertexCount, int faceCount) {
+      if (this == INACTIVE)
+         return;
+      long now = System.nanoTime();
+      long bytes = allocatedBytes();
+      listener.buildCompleted(now - buildStart, vertexCount, faceCount, bytes < 0 ? -1 : bytes - buildStartBytes);
+   }
+
+   private long allocatedBytes() {
+      return THREADS == null ? -1 : THREADS.getThreadAllocatedBytes(threadId);
+   }
+
+   private static com.sun.management.ThreadMXBean allocationMeasuringThreadBean() {
+      try {
+         java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+         if (!(bean instanceof com.sun.management.ThreadMXBean))
+            return null;
+         com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+         return threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled() ? threads
+               : null;
+      } catch (LinkageError | SecurityException e) {
+         // com.sun.management is not in every Java virtual machine
+         return null;
+      }
+   }
+}
@@ -0,0 +1,100 @@
+package com.moduleforge.libraries.javafx.shape;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+
+/*
+ * Bytes read one chunk at a time, either from a channel into a buffer of fixed size or from
+ * consecutive memory mapped windows of a file. The memory used does not depend on the size of
+ * the input.
+ */
+final class ByteInput {
+
+   static final int CHUNK_SIZE = 64 * 1024;
+   static final long MAPPED_WINDOW_SIZE = 256L * 1024 * 1024;
+
+   private final ReadableByteChannel channel;
+   private final boolean mapped;
+   private ByteBuffer buffer;
+   private long mappedPosition;
+   private boolean finished;
+
+   private ByteInput(ReadableByteChannel channel, boolean mapped) {
+      this.channel = channel;
+      this.mapped = mapped;
+      if (mapped) {
+         buffer = ByteBuffer.allocate(0);
+      } else {
+         buffer = ByteBuffer.allocate(CHUNK_SIZE);
+         buffer.flip();
+      }
+   }
+
+   static ByteInput from(ReadableByteChannel channel) {
+      return new ByteInput(channel, false);
+   }
+
+   static ByteInput mapped(FileChannel channel) {
+      return new ByteInput(channel, true);
+   }
+
+   /*
+    * the next byte, from 0 to 255, or -1 at the end of the input
+    */
+   int read() throws IOException {
+      if (!buffer.hasRemaining() && !fill())
+         return -1;
+      return buffer.get() & 0xFF;
+   }
+
+   /*
+    * reads exactly length bytes into the target, from its position
+    */
+   void readFully(ByteBuffer target, int length) throws IOException {
+      int missing = length;
+      while (missing > 0) {
+         if (!buffer.hasRemaining() && !fill())
+            throw new EOFException();
+         int count = Math.min(missing, buffer.remaining());
+         ByteBuffer slice = buffer.duplicate();
+         slice.limit(slice.position() + count);
+         target.put(slice);
+         buffer.position(buffer.position() + count);
+         missing -= count;
+      }
+   }
+
+   /*
+    * false at the end of the input
+    */
+   private boolean fill() throws IOException {
+      if (finished)
+         return false;
+      if (mapped) {
+         FileChannel file = (FileChannel) channel;
+         long size = file.size();
+         if (mappedPosition >= size) {
+            finished = true;
+            return false;
+         }
+         long windowSize = Math.min(MAPPED_WINDOW_SIZE, size - mappedPosition);
+         buffer = file.map(FileChannel.MapMode.READ_ONLY, mappedPosition, windowSize);
+         mappedPosition += windowSize;
+         return true;
+      }
+      buffer.clear();
+      int count;
+      do {
+         count = channel.read(buffer);
+      } while (count == 0);
+      buffer.flip();
+      if (count < 0) {
+         finished = true;
+         return false;
+      }
+      return true;
+   }
+}
@@ -0,0 +1,405 @@
+package com.moduleforge.libraries.javafx.shape;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.common.base.Preconditions;
+
+import javafx.collections.ObservableFloatArray;
+import javafx.geometry.BoundingBox;
+import javafx.geometry.Bounds;
+import javafx.geometry.Point3D;
+import javafx.scene.shape.TriangleMesh;
+
+/**
+ *
+ * A large mesh split in spatial chunks, each one a TriangleMesh of its own
+ *
+ * The faces are split by an octree over their centroids, until each cell has at
+ * most a given number of faces. Each chunk is a TriangleMeshFacade with the
+ * faces of one cell, and the vertices shared by faces of different chunks are
+ * in all of them. Shown each in its own MeshView, JavaFX can leave out the
+ * chunks that are out of view, and a change only sends the arrays of the
+ * chunks it touches to the graphics card.
+ *
+ * Changes go through this class, which finds the chunks affected and marks
+ * them as dirty until takeDirtyChunks() is called. Faces added later go to a
+ * chunk that has one of their vertices, or else to the nearest one, so chunks
+ * may end up with more faces than the maximum given.
+ *
+ */
+public final class ChunkedMesh {
+
+   public static final int DEFAULT_MAX_FACE_COUNT = 16 * 1024;
+   // cells stop splitting at this depth even if they are full, e.g. with many faces at one spot
+   private static final int MAX_DEPTH = 16;
+   private static final int OCTANTS = 8;
+
+   private final List<Chunk> chunks;
+   private final Map<Vertex, List<Chunk>> vertexToChunks = new LinkedHashMap<>();
+   private final Set<Chunk> dirtyChunks = new LinkedHashSet<>();
+   private List<TriangleMeshFace> degenerateFaces = Collections.emptyList();
+
+   private ChunkedMesh(List<Chunk> chunks) {
+      this.chunks = Collections.unmodifiableList(chunks);
+   }
+
+   public static ChunkedMesh from(Set<TriangleMeshFace> faces) {
+      return from(faces, DEFAULT_MAX_FACE_COUNT, MeshBuildOptions.defaults());
+   }
+
+   public static ChunkedMesh from(Set<TriangleMeshFace> faces, int maxFaceCount) {
+      return from(faces, maxFaceCount, MeshBuildOptions.defaults());
+   }
+
+   /**
+    * The options apply to every chunk, except welding, which is done once for
+    * all the faces before they are split.
+    */
+   public static ChunkedMesh from(Set<TriangleMeshFace> faces, int maxFaceCount, MeshBuildOptions options) {
+      Preconditions.checkNotNull(faces);
+      Preconditions.checkNotNull(options);
+      if (maxFaceCount < 1)
+         throw new IllegalArgumentException("The maximum number of faces must be positive.");
+      List<TriangleMeshFace> degenerateFaces = Collections.emptyList();
+      if (options.isWelding()) {
+         MeshWelder.Result welded = options.getWelder().weld(faces);
+         faces = welded.getFaces();
+         degenerateFaces = welded.getDegenerateFaces();
+         options = options.withoutWelding();
+      }
+
+      List<TriangleMeshFace> faceList = new ArrayList<>(faces);
+      List<Chunk> chunks = new ArrayList<>();
+      for (List<TriangleMeshFace> cell : partition(faceList, maxFaceCount)) {
+         chunks.add(new Chunk(TriangleMeshFacade.from(new LinkedHashSet<>(cell), options)));
+      }
+      ChunkedMesh mesh = new ChunkedMesh(chunks);
+      mesh.degenerateFaces = degenerateFaces;
+      for (Chunk chunk : chunks) {
+         for (Vertex vertex : chunk.facade.getVertices()) {
+            mesh.addVertexChunk(vertex, chunk);
+         }
+      }
+      return mesh;
+   }
+
+   /*
+    * the faces of each non empty cell of the octree, in the order of the octree
+    */
+   private static List<List<TriangleMeshFace>> partition(List<TriangleMeshFace> faces, int maxFaceCount) {
+      int faceCount = faces.size();
+      double[] centroids = new double[faceCount * 3];
+      double[] box = { Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY,
+            Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY };
+      for (int f = 0; f < faceCount; f++) {
+         for (Vertex vertex : faces.get(f).getVerticesWithCreationOrdering()) {
+            centroids[f * 3] += vertex.getX() / 3;
+            centroids[f * 3 + 1] += vertex.getY() / 3;
+            centroids[f * 3 + 2] += vertex.getZ() / 3;
+         }
+         for (int axis = 0; axis < 3; axis++) {
+            box[axis] = Math.min(box[axis], centroids[f * 3 + axis]);
+            box[axis + 3] = Math.max(box[axis + 3], centroids[f * 3 + axis]);
+         }
+      }
+      int[] order = new int[faceCount];
+      for (int f = 0; f < faceCount; f++) {
+         order[f] = f;
+      }
+      List<List<TriangleMeshFace>> cells = new ArrayList<>();
+      if (faceCount > 0)
+         split(faces, centroids, order, new int[faceCount], 0, faceCount, box, 0, maxFaceCount, cells);
+      return cells;
+   }
+
+   /*
+    * order[from, to) are the faces in the cell box, given as minimum and maximum coordinates
+    */
+   private static void split(List<TriangleMeshFace> faces, double[] centroids, int[] order, int[] buffer, int from,
+         int to, double[] box, int depth, int maxFaceCount, List<List<TriangleMeshFace>> cells) {
+      if (to - from <= maxFaceCount || depth == MAX_DEPTH) {
+         List<TriangleMeshFace> cell = new ArrayList<>(to - from);
+         for (int i = from; i < to; i++) {
+            cell.add(faces.get(order[i]));
+         }
+         cells.add(cell);
+         return;
+      }
+      double[] middle = new double[3];
+      for (int axis = 0; axis < 3; axis++) {
+         middle[axis] = (box[axis] + box[axis + 3]) / 2;
+      }
+      // counting sort of the faces by octant
+      int[] starts = new int[OCTANTS + 1];
+      for (int i = from; i < to; i++) {
+         starts[octantOf(centroids, order[i], middle) + 1]++;
+      }
+      for (int o = 0; o < OCTANTS; o++) {
+         starts[o + 1] += starts[o];
+      }
+      int[] fill = starts.clone();
+      for (int i = from; i < to; i++) {
+         buffer[from + fill[octantOf(centroids, order[i], middle)]++] = order[i];
+      }
+      System.arraycopy(buffer, from, order, from, to - from);
+      for (int o = 0; o < OCTANTS; o++) {
+         if (starts[o] == starts[o + 1])
+            continue;
+         double[] octantBox = new double[6];
+         for (int axis = 0; axis < 3; axis++) {
+            boolean upper = (o & (1 << axis)) != 0;
+            octantBox[axis] = upper ? middle[axis] : box[axis];
+            octantBox[axis + 3] = upper ? box[axis + 3] : middle[axis];
+         }
+         split(faces, centroids, order, buffer, from + starts[o], from + starts[o + 1], octantBox, depth + 1,
+               maxFaceCount, cells);
+      }
+   }
+
+   private static int octantOf(double[] centroids, int face, double[] middle) {
+      int octant = 0;
+      for (int axis = 0; axis < 3; axis++) {
+         if (centroids[face * 3 + axis] >= middle[axis])
+            octant |= 1 << axis;
+      }
+      return octant;
+   }
+
+   private void addVertexChunk(Vertex vertex, Chunk chunk) {
+      List<Chunk> vertexChunks = vertexToChunks.computeIfAbsent(vertex, v -> new ArrayList<>(1));
+      if (!vertexChunks.contains(chunk))
+         vertexChunks.add(chunk);
+   }
+
+   /**
+    * Each face goes to a chunk that already has one of its vertices, or else to
+    * the chunk nearest to it.
+    */
+   public void addFaces(Collection<TriangleMeshFace> faces) {
+      Map<Chunk, List<TriangleMeshFace>> facesByChunk = new LinkedHashMap<>();
+      Map<Vertex, Chunk> newVertexChunks = new LinkedHashMap<>();
+      for (TriangleMeshFace face : new LinkedHashSet<>(faces)) {
+         if (chunkOf(face) != null)
+            throw new IllegalArgumentException("The face is already in the mesh.");
+         Chunk chunk = null;
+         for (Vertex vertex : face.getVerticesWithCreationOrdering()) {
+            List<Chunk> vertexChunks = vertexToChunks.get(vertex);
+            chunk = vertexChunks != null ? vertexChunks.get(0) : newVertexChunks.get(vertex);
+            if (chunk != null)
+               break;
+         }
+         if (chunk == null)
+            chunk = nearestChunk(face);
+         for (Vertex vertex : face.getVerticesWithCreationOrdering()) {
+            newVertexChunks.putIfAbsent(vertex, chunk);
+         }
+         facesByChunk.computeIfAbsent(chunk, c -> new ArrayList<>()).add(face);
+      }
+      for (Map.Entry<Chunk, List<TriangleMeshFace>> entry : facesByChunk.entrySet()) {
+         entry.getKey().facade.checkFacesAddition(entry.getValue()); // may throw, nothing is changed yet
+      }
+      for (Map.Entry<Chunk, List<TriangleMeshFace>> entry : facesByChunk.entrySet()) {
+         Chunk chunk = entry.getKey();
+         chunk.facade.addFaces(entry.getValue());
+         for (TriangleMeshFace face : entry.getValue()) {
+            for (Vertex vertex : face.getVerticesWithCreationOrdering()) {
+               addVertexChunk(vertex, chunk);
+            }
+         }
+         markChanged(chunk);
+      }
+   }
+
+   private Chunk nearestChunk(TriangleMeshFace face) {
+      if (chunks.isEmpty())
+         throw new IllegalArgumentException("The mesh has no chunk to add the face to.");
+      double x = 0, y = 0, z = 0;
+      for (Vertex vertex : face.getVerticesWithCreationOrdering()) {
+         x += vertex.getX() / 3;
+         y += vertex.getY() / 3;
+         z += vertex.getZ() / 3;
+      }
+      Chunk nearest = null;
+      double nearestDistance = Double.POSITIVE_INFINITY;
+      for (Chunk chunk : chunks) {
+         Bounds bounds = chunk.getBounds();
+         double dx = Math.max(0, Math.max(bounds.getMinX() - x, x - bounds.getMaxX()));
+         double dy = Math.max(0, Math.max(bounds.getMinY() - y, y - bounds.getMaxY()));
+         double dz = Math.max(0, Math.max(bounds.getMinZ() - z, z - bounds.getMaxZ()));
+         double distance = dx * dx + dy * dy + dz * dz;
+         if (distance < nearestDistance) {
+            nearest = chunk;
+            nearestDistance = distance;
+         }
+      }
+      return nearest;
+   }
+
+   /**
+    * The vertices of the faces stay in their chunks, see
+    * TriangleMeshFacade.removeFaces()
+    */
+   public void removeFaces(Collection<TriangleMeshFace> faces) {
+      Map<Chunk, List<TriangleMeshFace>> facesByChunk = new LinkedHashMap<>();
+      for (TriangleMeshFace face : new LinkedHashSet<>(faces)) {
+         Chunk chunk = chunkOf(face);
+         if (chunk == null)
+            throw new IllegalArgumentException("The face is not in the mesh.");
+         facesByChunk.computeIfAbsent(chunk, c -> new ArrayList<>()).add(face);
+      }
+      for (Map.Entry<Chunk, List<TriangleMeshFace>> entry : facesByChunk.entrySet()) {
+         entry.getKey().facade.removeFaces(entry.getValue());
+         markChanged(entry.getKey());
+      }
+   }
+
+   /**
+    * The vertex is replaced in every chunk that has it, see
+    * TriangleMeshFacade.moveVertex()
+    *
+    * @return the vertex that replaces the one moved
+    */
+   public Vertex moveVertex(Vertex vertex, Point3D coordinates) {
+      List<Chunk> vertexChunks = vertexToChunks.get(vertex);
+      if (vertexChunks == null)
+         throw new IllegalArgumentException("The vertex is not in the mesh.");
+      Vertex moved = Vertex.from(coordinates);
+      for (Chunk chunk : vertexChunks) {
+         chunk.facade.checkVertexReplacement(vertex, moved); // may throw, nothing is changed yet
+      }
+      for (Chunk chunk : vertexChunks) {
+         chunk.facade.replaceVertex(vertex, moved);
+         markChanged(chunk);
+      }
+      vertexToChunks.remove(vertex);
+      vertexToChunks.put(moved, vertexChunks);
+      return moved;
+   }
+
+   /*
+    * null if the face is in no chunk; only the chunks of its first vertex can have it
+    */
+   private Chunk chunkOf(TriangleMeshFace face) {
+      List<Chunk> vertexChunks = vertexToChunks.get(face.getVerticesWithCreationOrdering().get(0));
+      if (vertexChunks == null)
+         return null;
+      for (Chunk chunk : vertexChunks) {
+         if (chunk.facade.getFaces().contains(face))
+            return chunk;
+      }
+      return null;
+   }
+
+   private void markChanged(Chunk chunk) {
+      chunk.bounds = null;
+      chunk.dirty = true;
+      dirtyChunks.add(chunk);
+   }
+
+   public List<Chunk> getChunks() {
+      return chunks;
+   }
+
+   /**
+    * The chunks changed since the last call, which are no longer dirty
+    * afterwards
+    */
+   public List<Chunk> takeDirtyChunks() {
+      List<Chunk> taken = new ArrayList<>(dirtyChunks);
+      dirtyChunks.clear();
+      for (Chunk chunk : taken) {
+         chunk.dirty = false;
+      }
+      return taken;
+   }
+
+   /**
+    * The chunks whose bounds intersect the region, e.g. the part of the scene
+    * in view
+    */
+   public List<Chunk> chunksIntersecting(Bounds region) {
+      List<Chunk> intersecting = new ArrayList<>();
+      for (Chunk chunk : chunks) {
+         Bounds bounds = chunk.getBounds();
+         if (!bounds.isEmpty() && bounds.getMinX() <= region.getMaxX() && bounds.getMaxX() >= region.getMinX()
+               && bounds.getMinY() <= region.getMaxY() && bounds.getMaxY() >= region.getMinY()
+               && bounds.getMinZ() <= region.getMaxZ() && bounds.getMaxZ() >= region.getMinZ())
+            intersecting.add(chunk);
+      }
+      return intersecting;
+   }
+
+   /**
+    * The faces left out of the mesh because they collapsed when welding the
+    * vertices. Empty if the mesh was built without welding.
+    */
+   public List<TriangleMeshFace> getDegenerateFaces() {
+      return degenerateFaces;
+   }
+
+   /**
+    *
+    * One part of a ChunkedMesh
+    *
+    */
+   public static final class Chunk {
+
+      private final TriangleMeshFacade facade;
+      // null when it has to be computed again
+      private Bounds bounds;
+      private boolean dirty;
+
+      private Chunk(TriangleMeshFacade facade) {
+         this.facade = facade;
+      }
+
+      public TriangleMesh getMesh() {
+         return facade.toTriangleMesh();
+      }
+
+      public Set<TriangleMeshFace> getFaces() {
+         return facade.getFaces();
+      }
+
+      /**
+       * The box around the points of the mesh of the chunk
+       */
+      public Bounds getBounds() {
+         if (bounds == null)
+            bounds = boundsOf(facade.toTriangleMesh().getPoints());
+         return bounds;
+      }
+
+      /**
+       * Whether the chunk changed since the last call to
+       * ChunkedMesh.takeDirtyChunks()
+       */
+      public boolean isDirty() {
+         return dirty;
+      }
+
+      private static Bounds boundsOf(ObservableFloatArray points) {
+         if (points.size() == 0)
+            return new BoundingBox(0, 0, 0, -1, -1, -1);
+         float minX = Float.POSITIVE_INFINITY, minY = Float.POSITIVE_INFINITY, minZ = Float.POSITIVE_INFINITY;
+         float maxX = Float.NEGATIVE_INFINITY, maxY = Float.NEGATIVE_INFINITY, maxZ = Float.NEGATIVE_INFINITY;
+         for (int i = 0; i < points.size(); i += 3) {
+            float x = points.get(i), y = points.get(i + 1), z = points.get(i + 2);
+            minX = Math.min(minX, x);
+            minY = Math.min(minY, y);
+            minZ = Math.min(minZ, z);
+            maxX = Math.max(maxX, x);
+            maxY = Math.max(maxY, y);
+            maxZ = Math.max(maxZ, z);
+         }
+         return new BoundingBox(minX, minY, minZ, maxX - minX, maxY - minY, maxZ - minZ);
+      }
+   }
+}
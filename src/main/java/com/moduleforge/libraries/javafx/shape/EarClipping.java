@@ -0,0 +1,616 @@
+package com.moduleforge.libraries.javafx.shape;
+
+import java.util.Arrays;
+
+/*
+ * Ear clipping triangulation of a polygon in the plane, with holes
+ *
+ * This follows the algorithm of the earcut library by Mapbox: holes are first joined to the
+ * outer boundary through bridges, then ears are clipped from a circular doubly linked list of
+ * vertices. For polygons with many vertices the vertices are also linked in z-order, so the
+ * test of whether an ear contains other vertices only looks at those nearby. If no ear is
+ * found, collinear vertices and local self-intersections are removed and, as a last resort, the
+ * polygon is split in two along a valid diagonal.
+ *
+ * The linked list is kept in int arrays indexed by node, -1 meaning no node. Nothing is
+ * allocated per vertex, and clipping ears is a loop, so very large polygons do not grow the
+ * stack. Recursion only happens on the fallback passes.
+ *
+ * The triangles do not necessarily keep the orientation of the input.
+ */
+final class EarClipping {
+
+   private static final int NONE = -1;
+   private static final int Z_ORDER_MINIMUM_VERTEX_COUNT = 80;
+
+   private final double[] coordinates;
+   private final GrowableIntArray triangles;
+
+   // nodes
+   private int[] vertex;
+   private double[] x;
+   private double[] y;
+   private int[] prev;
+   private int[] next;
+   private int[] z;
+   private int[] prevZ;
+   private int[] nextZ;
+   private boolean[] steiner;
+   private int nodeCount;
+
+   // bounding box for the z-order, unused if inverseSize is 0
+   private double minX;
+   private double minY;
+   private double inverseSize;
+
+   private EarClipping(double[] coordinates, int vertexCount, GrowableIntArray triangles) {
+      this.coordinates = coordinates;
+      this.triangles = triangles;
+      int capacity = vertexCount + 16;
+      vertex = new int[capacity];
+      x = new double[capacity];
+      y = new double[capacity];
+      prev = new int[capacity];
+      next = new int[capacity];
+      z = new int[capacity];
+      prevZ = new int[capacity];
+      nextZ = new int[capacity];
+      steiner = new boolean[capacity];
+   }
+
+   /*
+    * The coordinates are x and y of each vertex, first those of the outer boundary and then
+    * those of each hole. holeStarts are the indices of the first vertex of each hole.
+    *
+    * Triples of vertex indices are appended to the triangles.
+    */
+   static void triangulate(double[] coordinates, int[] holeStarts, GrowableIntArray triangles) {
+      int vertexCount = coordinates.length / 2;
+      EarClipping clipping = new EarClipping(coordinates, vertexCount, triangles);
+      clipping.run(vertexCount, holeStarts);
+   }
+
+   private void run(int vertexCount, int[] holeStarts) {
+      boolean hasHoles = holeStarts.length > 0;
+      int outerLength = hasHoles ? holeStarts[0] : vertexCount;
+      int outerNode = linkedList(0, outerLength, true);
+      if (outerNode == NONE || next[outerNode] == prev[outerNode])
+         return;
+      if (hasHoles)
+         outerNode = eliminateHoles(holeStarts, vertexCount, outerNode);
+
+      if (vertexCount > Z_ORDER_MINIMUM_VERTEX_COUNT) {
+         double minimumX = coordinates[0];
+         double minimumY = coordinates[1];
+         double maximumX = minimumX;
+         double maximumY = minimumY;
+         for (int i = 1; i < outerLength; i++) {
+            double px = coordinates[2 * i];
+            double py = coordinates[2 * i + 1];
+            minimumX = Math.min(minimumX, px);
+            minimumY = Math.min(minimumY, py);
+            maximumX = Math.max(maximumX, px);
+            maximumY = Math.max(maximumY, py);
+         }
+         double size = Math.max(maximumX - minimumX, maximumY - minimumY);
+         minX = minimumX;
+         minY = minimumY;
+         inverseSize = size != 0 ? 32767 / size : 0;
+      }
+      earcutLinked(outerNode, 0);
+   }
+
+   /*
+    * circular list of the vertices in [start, end) with the given orientation
+    */
+   private int linkedList(int start, int end, boolean clockwise) {
+      int last = NONE;
+      if (clockwise == (signedArea(start, end) > 0)) {
+         for (int i = start; i < end; i++)
+            last = insertNode(i, last);
+      } else {
+         for (int i = end - 1; i >= start; i--)
+            last = insertNode(i, last);
+      }
+      if (last != NONE && equals(last, next[last])) {
+         removeNode(last);
+         last = next[last];
+      }
+      return last;
+   }
+
+   private double signedArea(int start, int end) {
+      double sum = 0;
+      for (int i = start, j = end - 1; i < end; j = i, i++) {
+         sum += (coordinates[2 * j] - coordinates[2 * i]) * (coordinates[2 * i + 1] + coordinates[2 * j + 1]);
+      }
+      return sum;
+   }
+
+   /*
+    * removes duplicate and collinear vertices between start and end
+    */
+   private int filterPoints(int start, int end) {
+      if (start == NONE)
+         return start;
+      if (end == NONE)
+         end = start;
+      int p = start;
+      boolean again;
+      do {
+         again = false;
+         if (!steiner[p] && (equals(p, next[p]) || area(prev[p], p, next[p]) == 0)) {
+            removeNode(p);
+            p = end = prev[p];
+            if (p == next[p])
+               break;
+            again = true;
+         } else {
+            p = next[p];
+         }
+      } while (again || p != end);
+      return end;
+   }
+
+   private void earcutLinked(int ear, int pass) {
+      if (ear == NONE)
+         return;
+      if (pass == 0 && inverseSize != 0)
+         indexCurve(ear);
+
+      int stop = ear;
+      while (prev[ear] != next[ear]) {
+         int previous = prev[ear];
+         int following = next[ear];
+         if (inverseSize != 0 ? isEarHashed(ear) : isEar(ear)) {
+            triangles.add(vertex[previous]);
+            triangles.add(vertex[ear]);
+            triangles.add(vertex[following]);
+            removeNode(ear);
+            // skipping the next vertex leads to less sliver triangles
+            ear = next[following];
+            stop = next[following];
+            continue;
+         }
+         ear = following;
+         if (ear == stop) {
+            if (pass == 0) {
+               earcutLinked(filterPoints(ear, NONE), 1);
+            } else if (pass == 1) {
+               ear = cureLocalIntersections(filterPoints(ear, NONE));
+               earcutLinked(ear, 2);
+            } else {
+               splitEarcut(ear);
+            }
+            break;
+         }
+      }
+   }
+
+   private boolean isEar(int ear) {
+      int a = prev[ear];
+      int b = ear;
+      int c = next[ear];
+      if (area(a, b, c) >= 0)
+         return false; // reflex
+
+      double x0 = Math.min(x[a], Math.min(x[b], x[c]));
+      double y0 = Math.min(y[a], Math.min(y[b], y[c]));
+      double x1 = Math.max(x[a], Math.max(x[b], x[c]));
+      double y1 = Math.max(y[a], Math.max(y[b], y[c]));
+
+      int p = next[c];
+      while (p != a) {
+         if (x[p] >= x0 && x[p] <= x1 && y[p] >= y0 && y[p] <= y1
+               && pointInTriangle(x[a], y[a], x[b], y[b], x[c], y[c], x[p], y[p])
+               && area(prev[p], p, next[p]) >= 0)
+            return false;
+         p = next[p];
+      }
+      return true;
+   }
+
+   private boolean isEarHashed(int ear) {
+      int a = prev[ear];
+      int b = ear;
+      int c = next[ear];
+      if (area(a, b, c) >= 0)
+         return false;
+
+      double x0 = Math.min(x[a], Math.min(x[b], x[c]));
+      double y0 = Math.min(y[a], Math.min(y[b], y[c]));
+      double x1 = Math.max(x[a], Math.max(x[b], x[c]));
+      double y1 = Math.max(y[a], Math.max(y[b], y[c]));
+      int minZ = zOrder(x0, y0);
+      int maxZ = zOrder(x1, y1);
+
+      int p = prevZ[ear];
+      int n = nextZ[ear];
+      while (p != NONE && z[p] >= minZ && n != NONE && z[n] <= maxZ) {
+         if (blocksEar(p, a, b, c, x0, y0, x1, y1))
+            return false;
+         p = prevZ[p];
+         if (blocksEar(n, a, b, c, x0, y0, x1, y1))
+            return false;
+         n = nextZ[n];
+      }
+      while (p != NONE && z[p] >= minZ) {
+         if (blocksEar(p, a, b, c, x0, y0, x1, y1))
+            return false;
+         p = prevZ[p];
+      }
+      while (n != NONE && z[n] <= maxZ) {
+         if (blocksEar(n, a, b, c, x0, y0, x1, y1))
+            return false;
+         n = nextZ[n];
+      }
+      return true;
+   }
+
+   private boolean blocksEar(int p, int a, int b, int c, double x0, double y0, double x1, double y1) {
+      return x[p] >= x0 && x[p] <= x1 && y[p] >= y0 && y[p] <= y1 && p != a && p != c
+            && pointInTriangle(x[a], y[a], x[b], y[b], x[c], y[c], x[p], y[p]) && area(prev[p], p, next[p]) >= 0;
+   }
+
+   private int cureLocalIntersections(int start) {
+      int p = start;
+      do {
+         int a = prev[p];
+         int b = next[next[p]];
+         if (!equals(a, b) && intersects(a, p, next[p], b) && locallyInside(a, b) && locallyInside(b, a)) {
+            triangles.add(vertex[a]);
+            triangles.add(vertex[p]);
+            triangles.add(vertex[b]);
+            removeNode(p);
+            removeNode(next[p]);
+            p = start = b;
+         }
+         p = next[p];
+      } while (p != start);
+      return filterPoints(p, NONE);
+   }
+
+   private void splitEarcut(int start) {
+      int a = start;
+      do {
+         int b = next[next[a]];
+         while (b != prev[a]) {
+            if (vertex[a] != vertex[b] && isValidDiagonal(a, b)) {
+               int c = splitPolygon(a, b);
+               a = filterPoints(a, next[a]);
+               c = filterPoints(c, next[c]);
+               earcutLinked(a, 0);
+               earcutLinked(c, 0);
+               return;
+            }
+            b = next[b];
+         }
+         a = next[a];
+      } while (a != start);
+   }
+
+   private int eliminateHoles(int[] holeStarts, int vertexCount, int outerNode) {
+      Integer[] queue = new Integer[holeStarts.length];
+      int queueSize = 0;
+      for (int i = 0; i < holeStarts.length; i++) {
+         int start = holeStarts[i];
+         int end = i < holeStarts.length - 1 ? holeStarts[i + 1] : vertexCount;
+         int list = linkedList(start, end, false);
+         if (list == NONE)
+            continue;
+         if (list == next[list])
+            steiner[list] = true;
+         queue[queueSize++] = getLeftmost(list);
+      }
+      // holes are joined from left to right
+      Arrays.sort(queue, 0, queueSize, (first, second) -> Double.compare(x[first], x[second]));
+      for (int i = 0; i < queueSize; i++) {
+         outerNode = eliminateHole(queue[i], outerNode);
+      }
+      return outerNode;
+   }
+
+   private int eliminateHole(int hole, int outerNode) {
+      int bridge = findHoleBridge(hole, outerNode);
+      if (bridge == NONE)
+         return outerNode;
+      int bridgeReverse = splitPolygon(bridge, hole);
+      filterPoints(bridgeReverse, next[bridgeReverse]);
+      return filterPoints(bridge, next[bridge]);
+   }
+
+   /*
+    * vertex of the outer polygon that can be joined with the leftmost vertex of the hole
+    */
+   private int findHoleBridge(int hole, int outerNode) {
+      int p = outerNode;
+      double hx = x[hole];
+      double hy = y[hole];
+      double qx = Double.NEGATIVE_INFINITY;
+      int m = NONE;
+
+      // find a segment intersected by a ray from the hole's leftmost point to the left
+      do {
+         int n = next[p];
+         if (hy <= y[p] && hy >= y[n] && y[n] != y[p]) {
+            double ix = x[p] + (hy - y[p]) * (x[n] - x[p]) / (y[n] - y[p]);
+            if (ix <= hx && ix > qx) {
+               qx = ix;
+               m = x[p] < x[n] ? p : n;
+               if (ix == hx)
+                  return m; // the hole touches the outer segment
+            }
+         }
+         p = n;
+      } while (p != outerNode);
+
+      if (m == NONE)
+         return NONE;
+
+      // look for points inside the triangle of hole point, segment intersection and endpoint;
+      // if there are none, the endpoint is the bridge, otherwise use the point of minimum angle
+      int stop = m;
+      double mx = x[m];
+      double my = y[m];
+      double tanMin = Double.POSITIVE_INFINITY;
+      p = m;
+      do {
+         if (hx >= x[p] && x[p] >= mx && hx != x[p]
+               && pointInTriangle(hy < my ? hx : qx, hy, mx, my, hy < my ? qx : hx, hy, x[p], y[p])) {
+            double tan = Math.abs(hy - y[p]) / (hx - x[p]);
+            if (locallyInside(p, hole) && (tan < tanMin
+                  || (tan == tanMin && (x[p] > x[m] || (x[p] == x[m] && sectorContainsSector(m, p)))))) {
+               m = p;
+               tanMin = tan;
+            }
+         }
+         p = next[p];
+      } while (p != stop);
+      return m;
+   }
+
+   private boolean sectorContainsSector(int m, int p) {
+      return area(prev[m], m, prev[p]) < 0 && area(next[p], m, next[m]) < 0;
+   }
+
+   private void indexCurve(int start) {
+      int p = start;
+      do {
+         if (z[p] == 0)
+            z[p] = zOrder(x[p], y[p]);
+         prevZ[p] = prev[p];
+         nextZ[p] = next[p];
+         p = next[p];
+      } while (p != start);
+      nextZ[prevZ[p]] = NONE;
+      prevZ[p] = NONE;
+      sortLinked(p);
+   }
+
+   /*
+    * bottom-up merge sort of the z-order list
+    */
+   private int sortLinked(int list) {
+      int inSize = 1;
+      int numMerges;
+      do {
+         int p = list;
+         list = NONE;
+         int tail = NONE;
+         numMerges = 0;
+         while (p != NONE) {
+            numMerges++;
+            int q = p;
+            int pSize = 0;
+            for (int i = 0; i < inSize; i++) {
+               pSize++;
+               q = nextZ[q];
+               if (q == NONE)
+                  break;
+            }
+            int qSize = inSize;
+            while (pSize > 0 || (qSize > 0 && q != NONE)) {
+               int e;
+               if (pSize != 0 && (qSize == 0 || q == NONE || z[p] <= z[q])) {
+                  e = p;
+                  p = nextZ[p];
+                  pSize--;
+               } else {
+                  e = q;
+                  q = nextZ[q];
+                  qSize--;
+               }
+               if (tail != NONE)
+                  nextZ[tail] = e;
+               else
+                  list = e;
+               prevZ[e] = tail;
+               tail = e;
+            }
+            p = q;
+         }
+         nextZ[tail] = NONE;
+         inSize *= 2;
+      } while (numMerges > 1);
+      return list;
+   }
+
+   private int zOrder(double px, double py) {
+      int ix = (int) ((px - minX) * inverseSize);
+      int iy = (int) ((py - minY) * inverseSize);
+      ix = (ix | (ix << 8)) & 0x00FF00FF;
+      ix = (ix | (ix << 4)) & 0x0F0F0F0F;
+      ix = (ix | (ix << 2)) & 0x33333333;
+      ix = (ix | (ix << 1)) & 0x55555555;
+      iy = (iy | (iy << 8)) & 0x00FF00FF;
+      iy = (iy | (iy << 4)) & 0x0F0F0F0F;
+      iy = (iy | (iy << 2)) & 0x33333333;
+      iy = (iy | (iy << 1)) & 0x55555555;
+      return ix | (iy << 1);
+   }
+
+   private int getLeftmost(int start) {
+      int p = start;
+      int leftmost = start;
+      do {
+         if (x[p] < x[leftmost] || (x[p] == x[leftmost] && y[p] < y[leftmost]))
+            leftmost = p;
+         p = next[p];
+      } while (p != start);
+      return leftmost;
+   }
+
+   private static boolean pointInTriangle(double ax, double ay, double bx, double by, double cx, double cy,
+         double px, double py) {
+      return (cx - px) * (ay - py) >= (ax - px) * (cy - py) && (ax - px) * (by - py) >= (bx - px) * (ay - py)
+            && (bx - px) * (cy - py) >= (cx - px) * (by - py);
+   }
+
+   private boolean isValidDiagonal(int a, int b) {
+      return vertex[next[a]] != vertex[b] && vertex[prev[a]] != vertex[b] && !intersectsPolygon(a, b)
+            && (locallyInside(a, b) && locallyInside(b, a) && middleInside(a, b)
+                  && (area(prev[a], a, prev[b]) != 0 || area(a, prev[b], b) != 0)
+                  || equals(a, b) && area(prev[a], a, next[a]) > 0 && area(prev[b], b, next[b]) > 0);
+   }
+
+   private double area(int p, int q, int r) {
+      return (y[q] - y[p]) * (x[r] - x[q]) - (x[q] - x[p]) * (y[r] - y[q]);
+   }
+
+   private boolean equals(int p, int q) {
+      return x[p] == x[q] && y[p] == y[q];
+   }
+
+   private boolean intersects(int p1, int q1, int p2, int q2) {
+      int o1 = sign(area(p1, q1, p2));
+      int o2 = sign(area(p1, q1, q2));
+      int o3 = sign(area(p2, q2, p1));
+      int o4 = sign(area(p2, q2, q1));
+      if (o1 != o2 && o3 != o4)
+         return true;
+      if (o1 == 0 && onSegment(p1, p2, q1))
+         return true;
+      if (o2 == 0 && onSegment(p1, q2, q1))
+         return true;
+      if (o3 == 0 && onSegment(p2, p1, q2))
+         return true;
+      return o4 == 0 && onSegment(p2, q1, q2);
+   }
+
+   private boolean onSegment(int p, int q, int r) {
+      return x[q] <= Math.max(x[p], x[r]) && x[q] >= Math.min(x[p], x[r]) && y[q] <= Math.max(y[p], y[r])
+            && y[q] >= Math.min(y[p], y[r]);
+   }
+
+   private static int sign(double value) {
+      return value > 0 ? 1 : value < 0 ? -1 : 0;
+   }
+
+   private boolean intersectsPolygon(int a, int b) {
+      int p = a;
+      do {
+         int n = next[p];
+         if (vertex[p] != vertex[a] && vertex[n] != vertex[a] && vertex[p] != vertex[b] && vertex[n] != vertex[b]
+               && intersects(p, n, a, b))
+            return true;
+         p = n;
+      } while (p != a);
+      return false;
+   }
+
+   private boolean locallyInside(int a, int b) {
+      return area(prev[a], a, next[a]) < 0 ? area(a, b, next[a]) >= 0 && area(a, prev[a], b) >= 0
+            : area(a, b, prev[a]) < 0 || area(a, next[a], b) < 0;
+   }
+
+   private boolean middleInside(int a, int b) {
+      int p = a;
+      boolean inside = false;
+      double px = (x[a] + x[b]) / 2;
+      double py = (y[a] + y[b]) / 2;
+      do {
+         int n = next[p];
+         if (((y[p] > py) != (y[n] > py)) && y[n] != y[p] && (px < (x[n] - x[p]) * (py - y[p]) / (y[n] - y[p]) + x[p]))
+            inside = !inside;
+         p = n;
+      } while (p != a);
+      return inside;
+   }
+
+   /*
+    * links a and b with a diagonal; if they are in the same polygon it is split in two, if one
+    * is in the outer polygon and the other in a hole, the hole becomes part of the polygon
+    */
+   private int splitPolygon(int a, int b) {
+      int a2 = newNode(vertex[a]);
+      int b2 = newNode(vertex[b]);
+      int an = next[a];
+      int bp = prev[b];
+
+      next[a] = b;
+      prev[b] = a;
+
+      next[a2] = an;
+      prev[an] = a2;
+
+      next[b2] = a2;
+      prev[a2] = b2;
+
+      next[bp] = b2;
+      prev[b2] = bp;
+
+      return b2;
+   }
+
+   private int insertNode(int vertexIndex, int last) {
+      int p = newNode(vertexIndex);
+      if (last == NONE) {
+         prev[p] = p;
+         next[p] = p;
+      } else {
+         next[p] = next[last];
+         prev[p] = last;
+         prev[next[last]] = p;
+         next[last] = p;
+      }
+      return p;
+   }
+
+   private void removeNode(int p) {
+      prev[next[p]] = prev[p];
+      next[prev[p]] = next[p];
+      if (prevZ[p] != NONE)
+         nextZ[prevZ[p]] = nextZ[p];
+      if (nextZ[p] != NONE)
+         prevZ[nextZ[p]] = prevZ[p];
+   }
+
+   private int newNode(int vertexIndex) {
+      if (nodeCount == vertex.length)
+         growNodes();
+      int node = nodeCount++;
+      vertex[node] = vertexIndex;
+      x[node] = coordinates[2 * vertexIndex];
+      y[node] = coordinates[2 * vertexIndex + 1];
+      prev[node] = NONE;
+      next[node] = NONE;
+      z[node] = 0;
+      prevZ[node] = NONE;
+      nextZ[node] = NONE;
+      steiner[node] = false;
+      return node;
+   }
+
+   private void growNodes() {
+      int capacity = vertex.length * 2;
+      vertex = Arrays.copyOf(vertex, capacity);
+      x = Arrays.copyOf(x, capacity);
+      y = Arrays.copyOf(y, capacity);
+      prev = Arrays.copyOf(prev, capacity);
+      next = Arrays.copyOf(next, capacity);
+      z = Arrays.copyOf(z, capacity);
+      prevZ = Arrays.copyOf(prevZ, capacity);
+      nextZ = Arrays.copyOf(nextZ, capacity);
+      steiner = Arrays.copyOf(steiner, capacity);
+   }
+}
@@ -0,0 +1,78 @@
+package com.moduleforge.libraries.javafx.shape;
+
+import java.util.Arrays;
+
+/*
+ * A float[] that grows as elements are appended, so that meshes can be put together without
+ * boxing every coordinate
+ * 
+ * The backing array is exposed on purpose: it is meant to be handed over in one go to the
+ * observable arrays of a TriangleMesh together with the size 
+ */
+final class GrowableFloatArray {
+
+   private static final int DEFAULT_CAPACITY = 16;
+
+   private float[] elements;
+   private int size;
+
+   GrowableFloatArray() {
+      this(DEFAULT_CAPACITY);
+   }
+
+   GrowableFloatArray(int initialCapacity) {
+      elements = new float[Math.max(initialCapacity, DEFAULT_CAPACITY)];
+   }
+
+   void add(float value) {
+      ensureCapacity(size + 1);
+      elements[size++] = value;
+   }
+
+   void add(float first, float second) {
+      ensureCapacity(size + 2);
+      elements[size++] = first;
+      elements[size++] = second;
+   }
+
+   void add(float first, float second, float third) {
+      ensureCapacity(size + 3);
+      elements[size++] = first;
+      elements[size++] = second;
+      elements[size++] = third;
+   }
+
+   float get(int index) {
+      return elements[index];
+   }
+
+   void set(int index, float value) {
+      elements[index] = value;
+   }
+
+   int size() {
+      return size;
+   }
+
+   void clear() {
+      size = 0;
+   }
+
+   /*
+    * the backing array, only the first size() elements are meaningful
+    */
+   float[] elements() {
+      return elements;
+   }
+
+   float[] toArray() {
+      return Arrays.copyOf(elements, size);
+   }
+
+   void ensureCapacity(int capacity) {
+      if (capacity <= elements.length)
+         return;
+      int newCapacity = Math.max(capacity, elements.length + (elements.length >> 1));
+      elements = Arrays.copyOf(elements, newCapacity);
+   }
+}
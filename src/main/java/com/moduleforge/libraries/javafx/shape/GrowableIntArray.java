@@ -0,0 +1,87 @@
+package com.moduleforge.libraries.javafx.shape;
+
+import java.util.Arrays;
+
+/*
+ * An int[] that grows as elements are appended, so that meshes can be put together without
+ * boxing every index
+ * 
+ * The backing array is exposed on purpose: it is meant to be handed over in one go to the
+ * observable arrays of a TriangleMesh together with the size 
+ */
+final class GrowableIntArray {
+
+   private static final int DEFAULT_CAPACITY = 16;
+
+   private int[] elements;
+   private int size;
+
+   GrowableIntArray() {
+      this(DEFAULT_CAPACITY);
+   }
+
+   GrowableIntArray(int initialCapacity) {
+      elements = new int[Math.max(initialCapacity, DEFAULT_CAPACITY)];
+   }
+
+   void add(int value) {
+      ensureCapacity(size + 1);
+      elements[size++] = value;
+   }
+
+   void add(int first, int second) {
+      ensureCapacity(size + 2);
+      elements[size++] = first;
+      elements[size++] = second;
+   }
+
+   void add(int first, int second, int third) {
+      ensureCapacity(size + 3);
+      elements[size++] = first;
+      elements[size++] = second;
+      elements[size++] = third;
+   }
+
+   int get(int index) {
+      return elements[index];
+   }
+
+   void set(int index, int value) {
+      elements[index] = value;
+   }
+
+   int size() {
+      return size;
+   }
+
+   void clear() {
+      size = 0;
+   }
+
+   /*
+    * drops the elements from the given size on
+    */
+   void truncate(int newSize) {
+      if (newSize < 0 || newSize > size)
+         throw new IndexOutOfBoundsException();
+      size = newSize;
+   }
+
+   /*
+    * the backing array, only the first size() elements are meaningful
+    */
+   int[] elements() {
+      return elements;
+   }
+
+   int[] toArray() {
+      return Arrays.copyOf(elements, size);
+   }
+
+   void ensureCapacity(int capacity) {
+      if (capacity <= elements.length)
+         return;
+      int newCapacity = Math.max(capacity, elements.length + (elements.length >> 1));
+      elements = Arrays.copyOf(elements, newCapacity);
+   }
+}
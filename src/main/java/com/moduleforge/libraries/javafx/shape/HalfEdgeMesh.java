@@ -0,0 +1,259 @@
+package com.moduleforge.libraries.javafx.shape;
+
+import java.util.Arrays;
+
+import javafx.scene.shape.TriangleMesh;
+
+/**
+ *
+ * The connectivity of the faces of a mesh, for constant time adjacency queries
+ *
+ * Each face has three half edges, one per side, that go around it in the order
+ * of its vertices: half edge 3f + k goes from vertex k of face f to vertex k + 1.
+ * The next and previous half edges of a face follow from that numbering, so
+ * only the twin of each half edge, the one on the other side of the same edge,
+ * and an outgoing half edge of each vertex are stored, in int arrays.
+ *
+ * Faces and vertices are referred to by their index in the TriangleMesh. An
+ * edge with a single face has no twin and is a boundary edge. An edge that is
+ * in more than two faces, or in two faces that go along it in the same
+ * direction, is a non manifold edge and has no twin either.
+ *
+ * It is built in time linear in the number of faces, and does not change when
+ * the mesh does.
+ *
+ */
+public final class HalfEdgeMesh {
+
+   /**
+    * The twin of a boundary half edge
+    */
+   public static final int BOUNDARY = -1;
+
+   /**
+    * The twin of a non manifold half edge
+    */
+   public static final int NON_MANIFOLD = -2;
+
+   private static final int CORNERS = TriangleMeshFaceWrapper.TRIANGLE_VERTEX_COUNT;
+   private static final int[] NONE = new int[0];
+
+   private final int[] origins;
+   private final int[] twins;
+   private final int[] outgoing;
+   private int boundaryCount;
+   private int nonManifoldCount;
+
+   private HalfEdgeMesh(int[] origins, int vertexCount) {
+      this.origins = origins;
+      twins = new int[origins.length];
+      outgoing = new int[vertexCount];
+   }
+
+   public static HalfEdgeMesh from(TriangleMesh mesh) {
+      return from(mesh.getFaces().toArray(null), mesh.getFaceElementSize(), mesh.getPoints().size() / 3);
+   }
+
+   /*
+    * faces in the layout of MeshNormals
+    */
+   static HalfEdgeMesh from(int[] faces, int faceStride, int vertexCount) {
+      int faceCount = faces.length / faceStride;
+      int vertexStride = faceStride / CORNERS;
+      int[] origins = new int[faceCount * CORNERS];
+      for (int f = 0; f < faceCount; f++) {
+         for (int k = 0; k < CORNERS; k++) {
+            origins[f * CORNERS + k] = faces[f * faceStride + k * vertexStride];
+         }
+      }
+      HalfEdgeMesh mesh = new HalfEdgeMesh(origins, vertexCount);
+      mesh.connect();
+      return mesh;
+   }
+
+   private void connect() {
+      Arrays.fill(twins, BOUNDARY);
+      Arrays.fill(outgoing, -1);
+      // first half edge found along each edge, in either direction
+      LongIntHashMap firstOfEdge = new LongIntHashMap(origins.length);
+      for (int h = 0; h < origins.length; h++) {
+         int from = origins[h];
+         int to = target(h);
+         int first = firstOfEdge.putIfAbsent(edgeKey(from, to), h);
+         if (first == h)
+            continue;
+         if (twins[first] == BOUNDARY && origins[first] == to) {
+            twins[first] = h;
+            twins[h] = first;
+         } else {
+            if (twins[first] >= 0)
+               twins[twins[first]] = NON_MANIFOLD;
+            twins[first] = NON_MANIFOLD;
+            twins[h] = NON_MANIFOLD;
+         }
+      }
+      for (int h = 0; h < origins.length; h++) {
+         int vertex = origins[h];
+         // a boundary half edge is preferred, the walk around the vertex starts from it
+         if (outgoing[vertex] < 0 || twins[h] == BOUNDARY)
+            outgoing[vertex] = h;
+         if (twins[h] == BOUNDARY)
+            boundaryCount++;
+         else if (twins[h] == NON_MANIFOLD)
+            nonManifoldCount++;
+      }
+   }
+
+   private static long edgeKey(int a, int b) {
+      int low = Math.min(a, b);
+      int high = Math.max(a, b);
+      return ((long) low << 32) | (high & 0xFFFFFFFFL);
+   }
+
+   public int getFaceCount() {
+      return origins.length / CORNERS;
+   }
+
+   public int getVertexCount() {
+      return outgoing.length;
+   }
+
+   public int getHalfEdgeCount() {
+      return origins.length;
+   }
+
+   public int face(int halfEdge) {
+      return halfEdge / CORNERS;
+   }
+
+   public int origin(int halfEdge) {
+      return origins[halfEdge];
+   }
+
+   public int target(int halfEdge) {
+      return origins[next(halfEdge)];
+   }
+
+   public int next(int halfEdge) {
+      return halfEdge % CORNERS == CORNERS - 1 ? halfEdge - CORNERS + 1 : halfEdge + 1;
+   }
+
+   public int previous(int halfEdge) {
+      return halfEdge % CORNERS == 0 ? halfEdge + CORNERS - 1 : halfEdge - 1;
+   }
+
+   /**
+    * @return the half edge on the other side of the edge, BOUNDARY or
+    *         NON_MANIFOLD
+    */
+   public int twin(int halfEdge) {
+      return twins[halfEdge];
+   }
+
+   /**
+    * @return a half edge that starts at the vertex, a boundary one if there is
+    *         any; -1 if the vertex is in no face
+    */
+   public int outgoing(int vertex) {
+      return outgoing[vertex];
+   }
+
+   public boolean isBoundary(int halfEdge) {
+      return twins[halfEdge] == BOUNDARY;
+   }
+
+   public boolean isNonManifold(int halfEdge) {
+      return twins[halfEdge] == NON_MANIFOLD;
+   }
+
+   /**
+    * The face on the other side of side k (from vertex k to vertex k + 1) of
+    * the face, -1 if there is none
+    */
+   public int adjacentFace(int face, int side) {
+      int twin = twins[face * CORNERS + side];
+      return twin < 0 ? -1 : twin / CORNERS;
+   }
+
+   /**
+    * Whether every edge is in exactly two faces, so the mesh encloses a volume
+    */
+   public boolean isClosed() {
+      return boundaryCount == 0 && nonManifoldCount == 0;
+   }
+
+   public boolean isManifold() {
+      return nonManifoldCount == 0;
+   }
+
+   public int[] boundaryHalfEdges() {
+      return halfEdgesWithTwin(BOUNDARY, boundaryCount);
+   }
+
+   public int[] nonManifoldHalfEdges() {
+      return halfEdgesWithTwin(NON_MANIFOLD, nonManifoldCount);
+   }
+
+   private int[] halfEdgesWithTwin(int twin, int count) {
+      int[] halfEdges = new int[count];
+      int index = 0;
+      for (int h = 0; h < twins.length && index < count; h++) {
+         if (twins[h] == twin)
+            halfEdges[index++] = h;
+      }
+      return halfEdges;
+   }
+
+   /**
+    * The faces around the vertex, in order. At a vertex where the faces around
+    * it do not form a single fan, e.g. one with a non manifold edge, only the
+    * fan of its outgoing half edge is given.
+    */
+   public int[] facesAround(int vertex) {
+      int[] halfEdges = outgoingHalfEdges(vertex);
+      for (int i = 0; i < halfEdges.length; i++) {
+         halfEdges[i] = halfEdges[i] / CORNERS;
+      }
+      return halfEdges;
+   }
+
+   /**
+    * The vertices joined to the vertex by an edge, in order, with the same
+    * limits as facesAround()
+    */
+   public int[] verticesAround(int vertex) {
+      int[] halfEdges = outgoingHalfEdges(vertex);
+      if (halfEdges.length == 0)
+         return halfEdges;
+      int last = halfEdges[halfEdges.length - 1];
+      boolean open = twins[previous(last)] < 0;
+      int[] vertices = Arrays.copyOf(halfEdges, halfEdges.length + (open ? 1 : 0));
+      for (int i = 0; i < halfEdges.length; i++) {
+         vertices[i] = target(halfEdges[i]);
+      }
+      // on the boundary, the last neighbour is only reached through the previous half edge
+      if (open)
+         vertices[halfEdges.length] = origins[previous(last)];
+      return vertices;
+   }
+
+   /*
+    * the half edges that start at the vertex, turning from the outgoing one; when it is on the
+    * boundary no face comes before it, so the turn covers the whole fan
+    */
+   private int[] outgoingHalfEdges(int vertex) {
+      int start = outgoing[vertex];
+      if (start < 0)
+         return NONE;
+      GrowableIntArray halfEdges = new GrowableIntArray(8);
+      int h = start;
+      do {
+         halfEdges.add(h);
+         int twin = twins[previous(h)];
+         if (twin < 0)
+            break;
+         h = twin;
+      } while (h != start);
+      return halfEdges.toArray();
+   }
+}
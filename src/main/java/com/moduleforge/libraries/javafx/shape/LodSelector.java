@@ -0,0 +1,128 @@
+package com.moduleforge.libraries.javafx.shape;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.google.common.base.Preconditions;
+
+import javafx.geometry.Point3D;
+import javafx.scene.PerspectiveCamera;
+import javafx.scene.shape.MeshView;
+import javafx.scene.shape.TriangleMesh;
+
+/**
+ *
+ * Picks the level of detail of a mesh by the size it takes on screen
+ *
+ * The size on screen is that of the bounding sphere of the finest level, in
+ * pixels, as seen from a perspective camera. Each level but the last has the
+ * smallest size at which it is still used; below the size of all of them the
+ * last, coarsest level is used.
+ *
+ * A selector only holds the levels, so the same one can be used for every
+ * MeshView that shows the mesh.
+ *
+ */
+public final class LodSelector {
+
+   private final List<TriangleMesh> levels;
+   private final double[] minimumSizes;
+   private final Point3D center;
+   private final double radius;
+
+   private LodSelector(List<TriangleMesh> levels, double[] minimumSizes) {
+      this.levels = levels;
+      this.minimumSizes = minimumSizes;
+      float[] points = levels.get(0).getPoints().toArray(null);
+      int pointsLength = levels.get(0).getPoints().size();
+      double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY, minZ = Double.POSITIVE_INFINITY;
+      double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY, maxZ = Double.NEGATIVE_INFINITY;
+      for (int i = 0; i < pointsLength; i += 3) {
+         minX = Math.min(minX, points[i]);
+         minY = Math.min(minY, points[i + 1]);
+         minZ = Math.min(minZ, points[i + 2]);
+         maxX = Math.max(maxX, points[i]);
+         maxY = Math.max(maxY, points[i + 1]);
+         maxZ = Math.max(maxZ, points[i + 2]);
+      }
+      if (pointsLength == 0) {
+         center = Point3D.ZERO;
+         radius = 0;
+         return;
+      }
+      center = new Point3D((minX + maxX) / 2, (minY + maxY) / 2, (minZ + maxZ) / 2);
+      double maxDistanceSquared = 0;
+      for (int i = 0; i < pointsLength; i += 3) {
+         double dx = points[i] - center.getX(), dy = points[i + 1] - center.getY(), dz = points[i + 2] - center.getZ();
+         maxDistanceSquared = Math.max(maxDistanceSquared, dx * dx + dy * dy + dz * dz);
+      }
+      radius = Math.sqrt(maxDistanceSquared);
+   }
+
+   /**
+    * @param levels
+    *           from the finest to the coarsest, as given by
+    *           MeshDecimator.lodChain()
+    * @param minimumSizes
+    *           the smallest size on screen, in pixels, of each level but the
+    *           last, decreasing
+    */
+   public static LodSelector from(List<TriangleMesh> levels, double... minimumSizes) {
+      Preconditions.checkNotNull(levels);
+      if (levels.isEmpty())
+         throw new IllegalArgumentException("At least one level is needed.");
+      if (minimumSizes.length != levels.size() - 1)
+         throw new IllegalArgumentException("There must be a minimum size for each level but the last.");
+      for (int i = 0; i < minimumSizes.length; i++) {
+         if (!(minimumSizes[i] >= 0) || (i > 0 && !(minimumSizes[i] < minimumSizes[i - 1])))
+            throw new IllegalArgumentException("The minimum sizes must be decreasing and not negative.");
+      }
+      return new LodSelector(Collections.unmodifiableList(new ArrayList<>(levels)), minimumSizes.clone());
+   }
+
+   public List<TriangleMesh> getLevels() {
+      return levels;
+   }
+
+   public TriangleMesh select(double size) {
+      for (int i = 0; i < minimumSizes.length; i++) {
+         if (size >= minimumSizes[i])
+            return levels.get(i);
+      }
+      return levels.get(levels.size() - 1);
+   }
+
+   /**
+    * The diameter in pixels of the bounding sphere of the mesh shown in the
+    * view. Infinite if the camera is inside the sphere. The scale of the view is
+    * taken as uniform.
+    *
+    * @param viewportSize
+    *           the height of the viewport in pixels, or its width if the field of
+    *           view of the camera is horizontal
+    */
+   public double sizeOnScreen(MeshView view, PerspectiveCamera camera, double viewportSize) {
+      Point3D sceneCenter = view.localToScene(center);
+      double sceneRadius = sceneCenter.distance(view.localToScene(center.getX() + radius, center.getY(), center.getZ()));
+      double distance = sceneCenter.distance(camera.localToScene(Point3D.ZERO));
+      if (distance <= sceneRadius)
+         return Double.POSITIVE_INFINITY;
+      double halfFieldOfView = Math.toRadians(camera.getFieldOfView()) / 2;
+      return sceneRadius * viewportSize / (distance * Math.tan(halfFieldOfView));
+   }
+
+   /**
+    * Sets the level for the current size on screen as the mesh of the view. The
+    * view is only changed if the level is not already its mesh.
+    *
+    * @return whether the mesh of the view was changed
+    */
+   public boolean update(MeshView view, PerspectiveCamera camera, double viewportSize) {
+      TriangleMesh level = select(sizeOnScreen(view, camera, viewportSize));
+      if (view.getMesh() == level)
+         return false;
+      view.setMesh(level);
+      return true;
+   }
+}
@@ -0,0 +1,201 @@
+package com.moduleforge.libraries.javafx.shape;
+
+import java.util.Arrays;
+
+/*
+ * Map from long to int without boxing, with open addressing and linear probing
+ * 
+ * Zero marks the free slots of the key array, so the zero key is kept aside in its own field
+ * 
+ * Not thread safe for writing. Once filled it can be read from any number of threads.
+ */
+final class LongIntHashMap {
+
+   private static final long FREE_KEY = 0;
+   private static final int MINIMUM_CAPACITY = 16;
+
+   private long[] keys;
+   private int[] values;
+   private int mask;
+   private int size;
+   private int resizeThreshold;
+
+   private boolean hasFreeKey;
+   private int freeKeyValue;
+
+   LongIntHashMap() {
+      this(0);
+   }
+
+   LongIntHashMap(int expectedSize) {
+      allocate(capacityFor(expectedSize));
+   }
+
+   private static int capacityFor(int expectedSize) {
+      // load factor of one half
+      long capacity = Math.max(MINIMUM_CAPACITY, 2L * expectedSize);
+      return (int) Math.min(1 << 30, Long.highestOneBit(capacity - 1) << 1);
+   }
+
+   private void allocate(int capacity) {
+      keys = new long[capacity];
+      values = new int[capacity];
+      mask = capacity - 1;
+      resizeThreshold = capacity / 2;
+   }
+
+   private int slotOf(long key) {
+      long h = key * 0x9E3779B97F4A7C15L;
+      return (int) (h ^ (h >>> 32)) & mask;
+   }
+
+   int get(long key, int missingValue) {
+      if (key == FREE_KEY)
+         return hasFreeKey ? freeKeyValue : missingValue;
+      int slot = slotOf(key);
+      while (true) {
+         long k = keys[slot];
+         if (k == key)
+            return values[slot];
+         if (k == FREE_KEY)
+            return missingValue;
+         slot = (slot + 1) & mask;
+      }
+   }
+
+   boolean containsKey(long key) {
+      if (key == FREE_KEY)
+         return hasFreeKey;
+      int slot = slotOf(key);
+      while (true) {
+         long k = keys[slot];
+         if (k == key)
+            return true;
+         if (k == FREE_KEY)
+            return false;
+         slot = (slot + 1) & mask;
+      }
+   }
+
+   void put(long key, int value) {
+      insert(key, value, true);
+   }
+
+   /*
+    * returns the value already mapped to the key, or the given value if there was none, in
+    * which case it is now mapped
+    */
+   int putIfAbsent(long key, int value) {
+      return insert(key, value, false);
+   }
+
+   private int insert(long key, int value, boolean replace) {
+      if (key == FREE_KEY) {
+         if (!hasFreeKey) {
+            hasFreeKey = true;
+            size++;
+         } else if (!replace) {
+            return freeKeyValue;
+         }
+         freeKeyValue = value;
+         return value;
+      }
+      int slot = slotOf(key);
+      while (true) {
+         long k = keys[slot];
+         if (k == key) {
+            if (replace)
+               values[slot] = value;
+            return values[slot];
+         }
+         if (k == FREE_KEY)
+            break;
+         slot = (slot + 1) & mask;
+      }
+      keys[slot] = key;
+      values[slot] = value;
+      size++;
+      if (size > resizeThreshold)
+         rehash(keys.length * 2);
+      return value;
+   }
+
+   /*
+    * returns the value that was mapped to the key, or missingValue if there was none
+    */
+   int remove(long key, int missingValue) {
+      if (key == FREE_KEY) {
+         if (!hasFreeKey)
+            return missingValue;
+         hasFreeKey = false;
+         size--;
+         return freeKeyValue;
+      }
+      int slot = slotOf(key);
+      while (true) {
+         long k = keys[slot];
+         if (k == key)
+            break;
+         if (k == FREE_KEY)
+            return missingValue;
+         slot = (slot + 1) & mask;
+      }
+      int value = values[slot];
+      shiftKeysBack(slot);
+      size--;
+      return value;
+   }
+
+   /*
+    * fills the slot being emptied with a later key of the same probe sequence, if there is
+    * one, and repeats with the slot of that key, so that no probe sequence is broken
+    */
+   private void shiftKeysBack(int slot) {
+      int pos = slot;
+      while (true) {
+         int last = pos;
+         pos = (pos + 1) & mask;
+         long k;
+         while (true) {
+            k = keys[pos];
+            if (k == FREE_KEY) {
+               keys[last] = FREE_KEY;
+               return;
+            }
+            int ideal = slotOf(k);
+            boolean canMove = last <= pos ? (last >= ideal || ideal > pos) : (last >= ideal && ideal > pos);
+            if (canMove)
+               break;
+            pos = (pos + 1) & mask;
+         }
+         keys[last] = k;
+         values[last] = values[pos];
+      }
+   }
+
+   private void rehash(int capacity) {
+      long[] oldKeys = keys;
+      int[] oldValues = values;
+      allocate(capacity);
+      for (int i = 0; i < oldKeys.length; i++) {
+         long key = oldKeys[i];
+         if (key == FREE_KEY)
+            continue;
+         int slot = slotOf(key);
+         while (keys[slot] != FREE_KEY)
+            slot = (slot + 1) & mask;
+         keys[slot] = key;
+         values[slot] = oldValues[i];
+      }
+   }
+
+   int size() {
+      return size;
+   }
+
+   void clear() {
+      Arrays.fill(keys, FREE_KEY);
+      hasFreeKey = false;
+      size = 0;
+   }
+}
@@ -0,0 +1,260 @@
+package com.moduleforge.libraries.javafx.shape;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.google.common.base.Preconditions;
+
+import javafx.scene.shape.TriangleMesh;
+import javafx.scene.shape.VertexFormat;
+import javafx.scene.transform.Transform;
+
+/**
+ *
+ * Many TriangleMeshFacades merged into one TriangleMesh, so that many small
+ * static parts take a single MeshView and a single draw call
+ *
+ * The arrays of the parts are copied one after the other, with the indices of
+ * the faces moved past those of the parts before, and with the transform of
+ * each part, if it has one, applied to its points and normals. A transform
+ * that mirrors a part also reverses the order of the vertices of its faces, so
+ * they keep facing out.
+ *
+ * Each part keeps its range of faces in the batch, so a face picked in the
+ * batch maps back to its part and to the TriangleMeshFace in the facade. After
+ * vertices or texture coordinates of a part change, or its transform does,
+ * updatePart() copies only that part again. After faces or vertices are added
+ * to or removed from a part, the batch must be built again.
+ *
+ */
+public final class MeshBatch {
+
+   private final List<TriangleMeshFacade> parts;
+   private final double[][] matrices;
+   private final VertexFormat format;
+   private final int faceStride;
+   private final TriangleMesh mesh;
+   // where the elements of each part start in the batch, and one past the last part
+   private final int[] firstFaces;
+   private final int[] firstPoints;
+   private final int[] firstTexCoords;
+   private final int[] firstNormals;
+   // the points of a part before they are transformed, kept for the next part
+   private float[] untransformedPoints = new float[0];
+
+   private MeshBatch(List<TriangleMeshFacade> parts, List<? extends Transform> transforms) {
+      this.parts = Collections.unmodifiableList(new ArrayList<>(parts));
+      int partCount = parts.size();
+      matrices = new double[partCount][];
+      for (int p = 0; p < partCount; p++) {
+         Transform transform = transforms.get(p);
+         matrices[p] = transform == null ? null : AffineArrays.matrixOf(transform);
+      }
+      format = parts.get(0).toTriangleMesh().getVertexFormat();
+      faceStride = TriangleMeshFaceWrapper.faceTotalCoordinateCount(format);
+      firstFaces = new int[partCount + 1];
+      firstPoints = new int[partCount + 1];
+      firstTexCoords = new int[partCount + 1];
+      firstNormals = new int[partCount + 1];
+      for (int p = 0; p < partCount; p++) {
+         TriangleMesh part = parts.get(p).toTriangleMesh();
+         if (part.getVertexFormat() != format)
+            throw new IllegalArgumentException("All parts must have the same vertex format.");
+         firstFaces[p + 1] = firstFaces[p] + part.getFaces().size() / faceStride;
+         firstPoints[p + 1] = firstPoints[p] + part.getPoints().size() / 3;
+         firstTexCoords[p + 1] = firstTexCoords[p] + part.getTexCoords().size() / 2;
+         firstNormals[p + 1] = firstNormals[p] + part.getNormals().size() / 3;
+      }
+      mesh = new TriangleMesh(format);
+   }
+
+   public static MeshBatch from(List<TriangleMeshFacade> parts) {
+      Preconditions.checkNotNull(parts);
+      return from(parts, Collections.nCopies(parts.size(), null));
+   }
+
+   /**
+    * @param transforms
+    *           one per part, null for a part that is copied as it is
+    */
+   public static MeshBatch from(List<TriangleMeshFacade> parts, List<? extends Transform> transforms) {
+      Preconditions.checkNotNull(parts);
+      Preconditions.checkNotNull(transforms);
+      if (parts.isEmpty())
+         throw new IllegalArgumentException("At least one part is needed.");
+      if (transforms.size() != parts.size())
+         throw new IllegalArgumentException("There must be a transform, or null, for each part.");
+      for (TriangleMeshFacade part : parts) {
+         Preconditions.checkNotNull(part);
+      }
+      MeshBatch batch = new MeshBatch(parts, transforms);
+      batch.fill();
+      return batch;
+   }
+
+   private void fill() {
+      int partCount = parts.size();
+      float[] points = new float[firstPoints[partCount] * 3];
+      float[] texCoords = new float[firstTexCoords[partCount] * 2];
+      float[] normals = new float[firstNormals[partCount] * 3];
+      int[] faces = new int[firstFaces[partCount] * faceStride];
+      int[] faceSmoothingGroups = new int[firstFaces[partCount]];
+      for (int p = 0; p < partCount; p++) {
+         TriangleMesh part = parts.get(p).toTriangleMesh();
+         copyPoints(p, part, points, firstPoints[p] * 3);
+         part.getTexCoords().copyTo(0, texCoords, firstTexCoords[p] * 2, part.getTexCoords().size());
+         copyNormals(p, part, normals, firstNormals[p] * 3);
+         copyFaces(p, faces, firstFaces[p] * faceStride);
+         int smoothingGroupCount = Math.min(part.getFaceSmoothingGroups().size(), getFaceCount(p));
+         part.getFaceSmoothingGroups().copyTo(0, faceSmoothingGroups, firstFaces[p], smoothingGroupCount);
+      }
+      mesh.getPoints().setAll(points);
+      mesh.getTexCoords().setAll(texCoords);
+      mesh.getNormals().setAll(normals);
+      mesh.getFaces().setAll(faces);
+      mesh.getFaceSmoothingGroups().setAll(faceSmoothingGroups);
+   }
+
+   /*
+    * source is the mesh of the part
+    */
+   private void copyPoints(int part, TriangleMesh source, float[] points, int offset) {
+      int size = source.getPoints().size();
+      if (matrices[part] == null) {
+         source.getPoints().copyTo(0, points, offset, size);
+         return;
+      }
+      // not in place, which PointTransform does not vectorize
+      untransformedPoints = source.getPoints().toArray(untransformedPoints);
+      PointTransform.apply(matrices[part], untransformedPoints, 0, points, offset, size);
+   }
+
+   private void copyNormals(int part, TriangleMesh source, float[] normals, int offset) {
+      int size = source.getNormals().size();
+      source.getNormals().copyTo(0, normals, offset, size);
+      if (matrices[part] != null)
+         AffineArrays.transformNormals(matrices[part], normals, offset, offset + size);
+   }
+
+   /*
+    * the faces of the part, with indices into the arrays of the batch
+    */
+   private void copyFaces(int part, int[] faces, int offset) {
+      int size = getFaceCount(part) * faceStride;
+      parts.get(part).toTriangleMesh().getFaces().copyTo(0, faces, offset, size);
+      int pointOffset = format.getPointIndexOffset();
+      int texCoordOffset = format.getTexCoordIndexOffset();
+      int normalOffset = format.getNormalIndexOffset();
+      int vertexStride = format.getVertexIndexSize();
+      for (int i = offset; i < offset + size; i += vertexStride) {
+         faces[i + pointOffset] += firstPoints[part];
+         faces[i + texCoordOffset] += firstTexCoords[part];
+         if (normalOffset >= 0)
+            faces[i + normalOffset] += firstNormals[part];
+      }
+      if (isMirrored(part))
+         AffineArrays.reverseWinding(faces, offset, offset + size, faceStride);
+   }
+
+   private boolean isMirrored(int part) {
+      return matrices[part] != null && AffineArrays.determinant(matrices[part]) < 0;
+   }
+
+   /**
+    * Copies the points, normals, texture coordinates and faces of the part
+    * again, after vertices or texture coordinates of its facade changed, or a
+    * transform was baked into it
+    *
+    * @throws IllegalStateException
+    *            if the number of faces, points, texture coordinates or normals
+    *            of the part changed
+    */
+   public void updatePart(int part) {
+      TriangleMesh source = parts.get(part).toTriangleMesh();
+      if (source.getFaces().size() != getFaceCount(part) * faceStride
+            || source.getPoints().size() != (firstPoints[part + 1] - firstPoints[part]) * 3
+            || source.getTexCoords().size() != (firstTexCoords[part + 1] - firstTexCoords[part]) * 2
+            || source.getNormals().size() != (firstNormals[part + 1] - firstNormals[part]) * 3)
+         throw new IllegalStateException("The size of the part changed, the batch must be built again.");
+      float[] points = new float[source.getPoints().size()];
+      copyPoints(part, source, points, 0);
+      mesh.getPoints().set(firstPoints[part] * 3, points, 0, points.length);
+      mesh.getTexCoords().set(firstTexCoords[part] * 2, source.getTexCoords(), 0, source.getTexCoords().size());
+      if (source.getNormals().size() > 0) {
+         float[] normals = new float[source.getNormals().size()];
+         copyNormals(part, source, normals, 0);
+         mesh.getNormals().set(firstNormals[part] * 3, normals, 0, normals.length);
+      }
+      // the faces of the facade may point elsewhere or go round the other way, and so may those of the batch
+      int[] faces = new int[getFaceCount(part) * faceStride];
+      copyFaces(part, faces, 0);
+      mesh.getFaces().set(firstFaces[part] * faceStride, faces, 0, faces.length);
+   }
+
+   /**
+    * Changes the transform of the part, and copies it again as in updatePart()
+    *
+    * @param transform
+    *           null for none
+    */
+   public void setTransform(int part, Transform transform) {
+      Preconditions.checkElementIndex(part, parts.size());
+      matrices[part] = transform == null ? null : AffineArrays.matrixOf(transform);
+      updatePart(part);
+   }
+
+   public TriangleMesh getMesh() {
+      return mesh;
+   }
+
+   public int getPartCount() {
+      return parts.size();
+   }
+
+   public TriangleMeshFacade getPart(int part) {
+      return parts.get(part);
+   }
+
+   /**
+    * The index in the batch of the first face of the part
+    */
+   public int getFirstFace(int part) {
+      Preconditions.checkElementIndex(part, parts.size());
+      return firstFaces[part];
+   }
+
+   public int getFaceCount(int part) {
+      Preconditions.checkElementIndex(part, parts.size());
+      return firstFaces[part + 1] - firstFaces[part];
+   }
+
+   /**
+    * @param face
+    *           index of a face in the batch, e.g. from a PickResult
+    * @return the part the face comes from
+    */
+   public int partOf(int face) {
+      Preconditions.checkElementIndex(face, firstFaces[parts.size()]);
+      // the last part that starts at or before the face, parts without faces start where the next one does
+      int low = 0, high = parts.size() - 1;
+      while (low < high) {
+         int middle = (low + high + 1) >>> 1;
+         if (firstFaces[middle] <= face)
+            low = middle;
+         else
+            high = middle - 1;
+      }
+      return low;
+   }
+
+   /**
+    * @param face
+    *           index of a face in the batch
+    * @return the face in the facade of its part
+    */
+   public TriangleMeshFace faceAt(int face) {
+      int part = partOf(face);
+      return parts.get(part).faceAt(face - firstFaces[part]);
+   }
+}
@@ -0,0 +1,237 @@
+package com.moduleforge.libraries.javafx.shape;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ *
+ * A MeshBuildListener that keeps the distribution of the times of each phase
+ * and of whole builds, in memory
+ *
+ * Times are counted in buckets that grow with the time, eight per power of two,
+ * so a percentile is off by at most one eighth of its value, and memory does
+ * not grow with the number of builds. The slowest build is kept with its
+ * counts, to find the inputs that take longest.
+ *
+ * Thread safe: a single histogram can listen to builds on any number of
+ * threads without locking them.
+ *
+ */
+public final class MeshBuildHistogram implements MeshBuildListener {
+
+   private final Map<MeshBuildPhase, Distribution> phases = new EnumMap<>(MeshBuildPhase.class);
+   private final Distribution builds = new Distribution();
+   private volatile SlowestBuild slowestBuild = new SlowestBuild(0, 0, 0);
+
+   private MeshBuildHistogram() {
+      for (MeshBuildPhase phase : MeshBuildPhase.values()) {
+         phases.put(phase, new Distribution());
+      }
+   }
+
+   public static MeshBuildHistogram create() {
+      return new MeshBuildHistogram();
+   }
+
+   @Override
+   public void phaseCompleted(MeshBuildPhase phase, long elapsedNanos, long elementCount, long arraySize,
+         long allocatedBytes) {
+      phases.get(phase).record(elapsedNanos, elementCount, arraySize, allocatedBytes);
+   }
+
+   @Override
+   public void buildCompleted(long elapsedNanos, int vertexCount, int faceCount, long allocatedBytes) {
+      builds.record(elapsedNanos, faceCount, 0, allocatedBytes);
+      if (elapsedNanos > slowestBuild.elapsedNanos) {
+         synchronized (this) {
+            if (elapsedNanos > slowestBuild.elapsedNanos)
+               slowestBuild = new SlowestBuild(elapsedNanos, vertexCount, faceCount);
+         }
+      }
+   }
+
+   public long getCount(MeshBuildPhase phase) {
+      return phases.get(phase).count.sum();
+   }
+
+   /**
+    * @param percentile
+    *           from 0 to 100
+    * @return the time in nanoseconds that the given percentage of the phases
+    *         took at most, 0 if there is none
+    */
+   public long getNanosAtPercentile(MeshBuildPhase phase, double percentile) {
+      return phases.get(phase).valueAtPercentile(percentile);
+   }
+
+   public long getMaxNanos(MeshBuildPhase phase) {
+      return phases.get(phase).max.get();
+   }
+
+   public double getMeanNanos(MeshBuildPhase phase) {
+      return phases.get(phase).mean();
+   }
+
+   /**
+    * The sum of the element counts of every time the phase ran
+    */
+   public long getElementCount(MeshBuildPhase phase) {
+      return phases.get(phase).elements.sum();
+   }
+
+   /**
+    * The sum of the array sizes of every time the phase ran
+    */
+   public long getArraySize(MeshBuildPhase phase) {
+      return phases.get(phase).arrayValues.sum();
+   }
+
+   /**
+    * The sum of the bytes allocated every time the phase ran, where they could
+    * be measured
+    */
+   public long getAllocatedBytes(MeshBuildPhase phase) {
+      return phases.get(phase).allocatedBytes.sum();
+   }
+
+   public long getBuildCount() {
+      return builds.count.sum();
+   }
+
+   public long getBuildNanosAtPercentile(double percentile) {
+      return builds.valueAtPercentile(percentile);
+   }
+
+   public double getMeanBuildNanos() {
+      return builds.mean();
+   }
+
+   public long getSlowestBuildNanos() {
+      return slowestBuild.elapsedNanos;
+   }
+
+   public int getSlowestBuildVertexCount() {
+      return slowestBuild.vertexCount;
+   }
+
+   public int getSlowestBuildFaceCount() {
+      return slowestBuild.faceCount;
+   }
+
+   /**
+    * Builds recorded while resetting may be partly lost
+    */
+   public void reset() {
+      for (Distribution distribution : phases.values()) {
+         distribution.reset();
+      }
+      builds.reset();
+      synchronized (this) {
+         slowestBuild = new SlowestBuild(0, 0, 0);
+      }
+   }
+
+   private static final class SlowestBuild {
+
+      final long elapsedNanos;
+      final int vertexCount;
+      final int faceCount;
+
+      SlowestBuild(long elapsedNanos, int vertexCount, int faceCount) {
+         this.elapsedNanos = elapsedNanos;
+         this.vertexCount = vertexCount;
+         this.faceCount = faceCount;
+      }
+   }
+
+   /*
+    * Bucket i < 8 holds the value i. Above, bucket (e - 2) * 8 + s holds the values whose
+    * highest bit is e and whose next three bits are s.
+    */
+   private static final class Distribution {
+
+      private static final int SUB_BUCKET_BITS = 3;
+      private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+      private static final int BUCKET_COUNT = bucketOf(Long.MAX_VALUE) + 1;
+
+      final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+      final LongAdder count = new LongAdder();
+      final LongAdder totalNanos = new LongAdder();
+      final LongAdder elements = new LongAdder();
+      final LongAdder arrayValues = new LongAdder();
+      final LongAdder allocatedBytes = new LongAdder();
+      final AtomicLong max = new AtomicLong();
+
+      void record(long nanos, long elementCount, long arraySize, long bytes) {
+         long value = Math.max(0, nanos);
+         buckets.incrementAndGet(bucketOf(value));
+         count.increment();
+         totalNanos.add(value);
+         elements.add(elementCount);
+         arrayValues.add(arraySize);
+         if (bytes > 0)
+            allocatedBytes.add(bytes);
+         long previous;
+         while (value > (previous = max.get()) && !max.compareAndSet(previous, value)) {
+            //
+         }
+      }
+
+      long valueAtPercentile(double percentile) {
+         if (!(percentile >= 0 && percentile <= 100))
+            throw new IllegalArgumentException("The percentile must be from 0 to 100.");
+         long total = 0;
+         long[] counts = new long[BUCKET_COUNT];
+         for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts[i] = buckets.get(i);
+            total += counts[i];
+         }
+         if (total == 0)
+            return 0;
+         long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+         long seen = 0;
+         for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts[i];
+            if (seen >= rank)
+               return Math.min(highestValueOf(i), max.get());
+         }
+         return max.get();
+      }
+
+      double mean() {
+         long n = count.sum();
+         return n == 0 ? 0 : totalNanos.sum() / (double) n;
+      }
+
+      void reset() {
+         for (int i = 0; i < BUCKET_COUNT; i++) {
+            buckets.set(i, 0);
+         }
+         count.reset();
+         totalNanos.reset();
+         elements.reset();
+         arrayValues.reset();
+         allocatedBytes.reset();
+         max.set(0);
+      }
+
+      private static int bucketOf(long value) {
+         if (value < SUB_BUCKETS)
+            return (int) value;
+         int highestBit = 63 - Long.numberOfLeadingZeros(value);
+         int subBucket = (int) (value >>> (highestBit - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+         return ((highestBit - SUB_BUCKET_BITS + 1) << SUB_BUCKET_BITS) + subBucket;
+      }
+
+      private static long highestValueOf(int bucket) {
+         if (bucket < SUB_BUCKETS)
+            return bucket;
+         int shift = (bucket >>> SUB_BUCKET_BITS) - 1;
+         long lowest = (long) (SUB_BUCKETS + (bucket & (SUB_BUCKETS - 1))) << shift;
+         return lowest + (1L << shift) - 1;
+      }
+   }
+}
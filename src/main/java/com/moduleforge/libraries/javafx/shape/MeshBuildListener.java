@@ -0,0 +1,55 @@
+package com.moduleforge.libraries.javafx.shape;
+
+/**
+ *
+ * Receives the times of the phases of a mesh build, see
+ * MeshBuildOptions.listener()
+ *
+ * The calls are made on the thread that builds the mesh, right after each
+ * phase, so implementations should be quick and, if the same listener is used
+ * for builds on several threads, thread safe. Bytes allocated are those of the
+ * building thread only, so they leave out the work of the other threads of a
+ * parallel build; they are -1 where the Java virtual machine does not measure
+ * them.
+ *
+ */
+public interface MeshBuildListener {
+
+   /**
+    * Does nothing. It is the default, and the facade does not even read the
+    * clock when it is the listener.
+    */
+   MeshBuildListener NOOP = new MeshBuildListener() {
+
+      @Override
+      public void phaseCompleted(MeshBuildPhase phase, long elapsedNanos, long elementCount, long arraySize,
+            long allocatedBytes) {
+         //
+      }
+
+      @Override
+      public void buildCompleted(long elapsedNanos, int vertexCount, int faceCount, long allocatedBytes) {
+         //
+      }
+   };
+
+   /**
+    * Phases that do not apply to a build, e.g. welding when it is not asked for,
+    * are not reported.
+    *
+    * @param elementCount
+    *           the vertices, faces or texture vertices the phase handled, see
+    *           the description of each phase
+    * @param arraySize
+    *           the number of values the phase wrote to the arrays of the mesh,
+    *           0 for a phase that writes none
+    */
+   void phaseCompleted(MeshBuildPhase phase, long elapsedNanos, long elementCount, long arraySize,
+         long allocatedBytes);
+
+   /**
+    * Called once the mesh is built. The counts are those of the mesh, after
+    * welding if there was any.
+    */
+   void buildCompleted(long elapsedNanos, int vertexCount, int faceCount, long allocatedBytes);
+}
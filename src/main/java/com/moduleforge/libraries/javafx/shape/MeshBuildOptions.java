@@ -0,0 +1,239 @@
+package com.moduleforge.libraries.javafx.shape;
+
+import java.util.concurrent.ForkJoinPool;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * 
+ * Options for building a TriangleMeshFacade
+ * 
+ * This class is immutable. Each method returns a copy of the options with the
+ * change applied, so they can be chained starting from defaults().
+ * 
+ */
+public final class MeshBuildOptions {
+
+   /**
+    * Number of faces below which a parallel build does not split the work any
+    * further
+    */
+   public static final int DEFAULT_PARALLEL_THRESHOLD = 8192;
+
+   private static final MeshBuildOptions DEFAULTS = new MeshBuildOptions();
+
+   private ForkJoinPool pool;
+   private int parallelThreshold = DEFAULT_PARALLEL_THRESHOLD;
+   private boolean localityOrdering;
+   private MeshWelder welder;
+   private double creaseAngle = Double.NaN;
+   private boolean normals;
+   private boolean smoothNormals;
+   private MeshBuildListener listener = MeshBuildListener.NOOP;
+
+   private MeshBuildOptions() {
+      //
+   }
+
+   private MeshBuildOptions copy() {
+      MeshBuildOptions copy = new MeshBuildOptions();
+      copy.pool = pool;
+      copy.parallelThreshold = parallelThreshold;
+      copy.localityOrdering = localityOrdering;
+      copy.welder = welder;
+      copy.creaseAngle = creaseAngle;
+      copy.normals = normals;
+      copy.smoothNormals = smoothNormals;
+      copy.listener = listener;
+      return copy;
+   }
+
+   /**
+    * Sequential build
+    */
+   public static MeshBuildOptions defaults() {
+      return DEFAULTS;
+   }
+
+   /**
+    * The faces are encoded in parallel in the common fork-join pool
+    */
+   public MeshBuildOptions parallel() {
+      return parallel(ForkJoinPool.commonPool(), DEFAULT_PARALLEL_THRESHOLD);
+   }
+
+   /**
+    * The faces are encoded in parallel in the given pool, in ranges of at most
+    * threshold faces. The result is the same as that of a sequential build.
+    */
+   public MeshBuildOptions parallel(ForkJoinPool pool, int threshold) {
+      Preconditions.checkNotNull(pool);
+      if (threshold < 1)
+         throw new IllegalArgumentException("The threshold must be positive.");
+      MeshBuildOptions copy = copy();
+      copy.pool = pool;
+      copy.parallelThreshold = threshold;
+      return copy;
+   }
+
+   public MeshBuildOptions sequential() {
+      MeshBuildOptions copy = copy();
+      copy.pool = null;
+      return copy;
+   }
+
+   /**
+    * The faces are sorted so that faces close to each other in space are also
+    * close in the face array, and the vertices are sorted by first use in those
+    * faces. This helps the vertex cache of the graphics card.
+    * 
+    * Without this option the arrays follow the iteration order of the sets the
+    * mesh is built from.
+    */
+   public MeshBuildOptions localityOrdering(boolean enabled) {
+      MeshBuildOptions copy = copy();
+      copy.localityOrdering = enabled;
+      return copy;
+   }
+
+   public boolean isLocalityOrdering() {
+      return localityOrdering;
+   }
+
+   /**
+    * Vertices closer to each other than epsilon are merged before building the
+    * mesh, see MeshWelder. The faces that collapse are left out of the mesh and
+    * can be found with TriangleMeshFacade.getDegenerateFaces().
+    */
+   public MeshBuildOptions welding(double epsilon) {
+      MeshBuildOptions copy = copy();
+      copy.welder = MeshWelder.withEpsilon(epsilon);
+      return copy;
+   }
+
+   public MeshBuildOptions withoutWelding() {
+      MeshBuildOptions copy = copy();
+      copy.welder = null;
+      return copy;
+   }
+
+   public boolean isWelding() {
+      return welder != null;
+   }
+
+   /*
+    * null when there is no welding
+    */
+   MeshWelder getWelder() {
+      return welder;
+   }
+
+   /**
+    * Smoothing groups are assigned so that the edges between faces whose front
+    * directions differ by more than the given angle, in degrees, are shaded hard
+    * and the rest smooth. See TriangleMesh.getFaceSmoothingGroups().
+    * 
+    * Without this option all the faces are in smoothing group 0. The faces added
+    * to the mesh later are also in group 0.
+    */
+   public MeshBuildOptions creaseAngle(double degrees) {
+      if (!(degrees >= 0 && degrees <= 180))
+         throw new IllegalArgumentException("The crease angle must be between 0 and 180 degrees.");
+      MeshBuildOptions copy = copy();
+      copy.creaseAngle = degrees;
+      return copy;
+   }
+
+   public MeshBuildOptions withoutCreaseAngle() {
+      MeshBuildOptions copy = copy();
+      copy.creaseAngle = Double.NaN;
+      return copy;
+   }
+
+   public boolean isCreaseAngle() {
+      return !Double.isNaN(creaseAngle);
+   }
+
+   /*
+    * in degrees, NaN when there is no crease angle
+    */
+   double getCreaseAngle() {
+      return creaseAngle;
+   }
+
+   /**
+    * The mesh is built in the VertexFormat.POINT_NORMAL_TEXCOORD format, with
+    * one normal per point: the average of the front directions of the faces
+    * around it, weighted by their area. The normals are computed with the mesh,
+    * so JavaFX does not need to derive them from the smoothing groups, which it
+    * ignores in this format.
+    * 
+    * The normals are kept up to date when the mesh changes.
+    */
+   public MeshBuildOptions smoothNormals() {
+      MeshBuildOptions copy = copy();
+      copy.normals = true;
+      copy.smoothNormals = true;
+      return copy;
+   }
+
+   /**
+    * Same as smoothNormals(), but with one normal per face, its front direction,
+    * so each face is shaded flat.
+    */
+   public MeshBuildOptions flatNormals() {
+      MeshBuildOptions copy = copy();
+      copy.normals = true;
+      copy.smoothNormals = false;
+      return copy;
+   }
+
+   /**
+    * The mesh is built in the default VertexFormat.POINT_TEXCOORD format
+    */
+   public MeshBuildOptions withoutNormals() {
+      MeshBuildOptions copy = copy();
+      copy.normals = false;
+      copy.smoothNormals = false;
+      return copy;
+   }
+
+   public boolean isNormals() {
+      return normals;
+   }
+
+   boolean isSmoothNormals() {
+      return smoothNormals;
+   }
+
+   /**
+    * The listener is told how long each phase of the build takes, see
+    * MeshBuildHistogram for one that keeps the times.
+    * MeshBuildListener.NOOP removes it.
+    */
+   public MeshBuildOptions listener(MeshBuildListener listener) {
+      Preconditions.checkNotNull(listener);
+      MeshBuildOptions copy = copy();
+      copy.listener = listener;
+      return copy;
+   }
+
+   MeshBuildListener getListener() {
+      return listener;
+   }
+
+   public boolean isParallel() {
+      return pool != null;
+   }
+
+   /*
+    * null when the build is sequential
+    */
+   ForkJoinPool getPool() {
+      return pool;
+   }
+
+   int getParallelThreshold() {
+      return parallelThreshold;
+   }
+}
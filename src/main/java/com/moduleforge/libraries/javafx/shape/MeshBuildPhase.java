@@ -0,0 +1,68 @@
+package com.moduleforge.libraries.javafx.shape;
+
+/**
+ *
+ * The phases of TriangleMeshFacade.from(), in the order they run, as reported
+ * to a MeshBuildListener
+ *
+ * Each phase comes with a count of the elements it handled and the size of the
+ * arrays it wrote, described for each one below.
+ *
+ */
+public enum MeshBuildPhase {
+
+   /**
+    * Checking that the vertices of the faces are in the vertex set. Counts the
+    * faces, writes no array.
+    */
+   VALIDATION,
+
+   /**
+    * Merging vertices that are too close, only if asked for. Counts the
+    * vertices before welding, writes no array.
+    */
+   WELDING,
+
+   /**
+    * Sorting faces and vertices by location, only if asked for. Counts the
+    * faces, writes no array.
+    */
+   LOCALITY_ORDERING,
+
+   /**
+    * Collecting the texture vertices of the faces without duplicates. Counts the
+    * texture vertices, the array size is that of the texture coordinate array.
+    */
+   TEXTURE_COORDINATES,
+
+   /**
+    * Writing the coordinates of the vertices. Counts the vertices, the array
+    * size is that of the point array.
+    */
+   POINTS,
+
+   /**
+    * Indexing the vertices. Counts the vertices, writes no array.
+    */
+   VERTEX_INDEX,
+
+   /**
+    * Encoding the faces as indices. Counts the faces, the array size is that of
+    * the face array.
+    */
+   FACES,
+
+   /**
+    * Computing smoothing groups from the crease angle, if asked for, and setting
+    * them. Counts the faces, the array size is that of the face smoothing group
+    * array.
+    */
+   SMOOTHING_GROUPS,
+
+   /**
+    * Computing the normals, if asked for, and setting the arrays of the
+    * TriangleMesh. Counts the faces, the array size is that of all the arrays
+    * set.
+    */
+   UPLOAD
+}
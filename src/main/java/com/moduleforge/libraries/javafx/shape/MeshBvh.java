@@ -0,0 +1,641 @@
+package com.moduleforge.libraries.javafx.shape;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.google.common.base.Preconditions;
+
+import javafx.geometry.Point3D;
+
+/**
+ *
+ * A bounding volume hierarchy over the faces of a TriangleMeshFacade, for ray
+ * picking and closest point queries in logarithmic time
+ *
+ * The faces are split by the surface area heuristic, over a fixed number of
+ * bins along the longest axis of their centroids. Nodes are kept in flat
+ * arrays, with the children of a node always after it. With parallel build
+ * options, large subtrees are built in the fork-join pool.
+ *
+ * After vertices are moved in the facade, refit() updates the boxes without
+ * changing the tree, which stays correct but may get slower if the mesh
+ * changes shape a lot. After faces are added or removed, or a transform that
+ * mirrors the mesh is baked, a new hierarchy must be built.
+ *
+ * Queries can run on any number of threads, but not during refit().
+ *
+ */
+public final class MeshBvh {
+
+   private static final int CORNERS = TriangleMeshFaceWrapper.TRIANGLE_VERTEX_COUNT;
+   private static final int BIN_COUNT = 16;
+   // faces in a leaf below which it is never split, and above which it always is
+   private static final int MIN_LEAF_SIZE = 2;
+   private static final int MAX_LEAF_SIZE = 8;
+   // cost of visiting a node, relative to testing one face
+   private static final double TRAVERSAL_COST = 1;
+   private static final double DETERMINANT_EPSILON = 1e-12;
+
+   private final TriangleMeshFacade facade;
+   private final MeshBuildOptions options;
+   private final int[] faces;
+   private final int faceStride;
+   private final int faceCount;
+   // of the facade when the faces were taken
+   private final int faceModificationCount;
+   private float[] points;
+   // min x, y, z and max x, y, z of each face
+   private final float[] faceBounds;
+   // of each face, in the order of the leaves
+   private final int[] faceOrder;
+   // min x, y, z and max x, y, z of each node
+   private float[] nodeBounds;
+   // first face and face count of a leaf, first child and 0 of any other node
+   private int[] nodes;
+   private int nodeCount;
+   private int depth;
+
+   private MeshBvh(TriangleMeshFacade facade, MeshBuildOptions options) {
+      this.facade = facade;
+      this.options = options;
+      faces = facade.faceArray();
+      faceModificationCount = facade.faceModificationCount();
+      faceStride = facade.faceCoordinateCount();
+      faceCount = faces.length / faceStride;
+      points = facade.pointArray();
+      faceBounds = new float[faceCount * 6];
+      faceOrder = new int[faceCount];
+   }
+
+   public static MeshBvh from(TriangleMeshFacade facade) {
+      return from(facade, MeshBuildOptions.defaults());
+   }
+
+   /**
+    * Only the parallel options apply
+    */
+   public static MeshBvh from(TriangleMeshFacade facade, MeshBuildOptions options) {
+      Preconditions.checkNotNull(facade);
+      Preconditions.checkNotNull(options);
+      MeshBvh bvh = new MeshBvh(facade, options);
+      bvh.build();
+      return bvh;
+   }
+
+   private void build() {
+      if (faceCount == 0) {
+         nodeBounds = new float[0];
+         nodes = new int[0];
+         return;
+      }
+      float[] centroids = new float[faceCount * 3];
+      ParallelRanges.forEach(faceCount, options, (from, to) -> {
+         for (int f = from; f < to; f++) {
+            computeFaceBounds(f);
+            for (int axis = 0; axis < 3; axis++) {
+               centroids[f * 3 + axis] = (faceBounds[f * 6 + axis] + faceBounds[f * 6 + 3 + axis]) / 2;
+            }
+            faceOrder[f] = f;
+         }
+      });
+      int capacity = 2 * faceCount - 1;
+      nodeBounds = new float[capacity * 6];
+      nodes = new int[capacity * 2];
+      AtomicInteger nextNode = new AtomicInteger(1);
+      AtomicInteger maxDepth = new AtomicInteger();
+      BuildTask root = new BuildTask(0, 0, faceCount, 0, centroids, nextNode, maxDepth);
+      ForkJoinPool pool = options.getPool();
+      if (pool != null && faceCount > options.getParallelThreshold())
+         pool.invoke(root);
+      else
+         root.compute();
+      nodeCount = nextNode.get();
+      depth = maxDepth.get();
+   }
+
+   private void computeFaceBounds(int face) {
+      int bounds = face * 6;
+      for (int axis = 0; axis < 3; axis++) {
+         faceBounds[bounds + axis] = Float.POSITIVE_INFINITY;
+         faceBounds[bounds + 3 + axis] = Float.NEGATIVE_INFINITY;
+      }
+      for (int k = 0; k < CORNERS; k++) {
+         int point = pointOf(face, k);
+         for (int axis = 0; axis < 3; axis++) {
+            float coordinate = points[point + axis];
+            faceBounds[bounds + axis] = Math.min(faceBounds[bounds + axis], coordinate);
+            faceBounds[bounds + 3 + axis] = Math.max(faceBounds[bounds + 3 + axis], coordinate);
+         }
+      }
+   }
+
+   /*
+    * offset in the point array of corner k of the face
+    */
+   private int pointOf(int face, int k) {
+      return faces[face * faceStride + k * (faceStride / CORNERS)] * 3;
+   }
+
+   /*
+    * Builds the subtree of the node over faceOrder[from, to). Subtrees work on disjoint ranges of
+    * faceOrder and take their node indices from a shared counter, so they can be built in
+    * parallel.
+    */
+   private final class BuildTask extends RecursiveAction {
+
+      private static final long serialVersionUID = 1L;
+
+      private final int node;
+      private final int from;
+      private final int to;
+      private final int level;
+      private final float[] centroids;
+      private final AtomicInteger nextNode;
+      private final AtomicInteger maxDepth;
+
+      BuildTask(int node, int from, int to, int level, float[] centroids, AtomicInteger nextNode,
+            AtomicInteger maxDepth) {
+         this.node = node;
+         this.from = from;
+         this.to = to;
+         this.level = level;
+         this.centroids = centroids;
+         this.nextNode = nextNode;
+         this.maxDepth = maxDepth;
+      }
+
+      @Override
+      protected void compute() {
+         int middle = split(node, from, to, centroids);
+         if (middle < 0) {
+            maxDepth.accumulateAndGet(level, Math::max);
+            return;
+         }
+         int left = nextNode.getAndAdd(2);
+         nodes[node * 2] = left;
+         nodes[node * 2 + 1] = 0;
+         BuildTask leftTask = new BuildTask(left, from, middle, level + 1, centroids, nextNode, maxDepth);
+         BuildTask rightTask = new BuildTask(left + 1, middle, to, level + 1, centroids, nextNode, maxDepth);
+         if (options.getPool() != null && to - from > options.getParallelThreshold()
+               && ForkJoinTask.inForkJoinPool()) {
+            ForkJoinTask.invokeAll(leftTask, rightTask);
+         } else {
+            leftTask.compute();
+            rightTask.compute();
+         }
+      }
+   }
+
+   /*
+    * sets the box of the node, and either makes it a leaf and returns -1, or partitions the
+    * range and returns where the second child starts
+    */
+   private int split(int node, int from, int to, float[] centroids) {
+      float[] bounds = new float[6];
+      float[] centroidBounds = new float[6];
+      empty(bounds, 0);
+      empty(centroidBounds, 0);
+      for (int i = from; i < to; i++) {
+         int face = faceOrder[i];
+         include(bounds, 0, faceBounds, face * 6);
+         includePoint(centroidBounds, 0, centroids, face * 3);
+      }
+      System.arraycopy(bounds, 0, nodeBounds, node * 6, 6);
+      int count = to - from;
+      if (count <= MIN_LEAF_SIZE)
+         return makeLeaf(node, from, count);
+      int axis = longestAxis(centroidBounds);
+      float low = centroidBounds[axis];
+      float extent = centroidBounds[3 + axis] - low;
+      if (!(extent > 0)) {
+         // every centroid at the same spot, the split can only be by count
+         return count <= MAX_LEAF_SIZE ? makeLeaf(node, from, count) : (from + to) >>> 1;
+      }
+
+      int[] binCounts = new int[BIN_COUNT];
+      float[] binBounds = new float[BIN_COUNT * 6];
+      for (int b = 0; b < BIN_COUNT; b++) {
+         empty(binBounds, b * 6);
+      }
+      double scale = BIN_COUNT / (double) extent;
+      for (int i = from; i < to; i++) {
+         int face = faceOrder[i];
+         int bin = binOf(centroids[face * 3 + axis], low, scale);
+         binCounts[bin]++;
+         include(binBounds, bin * 6, faceBounds, face * 6);
+      }
+      // cost of the faces on each side of a split after bin b, in face tests times area
+      double[] leftCosts = new double[BIN_COUNT - 1];
+      float[] sweep = new float[6];
+      empty(sweep, 0);
+      int sweepCount = 0;
+      for (int b = 0; b < BIN_COUNT - 1; b++) {
+         include(sweep, 0, binBounds, b * 6);
+         sweepCount += binCounts[b];
+         leftCosts[b] = sweepCount == 0 ? 0 : sweepCount * area(sweep, 0);
+      }
+      empty(sweep, 0);
+      sweepCount = 0;
+      double bestCost = Double.POSITIVE_INFINITY;
+      int bestBin = -1;
+      for (int b = BIN_COUNT - 1; b > 0; b--) {
+         include(sweep, 0, binBounds, b * 6);
+         sweepCount += binCounts[b];
+         double cost = leftCosts[b - 1] + (sweepCount == 0 ? 0 : sweepCount * area(sweep, 0));
+         if (sweepCount > 0 && sweepCount < count && cost < bestCost) {
+            bestCost = cost;
+            bestBin = b - 1;
+         }
+      }
+      double nodeArea = area(bounds, 0);
+      if (bestBin < 0 || (count <= MAX_LEAF_SIZE && bestCost + TRAVERSAL_COST * nodeArea >= count * nodeArea))
+         return count <= MAX_LEAF_SIZE ? makeLeaf(node, from, count) : (from + to) >>> 1;
+
+      int middle = from;
+      for (int i = from; i < to; i++) {
+         int face = faceOrder[i];
+         if (binOf(centroids[face * 3 + axis], low, scale) <= bestBin) {
+            faceOrder[i] = faceOrder[middle];
+            faceOrder[middle] = face;
+            middle++;
+         }
+      }
+      return middle;
+   }
+
+   private static int binOf(float centroid, float low, double scale) {
+      return Math.min(BIN_COUNT - 1, (int) ((centroid - low) * scale));
+   }
+
+   private int makeLeaf(int node, int from, int count) {
+      nodes[node * 2] = from;
+      nodes[node * 2 + 1] = count;
+      return -1;
+   }
+
+   private static int longestAxis(float[] bounds) {
+      int axis = 0;
+      for (int a = 1; a < 3; a++) {
+         if (bounds[3 + a] - bounds[a] > bounds[3 + axis] - bounds[axis])
+            axis = a;
+      }
+      return axis;
+   }
+
+   private static void empty(float[] bounds, int offset) {
+      for (int axis = 0; axis < 3; axis++) {
+         bounds[offset + axis] = Float.POSITIVE_INFINITY;
+         bounds[offset + 3 + axis] = Float.NEGATIVE_INFINITY;
+      }
+   }
+
+   /*
+    * compared directly instead of with Math.min and max, which also handle NaN and negative zero
+    * and take a large part of the build
+    */
+   private static void include(float[] bounds, int offset, float[] other, int otherOffset) {
+      for (int axis = 0; axis < 3; axis++) {
+         float low = other[otherOffset + axis];
+         float high = other[otherOffset + 3 + axis];
+         if (low < bounds[offset + axis])
+            bounds[offset + axis] = low;
+         if (high > bounds[offset + 3 + axis])
+            bounds[offset + 3 + axis] = high;
+      }
+   }
+
+   private static void includePoint(float[] bounds, int offset, float[] points, int pointOffset) {
+      for (int axis = 0; axis < 3; axis++) {
+         float coordinate = points[pointOffset + axis];
+         if (coordinate < bounds[offset + axis])
+            bounds[offset + axis] = coordinate;
+         if (coordinate > bounds[offset + 3 + axis])
+            bounds[offset + 3 + axis] = coordinate;
+      }
+   }
+
+   private static double area(float[] bounds, int offset) {
+      double x = bounds[offset + 3] - bounds[offset];
+      double y = bounds[offset + 4] - bounds[offset + 1];
+      double z = bounds[offset + 5] - bounds[offset + 2];
+      return x * y + y * z + z * x;
+   }
+
+   /**
+    * Updates the boxes after vertices of the facade were moved
+    *
+    * @throws IllegalStateException
+    *            if faces were added to or removed from the facade, or a
+    *            transform that mirrors it was baked
+    */
+   public void refit() {
+      if (facade.faceModificationCount() != faceModificationCount)
+         throw new IllegalStateException("The faces of the mesh changed, a new hierarchy must be built.");
+      points = facade.pointArray();
+      ParallelRanges.forEach(faceCount, options, (from, to) -> {
+         for (int f = from; f < to; f++) {
+            computeFaceBounds(f);
+         }
+      });
+      // children come after their parent, so going backwards they are done first
+      for (int node = nodeCount - 1; node >= 0; node--) {
+         int offset = node * 6;
+         empty(nodeBounds, offset);
+         int first = nodes[node * 2];
+         int count = nodes[node * 2 + 1];
+         if (count > 0) {
+            for (int i = first; i < first + count; i++) {
+               include(nodeBounds, offset, faceBounds, faceOrder[i] * 6);
+            }
+         } else {
+            include(nodeBounds, offset, nodeBounds, first * 6);
+            include(nodeBounds, offset, nodeBounds, (first + 1) * 6);
+         }
+      }
+   }
+
+   public int getNodeCount() {
+      return nodeCount;
+   }
+
+   public int getDepth() {
+      return depth;
+   }
+
+   /**
+    * @return the nearest face the ray goes through, from either side, or null
+    *         if there is none
+    */
+   public Hit intersect(Point3D origin, Point3D direction) {
+      return intersect(origin, direction, Double.POSITIVE_INFINITY);
+   }
+
+   /**
+    * @param maxDistance
+    *           from the origin, along the direction
+    */
+   public Hit intersect(Point3D origin, Point3D direction, double maxDistance) {
+      Preconditions.checkNotNull(origin);
+      Preconditions.checkNotNull(direction);
+      double length = direction.magnitude();
+      if (!(length > 0))
+         throw new IllegalArgumentException("The direction cannot be zero.");
+      if (nodeCount == 0)
+         return null;
+      double ox = origin.getX(), oy = origin.getY(), oz = origin.getZ();
+      double dx = direction.getX() / length, dy = direction.getY() / length, dz = direction.getZ() / length;
+      // origin and inverse direction, for the boxes
+      double[] ray = { ox, oy, oz, 1 / dx, 1 / dy, 1 / dz };
+      double best = maxDistance;
+      int bestFace = -1;
+      int[] stack = new int[depth + 2];
+      int top = 0;
+      stack[top++] = 0;
+      while (top > 0) {
+         int node = stack[--top];
+         // a box entered at the distance of the best hit so far cannot hold a nearer one
+         if (entryDistance(node, ray, best) >= best)
+            continue;
+         int first = nodes[node * 2];
+         int count = nodes[node * 2 + 1];
+         if (count > 0) {
+            for (int i = first; i < first + count; i++) {
+               double t = rayFaceDistance(faceOrder[i], ox, oy, oz, dx, dy, dz);
+               if (t < best) {
+                  best = t;
+                  bestFace = faceOrder[i];
+               }
+            }
+            continue;
+         }
+         double leftEntry = entryDistance(first, ray, best);
+         double rightEntry = entryDistance(first + 1, ray, best);
+         // the nearer child is looked at first, so the farther one can often be skipped
+         boolean leftFirst = leftEntry <= rightEntry;
+         double farEntry = leftFirst ? rightEntry : leftEntry;
+         double nearEntry = leftFirst ? leftEntry : rightEntry;
+         if (farEntry < best)
+            stack[top++] = leftFirst ? first + 1 : first;
+         if (nearEntry < best)
+            stack[top++] = leftFirst ? first : first + 1;
+      }
+      if (bestFace < 0)
+         return null;
+      return new Hit(facade.faceAt(bestFace), bestFace, best,
+            new Point3D(ox + dx * best, oy + dy * best, oz + dz * best));
+   }
+
+   /*
+    * where the ray enters the box of the node, or infinity if it misses it or the box starts past
+    * the limit
+    */
+   private double entryDistance(int node, double[] ray, double limit) {
+      int offset = node * 6;
+      double near = 0;
+      double far = limit;
+      for (int axis = 0; axis < 3; axis++) {
+         double low = nodeBounds[offset + axis];
+         double high = nodeBounds[offset + 3 + axis];
+         double origin = ray[axis];
+         double inverse = ray[3 + axis];
+         if (Double.isInfinite(inverse)) {
+            // parallel to the slab
+            if (origin < low || origin > high)
+               return Double.POSITIVE_INFINITY;
+            continue;
+         }
+         double t1 = (low - origin) * inverse;
+         double t2 = (high - origin) * inverse;
+         near = Math.max(near, Math.min(t1, t2));
+         far = Math.min(far, Math.max(t1, t2));
+         if (near > far)
+            return Double.POSITIVE_INFINITY;
+      }
+      return near;
+   }
+
+   /*
+    * Moller-Trumbore, from either side of the face; infinity if the ray misses it
+    */
+   private double rayFaceDistance(int face, double ox, double oy, double oz, double dx, double dy, double dz) {
+      int a = pointOf(face, 0), b = pointOf(face, 1), c = pointOf(face, 2);
+      double ax = points[a], ay = points[a + 1], az = points[a + 2];
+      double e1x = points[b] - ax, e1y = points[b + 1] - ay, e1z = points[b + 2] - az;
+      double e2x = points[c] - ax, e2y = points[c + 1] - ay, e2z = points[c + 2] - az;
+      double px = dy * e2z - dz * e2y, py = dz * e2x - dx * e2z, pz = dx * e2y - dy * e2x;
+      double determinant = e1x * px + e1y * py + e1z * pz;
+      if (Math.abs(determinant) < DETERMINANT_EPSILON)
+         return Double.POSITIVE_INFINITY;
+      double inverse = 1 / determinant;
+      double sx = ox - ax, sy = oy - ay, sz = oz - az;
+      double u = (sx * px + sy * py + sz * pz) * inverse;
+      if (u < 0 || u > 1)
+         return Double.POSITIVE_INFINITY;
+      double qx = sy * e1z - sz * e1y, qy = sz * e1x - sx * e1z, qz = sx * e1y - sy * e1x;
+      double v = (dx * qx + dy * qy + dz * qz) * inverse;
+      if (v < 0 || u + v > 1)
+         return Double.POSITIVE_INFINITY;
+      double t = (e2x * qx + e2y * qy + e2z * qz) * inverse;
+      return t >= 0 ? t : Double.POSITIVE_INFINITY;
+   }
+
+   /**
+    * @return the point of the mesh nearest to the given one, with its face, or
+    *         null if the mesh has no faces
+    */
+   public Hit closestPoint(Point3D point) {
+      return closestPoint(point, Double.POSITIVE_INFINITY);
+   }
+
+   /**
+    * @return null if no point of the mesh is within the distance
+    */
+   public Hit closestPoint(Point3D point, double maxDistance) {
+      Preconditions.checkNotNull(point);
+      if (nodeCount == 0)
+         return null;
+      double px = point.getX(), py = point.getY(), pz = point.getZ();
+      double best = maxDistance * maxDistance;
+      int bestFace = -1;
+      double[] closest = new double[3];
+      double[] candidate = new double[3];
+      int[] stack = new int[depth + 2];
+      int top = 0;
+      stack[top++] = 0;
+      while (top > 0) {
+         int node = stack[--top];
+         if (boxDistanceSquared(node, px, py, pz) > best)
+            continue;
+         int first = nodes[node * 2];
+         int count = nodes[node * 2 + 1];
+         if (count > 0) {
+            for (int i = first; i < first + count; i++) {
+               double distance = closestPointOnFace(faceOrder[i], px, py, pz, candidate);
+               if (distance <= best) {
+                  best = distance;
+                  bestFace = faceOrder[i];
+                  System.arraycopy(candidate, 0, closest, 0, 3);
+               }
+            }
+            continue;
+         }
+         double leftDistance = boxDistanceSquared(first, px, py, pz);
+         double rightDistance = boxDistanceSquared(first + 1, px, py, pz);
+         boolean leftFirst = leftDistance <= rightDistance;
+         if ((leftFirst ? rightDistance : leftDistance) <= best)
+            stack[top++] = leftFirst ? first + 1 : first;
+         if ((leftFirst ? leftDistance : rightDistance) <= best)
+            stack[top++] = leftFirst ? first : first + 1;
+      }
+      if (bestFace < 0)
+         return null;
+      return new Hit(facade.faceAt(bestFace), bestFace, Math.sqrt(best),
+            new Point3D(closest[0], closest[1], closest[2]));
+   }
+
+   private double boxDistanceSquared(int node, double px, double py, double pz) {
+      int offset = node * 6;
+      double dx = Math.max(0, Math.max(nodeBounds[offset] - px, px - nodeBounds[offset + 3]));
+      double dy = Math.max(0, Math.max(nodeBounds[offset + 1] - py, py - nodeBounds[offset + 4]));
+      double dz = Math.max(0, Math.max(nodeBounds[offset + 2] - pz, pz - nodeBounds[offset + 5]));
+      return dx * dx + dy * dy + dz * dz;
+   }
+
+   /*
+    * By the region of the triangle the point projects to, as in Ericson, Real-Time Collision
+    * Detection, 5.1.5. Writes the closest point and returns its squared distance.
+    */
+   private double closestPointOnFace(int face, double px, double py, double pz, double[] closest) {
+      int a = pointOf(face, 0), b = pointOf(face, 1), c = pointOf(face, 2);
+      double ax = points[a], ay = points[a + 1], az = points[a + 2];
+      double abx = points[b] - ax, aby = points[b + 1] - ay, abz = points[b + 2] - az;
+      double acx = points[c] - ax, acy = points[c + 1] - ay, acz = points[c + 2] - az;
+      double apx = px - ax, apy = py - ay, apz = pz - az;
+      double d1 = abx * apx + aby * apy + abz * apz;
+      double d2 = acx * apx + acy * apy + acz * apz;
+      double u, v;
+      if (d1 <= 0 && d2 <= 0) {
+         u = 0;
+         v = 0;
+      } else {
+         double bpx = px - points[b], bpy = py - points[b + 1], bpz = pz - points[b + 2];
+         double d3 = abx * bpx + aby * bpy + abz * bpz;
+         double d4 = acx * bpx + acy * bpy + acz * bpz;
+         double cpx = px - points[c], cpy = py - points[c + 1], cpz = pz - points[c + 2];
+         double d5 = abx * cpx + aby * cpy + abz * cpz;
+         double d6 = acx * cpx + acy * cpy + acz * cpz;
+         double vc = d1 * d4 - d3 * d2;
+         double vb = d5 * d2 - d1 * d6;
+         double va = d3 * d6 - d5 * d4;
+         if (d3 >= 0 && d4 <= d3) {
+            u = 1;
+            v = 0;
+         } else if (d6 >= 0 && d5 <= d6) {
+            u = 0;
+            v = 1;
+         } else if (vc <= 0 && d1 >= 0 && d3 <= 0) {
+            u = d1 / (d1 - d3);
+            v = 0;
+         } else if (vb <= 0 && d2 >= 0 && d6 <= 0) {
+            u = 0;
+            v = d2 / (d2 - d6);
+         } else if (va <= 0 && d4 - d3 >= 0 && d5 - d6 >= 0) {
+            v = (d4 - d3) / ((d4 - d3) + (d5 - d6));
+            u = 1 - v;
+         } else {
+            double denominator = 1 / (va + vb + vc);
+            u = vb * denominator;
+            v = vc * denominator;
+         }
+      }
+      closest[0] = ax + abx * u + acx * v;
+      closest[1] = ay + aby * u + acy * v;
+      closest[2] = az + abz * u + acz * v;
+      double x = px - closest[0], y = py - closest[1], z = pz - closest[2];
+      return x * x + y * y + z * z;
+   }
+
+   /**
+    *
+    * A point on a face of the mesh found by a query
+    *
+    */
+   public static final class Hit {
+
+      private final TriangleMeshFace face;
+      private final int faceIndex;
+      private final double distance;
+      private final Point3D point;
+
+      private Hit(TriangleMeshFace face, int faceIndex, double distance, Point3D point) {
+         this.face = face;
+         this.faceIndex = faceIndex;
+         this.distance = distance;
+         this.point = point;
+      }
+
+      public TriangleMeshFace getFace() {
+         return face;
+      }
+
+      /**
+       * The index of the face in the TriangleMesh
+       */
+      public int getFaceIndex() {
+         return faceIndex;
+      }
+
+      /**
+       * From the origin of the ray, or from the point of the query
+       */
+      public double getDistance() {
+         return distance;
+      }
+
+      public Point3D getPoint() {
+         return point;
+      }
+   }
+}
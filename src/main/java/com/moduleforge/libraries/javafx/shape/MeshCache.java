@@ -0,0 +1,321 @@
+package com.moduleforge.libraries.javafx.shape;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+import com.google.common.base.Preconditions;
+
+import javafx.collections.ObservableFloatArray;
+import javafx.collections.ObservableIntegerArray;
+import javafx.scene.shape.TriangleMesh;
+import javafx.scene.shape.VertexFormat;
+
+/**
+ *
+ * Shares a single TriangleMesh between every MeshView that shows the same
+ * geometry
+ *
+ * A mesh is found either by its content, a hash of its arrays that is checked
+ * against the arrays of the cached mesh, or by a key given by the caller, in
+ * which case the mesh is only built when it is not cached yet.
+ *
+ * The most recently used meshes are held up to a maximum weight, by default
+ * the bytes of their arrays. Meshes evicted from it are still found while
+ * something else, e.g. a MeshView, holds them.
+ *
+ * Shared meshes must not be changed. Thread safe.
+ *
+ */
+public final class MeshCache {
+
+   private static final long HASH_MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+   private final long maximumWeight;
+   private final ToLongFunction<TriangleMesh> weigher;
+   private final LinkedHashMap<Object, Retained> retained = new LinkedHashMap<>(16, 0.75f, true);
+   private final Map<Object, WeakEntry> entries = new HashMap<>();
+   private final ReferenceQueue<TriangleMesh> collected = new ReferenceQueue<>();
+   private long weight;
+   private long hitCount;
+   private long missCount;
+   private long evictionCount;
+
+   private MeshCache(long maximumWeight, ToLongFunction<TriangleMesh> weigher) {
+      this.maximumWeight = maximumWeight;
+      this.weigher = weigher;
+   }
+
+   /**
+    * @param maximumBytes
+    *           of the arrays of the meshes that are held
+    */
+   public static MeshCache create(long maximumBytes) {
+      return create(maximumBytes, MeshCache::bytesOf);
+   }
+
+   /**
+    * @param weigher
+    *           the weight of a mesh, not negative; with mesh -> 1 the maximum
+    *           weight is the number of meshes held
+    */
+   public static MeshCache create(long maximumWeight, ToLongFunction<TriangleMesh> weigher) {
+      Preconditions.checkNotNull(weigher);
+      if (maximumWeight < 0)
+         throw new IllegalArgumentException("The maximum weight cannot be negative.");
+      return new MeshCache(maximumWeight, weigher);
+   }
+
+   /**
+    * @return the cached mesh with the same arrays and vertex format, or the
+    *         mesh itself, which is then cached
+    */
+   public TriangleMesh share(TriangleMesh mesh) {
+      Preconditions.checkNotNull(mesh);
+      ContentKey key = new ContentKey(contentHash(mesh));
+      synchronized (this) {
+         TriangleMesh cached = lookUp(key);
+         // a different mesh with the same hash is not cached, but never mistaken for it
+         if (cached != null && (cached == mesh || sameContent(cached, mesh))) {
+            hitCount++;
+            return cached;
+         }
+         missCount++;
+         if (cached == null)
+            insert(key, mesh);
+         return mesh;
+      }
+   }
+
+   /**
+    * The mesh of the facade, shared as in share(TriangleMesh). The facade must
+    * not be changed afterwards if its own mesh is the one cached.
+    */
+   public TriangleMesh share(TriangleMeshFacade facade) {
+      return share(facade.toTriangleMesh());
+   }
+
+   /**
+    * @return the mesh cached for the key, or the one the loader builds, which
+    *         is then cached
+    */
+   public TriangleMesh get(Object key, Supplier<TriangleMesh> loader) {
+      Preconditions.checkNotNull(key);
+      Preconditions.checkNotNull(loader);
+      synchronized (this) {
+         TriangleMesh cached = lookUp(key);
+         if (cached != null) {
+            hitCount++;
+            return cached;
+         }
+         missCount++;
+      }
+      // built without holding the lock, the first mesh cached for the key wins
+      TriangleMesh loaded = Preconditions.checkNotNull(loader.get(), "The loader returned no mesh.");
+      synchronized (this) {
+         TriangleMesh cached = lookUp(key);
+         if (cached != null)
+            return cached;
+         insert(key, loaded);
+         return loaded;
+      }
+   }
+
+   public synchronized void invalidate(Object key) {
+      Retained removed = retained.remove(key);
+      if (removed != null)
+         weight -= removed.weight;
+      entries.remove(key);
+   }
+
+   public synchronized void clear() {
+      retained.clear();
+      entries.clear();
+      weight = 0;
+   }
+
+   public synchronized long getHitCount() {
+      return hitCount;
+   }
+
+   public synchronized long getMissCount() {
+      return missCount;
+   }
+
+   /**
+    * The meshes no longer held because of the maximum weight
+    */
+   public synchronized long getEvictionCount() {
+      return evictionCount;
+   }
+
+   /**
+    * The weight of the meshes that are held
+    */
+   public synchronized long getWeight() {
+      return weight;
+   }
+
+   /**
+    * The meshes that can still be found, held or not
+    */
+   public synchronized int size() {
+      purge();
+      return entries.size();
+   }
+
+   private TriangleMesh lookUp(Object key) {
+      purge();
+      Retained held = retained.get(key);
+      if (held != null)
+         return held.mesh;
+      WeakEntry entry = entries.get(key);
+      TriangleMesh mesh = entry == null ? null : entry.get();
+      if (mesh != null)
+         retain(key, mesh);
+      return mesh;
+   }
+
+   private void insert(Object key, TriangleMesh mesh) {
+      entries.put(key, new WeakEntry(key, mesh, collected));
+      retain(key, mesh);
+   }
+
+   private void retain(Object key, TriangleMesh mesh) {
+      long meshWeight = weigher.applyAsLong(mesh);
+      if (meshWeight < 0)
+         throw new IllegalArgumentException("The weight of a mesh cannot be negative.");
+      retained.put(key, new Retained(mesh, meshWeight));
+      weight += meshWeight;
+      Iterator<Retained> eldest = retained.values().iterator();
+      while (weight > maximumWeight && eldest.hasNext()) {
+         weight -= eldest.next().weight;
+         eldest.remove();
+         evictionCount++;
+      }
+   }
+
+   private void purge() {
+      WeakEntry entry;
+      while ((entry = (WeakEntry) collected.poll()) != null) {
+         if (entries.get(entry.key) == entry)
+            entries.remove(entry.key);
+      }
+   }
+
+   static long bytesOf(TriangleMesh mesh) {
+      long elements = (long) mesh.getPoints().size() + mesh.getTexCoords().size() + mesh.getNormals().size()
+            + mesh.getFaces().size() + mesh.getFaceSmoothingGroups().size();
+      return elements * Float.BYTES;
+   }
+
+   static long contentHash(TriangleMesh mesh) {
+      long hash = mesh.getVertexFormat() == VertexFormat.POINT_NORMAL_TEXCOORD ? 1 : 0;
+      hash = hash(hash, mesh.getPoints());
+      hash = hash(hash, mesh.getTexCoords());
+      hash = hash(hash, mesh.getNormals());
+      hash = hash(hash, mesh.getFaces());
+      hash = hash(hash, mesh.getFaceSmoothingGroups());
+      return hash;
+   }
+
+   private static long hash(long hash, ObservableFloatArray array) {
+      int size = array.size();
+      hash = mix(hash, size);
+      for (int i = 0; i < size; i++) {
+         hash = mix(hash, Float.floatToIntBits(array.get(i)));
+      }
+      return hash;
+   }
+
+   private static long hash(long hash, ObservableIntegerArray array) {
+      int size = array.size();
+      hash = mix(hash, size);
+      for (int i = 0; i < size; i++) {
+         hash = mix(hash, array.get(i));
+      }
+      return hash;
+   }
+
+   private static long mix(long hash, int value) {
+      long mixed = (hash ^ (value & 0xFFFFFFFFL)) * HASH_MULTIPLIER;
+      return mixed ^ (mixed >>> 29);
+   }
+
+   private static boolean sameContent(TriangleMesh a, TriangleMesh b) {
+      return a.getVertexFormat() == b.getVertexFormat() && sameContent(a.getPoints(), b.getPoints())
+            && sameContent(a.getTexCoords(), b.getTexCoords()) && sameContent(a.getNormals(), b.getNormals())
+            && sameContent(a.getFaces(), b.getFaces())
+            && sameContent(a.getFaceSmoothingGroups(), b.getFaceSmoothingGroups());
+   }
+
+   private static boolean sameContent(ObservableFloatArray a, ObservableFloatArray b) {
+      int size = a.size();
+      if (size != b.size())
+         return false;
+      for (int i = 0; i < size; i++) {
+         if (Float.floatToIntBits(a.get(i)) != Float.floatToIntBits(b.get(i)))
+            return false;
+      }
+      return true;
+   }
+
+   private static boolean sameContent(ObservableIntegerArray a, ObservableIntegerArray b) {
+      int size = a.size();
+      if (size != b.size())
+         return false;
+      for (int i = 0; i < size; i++) {
+         if (a.get(i) != b.get(i))
+            return false;
+      }
+      return true;
+   }
+
+   /*
+    * kept apart from the keys given by the caller
+    */
+   private static final class ContentKey {
+
+      final long hash;
+
+      ContentKey(long hash) {
+         this.hash = hash;
+      }
+
+      @Override
+      public int hashCode() {
+         return Long.hashCode(hash);
+      }
+
+      @Override
+      public boolean equals(Object other) {
+         return other instanceof ContentKey && ((ContentKey) other).hash == hash;
+      }
+   }
+
+   private static final class Retained {
+
+      final TriangleMesh mesh;
+      final long weight;
+
+      Retained(TriangleMesh mesh, long weight) {
+         this.mesh = mesh;
+         this.weight = weight;
+      }
+   }
+
+   private static final class WeakEntry extends WeakReference<TriangleMesh> {
+
+      final Object key;
+
+      WeakEntry(Object key, TriangleMesh mesh, ReferenceQueue<TriangleMesh> queue) {
+         super(mesh, queue);
+         this.key = key;
+      }
+   }
+}
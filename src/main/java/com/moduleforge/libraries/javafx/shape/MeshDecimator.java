@@ -0,0 +1,76 @@
+package com.moduleforge.libraries.javafx.shape;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.google.common.base.Preconditions;
+
+import javafx.scene.shape.TriangleMesh;
+
+/**
+ *
+ * Reduces the number of faces of a mesh, to make levels of detail
+ *
+ * Edges are collapsed one at a time, always the one that moves the surface
+ * least, measured with quadric error metrics. Vertices collapse into one of
+ * their neighbours, so the remaining vertices keep their positions and texture
+ * coordinates. Vertices on the boundary of the mesh, on edges shared by more
+ * than two faces and on texture seams are kept, so the outline and the texture
+ * mapping do not change. That also means a mesh with many of those may not
+ * reach the requested number of faces.
+ *
+ * The result has the vertex format and smoothing groups of the original mesh.
+ * Normals, if the format has them, are computed from the remaining faces.
+ *
+ * The original mesh is not changed. Decimation works on primitive arrays only
+ * and takes time proportional to n log n for n faces.
+ *
+ */
+public final class MeshDecimator {
+
+   private MeshDecimator() {
+   }
+
+   /**
+    * @param ratio
+    *           the fraction of the faces to keep, greater than 0 and up to 1
+    */
+   public static TriangleMesh decimate(TriangleMeshFacade facade, double ratio) {
+      return decimate(facade.toTriangleMesh(), ratio);
+   }
+
+   public static TriangleMesh decimate(TriangleMesh mesh, double ratio) {
+      return lodChain(mesh, ratio).get(0);
+   }
+
+   public static List<TriangleMesh> lodChain(TriangleMeshFacade facade, double... ratios) {
+      return lodChain(facade.toTriangleMesh(), ratios);
+   }
+
+   /**
+    * One mesh per ratio, each with that fraction of the faces of the original
+    * mesh. The ratios must be decreasing, from the finest level of detail to the
+    * coarsest. All levels come out of a single decimation, each one continuing
+    * from the previous one, so the chain costs about the same as its last level.
+    */
+   public static List<TriangleMesh> lodChain(TriangleMesh mesh, double... ratios) {
+      Preconditions.checkNotNull(mesh);
+      if (ratios.length == 0)
+         throw new IllegalArgumentException("At least one ratio is needed.");
+      for (int i = 0; i < ratios.length; i++) {
+         if (!(ratios[i] > 0 && ratios[i] <= 1))
+            throw new IllegalArgumentException("The ratios must be greater than 0 and up to 1.");
+         if (i > 0 && !(ratios[i] < ratios[i - 1]))
+            throw new IllegalArgumentException("The ratios must be decreasing.");
+      }
+      QuadricSimplifier simplifier = QuadricSimplifier.from(mesh);
+      int faceCount = simplifier.getFaceCount();
+      List<TriangleMesh> chain = new ArrayList<>(ratios.length);
+      for (double ratio : ratios) {
+         simplifier.simplify((int) Math.round(faceCount * ratio));
+         chain.add(simplifier.toTriangleMesh());
+      }
+      return Collections.unmodifiableList(chain);
+   }
+}
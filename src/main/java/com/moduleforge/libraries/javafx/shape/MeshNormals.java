@@ -0,0 +1,114 @@
+package com.moduleforge.libraries.javafx.shape;
+
+import javafx.collections.ObservableFloatArray;
+import javafx.collections.ObservableIntegerArray;
+
+/*
+ * Normals computed straight from the arrays of a TriangleMesh: x, y and z of each point, and the
+ * faces as faceStride ints each, where every vertex of a face takes faceStride / 3 ints and the
+ * first of them is the point index.
+ *
+ * The arithmetic is written out on primitives, so there is no allocation besides the result.
+ */
+final class MeshNormals {
+
+   private MeshNormals() {
+   }
+
+   /*
+    * x, y and z of the front direction of each face, length 1, or 0 if the face has no area
+    */
+   static float[] faceNormals(float[] points, int[] faces, int faceStride) {
+      int faceCount = faces.length / faceStride;
+      float[] normals = new float[faceCount * 3];
+      int vertexStride = faceStride / TriangleMeshFaceWrapper.TRIANGLE_VERTEX_COUNT;
+      for (int f = 0; f < faceCount; f++) {
+         int offset = f * faceStride;
+         int n = f * 3;
+         crossProduct(points, faces[offset], faces[offset + vertexStride], faces[offset + 2 * vertexStride],
+               normals, n);
+         normalize(normals, n);
+      }
+      return normals;
+   }
+
+   /*
+    * x, y and z of the normal of each point: the sum of the front directions of the faces the
+    * point belongs to, each weighted by the area of the face, with length 1. Points in no face,
+    * or only in faces with no area, get 0.
+    */
+   static float[] vertexNormals(float[] points, int[] faces, int faceStride) {
+      int faceCount = faces.length / faceStride;
+      int vertexStride = faceStride / TriangleMeshFaceWrapper.TRIANGLE_VERTEX_COUNT;
+      float[] normals = new float[points.length];
+      float[] faceNormal = new float[3];
+      for (int f = 0; f < faceCount; f++) {
+         int offset = f * faceStride;
+         int a = faces[offset];
+         int b = faces[offset + vertexStride];
+         int c = faces[offset + 2 * vertexStride];
+         // the length of the cross product is twice the area, which gives the weighting
+         crossProduct(points, a, b, c, faceNormal, 0);
+         for (int k = 0; k < 3; k++) {
+            int point = faces[offset + k * vertexStride] * 3;
+            normals[point] += faceNormal[0];
+            normals[point + 1] += faceNormal[1];
+            normals[point + 2] += faceNormal[2];
+         }
+      }
+      for (int p = 0; p < normals.length; p += 3) {
+         normalize(normals, p);
+      }
+      return normals;
+   }
+
+   /*
+    * the normal of one face, as in faceNormals(), read from the arrays of the mesh without copying
+    * them
+    */
+   static void faceNormal(ObservableFloatArray points, ObservableIntegerArray faces, int faceStride, int face,
+         float[] result, int offset) {
+      areaWeightedNormal(points, faces, faceStride, face, result, offset);
+      normalize(result, offset);
+   }
+
+   /*
+    * the normal of one face with length twice its area, what vertexNormals() adds up for each point
+    */
+   static void areaWeightedNormal(ObservableFloatArray points, ObservableIntegerArray faces, int faceStride,
+         int face, float[] result, int offset) {
+      int vertexStride = faceStride / TriangleMeshFaceWrapper.TRIANGLE_VERTEX_COUNT;
+      int a = faces.get(face * faceStride) * 3;
+      int b = faces.get(face * faceStride + vertexStride) * 3;
+      int c = faces.get(face * faceStride + 2 * vertexStride) * 3;
+      float ax = points.get(a), ay = points.get(a + 1), az = points.get(a + 2);
+      float ux = points.get(b) - ax, uy = points.get(b + 1) - ay, uz = points.get(b + 2) - az;
+      float vx = points.get(c) - ax, vy = points.get(c + 1) - ay, vz = points.get(c + 2) - az;
+      result[offset] = uy * vz - uz * vy;
+      result[offset + 1] = uz * vx - ux * vz;
+      result[offset + 2] = ux * vy - uy * vx;
+   }
+
+   /*
+    * (b - a) x (c - a), which follows the counterclockwise order of a, b and c
+    */
+   private static void crossProduct(float[] points, int a, int b, int c, float[] result, int offset) {
+      float ax = points[a * 3], ay = points[a * 3 + 1], az = points[a * 3 + 2];
+      float ux = points[b * 3] - ax, uy = points[b * 3 + 1] - ay, uz = points[b * 3 + 2] - az;
+      float vx = points[c * 3] - ax, vy = points[c * 3 + 1] - ay, vz = points[c * 3 + 2] - az;
+      result[offset] = uy * vz - uz * vy;
+      result[offset + 1] = uz * vx - ux * vz;
+      result[offset + 2] = ux * vy - uy * vx;
+   }
+
+   static void normalize(float[] vectors, int offset) {
+      float x = vectors[offset], y = vectors[offset + 1], z = vectors[offset + 2];
+      double length = Math.sqrt(x * x + y * y + z * z);
+      if (length == 0) {
+         return;
+      }
+      vectors[offset] = (float) (x / length);
+      vectors[offset + 1] = (float) (y / length);
+      vectors[offset + 2] = (float) (z / length);
+   }
+}
@@ -0,0 +1,339 @@
+package com.moduleforge.libraries.javafx.shape;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+import javafx.collections.ObservableFloatArray;
+import javafx.collections.ObservableIntegerArray;
+import javafx.scene.shape.TriangleMesh;
+import javafx.scene.shape.VertexFormat;
+
+/**
+ *
+ * Saves a built mesh to a compact binary file and loads it back
+ *
+ * Building a TriangleMeshFacade validates the faces, indexes the vertices and
+ * may compute normals and smoothing groups. A snapshot keeps the result: the
+ * arrays of the TriangleMesh as they are. Loading maps the file into memory,
+ * reads it straight into the arrays and copies each array into the mesh in one
+ * call, without creating any object per vertex or face, so it takes little
+ * more than the time to read the file. Where the file must not stay mapped,
+ * readBuffered() reads it through a buffer of fixed size instead.
+ *
+ * A loaded snapshot is a TriangleMesh, not a TriangleMeshFacade, because the
+ * facade is made of Vertex and TriangleMeshFace objects, which are what the
+ * snapshot avoids creating.
+ *
+ * Format, little endian: the magic number, the version, the flags, the number of
+ * elements of each array (points, normals, texture coordinates, faces and face
+ * smoothing groups), the arrays in that order and the CRC32 of everything
+ * before it. Normals are only present in meshes in the POINT_NORMAL_TEXCOORD
+ * format. Files that are not snapshots, of another version, whose checksum
+ * does not match or whose faces point outside of the arrays are rejected with
+ * an IOException.
+ *
+ */
+public final class MeshSnapshot {
+
+   static final int MAGIC = 0x4D534846; // "FHSM" in the little endian file
+   static final int VERSION = 1;
+   static final int HEADER_SIZE = 8 * 4;
+   static final int CHECKSUM_SIZE = 4;
+
+   private static final int FLAG_NORMALS = 1;
+   // elements copied through the read and write buffers at a time
+   private static final int CHUNK_ELEMENTS = 16 * 1024;
+
+   private MeshSnapshot() {
+   }
+
+   public static void write(TriangleMeshFacade facade, Path file) throws IOException {
+      write(facade.toTriangleMesh(), file);
+   }
+
+   /**
+    * The file is created, or replaced if it exists
+    */
+   public static void write(TriangleMesh mesh, Path file) throws IOException {
+      try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING)) {
+         write(mesh, channel);
+      }
+   }
+
+   /**
+    * The channel is not closed
+    */
+   public static void write(TriangleMesh mesh, WritableByteChannel channel) throws IOException {
+      boolean normals = mesh.getVertexFormat() == VertexFormat.POINT_NORMAL_TEXCOORD;
+      Writer writer = new Writer(channel);
+      ByteBuffer header = writer.buffer;
+      header.putInt(MAGIC);
+      header.putInt(VERSION);
+      header.putInt(normals ? FLAG_NORMALS : 0);
+      header.putInt(mesh.getPoints().size());
+      header.putInt(normals ? mesh.getNormals().size() : 0);
+      header.putInt(mesh.getTexCoords().size());
+      header.putInt(mesh.getFaces().size());
+      header.putInt(mesh.getFaceSmoothingGroups().size());
+      writer.write(mesh.getPoints());
+      if (normals)
+         writer.write(mesh.getNormals());
+      writer.write(mesh.getTexCoords());
+      writer.write(mesh.getFaces());
+      writer.write(mesh.getFaceSmoothingGroups());
+      writer.finish();
+   }
+
+   public static TriangleMesh read(Path file) throws IOException {
+      TriangleMesh mesh = new TriangleMesh();
+      read(file, mesh);
+      return mesh;
+   }
+
+   /**
+    * Replaces the content of the mesh, and its vertex format, with the snapshot.
+    * Each array of the mesh is set with a single call. The mesh is left as it
+    * was if the file is rejected.
+    * 
+    * The file is mapped into memory. The mapping is only released once it is
+    * garbage collected, and until then, on Windows, the file cannot be deleted
+    * or written; readBuffered() does not map it.
+    */
+   public static void read(Path file, TriangleMesh mesh) throws IOException {
+      read(file, mesh, true);
+   }
+
+   /**
+    * As read(), reading the file through a buffer of fixed size instead of
+    * mapping it, so nothing keeps it open once the mesh is loaded
+    */
+   public static void readBuffered(Path file, TriangleMesh mesh) throws IOException {
+      read(file, mesh, false);
+   }
+
+   private static void read(Path file, TriangleMesh mesh, boolean mapped) throws IOException {
+      try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+         long size = channel.size();
+         if (size < HEADER_SIZE + CHECKSUM_SIZE)
+            throw new IOException("The file is too short to be a mesh snapshot.");
+         if (size > Integer.MAX_VALUE)
+            throw new IOException("The file is too large to be a mesh snapshot.");
+         Reader reader = mapped ? new Reader(channel.map(FileChannel.MapMode.READ_ONLY, 0, size))
+               : new Reader(channel);
+         read(reader, size, mesh);
+      }
+   }
+
+   private static void read(Reader reader, long size, TriangleMesh mesh) throws IOException {
+      if (reader.readInt() != MAGIC)
+         throw new IOException("The file is not a mesh snapshot.");
+      int version = reader.readInt();
+      if (version != VERSION)
+         throw new IOException("Unsupported mesh snapshot version " + version + ".");
+      int flags = reader.readInt();
+      int[] counts = new int[5];
+      long expectedSize = HEADER_SIZE + CHECKSUM_SIZE;
+      for (int i = 0; i < counts.length; i++) {
+         counts[i] = reader.readInt();
+         if (counts[i] < 0)
+            throw new IOException("The mesh snapshot is corrupt.");
+         expectedSize += counts[i] * 4L;
+      }
+      if (expectedSize != size)
+         throw new IOException("The mesh snapshot is truncated or corrupt.");
+      boolean normals = (flags & FLAG_NORMALS) != 0;
+      if (!normals && counts[1] != 0)
+         throw new IOException("The mesh snapshot is corrupt.");
+
+      // everything is read and checked before the mesh is touched, so a failure leaves it as it was
+      float[] points = reader.readFloats(counts[0]);
+      float[] normalArray = reader.readFloats(counts[1]);
+      float[] texCoords = reader.readFloats(counts[2]);
+      int[] faces = reader.readInts(counts[3]);
+      int[] smoothingGroups = reader.readInts(counts[4]);
+      if (!reader.checksumMatches())
+         throw new IOException("The checksum of the mesh snapshot does not match.");
+      VertexFormat format = normals ? VertexFormat.POINT_NORMAL_TEXCOORD : VertexFormat.POINT_TEXCOORD;
+      checkIndices(format, faces, points.length / 3, normalArray.length / 3, texCoords.length / 2,
+            smoothingGroups.length);
+
+      mesh.setVertexFormat(format);
+      mesh.getPoints().setAll(points);
+      mesh.getNormals().setAll(normalArray);
+      mesh.getTexCoords().setAll(texCoords);
+      mesh.getFaces().setAll(faces);
+      mesh.getFaceSmoothingGroups().setAll(smoothingGroups);
+   }
+
+   /*
+    * a face that points outside of the arrays would only fail later, when the mesh is rendered
+    */
+   private static void checkIndices(VertexFormat format, int[] faces, int pointCount, int normalCount,
+         int texCoordCount, int smoothingGroupCount) throws IOException {
+      int faceStride = TriangleMeshFaceWrapper.faceTotalCoordinateCount(format);
+      if (faces.length % faceStride != 0)
+         throw new IOException("The faces of the mesh snapshot are corrupt.");
+      if (smoothingGroupCount != 0 && smoothingGroupCount != faces.length / faceStride)
+         throw new IOException("The face smoothing groups of the mesh snapshot are corrupt.");
+      int pointOffset = format.getPointIndexOffset();
+      int normalOffset = format.getNormalIndexOffset();
+      int texCoordOffset = format.getTexCoordIndexOffset();
+      for (int vertex = 0; vertex < faces.length; vertex += format.getVertexIndexSize()) {
+         if (!isIndex(faces[vertex + pointOffset], pointCount) || !isIndex(faces[vertex + texCoordOffset], texCoordCount)
+               || normalOffset >= 0 && !isIndex(faces[vertex + normalOffset], normalCount))
+            throw new IOException("The faces of the mesh snapshot point outside of its arrays.");
+      }
+   }
+
+   private static boolean isIndex(int index, int count) {
+      return index >= 0 && index < count;
+   }
+
+   /*
+    * Reads the mapped file, or the channel through a buffer of fixed size, updating the checksum
+    * with every byte read but those of the checksum itself
+    */
+   private static final class Reader {
+
+      // null when the whole file is mapped into the buffer
+      private final ReadableByteChannel channel;
+      private final ByteBuffer buffer;
+      private final CRC32 crc = new CRC32();
+
+      Reader(ByteBuffer mapped) {
+         channel = null;
+         buffer = mapped.order(ByteOrder.LITTLE_ENDIAN);
+      }
+
+      Reader(ReadableByteChannel channel) {
+         this.channel = channel;
+         buffer = ByteBuffer.allocate(CHUNK_ELEMENTS * 4).order(ByteOrder.LITTLE_ENDIAN);
+         buffer.limit(0);
+      }
+
+      int readInt() throws IOException {
+         take(4);
+         return buffer.getInt();
+      }
+
+      float[] readFloats(int count) throws IOException {
+         float[] values = new float[count];
+         for (int from = 0; from < count; from += CHUNK_ELEMENTS) {
+            int length = Math.min(CHUNK_ELEMENTS, count - from);
+            take(length * 4);
+            buffer.asFloatBuffer().get(values, from, length);
+            buffer.position(buffer.position() + length * 4);
+         }
+         return values;
+      }
+
+      int[] readInts(int count) throws IOException {
+         int[] values = new int[count];
+         for (int from = 0; from < count; from += CHUNK_ELEMENTS) {
+            int length = Math.min(CHUNK_ELEMENTS, count - from);
+            take(length * 4);
+            buffer.asIntBuffer().get(values, from, length);
+            buffer.position(buffer.position() + length * 4);
+         }
+         return values;
+      }
+
+      boolean checksumMatches() throws IOException {
+         int checksum = (int) crc.getValue();
+         fill(CHECKSUM_SIZE);
+         return buffer.getInt() == checksum;
+      }
+
+      /*
+       * the next bytes, which the caller then consumes, are in the buffer and in the checksum
+       */
+      private void take(int bytes) throws IOException {
+         fill(bytes);
+         ByteBuffer taken = buffer.duplicate();
+         taken.limit(taken.position() + bytes);
+         crc.update(taken);
+      }
+
+      private void fill(int bytes) throws IOException {
+         if (buffer.remaining() >= bytes)
+            return;
+         if (channel == null)
+            throw new IOException("The mesh snapshot is truncated or corrupt.");
+         buffer.compact();
+         while (buffer.position() < bytes) {
+            if (channel.read(buffer) < 0)
+               throw new IOException("The mesh snapshot is truncated or corrupt.");
+         }
+         buffer.flip();
+      }
+   }
+
+   /*
+    * Writes through a buffer of fixed size, updating the checksum with every byte written
+    */
+   private static final class Writer {
+
+      private final WritableByteChannel channel;
+      private final ByteBuffer buffer = ByteBuffer.allocate(CHUNK_ELEMENTS * 4).order(ByteOrder.LITTLE_ENDIAN);
+      private final CRC32 crc = new CRC32();
+      private float[] floats;
+      private int[] ints;
+
+      Writer(WritableByteChannel channel) {
+         this.channel = channel;
+      }
+
+      void write(ObservableFloatArray array) throws IOException {
+         for (int from = 0; from < array.size(); from += CHUNK_ELEMENTS) {
+            int count = Math.min(CHUNK_ELEMENTS, array.size() - from);
+            floats = array.toArray(from, floats, count);
+            ensureRoom(count * 4);
+            buffer.asFloatBuffer().put(floats, 0, count);
+            buffer.position(buffer.position() + count * 4);
+         }
+      }
+
+      void write(ObservableIntegerArray array) throws IOException {
+         for (int from = 0; from < array.size(); from += CHUNK_ELEMENTS) {
+            int count = Math.min(CHUNK_ELEMENTS, array.size() - from);
+            ints = array.toArray(from, ints, count);
+            ensureRoom(count * 4);
+            buffer.asIntBuffer().put(ints, 0, count);
+            buffer.position(buffer.position() + count * 4);
+         }
+      }
+
+      void finish() throws IOException {
+         flush();
+         buffer.putInt((int) crc.getValue());
+         buffer.flip();
+         drain();
+      }
+
+      private void ensureRoom(int bytes) throws IOException {
+         if (buffer.remaining() < bytes)
+            flush();
+      }
+
+      private void flush() throws IOException {
+         buffer.flip();
+         crc.update(buffer.array(), 0, buffer.limit());
+         drain();
+      }
+
+      private void drain() throws IOException {
+         while (buffer.hasRemaining()) {
+            channel.write(buffer);
+         }
+         buffer.clear();
+      }
+   }
+}
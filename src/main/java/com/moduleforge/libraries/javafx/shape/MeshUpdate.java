@@ -0,0 +1,67 @@
+package com.moduleforge.libraries.javafx.shape;
+
+import java.util.concurrent.CompletableFuture;
+
+import javafx.application.Platform;
+
+/**
+ * 
+ * A set of changes to a TriangleMeshFacade that reach its TriangleMesh all at
+ * once
+ * 
+ * While the update is open, the changes made through the facade are kept in
+ * private copies of the arrays of the mesh. When the update is committed, each
+ * array of the TriangleMesh that changed is set with a single call, so
+ * listeners (and a MeshView showing the mesh) see one change per array instead
+ * of one per face or vertex.
+ * 
+ * The facade and its update can be used from any thread, one thread at a time,
+ * as long as the TriangleMesh is not touched. Use commit() on the JavaFX
+ * application thread, or commitLater() from any other thread: in that case
+ * only the final copy into the TriangleMesh is done on the JavaFX application
+ * thread.
+ * 
+ */
+public final class MeshUpdate {
+
+   private final TriangleMeshWrapper mesh;
+   private boolean finished;
+
+   MeshUpdate(TriangleMeshWrapper mesh) {
+      this.mesh = mesh;
+      mesh.beginUpdate();
+   }
+
+   /**
+    * Sends the changes to the TriangleMesh in the calling thread
+    */
+   public void commit() {
+      finish().run();
+   }
+
+   /**
+    * Sends the changes to the TriangleMesh in the JavaFX application thread.
+    * 
+    * The facade must not be changed until the returned future is complete.
+    */
+   public CompletableFuture<Void> commitLater() {
+      Runnable publish = finish();
+      CompletableFuture<Void> published = new CompletableFuture<>();
+      Platform.runLater(() -> {
+         try {
+            publish.run();
+            published.complete(null);
+         } catch (RuntimeException e) {
+            published.completeExceptionally(e);
+         }
+      });
+      return published;
+   }
+
+   private Runnable finish() {
+      if (finished)
+         throw new IllegalStateException("The update is already committed.");
+      finished = true;
+      return mesh.endUpdate();
+   }
+}
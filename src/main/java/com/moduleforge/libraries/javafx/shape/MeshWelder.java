@@ -0,0 +1,172 @@
+package com.moduleforge.libraries.javafx.shape;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * 
+ * Merges vertices that are closer to each other than a given distance
+ * (epsilon), so that coincident vertices created separately end up as a single
+ * vertex of the mesh.
+ * 
+ * Vertices are put in a uniform grid of cells of size epsilon, so each vertex
+ * is only compared with the vertices in the neighbouring cells. The first
+ * vertex found (in the order of the input) is kept and the ones near it are
+ * replaced by it.
+ * 
+ * Faces that use a replaced vertex are replaced too. Faces that collapse, that
+ * is, faces where two vertices become the same one or whose height is not
+ * greater than epsilon, are reported as degenerate and left out.
+ * 
+ * Faces that do not change are kept as they are.
+ * 
+ */
+public final class MeshWelder {
+
+   public static final double DEFAULT_EPSILON = 1e-6;
+
+   private final double epsilon;
+
+   private MeshWelder(double epsilon) {
+      this.epsilon = epsilon;
+   }
+
+   public static MeshWelder withDefaultEpsilon() {
+      return new MeshWelder(DEFAULT_EPSILON);
+   }
+
+   public static MeshWelder withEpsilon(double epsilon) {
+      if (!(epsilon > 0))
+         throw new IllegalArgumentException("The epsilon must be positive.");
+      return new MeshWelder(epsilon);
+   }
+
+   public double getEpsilon() {
+      return epsilon;
+   }
+
+   public Result weld(Collection<TriangleMeshFace> faces) {
+      Set<Vertex> vertices = new LinkedHashSet<>();
+      for (TriangleMeshFace face : faces) {
+         vertices.addAll(face.getVerticesWithCreationOrdering());
+      }
+      return weld(vertices, faces);
+   }
+
+   /**
+    * The vertices must include those of the faces. Vertices that do not belong
+    * to any face are welded too.
+    */
+   public Result weld(Collection<Vertex> vertices, Collection<TriangleMeshFace> faces) {
+      Preconditions.checkNotNull(vertices);
+      Preconditions.checkNotNull(faces);
+
+      VertexGrid grid = new VertexGrid(epsilon, vertices.size());
+      List<Vertex> kept = new ArrayList<>();
+      LongIntHashMap vertexToKept = new LongIntHashMap(vertices.size());
+      for (Vertex vertex : vertices) {
+         if (vertexToKept.containsKey(vertex.identifier()))
+            continue;
+         int near = grid.findNear(vertex.getX(), vertex.getY(), vertex.getZ(), epsilon);
+         if (near < 0) {
+            near = grid.add(vertex.getX(), vertex.getY(), vertex.getZ());
+            kept.add(vertex);
+         }
+         vertexToKept.put(vertex.identifier(), near);
+      }
+
+      Result result = new Result();
+      result.vertices = new LinkedHashSet<>(kept);
+      result.mergedVertexCount = vertexToKept.size() - kept.size();
+      for (TriangleMeshFace face : faces) {
+         List<Vertex> faceVertices = face.getVerticesWithCreationOrdering();
+         List<Vertex> weldedVertices = new ArrayList<>(faceVertices.size());
+         boolean changed = false;
+         for (Vertex vertex : faceVertices) {
+            int index = vertexToKept.get(vertex.identifier(), -1);
+            if (index < 0)
+               throw new IllegalArgumentException("A vertex of a face is not among the vertices.");
+            Vertex welded = kept.get(index);
+            changed |= welded != vertex;
+            weldedVertices.add(welded);
+         }
+         if (isDegenerate(weldedVertices)) {
+            result.degenerateFaces.add(face);
+         } else {
+            result.faces.add(changed ? face.withVertices(weldedVertices) : face);
+         }
+      }
+      return result;
+   }
+
+   /*
+    * two vertices are the same, or the height of the triangle over its longest side is not
+    * greater than epsilon
+    */
+   private boolean isDegenerate(List<Vertex> vertices) {
+      Vertex a = vertices.get(0);
+      Vertex b = vertices.get(1);
+      Vertex c = vertices.get(2);
+      if (a == b || b == c || c == a)
+         return true;
+      double abx = b.getX() - a.getX(), aby = b.getY() - a.getY(), abz = b.getZ() - a.getZ();
+      double acx = c.getX() - a.getX(), acy = c.getY() - a.getY(), acz = c.getZ() - a.getZ();
+      double bcx = c.getX() - b.getX(), bcy = c.getY() - b.getY(), bcz = c.getZ() - b.getZ();
+      double crossX = aby * acz - abz * acy;
+      double crossY = abz * acx - abx * acz;
+      double crossZ = abx * acy - aby * acx;
+      double doubleArea = Math.sqrt(crossX * crossX + crossY * crossY + crossZ * crossZ);
+      double longestSide = Math.sqrt(Math.max(abx * abx + aby * aby + abz * abz,
+            Math.max(acx * acx + acy * acy + acz * acz, bcx * bcx + bcy * bcy + bcz * bcz)));
+      return doubleArea <= epsilon * longestSide;
+   }
+
+   /**
+    * The outcome of welding
+    */
+   public static final class Result {
+
+      private Set<Vertex> vertices;
+      private final Set<TriangleMeshFace> faces = new LinkedHashSet<>();
+      private final List<TriangleMeshFace> degenerateFaces = new ArrayList<>();
+      private int mergedVertexCount;
+
+      private Result() {
+         //
+      }
+
+      /**
+       * The vertices left after welding, in the order of the input
+       */
+      public Set<Vertex> getVertices() {
+         return Collections.unmodifiableSet(vertices);
+      }
+
+      /**
+       * The faces, with the welded vertices, except the degenerate ones
+       */
+      public Set<TriangleMeshFace> getFaces() {
+         return Collections.unmodifiableSet(faces);
+      }
+
+      /**
+       * The faces of the input that collapsed
+       */
+      public List<TriangleMeshFace> getDegenerateFaces() {
+         return Collections.unmodifiableList(degenerateFaces);
+      }
+
+      /**
+       * The number of vertices that were replaced by another vertex
+       */
+      public int getMergedVertexCount() {
+         return mergedVertexCount;
+      }
+   }
+}
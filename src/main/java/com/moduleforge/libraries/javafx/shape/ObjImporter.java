@@ -0,0 +1,332 @@
+package com.moduleforge.libraries.javafx.shape;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import javafx.scene.shape.TriangleMesh;
+
+/**
+ *
+ * Reads the geometry of a Wavefront OBJ file into a TriangleMesh
+ *
+ * The input is parsed as it streams in, one chunk at a time, and written
+ * straight into the buffers of a TriangleMeshBuilder. No object is created per
+ * vertex or face, so large files take little memory besides that of the mesh
+ * itself.
+ *
+ * Vertices (v), texture vertices (vt), faces (f) and smoothing groups (s) are
+ * read; any other statement is skipped. Faces with more than three vertices are
+ * triangulated, see TriangleMeshFace.connectedFromOrdered(). The v coordinate of
+ * texture vertices is flipped, because it goes up in OBJ and down in JavaFX.
+ * Faces without texture vertices get the default one.
+ *
+ */
+public final class ObjImporter {
+
+   private static final int END = -1;
+   private static final int NO_TEXTURE = Integer.MIN_VALUE;
+
+   private final ByteInput input;
+   private final TriangleMeshBuilder builder;
+   // first vertex and texture vertex of the file, they may not be the first ones in the builder
+   private final int firstVertex;
+   private final int firstTexCoord;
+
+   private int current;
+   private int line = 1;
+   private int smoothingGroup;
+
+   // vertices, texture vertices and coordinates of the face being read, reused from face to face
+   private final GrowableIntArray faceVertices = new GrowableIntArray();
+   private final GrowableIntArray faceTexCoords = new GrowableIntArray();
+   private final GrowableIntArray triangles = new GrowableIntArray();
+   private double[] faceCoordinates = new double[16 * 3];
+
+   private ObjImporter(ByteInput input, TriangleMeshBuilder builder) {
+      this.input = input;
+      this.builder = builder;
+      firstVertex = builder.getVertexCount();
+      firstTexCoord = builder.getTexCoordCount();
+   }
+
+   /**
+    * The channel is read until its end, but not closed
+    */
+   public static TriangleMesh read(ReadableByteChannel channel) throws IOException {
+      TriangleMeshBuilder builder = TriangleMeshBuilder.create();
+      read(channel, builder);
+      return builder.toTriangleMesh();
+   }
+
+   /**
+    * The file is memory mapped
+    */
+   public static TriangleMesh read(Path file) throws IOException {
+      TriangleMeshBuilder builder = TriangleMeshBuilder.create();
+      read(file, builder);
+      return builder.toTriangleMesh();
+   }
+
+   /**
+    * Adds the content of the file to the builder, after what it already has
+    */
+   public static void read(ReadableByteChannel channel, TriangleMeshBuilder builder) throws IOException {
+      new ObjImporter(ByteInput.from(channel), builder).parse();
+   }
+
+   public static void read(Path file, TriangleMeshBuilder builder) throws IOException {
+      try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+         new ObjImporter(ByteInput.mapped(channel), builder).parse();
+      }
+   }
+
+   private void parse() throws IOException {
+      current = input.read();
+      while (current != END) {
+         skipSpaces();
+         int keyword = readKeyword();
+         if (keyword == keyword('v')) {
+            float x = readFloat();
+            float y = readFloat();
+            float z = readFloat();
+            builder.addVertex(x, y, z);
+         } else if (keyword == keyword('v', 't')) {
+            float u = readFloat();
+            skipSpaces();
+            float v = atLineEnd() ? 0 : readFloat();
+            builder.addTexCoord(u, 1 - v);
+         } else if (keyword == keyword('f')) {
+            readFace();
+         } else if (keyword == keyword('s')) {
+            readSmoothingGroup();
+         }
+         skipLine();
+      }
+   }
+
+   /*
+    * up to two characters packed in an int; longer keywords give 0, which matches none
+    */
+   private int readKeyword() throws IOException {
+      int keyword = 0;
+      int length = 0;
+      while (current != END && !isSpace(current) && !isLineEnd(current)) {
+         keyword = keyword << 8 | current;
+         length++;
+         current = input.read();
+      }
+      return length <= 2 ? keyword : 0;
+   }
+
+   private static int keyword(char first) {
+      return first;
+   }
+
+   private static int keyword(char first, char second) {
+      return first << 8 | second;
+   }
+
+   private void readFace() throws IOException {
+      faceVertices.clear();
+      faceTexCoords.clear();
+      skipSpaces();
+      while (!atLineEnd()) {
+         int vertex = toVertexHandle(readInt());
+         int texCoord = NO_TEXTURE;
+         if (current == '/') {
+            current = input.read();
+            if (current != '/')
+               texCoord = toTexCoordHandle(readInt());
+            if (current == '/') {
+               current = input.read();
+               if (!isSpace(current) && !atLineEnd())
+                  readInt(); // normals are not used
+            }
+         }
+         faceVertices.add(vertex);
+         faceTexCoords.add(texCoord);
+         skipSpaces();
+      }
+      int count = faceVertices.size();
+      if (count < TriangleMeshFaceWrapper.TRIANGLE_VERTEX_COUNT)
+         throw malformed("A face needs at least three vertices");
+      if (count == TriangleMeshFaceWrapper.TRIANGLE_VERTEX_COUNT) {
+         addFace(0, 1, 2);
+         return;
+      }
+      if (faceCoordinates.length < count * 3)
+         faceCoordinates = Arrays.copyOf(faceCoordinates, Math.max(count * 3, faceCoordinates.length * 2));
+      for (int i = 0; i < count; i++) {
+         for (int axis = 0; axis < 3; axis++)
+            faceCoordinates[i * 3 + axis] = builder.getPointCoordinate(faceVertices.get(i), axis);
+      }
+      triangles.clear();
+      PolygonTriangulator.triangulate(faceCoordinates, count, triangles);
+      for (int t = 0; t < triangles.size(); t += 3) {
+         addFace(triangles.get(t), triangles.get(t + 1), triangles.get(t + 2));
+      }
+   }
+
+   /*
+    * positions in the face being read
+    */
+   private void addFace(int a, int b, int c) {
+      int face = builder.addFace(faceVertices.get(a), textureOf(a), faceVertices.get(b), textureOf(b),
+            faceVertices.get(c), textureOf(c));
+      if (smoothingGroup != 0)
+         builder.setFaceSmoothingGroup(face, smoothingGroup);
+   }
+
+   private int textureOf(int position) {
+      int texCoord = faceTexCoords.get(position);
+      return texCoord == NO_TEXTURE ? TriangleMeshFaceWrapper.DEFAULT_TEXTURE : texCoord;
+   }
+
+   /*
+    * OBJ indices start at 1, negative ones count back from the last element read
+    */
+   private int toVertexHandle(int index) throws IOException {
+      int count = builder.getVertexCount() - firstVertex;
+      int handle = index > 0 ? index - 1 : count + index;
+      if (index == 0 || handle < 0 || handle >= count)
+         throw malformed("There is no vertex " + index);
+      return firstVertex + handle;
+   }
+
+   private int toTexCoordHandle(int index) throws IOException {
+      int count = builder.getTexCoordCount() - firstTexCoord;
+      int handle = index > 0 ? index - 1 : count + index;
+      if (index == 0 || handle < 0 || handle >= count)
+         throw malformed("There is no texture vertex " + index);
+      return firstTexCoord + handle;
+   }
+
+   /*
+    * 'off' or 0 is no group, group n is bit (n - 1) modulo 32
+    */
+   private void readSmoothingGroup() throws IOException {
+      skipSpaces();
+      if (current >= '0' && current <= '9') {
+         int group = readInt();
+         smoothingGroup = group == 0 ? 0 : 1 << ((group - 1) & 31);
+      } else {
+         smoothingGroup = 0;
+      }
+   }
+
+   private int readInt() throws IOException {
+      skipSpaces();
+      boolean negative = current == '-';
+      if (negative || current == '+')
+         current = input.read();
+      if (current < '0' || current > '9')
+         throw malformed("A number was expected");
+      long value = 0;
+      while (current >= '0' && current <= '9') {
+         value = value * 10 + (current - '0');
+         if (value > Integer.MAX_VALUE)
+            throw malformed("The number is too large");
+         current = input.read();
+      }
+      return (int) (negative ? -value : value);
+   }
+
+   /*
+    * Decimal numbers, with an optional exponent, parsed without creating a String. Digits
+    * beyond the eighteenth are only counted, they are far below the precision of a float.
+    */
+   private float readFloat() throws IOException {
+      skipSpaces();
+      boolean negative = current == '-';
+      if (negative || current == '+')
+         current = input.read();
+      long mantissa = 0;
+      int exponent = 0;
+      int significantDigits = 0;
+      boolean anyDigit = false;
+      while (current >= '0' && current <= '9') {
+         anyDigit = true;
+         if (significantDigits < 18) {
+            mantissa = mantissa * 10 + (current - '0');
+            if (mantissa != 0)
+               significantDigits++;
+         } else {
+            exponent++;
+         }
+         current = input.read();
+      }
+      if (current == '.') {
+         current = input.read();
+         while (current >= '0' && current <= '9') {
+            anyDigit = true;
+            if (significantDigits < 18) {
+               mantissa = mantissa * 10 + (current - '0');
+               exponent--;
+               if (mantissa != 0)
+                  significantDigits++;
+            }
+            current = input.read();
+         }
+      }
+      if (!anyDigit)
+         throw malformed("A number was expected");
+      if (current == 'e' || current == 'E') {
+         current = input.read();
+         exponent += readInt();
+      }
+      double value = exponent >= 0 ? mantissa * Math.pow(10, exponent) : mantissa / Math.pow(10, -exponent);
+      return (float) (negative ? -value : value);
+   }
+
+   private void skipSpaces() throws IOException {
+      while (isSpace(current)) {
+         current = input.read();
+      }
+      // a backslash at the end of a line joins it with the next one
+      while (current == '\\') {
+         current = input.read();
+         if (current == '\r')
+            current = input.read();
+         if (current == '\n') {
+            line++;
+            current = input.read();
+         }
+         while (isSpace(current)) {
+            current = input.read();
+         }
+      }
+   }
+
+   private boolean atLineEnd() {
+      return current == END || isLineEnd(current) || current == '#';
+   }
+
+   /*
+    * up to the first character of the next line
+    */
+   private void skipLine() throws IOException {
+      while (current != END && current != '\n') {
+         current = input.read();
+      }
+      if (current == '\n') {
+         line++;
+         current = input.read();
+      }
+   }
+
+   private static boolean isSpace(int character) {
+      return character == ' ' || character == '\t';
+   }
+
+   private static boolean isLineEnd(int character) {
+      return character == '\n' || character == '\r';
+   }
+
+   private IOException malformed(String message) {
+      return new IOException(message + " at line " + line + ".");
+   }
+}
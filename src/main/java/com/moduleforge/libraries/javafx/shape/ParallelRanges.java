@@ -0,0 +1,64 @@
+package com.moduleforge.libraries.javafx.shape;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/*
+ * Splits [0, count) into ranges of at most threshold elements that are processed in a fork-join
+ * pool
+ * 
+ * Meant for loops where each element writes its own slots of an output array, so that ranges
+ * do not need to synchronize with each other
+ */
+final class ParallelRanges {
+
+   @FunctionalInterface
+   interface RangeAction {
+      void apply(int from, int to);
+   }
+
+   private ParallelRanges() {
+      //
+   }
+
+   /*
+    * runs sequentially in the calling thread if the pool is null or there is not enough work
+    * to split
+    */
+   static void forEach(int count, ForkJoinPool pool, int threshold, RangeAction action) {
+      if (pool == null || count <= threshold) {
+         action.apply(0, count);
+         return;
+      }
+      pool.invoke(new RangeTask(0, count, threshold, action));
+   }
+
+   static void forEach(int count, MeshBuildOptions options, RangeAction action) {
+      forEach(count, options.getPool(), options.getParallelThreshold(), action);
+   }
+
+   private static final class RangeTask extends RecursiveAction {
+
+      private final int from;
+      private final int to;
+      private final int threshold;
+      private final RangeAction action;
+
+      RangeTask(int from, int to, int threshold, RangeAction action) {
+         this.from = from;
+         this.to = to;
+         this.threshold = threshold;
+         this.action = action;
+      }
+
+      @Override
+      protected void compute() {
+         if (to - from <= threshold) {
+            action.apply(from, to);
+            return;
+         }
+         int middle = (from + to) >>> 1;
+         invokeAll(new RangeTask(from, middle, threshold, action), new RangeTask(middle, to, threshold, action));
+      }
+   }
+}
@@ -0,0 +1,27 @@
+package com.moduleforge.libraries.javafx.shape;
+
+/*
+ * Applies an affine transform, given as a matrix in AffineArrays, to points laid out as x, y, z
+ *
+ * This is the plain Java version. On Java 16 and later the multi-release jar has another one,
+ * from src/main/java16, that uses the Vector API when the jdk.incubator.vector module is present.
+ * Both give the same points but for rounding in the last bit.
+ */
+final class PointTransform {
+
+   private PointTransform() {
+      //
+   }
+
+   /*
+    * source and target may be the same array
+    */
+   static void apply(double[] m, float[] source, int sourceOffset, float[] target, int targetOffset, int length) {
+      for (int i = 0; i < length; i += 3) {
+         double x = source[sourceOffset + i], y = source[sourceOffset + i + 1], z = source[sourceOffset + i + 2];
+         target[targetOffset + i] = (float) (m[0] * x + m[1] * y + m[2] * z + m[3]);
+         target[targetOffset + i + 1] = (float) (m[4] * x + m[5] * y + m[6] * z + m[7]);
+         target[targetOffset + i + 2] = (float) (m[8] * x + m[9] * y + m[10] * z + m[11]);
+      }
+   }
+}
@@ -0,0 +1,175 @@
+package com.moduleforge.libraries.javafx.shape;
+
+/*
+ * Triangulation of a planar polygon, possibly with holes, given by its vertices in 3D
+ *
+ * The polygon is projected on the coordinate plane most parallel to it. Convex polygons without
+ * holes are split into a fan from the first vertex, in linear time. Any other polygon goes
+ * through ear clipping.
+ *
+ * A polygon whose edges cross each other has no proper triangulation. When the triangles from
+ * ear clipping do not cover the area of a polygon without holes, the fan is used instead.
+ *
+ * The triangles are appended as triples of vertex indices, all with the orientation of the
+ * outer boundary, so they face the same side as the polygon.
+ */
+final class PolygonTriangulator {
+
+   private static final int[] NO_HOLES = new int[0];
+   private static final double AREA_TOLERANCE = 1e-9;
+
+   private PolygonTriangulator() {
+   }
+
+   static void triangulate(double[] coordinates, GrowableIntArray triangles) {
+      triangulate(coordinates, coordinates.length / 3, NO_HOLES, triangles);
+   }
+
+   /*
+    * only the first vertexCount vertices of the coordinates, so a buffer can be reused
+    */
+   static void triangulate(double[] coordinates, int vertexCount, GrowableIntArray triangles) {
+      triangulate(coordinates, vertexCount, NO_HOLES, triangles);
+   }
+
+   /*
+    * The coordinates are x, y and z of each vertex, first those of the outer boundary and then
+    * those of each hole. holeStarts are the indices of the first vertex of each hole.
+    */
+   static void triangulate(double[] coordinates, int[] holeStarts, GrowableIntArray triangles) {
+      triangulate(coordinates, coordinates.length / 3, holeStarts, triangles);
+   }
+
+   private static void triangulate(double[] coordinates, int vertexCount, int[] holeStarts,
+         GrowableIntArray triangles) {
+      int outerCount = holeStarts.length > 0 ? holeStarts[0] : vertexCount;
+      if (outerCount < TriangleMeshFaceWrapper.TRIANGLE_VERTEX_COUNT) {
+         return;
+      }
+      double[] projected = project(coordinates, vertexCount, outerCount);
+      double outerArea = signedArea(projected, outerCount);
+
+      if (holeStarts.length == 0 && isConvex(projected, outerCount, outerArea > 0)) {
+         fan(outerCount, triangles);
+         return;
+      }
+      int first = triangles.size();
+      EarClipping.triangulate(projected, holeStarts, triangles);
+      double coveredArea = 0;
+      for (int t = first; t < triangles.size(); t += 3) {
+         int a = triangles.get(t);
+         int b = triangles.get(t + 1);
+         int c = triangles.get(t + 2);
+         double area = cross(projected, a, b, c);
+         if (area != 0 && (area > 0) != (outerArea > 0)) {
+            triangles.set(t + 1, c);
+            triangles.set(t + 2, b);
+         }
+         coveredArea += Math.abs(area) / 2;
+      }
+      if (holeStarts.length == 0 && Math.abs(coveredArea - Math.abs(outerArea)) > AREA_TOLERANCE * Math.abs(outerArea)) {
+         triangles.truncate(first);
+         fan(outerCount, triangles);
+      }
+   }
+
+   private static void fan(int count, GrowableIntArray triangles) {
+      for (int i = 1; i < count - 1; i++) {
+         triangles.add(0, i, i + 1);
+      }
+   }
+
+   /*
+    * drops the coordinate along which the normal of the outer boundary is largest; the
+    * remaining two are taken in cyclic order, so the orientation seen from the positive side of
+    * that axis is kept
+    */
+   private static double[] project(double[] coordinates, int vertexCount, int outerCount) {
+      // Newell's method, valid for concave polygons as well
+      double nx = 0, ny = 0, nz = 0;
+      for (int i = 0, j = outerCount - 1; i < outerCount; j = i, i++) {
+         double xi = coordinates[3 * i], yi = coordinates[3 * i + 1], zi = coordinates[3 * i + 2];
+         double xj = coordinates[3 * j], yj = coordinates[3 * j + 1], zj = coordinates[3 * j + 2];
+         nx += (yj - yi) * (zj + zi);
+         ny += (zj - zi) * (xj + xi);
+         nz += (xj - xi) * (yj + yi);
+      }
+      int first, second;
+      if (Math.abs(nx) >= Math.abs(ny) && Math.abs(nx) >= Math.abs(nz)) {
+         first = 1;
+         second = 2;
+      } else if (Math.abs(ny) >= Math.abs(nz)) {
+         first = 2;
+         second = 0;
+      } else {
+         first = 0;
+         second = 1;
+      }
+      double[] projected = new double[vertexCount * 2];
+      for (int i = 0; i < vertexCount; i++) {
+         projected[2 * i] = coordinates[3 * i + first];
+         projected[2 * i + 1] = coordinates[3 * i + second];
+      }
+      return projected;
+   }
+
+   /*
+    * positive if counterclockwise
+    */
+   private static double signedArea(double[] projected, int count) {
+      double sum = 0;
+      for (int i = 0, j = count - 1; i < count; j = i, i++) {
+         sum += projected[2 * j] * projected[2 * i + 1] - projected[2 * i] * projected[2 * j + 1];
+      }
+      return sum / 2;
+   }
+
+   private static double cross(double[] projected, int a, int b, int c) {
+      double abx = projected[2 * b] - projected[2 * a];
+      double aby = projected[2 * b + 1] - projected[2 * a + 1];
+      double acx = projected[2 * c] - projected[2 * a];
+      double acy = projected[2 * c + 1] - projected[2 * a + 1];
+      return abx * acy - aby * acx;
+   }
+
+   /*
+    * strictly convex and simple: every turn goes the same way, and the direction of the edges
+    * makes a single revolution, which rules out star shaped polygons
+    */
+   private static boolean isConvex(double[] projected, int count, boolean counterclockwise) {
+      int xSignChanges = 0;
+      int ySignChanges = 0;
+      double previousDx = projected[0] - projected[2 * (count - 1)];
+      double previousDy = projected[1] - projected[2 * (count - 1) + 1];
+      int lastXSign = sign(previousDx);
+      int lastYSign = sign(previousDy);
+      for (int i = 0; i < count; i++) {
+         int next = (i + 1) % count;
+         double dx = projected[2 * next] - projected[2 * i];
+         double dy = projected[2 * next + 1] - projected[2 * i + 1];
+         double turn = previousDx * dy - previousDy * dx;
+         if (turn == 0 || (turn > 0) != counterclockwise) {
+            return false;
+         }
+         int xSign = sign(dx);
+         if (xSign != 0) {
+            if (lastXSign != 0 && xSign != lastXSign)
+               xSignChanges++;
+            lastXSign = xSign;
+         }
+         int ySign = sign(dy);
+         if (ySign != 0) {
+            if (lastYSign != 0 && ySign != lastYSign)
+               ySignChanges++;
+            lastYSign = ySign;
+         }
+         previousDx = dx;
+         previousDy = dy;
+      }
+      return xSignChanges <= 2 && ySignChanges <= 2;
+   }
+
+   private static int sign(double value) {
+      return value > 0 ? 1 : value < 0 ? -1 : 0;
+   }
+}
@@ -0,0 +1,540 @@
+package com.moduleforge.libraries.javafx.shape;
+
+import java.util.Arrays;
+
+import javafx.scene.shape.TriangleMesh;
+import javafx.scene.shape.VertexFormat;
+
+/*
+ * Simplification of a triangle mesh by edge collapse, ordered by quadric error (Garland and
+ * Heckbert)
+ *
+ * Each vertex has the sum of the squared distances to the planes of its faces, weighted by
+ * their area, as a quadric. Collapsing a vertex u into a neighbour v moves the faces of u to v
+ * and removes the faces of the edge; its cost is the error of the sum of both quadrics at the
+ * position of v. The cheapest collapse is taken from a priority queue, until the number of faces
+ * is down to the target.
+ *
+ * Vertices only collapse into a neighbour, never into a new position, so the texture
+ * coordinates of the remaining vertices stay valid. To keep the texture mapped and the outline
+ * of the mesh in place, some vertices are never removed: those on an edge with other than two
+ * faces (boundaries and non manifold edges) and those whose faces use more than one texture
+ * vertex (texture seams). A collapse is also rejected if it would make the mesh non manifold or
+ * turn a face around.
+ *
+ * Everything is kept in primitive arrays. The faces of each vertex are a linked list of face
+ * corners, and entries of the queue made stale by a collapse are dropped when they come out of
+ * it, so a collapse costs time proportional to the number of faces around the edge.
+ */
+final class QuadricSimplifier {
+
+   private static final int QUADRIC_SIZE = 10;
+   private static final int CORNERS = TriangleMeshFaceWrapper.TRIANGLE_VERTEX_COUNT;
+   private static final int DEAD = -1;
+
+   private final float[] points;
+   private final float[] texCoords;
+   private final VertexFormat format;
+   private final int[] faceVertices;
+   private final int[] faceTexCoords;
+   private final int[] smoothingGroups;
+   private int aliveFaceCount;
+
+   private final double[] quadrics;
+   private final boolean[] locked;
+   private final boolean[] removed;
+   private final int[] versions;
+
+   // face corners of each vertex: the first one, and the next one of each corner
+   private final int[] firstCorner;
+   private final int[] nextCorner;
+
+   // marks of the vertices visited, to collect neighbours without duplicates
+   private final int[] marks;
+   private int markStamp;
+
+   private final CollapseQueue queue;
+   private final double[] plane = new double[QUADRIC_SIZE];
+
+   private QuadricSimplifier(float[] points, float[] texCoords, VertexFormat format, int[] faceVertices,
+         int[] faceTexCoords, int[] smoothingGroups) {
+      this.points = points;
+      this.texCoords = texCoords;
+      this.format = format;
+      this.faceVertices = faceVertices;
+      this.faceTexCoords = faceTexCoords;
+      this.smoothingGroups = smoothingGroups;
+      int vertexCount = points.length / 3;
+      quadrics = new double[vertexCount * QUADRIC_SIZE];
+      locked = new boolean[vertexCount];
+      removed = new boolean[vertexCount];
+      versions = new int[vertexCount];
+      firstCorner = new int[vertexCount];
+      nextCorner = new int[faceVertices.length];
+      marks = new int[vertexCount];
+      queue = new CollapseQueue(faceVertices.length);
+   }
+
+   static QuadricSimplifier from(TriangleMesh mesh) {
+      VertexFormat format = mesh.getVertexFormat();
+      int stride = TriangleMeshFaceWrapper.faceTotalCoordinateCount(format);
+      int vertexStride = format.getVertexIndexSize();
+      int[] faces = mesh.getFaces().toArray(null);
+      int faceCount = mesh.getFaces().size() / stride;
+      int[] faceVertices = new int[faceCount * CORNERS];
+      int[] faceTexCoords = new int[faceCount * CORNERS];
+      for (int f = 0; f < faceCount; f++) {
+         for (int k = 0; k < CORNERS; k++) {
+            int offset = f * stride + k * vertexStride;
+            faceVertices[f * CORNERS + k] = faces[offset + format.getPointIndexOffset()];
+            faceTexCoords[f * CORNERS + k] = faces[offset + format.getTexCoordIndexOffset()];
+         }
+      }
+      int[] smoothingGroups = new int[faceCount];
+      if (mesh.getFaceSmoothingGroups().size() == faceCount)
+         mesh.getFaceSmoothingGroups().toArray(smoothingGroups);
+      QuadricSimplifier simplifier = new QuadricSimplifier(mesh.getPoints().toArray(null),
+            mesh.getTexCoords().toArray(null), format, faceVertices, faceTexCoords, smoothingGroups);
+      simplifier.initialize();
+      return simplifier;
+   }
+
+   int getFaceCount() {
+      return aliveFaceCount;
+   }
+
+   /*
+    * collapses edges until there are at most targetFaceCount faces, or no edge can be collapsed
+    */
+   void simplify(int targetFaceCount) {
+      while (aliveFaceCount > targetFaceCount && !queue.isEmpty()) {
+         int from = queue.topFrom();
+         int to = queue.topTo();
+         boolean stale = removed[from] || removed[to] || queue.topFromVersion() != versions[from]
+               || queue.topToVersion() != versions[to];
+         boolean reversed = queue.topReversed();
+         queue.removeTop();
+         if (stale)
+            continue;
+         int texCoord = collapseTexCoord(from, to);
+         if (texCoord < 0) {
+            // the other way round may still be possible, it is tried once at its own cost
+            if (!reversed && !locked[to])
+               queue.push(cost(to, from), to, from, versions[to], versions[from], true);
+            continue;
+         }
+         collapse(from, to, texCoord);
+      }
+   }
+
+   private void initialize() {
+      int faceCount = faceVertices.length / CORNERS;
+      int vertexCount = locked.length;
+      Arrays.fill(firstCorner, DEAD);
+      int[] firstTexCoord = new int[vertexCount];
+      Arrays.fill(firstTexCoord, DEAD);
+      LongIntHashMap edgeFaceCounts = new LongIntHashMap(faceCount * 2);
+      for (int f = 0; f < faceCount; f++) {
+         int a = faceVertices[f * CORNERS], b = faceVertices[f * CORNERS + 1], c = faceVertices[f * CORNERS + 2];
+         if (a == b || b == c || c == a) {
+            faceVertices[f * CORNERS] = DEAD;
+            continue;
+         }
+         aliveFaceCount++;
+         addFaceQuadric(f);
+         for (int k = 0; k < CORNERS; k++) {
+            int corner = f * CORNERS + k;
+            int vertex = faceVertices[corner];
+            nextCorner[corner] = firstCorner[vertex];
+            firstCorner[vertex] = corner;
+            if (firstTexCoord[vertex] == DEAD)
+               firstTexCoord[vertex] = faceTexCoords[corner];
+            else if (firstTexCoord[vertex] != faceTexCoords[corner])
+               locked[vertex] = true;
+            long edge = edgeKey(vertex, faceVertices[f * CORNERS + (k + 1) % CORNERS]);
+            edgeFaceCounts.put(edge, edgeFaceCounts.get(edge, 0) + 1);
+         }
+      }
+      for (int f = 0; f < faceCount; f++) {
+         if (faceVertices[f * CORNERS] == DEAD)
+            continue;
+         for (int k = 0; k < CORNERS; k++) {
+            int a = faceVertices[f * CORNERS + k];
+            int b = faceVertices[f * CORNERS + (k + 1) % CORNERS];
+            if (edgeFaceCounts.get(edgeKey(a, b), 0) != 2) {
+               locked[a] = true;
+               locked[b] = true;
+            }
+         }
+      }
+      for (int f = 0; f < faceCount; f++) {
+         if (faceVertices[f * CORNERS] == DEAD)
+            continue;
+         for (int k = 0; k < CORNERS; k++) {
+            int a = faceVertices[f * CORNERS + k];
+            int b = faceVertices[f * CORNERS + (k + 1) % CORNERS];
+            long edge = edgeKey(a, b);
+            // each edge is queued once, the count is not needed any more
+            if (edgeFaceCounts.get(edge, 0) > 0) {
+               edgeFaceCounts.put(edge, 0);
+               pushEdge(a, b);
+            }
+         }
+      }
+   }
+
+   private void addFaceQuadric(int face) {
+      int a = faceVertices[face * CORNERS], b = faceVertices[face * CORNERS + 1], c = faceVertices[face * CORNERS + 2];
+      double ax = points[a * 3], ay = points[a * 3 + 1], az = points[a * 3 + 2];
+      double ux = points[b * 3] - ax, uy = points[b * 3 + 1] - ay, uz = points[b * 3 + 2] - az;
+      double vx = points[c * 3] - ax, vy = points[c * 3 + 1] - ay, vz = points[c * 3 + 2] - az;
+      double nx = uy * vz - uz * vy, ny = uz * vx - ux * vz, nz = ux * vy - uy * vx;
+      double length = Math.sqrt(nx * nx + ny * ny + nz * nz);
+      if (length == 0)
+         return;
+      nx /= length;
+      ny /= length;
+      nz /= length;
+      double d = -(nx * ax + ny * ay + nz * az);
+      double area = length / 2;
+      plane[0] = nx * nx;
+      plane[1] = nx * ny;
+      plane[2] = nx * nz;
+      plane[3] = nx * d;
+      plane[4] = ny * ny;
+      plane[5] = ny * nz;
+      plane[6] = ny * d;
+      plane[7] = nz * nz;
+      plane[8] = nz * d;
+      plane[9] = d * d;
+      for (int k = 0; k < CORNERS; k++) {
+         int offset = faceVertices[face * CORNERS + k] * QUADRIC_SIZE;
+         for (int i = 0; i < QUADRIC_SIZE; i++) {
+            quadrics[offset + i] += plane[i] * area;
+         }
+      }
+   }
+
+   /*
+    * the error of the quadrics of from and to at the position of to
+    */
+   private double cost(int from, int to) {
+      double x = points[to * 3], y = points[to * 3 + 1], z = points[to * 3 + 2];
+      int p = from * QUADRIC_SIZE;
+      int q = to * QUADRIC_SIZE;
+      double[] m = quadrics;
+      double error = (m[p] + m[q]) * x * x + 2 * (m[p + 1] + m[q + 1]) * x * y + 2 * (m[p + 2] + m[q + 2]) * x * z
+            + 2 * (m[p + 3] + m[q + 3]) * x + (m[p + 4] + m[q + 4]) * y * y + 2 * (m[p + 5] + m[q + 5]) * y * z
+            + 2 * (m[p + 6] + m[q + 6]) * y + (m[p + 7] + m[q + 7]) * z * z + 2 * (m[p + 8] + m[q + 8]) * z
+            + (m[p + 9] + m[q + 9]);
+      // rounding can make it slightly negative
+      return Math.max(0, error);
+   }
+
+   /*
+    * queues the cheapest direction in which the edge can collapse, if any
+    */
+   private void pushEdge(int a, int b) {
+      if (locked[a] && locked[b])
+         return;
+      int from = a, to = b;
+      if (locked[a] || (!locked[b] && cost(b, a) < cost(a, b))) {
+         from = b;
+         to = a;
+      }
+      queue.push(cost(from, to), from, to, versions[from], versions[to], false);
+   }
+
+   /*
+    * The texture vertex the faces of from take at to if the collapse is possible, -1 if it is
+    * not. It is not possible if the edge has no faces any more, if its faces use different
+    * texture vertices at to, if the vertices have other common neighbours than those of the
+    * faces of the edge (the result would not be manifold) or if a face of from would turn around.
+    */
+   private int collapseTexCoord(int from, int to) {
+      int edgeFaceCount = 0;
+      int texCoord = DEAD;
+      int stamp = ++markStamp;
+      for (int corner = firstCorner[from]; corner != DEAD; corner = nextCorner[corner]) {
+         int face = corner / CORNERS;
+         if (faceVertices[face * CORNERS] == DEAD)
+            continue;
+         int toCorner = cornerOf(face, to);
+         if (toCorner != DEAD) {
+            edgeFaceCount++;
+            if (texCoord != DEAD && texCoord != faceTexCoords[toCorner])
+               return DEAD;
+            texCoord = faceTexCoords[toCorner];
+         } else if (turnsAround(face, corner, to)) {
+            return DEAD;
+         }
+         for (int k = 0; k < CORNERS; k++) {
+            marks[faceVertices[face * CORNERS + k]] = stamp;
+         }
+      }
+      if (edgeFaceCount == 0)
+         return DEAD;
+      // neighbours of to already marked by from are common ones; they are counted once by
+      // moving their mark on
+      int commonCount = 0;
+      int counted = ++markStamp;
+      for (int corner = firstCorner[to]; corner != DEAD; corner = nextCorner[corner]) {
+         int face = corner / CORNERS;
+         if (faceVertices[face * CORNERS] == DEAD)
+            continue;
+         for (int k = 0; k < CORNERS; k++) {
+            int vertex = faceVertices[face * CORNERS + k];
+            if (vertex != from && vertex != to && marks[vertex] == stamp) {
+               marks[vertex] = counted;
+               commonCount++;
+            }
+         }
+      }
+      return commonCount == edgeFaceCount ? texCoord : DEAD;
+   }
+
+   private int cornerOf(int face, int vertex) {
+      for (int k = 0; k < CORNERS; k++) {
+         if (faceVertices[face * CORNERS + k] == vertex)
+            return face * CORNERS + k;
+      }
+      return DEAD;
+   }
+
+   /*
+    * whether the face turns to the other side, or loses its area, when the vertex at corner
+    * moves to the position of vertex to
+    */
+   private boolean turnsAround(int face, int corner, int to) {
+      int k = corner - face * CORNERS;
+      int moving = faceVertices[corner];
+      int b = faceVertices[face * CORNERS + (k + 1) % CORNERS];
+      int c = faceVertices[face * CORNERS + (k + 2) % CORNERS];
+      double bx = points[b * 3], by = points[b * 3 + 1], bz = points[b * 3 + 2];
+      double ux = points[c * 3] - bx, uy = points[c * 3 + 1] - by, uz = points[c * 3 + 2] - bz;
+      double vx = points[moving * 3] - bx, vy = points[moving * 3 + 1] - by, vz = points[moving * 3 + 2] - bz;
+      double wx = points[to * 3] - bx, wy = points[to * 3 + 1] - by, wz = points[to * 3 + 2] - bz;
+      // normals before and after, both as (c - b) x (vertex - b)
+      double nx = uy * vz - uz * vy, ny = uz * vx - ux * vz, nz = ux * vy - uy * vx;
+      double mx = uy * wz - uz * wy, my = uz * wx - ux * wz, mz = ux * wy - uy * wx;
+      return nx * mx + ny * my + nz * mz <= 0;
+   }
+
+   private void collapse(int from, int to, int texCoord) {
+      int last = DEAD;
+      for (int corner = firstCorner[from]; corner != DEAD; corner = nextCorner[corner]) {
+         int face = corner / CORNERS;
+         last = corner;
+         if (faceVertices[face * CORNERS] == DEAD)
+            continue;
+         if (cornerOf(face, to) != DEAD) {
+            faceVertices[face * CORNERS] = DEAD;
+            aliveFaceCount--;
+            continue;
+         }
+         faceVertices[corner] = to;
+         faceTexCoords[corner] = texCoord;
+      }
+      if (last != DEAD) {
+         nextCorner[last] = firstCorner[to];
+         firstCorner[to] = firstCorner[from];
+      }
+      firstCorner[from] = DEAD;
+      removed[from] = true;
+      for (int i = 0; i < QUADRIC_SIZE; i++) {
+         quadrics[to * QUADRIC_SIZE + i] += quadrics[from * QUADRIC_SIZE + i];
+      }
+      versions[to]++;
+      pruneAndRequeue(to);
+   }
+
+   /*
+    * drops the corners of removed faces from the list of the vertex and queues again its edges,
+    * whose cost has changed
+    */
+   private void pruneAndRequeue(int vertex) {
+      int stamp = ++markStamp;
+      marks[vertex] = stamp;
+      int previous = DEAD;
+      for (int corner = firstCorner[vertex]; corner != DEAD; corner = nextCorner[corner]) {
+         int face = corner / CORNERS;
+         if (faceVertices[face * CORNERS] == DEAD) {
+            if (previous == DEAD)
+               firstCorner[vertex] = nextCorner[corner];
+            else
+               nextCorner[previous] = nextCorner[corner];
+            continue;
+         }
+         previous = corner;
+         for (int k = 0; k < CORNERS; k++) {
+            int neighbour = faceVertices[face * CORNERS + k];
+            if (marks[neighbour] != stamp) {
+               marks[neighbour] = stamp;
+               pushEdge(vertex, neighbour);
+            }
+         }
+      }
+   }
+
+   /*
+    * A new mesh with the remaining faces, in the vertex format of the original one. Only the
+    * points and texture vertices in use are kept. Normals, if the format has them, are those of
+    * the points, computed from the remaining faces.
+    */
+   TriangleMesh toTriangleMesh() {
+      int faceCount = faceVertices.length / CORNERS;
+      int[] pointIndices = new int[locked.length];
+      Arrays.fill(pointIndices, DEAD);
+      int[] texCoordIndices = new int[texCoords.length / 2];
+      Arrays.fill(texCoordIndices, DEAD);
+      GrowableFloatArray newPoints = new GrowableFloatArray();
+      GrowableFloatArray newTexCoords = new GrowableFloatArray();
+      int stride = TriangleMeshFaceWrapper.faceTotalCoordinateCount(format);
+      int vertexStride = format.getVertexIndexSize();
+      int[] faces = new int[aliveFaceCount * stride];
+      int[] groups = new int[aliveFaceCount];
+      int face = 0;
+      for (int f = 0; f < faceCount; f++) {
+         if (faceVertices[f * CORNERS] == DEAD)
+            continue;
+         for (int k = 0; k < CORNERS; k++) {
+            int vertex = faceVertices[f * CORNERS + k];
+            if (pointIndices[vertex] == DEAD) {
+               pointIndices[vertex] = newPoints.size() / 3;
+               newPoints.add(points[vertex * 3], points[vertex * 3 + 1], points[vertex * 3 + 2]);
+            }
+            int texCoord = faceTexCoords[f * CORNERS + k];
+            if (texCoordIndices[texCoord] == DEAD) {
+               texCoordIndices[texCoord] = newTexCoords.size() / 2;
+               newTexCoords.add(texCoords[texCoord * 2], texCoords[texCoord * 2 + 1]);
+            }
+            int offset = face * stride + k * vertexStride;
+            faces[offset + format.getPointIndexOffset()] = pointIndices[vertex];
+            faces[offset + format.getTexCoordIndexOffset()] = texCoordIndices[texCoord];
+            if (format == VertexFormat.POINT_NORMAL_TEXCOORD)
+               faces[offset + format.getNormalIndexOffset()] = pointIndices[vertex];
+         }
+         groups[face++] = smoothingGroups[f];
+      }
+      TriangleMesh mesh = new TriangleMesh(format);
+      float[] meshPoints = newPoints.toArray();
+      mesh.getPoints().setAll(meshPoints);
+      if (format == VertexFormat.POINT_NORMAL_TEXCOORD)
+         mesh.getNormals().setAll(MeshNormals.vertexNormals(meshPoints, faces, stride));
+      mesh.getTexCoords().setAll(newTexCoords.toArray());
+      mesh.getFaces().setAll(faces);
+      mesh.getFaceSmoothingGroups().setAll(groups);
+      return mesh;
+   }
+
+   /*
+    * the same key whatever the direction of the edge
+    */
+   private static long edgeKey(int a, int b) {
+      int low = Math.min(a, b);
+      int high = Math.max(a, b);
+      return ((long) low << 32) | (high & 0xFFFFFFFFL);
+   }
+
+   /*
+    * Binary min heap of collapses by cost, in parallel primitive arrays. Each entry keeps the
+    * versions of both vertices when it was queued, to recognise it as stale later.
+    */
+   private static final class CollapseQueue {
+
+      private double[] costs;
+      private long[] edges;
+      private long[] edgeVersions;
+      private boolean[] reversed;
+      private int size;
+
+      CollapseQueue(int initialCapacity) {
+         int capacity = Math.max(16, initialCapacity);
+         costs = new double[capacity];
+         edges = new long[capacity];
+         edgeVersions = new long[capacity];
+         reversed = new boolean[capacity];
+      }
+
+      boolean isEmpty() {
+         return size == 0;
+      }
+
+      int topFrom() {
+         return (int) (edges[0] >>> 32);
+      }
+
+      int topTo() {
+         return (int) edges[0];
+      }
+
+      int topFromVersion() {
+         return (int) (edgeVersions[0] >>> 32);
+      }
+
+      int topToVersion() {
+         return (int) edgeVersions[0];
+      }
+
+      boolean topReversed() {
+         return reversed[0];
+      }
+
+      void push(double cost, int from, int to, int fromVersion, int toVersion, boolean isReversed) {
+         if (size == costs.length) {
+            int capacity = costs.length * 2;
+            costs = Arrays.copyOf(costs, capacity);
+            edges = Arrays.copyOf(edges, capacity);
+            edgeVersions = Arrays.copyOf(edgeVersions, capacity);
+            reversed = Arrays.copyOf(reversed, capacity);
+         }
+         int slot = size++;
+         // sift up
+         while (slot > 0) {
+            int parent = (slot - 1) / 2;
+            if (costs[parent] <= cost)
+               break;
+            move(parent, slot);
+            slot = parent;
+         }
+         costs[slot] = cost;
+         edges[slot] = ((long) from << 32) | (to & 0xFFFFFFFFL);
+         edgeVersions[slot] = ((long) fromVersion << 32) | (toVersion & 0xFFFFFFFFL);
+         reversed[slot] = isReversed;
+      }
+
+      void removeTop() {
+         size--;
+         if (size == 0)
+            return;
+         double cost = costs[size];
+         long edge = edges[size];
+         long edgeVersion = edgeVersions[size];
+         boolean isReversed = reversed[size];
+         int slot = 0;
+         // sift down
+         while (true) {
+            int child = slot * 2 + 1;
+            if (child >= size)
+               break;
+            if (child + 1 < size && costs[child + 1] < costs[child])
+               child++;
+            if (cost <= costs[child])
+               break;
+            move(child, slot);
+            slot = child;
+         }
+         costs[slot] = cost;
+         edges[slot] = edge;
+         edgeVersions[slot] = edgeVersion;
+         reversed[slot] = isReversed;
+      }
+
+      private void move(int source, int target) {
+         costs[target] = costs[source];
+         edges[target] = edges[source];
+         edgeVersions[target] = edgeVersions[source];
+         reversed[target] = reversed[source];
+      }
+   }
+}
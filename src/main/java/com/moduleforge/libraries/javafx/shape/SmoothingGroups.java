@@ -0,0 +1,183 @@
+package com.moduleforge.libraries.javafx.shape;
+
+import java.util.Arrays;
+
+/*
+ * Smoothing groups from a crease angle
+ *
+ * Two faces that share an edge are smooth across it if the angle between their front directions
+ * is at most the crease angle. The faces connected through smooth edges form a region, and each
+ * region gets one of the 32 smoothing group bits. Regions that meet at a crease edge get
+ * different bits, chosen greedily, so the edge is shaded hard.
+ *
+ * Everything runs on the mesh arrays in time linear in the number of faces: edges are looked up
+ * in a LongIntHashMap, regions are found with union-find and the region graph is kept in int
+ * arrays.
+ *
+ * If a region has crease edges with regions of all 32 groups, it shares a group with one of
+ * them and the edge between them is shaded smooth. A crease edge between two faces of the same
+ * region cannot be shaded hard with smoothing groups either.
+ */
+final class SmoothingGroups {
+
+   private static final int GROUP_COUNT = 32;
+
+   private SmoothingGroups() {
+   }
+
+   /*
+    * one smoothing group mask per face, in the layout of MeshNormals
+    */
+   static int[] byCreaseAngle(float[] points, int[] faces, int faceStride, double creaseAngle) {
+      int faceCount = faces.length / faceStride;
+      int vertexStride = faceStride / TriangleMeshFaceWrapper.TRIANGLE_VERTEX_COUNT;
+      float[] normals = MeshNormals.faceNormals(points, faces, faceStride);
+      double minimumCosine = Math.cos(creaseAngle);
+
+      int[] parent = new int[faceCount];
+      for (int f = 0; f < faceCount; f++) {
+         parent[f] = f;
+      }
+      // pairs of faces across crease edges
+      GrowableIntArray creases = new GrowableIntArray();
+      // first face seen with each edge
+      LongIntHashMap edgeToFace = new LongIntHashMap(faceCount * 2);
+      for (int f = 0; f < faceCount; f++) {
+         int offset = f * faceStride;
+         for (int k = 0; k < TriangleMeshFaceWrapper.TRIANGLE_VERTEX_COUNT; k++) {
+            int a = faces[offset + k * vertexStride];
+            int b = faces[offset + ((k + 1) % TriangleMeshFaceWrapper.TRIANGLE_VERTEX_COUNT) * vertexStride];
+            long edge = edgeKey(a, b);
+            int other = edgeToFace.putIfAbsent(edge, f);
+            if (other == f) {
+               continue;
+            }
+            if (cosine(normals, f, other) >= minimumCosine) {
+               union(parent, f, other);
+            } else {
+               creases.add(f, other);
+            }
+         }
+      }
+
+      // regions numbered by their first face
+      int[] region = new int[faceCount];
+      int regionCount = 0;
+      int[] regionOfRoot = new int[faceCount];
+      Arrays.fill(regionOfRoot, -1);
+      for (int f = 0; f < faceCount; f++) {
+         int root = find(parent, f);
+         if (regionOfRoot[root] < 0) {
+            regionOfRoot[root] = regionCount++;
+         }
+         region[f] = regionOfRoot[root];
+      }
+
+      int[][] neighbours = regionGraph(creases, region, regionCount);
+      int[] groupOfRegion = colour(neighbours[0], neighbours[1], regionCount);
+
+      int[] groups = new int[faceCount];
+      for (int f = 0; f < faceCount; f++) {
+         groups[f] = 1 << groupOfRegion[region[f]];
+      }
+      return groups;
+   }
+
+   /*
+    * the same key whatever the direction of the edge
+    */
+   private static long edgeKey(int a, int b) {
+      int low = Math.min(a, b);
+      int high = Math.max(a, b);
+      return ((long) low << 32) | (high & 0xFFFFFFFFL);
+   }
+
+   /*
+    * cosine of the angle between the normals of two faces; faces with no area are smooth with
+    * any other
+    */
+   private static double cosine(float[] normals, int f, int g) {
+      float x = normals[f * 3], y = normals[f * 3 + 1], z = normals[f * 3 + 2];
+      float u = normals[g * 3], v = normals[g * 3 + 1], w = normals[g * 3 + 2];
+      if ((x == 0 && y == 0 && z == 0) || (u == 0 && v == 0 && w == 0)) {
+         return 1;
+      }
+      return x * u + y * v + z * w;
+   }
+
+   private static int find(int[] parent, int f) {
+      int root = f;
+      while (parent[root] != root) {
+         root = parent[root];
+      }
+      // path compression
+      while (parent[f] != root) {
+         int next = parent[f];
+         parent[f] = root;
+         f = next;
+      }
+      return root;
+   }
+
+   private static void union(int[] parent, int f, int g) {
+      int rootF = find(parent, f);
+      int rootG = find(parent, g);
+      if (rootF != rootG) {
+         parent[Math.max(rootF, rootG)] = Math.min(rootF, rootG);
+      }
+   }
+
+   /*
+    * adjacency lists of the regions in compressed form: the neighbours of region r are
+    * adjacency[start[r]] to adjacency[start[r + 1] - 1]; returned as { start, adjacency }
+    */
+   private static int[][] regionGraph(GrowableIntArray creases, int[] region, int regionCount) {
+      LongIntHashMap seen = new LongIntHashMap(creases.size());
+      GrowableIntArray pairs = new GrowableIntArray(creases.size());
+      int[] start = new int[regionCount + 1];
+      for (int i = 0; i < creases.size(); i += 2) {
+         int r = region[creases.get(i)];
+         int s = region[creases.get(i + 1)];
+         long key = edgeKey(r, s);
+         if (r == s || seen.containsKey(key)) {
+            continue;
+         }
+         seen.put(key, 0);
+         pairs.add(r, s);
+         start[r + 1]++;
+         start[s + 1]++;
+      }
+      for (int r = 0; r < regionCount; r++) {
+         start[r + 1] += start[r];
+      }
+      int[] adjacency = new int[start[regionCount]];
+      int[] fill = Arrays.copyOf(start, regionCount);
+      for (int i = 0; i < pairs.size(); i += 2) {
+         int r = pairs.get(i);
+         int s = pairs.get(i + 1);
+         adjacency[fill[r]++] = s;
+         adjacency[fill[s]++] = r;
+      }
+      return new int[][] { start, adjacency };
+   }
+
+   /*
+    * greedy colouring in region order: the lowest group not used by a neighbour already coloured
+    */
+   private static int[] colour(int[] start, int[] adjacency, int regionCount) {
+      int[] group = new int[regionCount];
+      Arrays.fill(group, -1);
+      for (int r = 0; r < regionCount; r++) {
+         int used = 0;
+         for (int i = start[r]; i < start[r + 1]; i++) {
+            int neighbourGroup = group[adjacency[i]];
+            if (neighbourGroup >= 0) {
+               used |= 1 << neighbourGroup;
+            }
+         }
+         group[r] = used == -1 ? 0 : Integer.numberOfTrailingZeros(~used);
+         assert (group[r] < GROUP_COUNT);
+      }
+      return group;
+   }
+}
@@ -0,0 +1,275 @@
+package com.moduleforge.libraries.javafx.shape;
+
+import java.util.Arrays;
+
+import javafx.collections.ObservableFloatArray;
+import javafx.collections.ObservableIntegerArray;
+
+/*
+ * The normals of a mesh that changes made stale, so that only those are computed again and only
+ * their ranges are sent to the normals array
+ *
+ * Flat normals go with the faces and smooth normals with the points, as in MeshNormals. A point
+ * that moves changes the faces around it, and with smooth normals all the points of those faces,
+ * so the faces around each point are kept from the first partial refresh on. Changes to the whole
+ * mesh make all the normals stale, and those are computed again in one pass.
+ */
+final class StaleNormals {
+
+   // with more than one stale normal in this many, computing all of them is cheaper
+   private static final int ALL_STALE_RATIO = 4;
+
+   private final int faceStride;
+   private final int vertexStride;
+   private boolean allStale = true;
+   private final GrowableIntArray movedPoints = new GrowableIntArray();
+   private final GrowableIntArray staleFaces = new GrowableIntArray();
+   private final GrowableIntArray stalePoints = new GrowableIntArray();
+   // the faces around each point, null until a partial refresh needs them
+   private int[][] facesAround;
+   private int[] facesAroundCount;
+   private final float[] faceNormal = new float[3];
+
+   StaleNormals(int faceStride) {
+      this.faceStride = faceStride;
+      vertexStride = faceStride / TriangleMeshFaceWrapper.TRIANGLE_VERTEX_COUNT;
+   }
+
+   boolean isStale() {
+      return allStale || movedPoints.size() > 0 || staleFaces.size() > 0 || stalePoints.size() > 0;
+   }
+
+   /*
+    * after changes to all the points
+    */
+   void allPointsMoved() {
+      allStale = true;
+   }
+
+   /*
+    * after the faces were set again
+    */
+   void allFacesReplaced() {
+      allStale = true;
+      facesAround = null;
+      facesAroundCount = null;
+   }
+
+   void pointMoved(int point) {
+      if (!allStale)
+         movedPoints.add(point);
+   }
+
+   /*
+    * faces [from, to) were appended
+    */
+   void facesAdded(ObservableIntegerArray faces, int from, int to) {
+      for (int face = from; face < to; face++) {
+         faceChanged(faces, face, 1);
+      }
+   }
+
+   /*
+    * before the face is overwritten with the given coordinates
+    */
+   void faceReplaced(ObservableIntegerArray faces, int face, int[] coordinates) {
+      faceChanged(faces, face, -1);
+      for (int k = 0; k < TriangleMeshFaceWrapper.TRIANGLE_VERTEX_COUNT; k++) {
+         int point = coordinates[k * vertexStride];
+         if (!allStale)
+            stalePoints.add(point);
+         if (facesAround != null)
+            addFaceAround(point, face);
+      }
+   }
+
+   /*
+    * before the faces from faceCount on are dropped
+    */
+   void facesRemoved(ObservableIntegerArray faces, int faceCount) {
+      for (int face = faceCount; face < faces.size() / faceStride; face++) {
+         faceChanged(faces, face, -1);
+      }
+   }
+
+   /*
+    * the points of the face as it is in the array are stale, and the face is added to or removed
+    * from the faces around them
+    */
+   private void faceChanged(ObservableIntegerArray faces, int face, int direction) {
+      if (!allStale)
+         staleFaces.add(face);
+      for (int k = 0; k < TriangleMeshFaceWrapper.TRIANGLE_VERTEX_COUNT; k++) {
+         int point = faces.get(face * faceStride + k * vertexStride);
+         if (!allStale)
+            stalePoints.add(point);
+         if (facesAround == null)
+            continue;
+         if (direction > 0)
+            addFaceAround(point, face);
+         else
+            removeFaceAround(point, face);
+      }
+   }
+
+   /*
+    * computes the stale normals again, all of them or only those that changed
+    */
+   void refresh(ObservableFloatArray points, ObservableIntegerArray faces, ObservableFloatArray normals,
+         boolean flat) {
+      int faceCount = faces.size() / faceStride;
+      int pointCount = points.size() / 3;
+      int normalCount = flat ? faceCount : pointCount;
+      int staleCount = flat ? staleFaces.size() + movedPoints.size() : stalePoints.size() + movedPoints.size();
+      if (allStale || staleCount > normalCount / ALL_STALE_RATIO) {
+         float[] pointArray = points.toArray(null);
+         int[] faceArray = faces.toArray(null);
+         normals.setAll(flat ? MeshNormals.faceNormals(pointArray, faceArray, faceStride)
+               : MeshNormals.vertexNormals(pointArray, faceArray, faceStride));
+      } else {
+         if (facesAround == null)
+            buildFacesAround(faces, pointCount);
+         if (normals.size() != normalCount * 3)
+            normals.resize(normalCount * 3);
+         int[] stale = flat ? resolveStaleFaces(faces, faceCount) : resolveStalePoints(faces, pointCount);
+         writeRuns(points, faces, normals, stale, flat);
+      }
+      allStale = false;
+      movedPoints.clear();
+      staleFaces.clear();
+      stalePoints.clear();
+   }
+
+   private int[] resolveStaleFaces(ObservableIntegerArray faces, int faceCount) {
+      GrowableIntArray resolved = new GrowableIntArray(staleFaces.size() + movedPoints.size() * 8);
+      for (int i = 0; i < staleFaces.size(); i++) {
+         resolved.add(staleFaces.get(i));
+      }
+      for (int i = 0; i < movedPoints.size(); i++) {
+         int point = movedPoints.get(i);
+         for (int k = 0; k < facesAroundCount(point); k++) {
+            resolved.add(facesAround[point][k]);
+         }
+      }
+      return sortedBelow(resolved, faceCount);
+   }
+
+   private int[] resolveStalePoints(ObservableIntegerArray faces, int pointCount) {
+      GrowableIntArray resolved = new GrowableIntArray(stalePoints.size() + movedPoints.size() * 8);
+      for (int i = 0; i < stalePoints.size(); i++) {
+         resolved.add(stalePoints.get(i));
+      }
+      for (int i = 0; i < movedPoints.size(); i++) {
+         int point = movedPoints.get(i);
+         resolved.add(point);
+         for (int k = 0; k < facesAroundCount(point); k++) {
+            int face = facesAround[point][k];
+            for (int v = 0; v < TriangleMeshFaceWrapper.TRIANGLE_VERTEX_COUNT; v++) {
+               resolved.add(faces.get(face * faceStride + v * vertexStride));
+            }
+         }
+      }
+      return sortedBelow(resolved, pointCount);
+   }
+
+   /*
+    * the distinct values below the limit, in order
+    */
+   private static int[] sortedBelow(GrowableIntArray values, int limit) {
+      int[] sorted = values.toArray();
+      Arrays.sort(sorted);
+      int size = 0;
+      for (int value : sorted) {
+         if (value < limit && (size == 0 || sorted[size - 1] != value))
+            sorted[size++] = value;
+      }
+      return Arrays.copyOf(sorted, size);
+   }
+
+   /*
+    * each run of consecutive stale normals is sent to the array in one call
+    */
+   private void writeRuns(ObservableFloatArray points, ObservableIntegerArray faces, ObservableFloatArray normals,
+         int[] stale, boolean flat) {
+      float[] values = new float[0];
+      int start = 0;
+      while (start < stale.length) {
+         int end = start + 1;
+         while (end < stale.length && stale[end] == stale[end - 1] + 1) {
+            end++;
+         }
+         int length = (end - start) * 3;
+         if (values.length < length)
+            values = new float[Math.max(length, values.length * 2)];
+         for (int i = start; i < end; i++) {
+            int offset = (i - start) * 3;
+            if (flat)
+               MeshNormals.faceNormal(points, faces, faceStride, stale[i], values, offset);
+            else
+               pointNormal(points, faces, stale[i], values, offset);
+         }
+         normals.set(stale[start] * 3, values, 0, length);
+         start = end;
+      }
+   }
+
+   /*
+    * as in MeshNormals.vertexNormals(), from the faces around the point
+    */
+   private void pointNormal(ObservableFloatArray points, ObservableIntegerArray faces, int point, float[] result,
+         int offset) {
+      float x = 0, y = 0, z = 0;
+      for (int k = 0; k < facesAroundCount(point); k++) {
+         MeshNormals.areaWeightedNormal(points, faces, faceStride, facesAround[point][k], faceNormal, 0);
+         x += faceNormal[0];
+         y += faceNormal[1];
+         z += faceNormal[2];
+      }
+      result[offset] = x;
+      result[offset + 1] = y;
+      result[offset + 2] = z;
+      MeshNormals.normalize(result, offset);
+   }
+
+   private void buildFacesAround(ObservableIntegerArray faces, int pointCount) {
+      facesAround = new int[pointCount][];
+      facesAroundCount = new int[pointCount];
+      for (int face = 0; face < faces.size() / faceStride; face++) {
+         for (int k = 0; k < TriangleMeshFaceWrapper.TRIANGLE_VERTEX_COUNT; k++) {
+            addFaceAround(faces.get(face * faceStride + k * vertexStride), face);
+         }
+      }
+   }
+
+   private int facesAroundCount(int point) {
+      return point < facesAroundCount.length ? facesAroundCount[point] : 0;
+   }
+
+   private void addFaceAround(int point, int face) {
+      if (point >= facesAround.length) {
+         int length = Math.max(point + 1, facesAround.length + (facesAround.length >> 1));
+         facesAround = Arrays.copyOf(facesAround, length);
+         facesAroundCount = Arrays.copyOf(facesAroundCount, length);
+      }
+      int[] around = facesAround[point];
+      int count = facesAroundCount[point];
+      if (around == null)
+         around = facesAround[point] = new int[6];
+      else if (count == around.length)
+         around = facesAround[point] = Arrays.copyOf(around, count * 2);
+      around[count] = face;
+      facesAroundCount[point] = count + 1;
+   }
+
+   private void removeFaceAround(int point, int face) {
+      int[] around = facesAround[point];
+      int count = facesAroundCount[point];
+      for (int k = 0; k < count; k++) {
+         if (around[k] == face) {
+            around[k] = around[count - 1];
+            facesAroundCount[point] = count - 1;
+            return;
+         }
+      }
+   }
+}
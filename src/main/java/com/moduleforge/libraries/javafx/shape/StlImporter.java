@@ -0,0 +1,129 @@
+package com.moduleforge.libraries.javafx.shape;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import javafx.scene.shape.TriangleMesh;
+
+/**
+ *
+ * Reads a binary STL file into a TriangleMesh
+ *
+ * STL repeats the vertices of every triangle. The vertices with the same
+ * coordinates are merged as they are read, so faces that share them are
+ * connected in the mesh. The triangles are read one record at a time into a
+ * single buffer and written straight into a TriangleMeshBuilder, with no object
+ * created per vertex or face.
+ *
+ * The normals in the file are ignored, the side of each face comes from the
+ * order of its vertices. Triangles with two vertices at the same coordinates
+ * are left out. ASCII STL is not read.
+ *
+ */
+public final class StlImporter {
+
+   private static final int HEADER_SIZE = 80;
+   private static final int RECORD_SIZE = 50;
+   // the normal, before the vertices in each record
+   private static final int NORMAL_SIZE = 12;
+
+   private final ByteInput input;
+   private final TriangleMeshBuilder builder;
+   private final LongIntHashMap vertexByCoordinates = new LongIntHashMap();
+   private final int[] triangle = new int[TriangleMeshFaceWrapper.TRIANGLE_VERTEX_COUNT];
+
+   private StlImporter(ByteInput input, TriangleMeshBuilder builder) {
+      this.input = input;
+      this.builder = builder;
+   }
+
+   /**
+    * The channel is read until the last triangle, but not closed
+    */
+   public static TriangleMesh read(ReadableByteChannel channel) throws IOException {
+      TriangleMeshBuilder builder = TriangleMeshBuilder.create();
+      read(channel, builder);
+      return builder.toTriangleMesh();
+   }
+
+   /**
+    * The file is memory mapped
+    */
+   public static TriangleMesh read(Path file) throws IOException {
+      TriangleMeshBuilder builder = TriangleMeshBuilder.create();
+      read(file, builder);
+      return builder.toTriangleMesh();
+   }
+
+   /**
+    * Adds the content of the file to the builder, after what it already has.
+    * Vertices are only merged with those of the same file.
+    */
+   public static void read(ReadableByteChannel channel, TriangleMeshBuilder builder) throws IOException {
+      new StlImporter(ByteInput.from(channel), builder).parse();
+   }
+
+   public static void read(Path file, TriangleMeshBuilder builder) throws IOException {
+      try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+         new StlImporter(ByteInput.mapped(channel), builder).parse();
+      }
+   }
+
+   private void parse() throws IOException {
+      ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+      for (int skipped = 0; skipped < HEADER_SIZE; skipped++) {
+         if (input.read() < 0)
+            throw new IOException("The STL header is incomplete.");
+      }
+      input.readFully(record, 4);
+      long triangleCount = record.getInt(0) & 0xFFFFFFFFL;
+      for (long t = 0; t < triangleCount; t++) {
+         record.clear();
+         input.readFully(record, RECORD_SIZE);
+         for (int k = 0; k < TriangleMeshFaceWrapper.TRIANGLE_VERTEX_COUNT; k++) {
+            int offset = NORMAL_SIZE + k * 12;
+            triangle[k] = vertexAt(record.getFloat(offset), record.getFloat(offset + 4), record.getFloat(offset + 8));
+         }
+         if (triangle[0] != triangle[1] && triangle[1] != triangle[2] && triangle[2] != triangle[0])
+            builder.addFace(triangle[0], triangle[1], triangle[2]);
+      }
+   }
+
+   /*
+    * The coordinates are hashed into a long key. Different coordinates that get the same key
+    * move on to the next key, until the vertex or a free key is found.
+    */
+   private int vertexAt(float x, float y, float z) {
+      long key = keyOf(x, y, z);
+      while (true) {
+         int handle = vertexByCoordinates.get(key, -1);
+         if (handle < 0) {
+            handle = builder.addVertex(x, y, z);
+            vertexByCoordinates.put(key, handle);
+            return handle;
+         }
+         if (hasCoordinates(handle, x, y, z))
+            return handle;
+         key++;
+      }
+   }
+
+   private boolean hasCoordinates(int handle, float x, float y, float z) {
+      // compared as floats, so -0 and 0 are the same
+      return builder.getPointCoordinate(handle, 0) == x && builder.getPointCoordinate(handle, 1) == y
+            && builder.getPointCoordinate(handle, 2) == z;
+   }
+
+   private static long keyOf(float x, float y, float z) {
+      // + 0.0f turns -0.0f into 0.0f, so both have the same bits
+      long hash = Float.floatToIntBits(x + 0.0f);
+      hash = hash * 0x9E3779B97F4A7C15L + Float.floatToIntBits(y + 0.0f);
+      hash = hash * 0x9E3779B97F4A7C15L + Float.floatToIntBits(z + 0.0f);
+      return hash;
+   }
+}
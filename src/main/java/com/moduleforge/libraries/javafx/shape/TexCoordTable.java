@@ -0,0 +1,101 @@
+package com.moduleforge.libraries.javafx.shape;
+
+import java.util.Arrays;
+
+import javafx.geometry.Point2D;
+
+/*
+ * The texture coordinates of a mesh, without duplicates, laid out as in
+ * TriangleMesh.getTexCoords(): u and v of each texture vertex
+ *
+ * Texture vertices are compared as floats, the precision the mesh keeps them in, so those
+ * differing only by double rounding noise share a slot. The pair of floats is packed into a long
+ * and looked up in a LongIntHashMap, without boxing.
+ *
+ * The slot TriangleMeshFaceWrapper.DEFAULT_TEXTURE is reserved for the default texture vertex
+ * (0, 0), used by the faces without texture, and is never handed out for a texture vertex of a
+ * face.
+ */
+final class TexCoordTable {
+
+   private final LongIntHashMap indices;
+   private final GrowableFloatArray texCoords;
+
+   TexCoordTable(int expectedSize) {
+      indices = new LongIntHashMap(expectedSize);
+      texCoords = new GrowableFloatArray((expectedSize + 1) * 2);
+      texCoords.add(0, 0);
+   }
+
+   /*
+    * the index of the texture vertex, which is added if it is not in the table
+    */
+   int indexOf(Point2D textureVertex) {
+      long key = keyOf(textureVertex);
+      int index = indices.get(key, -1);
+      if (index >= 0)
+         return index;
+      index = size();
+      indices.put(key, index);
+      texCoords.add((float) textureVertex.getX(), (float) textureVertex.getY());
+      return index;
+   }
+
+   /*
+    * -1 if the texture vertex is not in the table
+    */
+   int find(Point2D textureVertex) {
+      return indices.get(keyOf(textureVertex), -1);
+   }
+
+   /*
+    * Moves textureVertex to the replacement and returns the slot the faces that used it must
+    * point to: its own slot, which now holds the replacement, or the slot the replacement had
+    * already, in which case the old slot is left unused and keeps its coordinates
+    */
+   int replace(Point2D textureVertex, Point2D replacement) {
+      long key = keyOf(textureVertex);
+      long replacementKey = keyOf(replacement);
+      int index = indices.get(key, -1);
+      if (index < 0)
+         throw new IllegalArgumentException("The texture vertex is not in the table.");
+      if (replacementKey == key)
+         return index;
+      indices.remove(key, -1);
+      int existing = indices.get(replacementKey, -1);
+      if (existing >= 0)
+         return existing;
+      indices.put(replacementKey, index);
+      texCoords.set(index * 2, (float) replacement.getX());
+      texCoords.set(index * 2 + 1, (float) replacement.getY());
+      return index;
+   }
+
+   /*
+    * number of texture vertices, the default one included
+    */
+   int size() {
+      return texCoords.size() / 2;
+   }
+
+   float[] toArray() {
+      return texCoords.toArray();
+   }
+
+   /*
+    * the coordinates of the texture vertices from the given index on
+    */
+   float[] toArray(int fromIndex) {
+      return Arrays.copyOfRange(texCoords.elements(), fromIndex * 2, texCoords.size());
+   }
+
+   /*
+    * texture vertices with the same key share a slot
+    */
+   static long keyOf(Point2D textureVertex) {
+      // + 0.0f turns -0.0f into 0.0f, so both have the same bits
+      int u = Float.floatToIntBits((float) textureVertex.getX() + 0.0f);
+      int v = Float.floatToIntBits((float) textureVertex.getY() + 0.0f);
+      return ((long) u << 32) | (v & 0xFFFFFFFFL);
+   }
+}
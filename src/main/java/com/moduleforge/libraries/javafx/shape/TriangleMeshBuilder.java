@@ -0,0 +1,155 @@
+package com.moduleforge.libraries.javafx.shape;
+
+import javafx.scene.shape.TriangleMesh;
+
+/**
+ *
+ * A low level alternative to TriangleMeshFacade for very large meshes
+ *
+ * No Vertex or TriangleMeshFace objects are created. Vertices, texture vertices
+ * and faces are written as they come into primitive buffers and the buffers are
+ * copied into the TriangleMesh in one call per array.
+ *
+ * Vertices and texture vertices are referred to by the handle returned when
+ * they are added, which is their index in the mesh.
+ *
+ * The texture vertex (0, 0) is always present with handle 0. Faces added
+ * without texture vertices use it, the same way TriangleMeshFacade does.
+ *
+ * Not thread safe.
+ *
+ */
+public final class TriangleMeshBuilder {
+
+   private final GrowableFloatArray points;
+   private final GrowableFloatArray texCoords;
+   private final GrowableIntArray faces;
+   private final GrowableIntArray faceSmoothingGroups;
+
+   private TriangleMeshBuilder(int expectedVertexCount, int expectedFaceCount) {
+      points = new GrowableFloatArray(expectedVertexCount * 3);
+      texCoords = new GrowableFloatArray();
+      faces = new GrowableIntArray(expectedFaceCount * TriangleMeshFaceWrapper.faceTotalCoordinateCount());
+      faceSmoothingGroups = new GrowableIntArray(expectedFaceCount);
+      texCoords.add(0, 0); // DEFAULT_TEXTURE
+   }
+
+   public static TriangleMeshBuilder create() {
+      return new TriangleMeshBuilder(0, 0);
+   }
+
+   /**
+    * The expected sizes are only a hint to avoid growing the buffers while
+    * adding elements
+    */
+   public static TriangleMeshBuilder withExpectedSize(int vertexCount, int faceCount) {
+      if (vertexCount < 0 || faceCount < 0)
+         throw new IllegalArgumentException();
+      return new TriangleMeshBuilder(vertexCount, faceCount);
+   }
+
+   /**
+    * @return the handle of the vertex, to be used when adding faces
+    */
+   public int addVertex(float x, float y, float z) {
+      int handle = getVertexCount();
+      points.add(x, y, z);
+      return handle;
+   }
+
+   /**
+    * @return the handle of the texture vertex, to be used when adding faces
+    */
+   public int addTexCoord(float u, float v) {
+      int handle = getTexCoordCount();
+      texCoords.add(u, v);
+      return handle;
+   }
+
+   /**
+    * The counterclockwise direction of the vertices indicate the side of the
+    * face. The default texture is applied.
+    *
+    * @return the index of the face
+    */
+   public int addFace(int a, int b, int c) {
+      return addFace(a, TriangleMeshFaceWrapper.DEFAULT_TEXTURE, b, TriangleMeshFaceWrapper.DEFAULT_TEXTURE, c,
+            TriangleMeshFaceWrapper.DEFAULT_TEXTURE);
+   }
+
+   /**
+    * Each vertex handle is followed by the handle of its texture vertex
+    *
+    * @return the index of the face
+    */
+   public int addFace(int a, int textureA, int b, int textureB, int c, int textureC) {
+      checkVertex(a);
+      checkVertex(b);
+      checkVertex(c);
+      checkTexCoord(textureA);
+      checkTexCoord(textureB);
+      checkTexCoord(textureC);
+      int index = getFaceCount();
+      faces.ensureCapacity(faces.size() + TriangleMeshFaceWrapper.faceTotalCoordinateCount());
+      faces.add(a);
+      faces.add(textureA);
+      faces.add(b);
+      faces.add(textureB);
+      faces.add(c);
+      faces.add(textureC);
+      faceSmoothingGroups.add(0);
+      return index;
+   }
+
+   public void setFaceSmoothingGroup(int face, int smoothingGroup) {
+      if (face < 0 || face >= getFaceCount())
+         throw new IllegalArgumentException("There is no face " + face);
+      faceSmoothingGroups.set(face, smoothingGroup);
+   }
+
+   private void checkVertex(int handle) {
+      if (handle < 0 || handle >= getVertexCount())
+         throw new IllegalArgumentException("There is no vertex " + handle);
+   }
+
+   private void checkTexCoord(int handle) {
+      if (handle < 0 || handle >= getTexCoordCount())
+         throw new IllegalArgumentException("There is no texture vertex " + handle);
+   }
+
+   /*
+    * coordinate 0, 1 or 2 (x, y or z) of a vertex
+    */
+   float getPointCoordinate(int handle, int axis) {
+      return points.get(handle * 3 + axis);
+   }
+
+   public int getVertexCount() {
+      return points.size() / 3;
+   }
+
+   public int getTexCoordCount() {
+      return texCoords.size() / 2;
+   }
+
+   public int getFaceCount() {
+      return faceSmoothingGroups.size();
+   }
+
+   public TriangleMesh toTriangleMesh() {
+      TriangleMesh mesh = new TriangleMesh();
+      writeTo(mesh);
+      return mesh;
+   }
+
+   /**
+    * Replaces the content of the mesh. Each array of the mesh is set with a
+    * single call, so at most one change is notified per array.
+    */
+   public void writeTo(TriangleMesh mesh) {
+      mesh.getPoints().setAll(points.elements(), 0, points.size());
+      mesh.getTexCoords().setAll(texCoords.elements(), 0, texCoords.size());
+      mesh.getFaces().setAll(faces.elements(), 0, faces.size());
+      mesh.getFaceSmoothingGroups().setAll(faceSmoothingGroups.elements(), 0, faceSmoothingGroups.size());
+   }
+}
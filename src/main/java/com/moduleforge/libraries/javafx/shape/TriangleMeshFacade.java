@@ -7,6 +7,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -14,6 +15,9 @@ import java.util.Set;
 import javafx.geometry.Point2D;
 import javafx.geometry.Point3D;
 import javafx.scene.shape.TriangleMesh;
+import javafx.scene.shape.VertexFormat;
+import javafx.scene.transform.Affine;
+import javafx.scene.transform.Transform;
 
 /**
  * 
@@ -42,25 +46,63 @@ import javafx.scene.shape.TriangleMesh;
  */
 public class TriangleMeshFacade {
 
-   private Map<String, Integer> vertexIdentifierToIndexMap;
-   private Map<Point2D, Integer> textureVertexToIndexMap;
+   private LongIntHashMap vertexIdentifierToIndexMap;
+   private TexCoordTable texCoordTable;
    private Set<TriangleMeshFace> _faces;
    Set<Vertex> _vertices;
    private TriangleMeshWrapper delegate;
 
+   /*
+    * the faces in the same order as in the delegate
+    */
+   private List<TriangleMeshFace> faceList;
+
+   private List<TriangleMeshFace> degenerateFaces = Collections.emptyList();
+
+   /*
+    * Only needed to change the mesh once it is built, so they are created on the first change
+    * 
+    * Texture vertices are keyed as in TexCoordTable, so those that share a slot in the mesh
+    * share their faces here.
+    */
+   private Map<TriangleMeshFace, Integer> faceToIndexMap;
+   private Map<Vertex, List<TriangleMeshFace>> vertexToFacesMap;
+   private Map<Long, List<TriangleMeshFace>> textureVertexToFacesMap;
+
+   /*
+    * built on the first adjacency query, and again after faces are added or removed
+    */
+   private HalfEdgeMesh halfEdges;
+
+   /*
+    * counts the changes to the faces that move them in the mesh or turn them around, see MeshBvh
+    */
+   private int faceModificationCount;
+
+   /*
+    * the transforms baked into the points of the mesh so far, null for none
+    */
+   private double[] bakedMatrix;
+
    private TriangleMeshFacade() {
-      vertexIdentifierToIndexMap = new HashMap<>();
-      delegate = TriangleMeshWrapper.fromOrdered(new Point3D[0]);
+      vertexIdentifierToIndexMap = new LongIntHashMap();
    }
 
 
    public static TriangleMeshFacade from(Set<TriangleMeshFace> faces) {
-      Set<Vertex> vertices = new HashSet<>();
+      return TriangleMeshFacade.from(faces, MeshBuildOptions.defaults());
+   }
+
+   public static TriangleMeshFacade from(Set<TriangleMeshFace> faces, MeshBuildOptions options) {
+      return TriangleMeshFacade.from(verticesOf(faces), faces, options);
+   }
+
+   static Set<Vertex> verticesOf(Set<TriangleMeshFace> faces) {
+      Set<Vertex> vertices = new LinkedHashSet<>();
       for (TriangleMeshFace face : faces) {
-         vertices.addAll(face.getVertices());
+         vertices.addAll(face.getVerticesWithCreationOrdering());
       }
-      
-      return TriangleMeshFacade.from(vertices, faces);
+      return vertices;
    }
    
    
@@ -70,51 +112,124 @@ public class TriangleMeshFacade {
     * the faces need not to be in order
     */
    public static TriangleMeshFacade from(Set<Vertex> vertices, Set<TriangleMeshFace> faces) {
-      boolean sameVerticesInSets = checkSameVerticesInBothSets(vertices, faces);
-      if (!sameVerticesInSets)
-         throw new IllegalArgumentException();
+      return TriangleMeshFacade.from(vertices, faces, MeshBuildOptions.defaults());
+   }
 
-      TriangleMeshFacade mesh = new TriangleMeshFacade();
-      mesh._vertices = new HashSet<>(vertices);
-      List<Point2D> texturePoints = extractTexturePoints(faces);
-      mesh.delegate = TriangleMeshWrapper.fromOrdered(apply(vertices, a -> a.getCoordinates()), texturePoints);
-      mesh.vertexIdentifierToIndexMap = makeVertexIdentifierToIndexMap(apply(vertices, a -> a.getIdentifier()));
-      mesh.textureVertexToIndexMap = makeTextureVertexToIndexMap(texturePoints);
-      mesh.setFaces(faces);
-      List<Integer> faceSmoothingGroups = new ArrayList<>();
-      for (int i = 0; i < faces.size(); i++) {
-         faceSmoothingGroups.add(Integer.valueOf(0));
-      }
-      mesh.applyFaceSmoothingGroups(faceSmoothingGroups);
+   /**
+    * the vertices need not be in order
+    * 
+    * the faces need not to be in order
+    * 
+    * The arrays of the mesh follow the iteration order of the sets, so the same
+    * sets always give the same mesh. If the options ask for it, the faces and
+    * vertices are ordered by their location instead.
+    */
+   public static TriangleMeshFacade from(Set<Vertex> vertices, Set<TriangleMeshFace> faces,
+         MeshBuildOptions options) {
+      BuildTimer timer = BuildTimer.start(options.getListener());
+      TriangleMeshFacade mesh = build(vertices, faces, options, timer);
+      mesh.delegate.commitUpdate();
+      timer.phaseCompleted(MeshBuildPhase.UPLOAD, mesh.faceList.size(), mesh.delegate.arrayElementCount());
+      timer.buildCompleted(mesh._vertices.size(), mesh.faceList.size());
       return mesh;
    }
 
-   private void applyFaceSmoothingGroups(List<Integer> faceSmoothingGroups) {
-      delegate.applyFaceSmoothingGroups(faceSmoothingGroups);
+   /*
+    * Same as from(), but the arrays are not sent to the TriangleMesh: that is left to the
+    * returned action, which can run later on another thread, such as the JavaFX application
+    * thread. The upload phase ends when the arrays are ready to be sent.
+    */
+   static Staged fromStaged(Set<Vertex> vertices, Set<TriangleMeshFace> faces, MeshBuildOptions options) {
+      BuildTimer timer = BuildTimer.start(options.getListener());
+      TriangleMeshFacade mesh = build(vertices, faces, options, timer);
+      // counted before the update ends, the arrays of the delegate stay empty until published
+      long arraySize = mesh.delegate.arrayElementCount();
+      Runnable publish = mesh.delegate.endUpdate();
+      timer.phaseCompleted(MeshBuildPhase.UPLOAD, mesh.faceList.size(), arraySize);
+      timer.buildCompleted(mesh._vertices.size(), mesh.faceList.size());
+      return new Staged(mesh, publish);
    }
 
-   private static Map<Point2D, Integer> makeTextureVertexToIndexMap(List<Point2D> texturePoints) {
-      Map<Point2D, Integer> map = new HashMap<>();
-      for (int i = 0; i < texturePoints.size(); i++) {
-         map.put(texturePoints.get(i), Integer.valueOf(i));
+   /*
+    * a facade whose TriangleMesh is still empty, and the action that fills it
+    */
+   static final class Staged {
+
+      final TriangleMeshFacade facade;
+      final Runnable publish;
+
+      Staged(TriangleMeshFacade facade, Runnable publish) {
+         this.facade = facade;
+         this.publish = publish;
       }
-      return map;
    }
 
-   private static List<Point2D> extractTexturePoints(Set<TriangleMeshFace> faces) {
-      Set<Point2D> resultSet = new HashSet<>();
+   /*
+    * every phase of the build but the upload, which is left to the caller
+    */
+   private static TriangleMeshFacade build(Set<Vertex> vertices, Set<TriangleMeshFace> faces,
+         MeshBuildOptions options, BuildTimer timer) {
+      boolean sameVerticesInSets = checkSameVerticesInBothSets(vertices, faces);
+      if (!sameVerticesInSets)
+         throw new IllegalArgumentException();
+      timer.phaseCompleted(MeshBuildPhase.VALIDATION, faces.size(), 0);
+
+      List<TriangleMeshFace> degenerateFaces = Collections.emptyList();
+      if (options.isWelding()) {
+         int vertexCount = vertices.size();
+         MeshWelder.Result welded = options.getWelder().weld(vertices, faces);
+         vertices = welded.getVertices();
+         faces = welded.getFaces();
+         degenerateFaces = welded.getDegenerateFaces();
+         timer.phaseCompleted(MeshBuildPhase.WELDING, vertexCount, 0);
+      }
+
+      List<TriangleMeshFace> orderedFaces = new ArrayList<>(faces);
+      List<Vertex> orderedVertices = new ArrayList<>(vertices);
+      if (options.isLocalityOrdering()) {
+         orderedFaces = LocalityOrdering.sortFaces(orderedFaces);
+         orderedVertices = LocalityOrdering.sortVertices(orderedVertices, orderedFaces);
+         timer.phaseCompleted(MeshBuildPhase.LOCALITY_ORDERING, orderedFaces.size(), 0);
+      }
+
+      TriangleMeshFacade mesh = new TriangleMeshFacade();
+      mesh.degenerateFaces = degenerateFaces;
+      mesh._vertices = new LinkedHashSet<>(orderedVertices);
+      mesh.texCoordTable = makeTexCoordTable(orderedFaces);
+      timer.phaseCompleted(MeshBuildPhase.TEXTURE_COORDINATES, mesh.texCoordTable.size(),
+            mesh.texCoordTable.size() * 2L);
+      mesh.delegate = TriangleMeshWrapper.fromOrdered(apply(orderedVertices, a -> a.getCoordinates()),
+            mesh.texCoordTable, options);
+      timer.phaseCompleted(MeshBuildPhase.POINTS, orderedVertices.size(), orderedVertices.size() * 3L);
+      mesh.vertexIdentifierToIndexMap = makeVertexIdentifierToIndexMap(orderedVertices);
+      timer.phaseCompleted(MeshBuildPhase.VERTEX_INDEX, orderedVertices.size(), 0);
+      mesh.setFaces(orderedFaces, options);
+      timer.phaseCompleted(MeshBuildPhase.FACES, orderedFaces.size(),
+            (long) orderedFaces.size() * mesh.delegate.faceCoordinateCount());
+      mesh.delegate.setFaceSmoothingGroups(options.isCreaseAngle()
+            ? mesh.delegate.computeSmoothingGroups(Math.toRadians(options.getCreaseAngle()))
+            : new int[orderedFaces.size()]);
+      timer.phaseCompleted(MeshBuildPhase.SMOOTHING_GROUPS, orderedFaces.size(), orderedFaces.size());
+      return mesh;
+   }
+
+   /*
+    * the texture vertices in order of first use by the faces
+    */
+   private static TexCoordTable makeTexCoordTable(List<TriangleMeshFace> faces) {
+      TexCoordTable table = new TexCoordTable(faces.size());
       for (TriangleMeshFace face : faces) {
-         resultSet.addAll(face.getTextureVerticesWithCreationOrdering());
+         for (Point2D textureVertex : face.getTextureVerticesWithCreationOrdering()) {
+            table.indexOf(textureVertex);
+         }
       }
-      List<Point2D> result = new ArrayList<>(resultSet);
-      return result;
+      return table;
    }
 
    private static boolean checkSameVerticesInBothSets(Collection<Vertex> vertices,
          Collection<TriangleMeshFace> orderedFaces) {
       for (TriangleMeshFace face : orderedFaces) {
-         Set<Vertex> faceVertices = face.getVertices();
-         for (Vertex v : faceVertices) {
+         for (Vertex v : face.getVerticesWithCreationOrdering()) {
             if (!vertices.contains(v)) {
                return false;
             }
@@ -123,67 +238,477 @@ public class TriangleMeshFacade {
       return true;
    }
 
-   private static Map<String, Integer> makeVertexIdentifierToIndexMap(Collection<String> identifiers) {
-      Map<String, Integer> map = new HashMap<>();
+   /*
+    * the vertices must be iterated in the same order used to set the vertices of the delegate
+    */
+   private static LongIntHashMap makeVertexIdentifierToIndexMap(Collection<Vertex> vertices) {
+      LongIntHashMap map = new LongIntHashMap(vertices.size());
       int index = 0;
-      for (String vertexID : identifiers) {
-         map.put(vertexID, Integer.valueOf(index));
+      for (Vertex vertex : vertices) {
+         map.put(vertex.identifier(), index);
          index++;
       }
       return map;
    }
 
-   private void setFaces(Set<TriangleMeshFace> faces) {
-      _faces = new HashSet<>(faces);
-      List<TriangleMeshFaceWrapper> llFaces = lowLevelFaceToHighLevelFace(new ArrayList<>(faces));
-      delegate.setFaces(llFaces);
+   private void setFaces(List<TriangleMeshFace> faces, MeshBuildOptions options) {
+      _faces = new LinkedHashSet<>(faces);
+      faceList = faces;
+      int[] coordinates = makeCoordinateArrayFrom(faceList, options);
+      delegate.setFaces(coordinates);
+   }
+
+   /*
+    * Same layout as TriangleMeshWrapper.makeCoordinateArrayFrom, in the vertex format of the
+    * mesh, written without going through TriangleMeshFaceWrapper and VertexIndex objects
+    * 
+    * Each face has its own slot in the array, so in a parallel build ranges of faces are
+    * written concurrently. The index maps are only read at this point.
+    */
+   private int[] makeCoordinateArrayFrom(List<TriangleMeshFace> faces, MeshBuildOptions options) {
+      VertexFormat format = delegate.getVertexFormat();
+      int faceCoordinateCount = TriangleMeshFaceWrapper.faceTotalCoordinateCount(format);
+      int[] coordinates = new int[faceCoordinateCount * faces.size()];
+      ParallelRanges.forEach(faces.size(), options, (from, to) -> {
+         for (int i = from; i < to; i++) {
+            writeFaceCoordinates(faces.get(i), format, coordinates, i * faceCoordinateCount);
+         }
+      });
+      if (isMirrored())
+         AffineArrays.reverseWinding(coordinates, 0, coordinates.length, faceCoordinateCount);
+      return coordinates;
+   }
+
+   private void writeFaceCoordinates(TriangleMeshFace face, VertexFormat format, int[] coordinates, int offset) {
+      List<Vertex> vertices = face.getVerticesWithCreationOrdering();
+      List<Point2D> textureVertices = face.getTextureVerticesWithCreationOrdering();
+      boolean noTexture = textureVertices.isEmpty();
+      int index = offset;
+      for (int i = 0; i < TriangleMeshFaceWrapper.TRIANGLE_VERTEX_COUNT; i++) {
+         coordinates[index + format.getPointIndexOffset()] = vertexToIndex(vertices.get(i));
+         coordinates[index + format.getTexCoordIndexOffset()] = noTexture ? TriangleMeshFaceWrapper.DEFAULT_TEXTURE
+               : textureVertexToIndex(textureVertices.get(i));
+         index += format.getVertexIndexSize();
+      }
+   }
+
+   private int textureVertexToIndex(Point2D vertex) {
+      int index = texCoordTable.find(vertex);
+      assert (index >= 0);
+      return index;
+   }
+
+   private int vertexToIndex(Vertex vertex) {
+      int index = vertexIdentifierToIndexMap.get(vertex.identifier(), -1);
+      assert (index >= 0);
+      return index;
+   }
+
+   /**
+    * Starts an update. Until the update is committed, the changes made to this
+    * facade are not sent to the TriangleMesh; then each of its arrays is set
+    * once at most.
+    * 
+    * The changes can be made off the JavaFX application thread, see
+    * MeshUpdate.commitLater()
+    */
+   public MeshUpdate beginUpdate() {
+      return new MeshUpdate(delegate);
+   }
+
+   /**
+    * Adds faces to the mesh. Their vertices and texture vertices that are not
+    * in the mesh yet are added too.
+    * 
+    * Only the new elements are sent to the TriangleMesh.
+    */
+   public void addFaces(Collection<TriangleMeshFace> faces) {
+      List<TriangleMeshFace> newFaces = new ArrayList<>(new LinkedHashSet<>(faces));
+      checkFacesAddition(newFaces);
+
+      GrowableFloatArray newPoints = new GrowableFloatArray();
+      int nextVertexIndex = delegate.getPointCount();
+      int texCoordCount = texCoordTable.size();
+      for (TriangleMeshFace face : newFaces) {
+         for (Vertex vertex : face.getVerticesWithCreationOrdering()) {
+            if (vertexIdentifierToIndexMap.containsKey(vertex.identifier()))
+               continue;
+            vertexIdentifierToIndexMap.put(vertex.identifier(), nextVertexIndex++);
+            newPoints.add((float) vertex.getX(), (float) vertex.getY(), (float) vertex.getZ());
+            _vertices.add(vertex);
+         }
+         for (Point2D textureVertex : face.getTextureVerticesWithCreationOrdering()) {
+            texCoordTable.indexOf(textureVertex);
+         }
+      }
+
+      int[] coordinates = makeCoordinateArrayFrom(newFaces, MeshBuildOptions.defaults());
+      delegate.appendPoints(placed(newPoints.toArray()));
+      delegate.appendTexCoords(texCoordTable.toArray(texCoordCount));
+      delegate.appendFaces(coordinates, new int[newFaces.size()]);
+      halfEdges = null;
+      faceModificationCount++;
+      for (TriangleMeshFace face : newFaces) {
+         faceToIndexMap.put(face, Integer.valueOf(faceList.size()));
+         faceList.add(face);
+         _faces.add(face);
+         addIncidences(face);
+      }
+      delegate.updateNormals();
+   }
+
+   /**
+    * Removes faces from the mesh. Their vertices and texture vertices stay in
+    * the mesh.
+    * 
+    * Each removed face is overwritten by the last face of the mesh, so only
+    * the removed positions are sent to the TriangleMesh.
+    */
+   public void removeFaces(Collection<TriangleMeshFace> faces) {
+      prepareForChanges();
+      Set<TriangleMeshFace> removedFaces = new LinkedHashSet<>(faces);
+      for (TriangleMeshFace face : removedFaces) {
+         if (!faceToIndexMap.containsKey(face))
+            throw new IllegalArgumentException("The face is not in the mesh.");
+      }
+
+      for (TriangleMeshFace face : removedFaces) {
+         int index = faceToIndexMap.remove(face).intValue();
+         int lastIndex = faceList.size() - 1;
+         if (index != lastIndex) {
+            TriangleMeshFace lastFace = faceList.get(lastIndex);
+            delegate.copyFace(lastIndex, index);
+            faceList.set(index, lastFace);
+            faceToIndexMap.put(lastFace, Integer.valueOf(index));
+         }
+         faceList.remove(lastIndex);
+         _faces.remove(face);
+         removeIncidences(face);
+      }
+      delegate.truncateFaces(faceList.size());
+      halfEdges = null;
+      faceModificationCount++;
+      delegate.updateNormals();
+   }
+
+   /**
+    * Vertices are immutable, so the vertex is replaced by a new one with the
+    * given coordinates, and so are the faces it belongs to.
+    * 
+    * Only the coordinates of the vertex are sent to the TriangleMesh.
+    * 
+    * @return the vertex that replaces the one moved
+    */
+   public Vertex moveVertex(Vertex vertex, Point3D coordinates) {
+      Vertex moved = Vertex.from(coordinates);
+      replaceVertex(vertex, moved);
+      return moved;
+   }
+
+   /*
+    * The arrays of the mesh as they are now, for the spatial structures built over it. Faces are
+    * in the same order as in faceAt().
+    */
+   float[] pointArray() {
+      return delegate.pointArray();
+   }
+
+   int[] faceArray() {
+      return delegate.faceArray();
    }
 
-   private List<TriangleMeshFaceWrapper> lowLevelFaceToHighLevelFace(List<TriangleMeshFace> faces) {
-      List<TriangleMeshFaceWrapper> llFaces = new ArrayList<>();
+   int faceCoordinateCount() {
+      return delegate.faceCoordinateCount();
+   }
+
+   TriangleMeshFace faceAt(int index) {
+      return faceList.get(index);
+   }
+
+   int faceModificationCount() {
+      return faceModificationCount;
+   }
+
+   /*
+    * the checks of addFaces(), so that several meshes can be checked before any is changed
+    */
+   void checkFacesAddition(Collection<TriangleMeshFace> faces) {
+      prepareForChanges();
       for (TriangleMeshFace face : faces) {
-         TriangleMeshFaceWrapper newFace = lowLevelFaceToHighLevelFace(face);
-         llFaces.add(newFace);
+         if (faceToIndexMap.containsKey(face))
+            throw new IllegalArgumentException("The face is already in the mesh.");
       }
-      return llFaces;
    }
 
-   private TriangleMeshFaceWrapper lowLevelFaceToHighLevelFace(TriangleMeshFace face) {
-      List<Vertex> vertices = face.getVerticesWithCreationOrdering();
-      List<VertexIndex> vertexIndices = new ArrayList<>();
-      for (Vertex vertex : vertices) {
-         int index = vertexToIndex(vertex);
-         vertexIndices.add(VertexIndex.from(index));
+   /*
+    * throws as replaceVertex() would, without changing anything
+    */
+   void checkVertexReplacement(Vertex vertex, Vertex moved) {
+      prepareForChanges();
+      if (!vertexIdentifierToIndexMap.containsKey(vertex.identifier()))
+         throw new IllegalArgumentException("The vertex is not in the mesh.");
+      for (TriangleMeshFace face : vertexToFacesMap.getOrDefault(vertex, Collections.emptyList())) {
+         face.withVertexReplaced(vertex, moved);
       }
+   }
 
-      List<Point2D> textureVertices = face.getTextureVerticesWithCreationOrdering();
-      if (textureVertices.isEmpty()) {
-         return TriangleMeshFaceWrapper.fromOrderedNoTexture(vertexIndices);
+   /*
+    * the moved vertex is given, so the same one can replace the vertex in several meshes
+    */
+   void replaceVertex(Vertex vertex, Vertex moved) {
+      prepareForChanges();
+      int index = vertexIdentifierToIndexMap.get(vertex.identifier(), -1);
+      if (index < 0)
+         throw new IllegalArgumentException("The vertex is not in the mesh.");
+
+      List<TriangleMeshFace> faces = vertexToFacesMap.getOrDefault(vertex, Collections.emptyList());
+      List<TriangleMeshFace> movedFaces = new ArrayList<>(faces.size());
+      for (TriangleMeshFace face : faces) {
+         movedFaces.add(face.withVertexReplaced(vertex, moved)); // may throw, nothing is changed yet
       }
 
-      List<VertexIndex> textureVertexIndices = new ArrayList<>();
-      for (Point2D vertex : textureVertices) {
-         int index = textureVertexToIndex(vertex);
-         textureVertexIndices.add(VertexIndex.from(index));
+      vertexIdentifierToIndexMap.remove(vertex.identifier(), -1);
+      vertexIdentifierToIndexMap.put(moved.identifier(), index);
+      _vertices.remove(vertex);
+      _vertices.add(moved);
+      replaceFaces(new ArrayList<>(faces), movedFaces);
+      float[] point = placed(new float[] { (float) moved.getX(), (float) moved.getY(), (float) moved.getZ() });
+      delegate.setPoint(index, point[0], point[1], point[2]);
+      delegate.updateNormals();
+   }
+
+   /**
+    * Moves all the points of the mesh through the transform at once, in place,
+    * e.g. to place a part in an assembly without building it again
+    * 
+    * The vertices and faces of the facade keep their coordinates. The
+    * transforms baked so far add up, see getBakedTransform(), and apply to the
+    * vertices added or moved later as well. A transform that mirrors the mesh
+    * also reverses the order of the vertices of each face in the TriangleMesh,
+    * so the faces keep facing out; normals, if any, are computed again.
+    */
+   public void bakeTransform(Transform transform) {
+      double[] matrix = AffineArrays.matrixOf(transform);
+      double determinant = AffineArrays.determinant(matrix);
+      if (determinant == 0 || !Double.isFinite(determinant))
+         throw new IllegalArgumentException("The transform must be invertible.");
+      delegate.transformPoints(matrix, determinant < 0);
+      if (determinant < 0) {
+         halfEdges = null; // the faces go round the other way
+         faceModificationCount++;
       }
+      bakedMatrix = bakedMatrix == null ? matrix : AffineArrays.concatenate(matrix, bakedMatrix);
+   }
 
-      TriangleMeshFaceWrapper newFace = TriangleMeshFaceWrapper.fromOrdered(vertexIndices, textureVertexIndices);
-      return newFace;
+   /**
+    * The transforms baked into the mesh so far, from the coordinates of the
+    * vertices to the points of the mesh
+    */
+   public Transform getBakedTransform() {
+      return bakedMatrix == null ? new Affine() : AffineArrays.toAffine(bakedMatrix);
    }
 
-   private int textureVertexToIndex(Point2D vertex) {
-      return textureVertexToIndexMap.get(vertex).intValue();
+   private boolean isMirrored() {
+      return bakedMatrix != null && AffineArrays.determinant(bakedMatrix) < 0;
    }
 
-   private int vertexToIndex(Vertex vertex) {
-      Integer index = this.vertexIdentifierToIndexMap.get(vertex.getIdentifier());
-      return index.intValue();
+   /*
+    * the coordinates of vertices as points of the mesh, through the baked transforms
+    */
+   private float[] placed(float[] coordinates) {
+      if (bakedMatrix != null)
+         PointTransform.apply(bakedMatrix, coordinates, 0, coordinates, 0, coordinates.length);
+      return coordinates;
+   }
+
+   /**
+    * Changes a texture vertex in all the faces that use it
+    * 
+    * Texture vertices that are equal once rounded to float share their texture
+    * coordinates in the mesh, so those change as well.
+    * 
+    * Only the coordinates of the texture vertex are sent to the TriangleMesh.
+    * If the mesh has the replacement already, the faces are pointed to its
+    * texture coordinates instead, and only those faces are sent.
+    */
+   public void updateTexCoord(Point2D textureVertex, Point2D replacement) {
+      prepareForChanges();
+      int index = texCoordTable.find(textureVertex);
+      if (index < 0)
+         throw new IllegalArgumentException("The texture vertex is not in the mesh.");
+      if (!TriangleMeshFace.textureVertexWithinRange(replacement))
+         throw new IllegalArgumentException();
+
+      List<TriangleMeshFace> faces = new ArrayList<>(textureVertexToFacesMap
+            .getOrDefault(TexCoordTable.keyOf(textureVertex), Collections.emptyList()));
+      List<TriangleMeshFace> updatedFaces = new ArrayList<>(faces.size());
+      for (TriangleMeshFace face : faces) {
+         updatedFaces.add(face.withTextureVertexReplaced(textureVertex, replacement));
+      }
+
+      int replacementIndex = texCoordTable.replace(textureVertex, replacement);
+      replaceFaces(faces, updatedFaces);
+      if (replacementIndex == index) {
+         delegate.setTexCoord(index, (float) replacement.getX(), (float) replacement.getY());
+         return;
+      }
+      for (TriangleMeshFace face : updatedFaces) {
+         delegate.replaceTexCoordIndex(faceToIndexMap.get(face).intValue(), index, replacementIndex);
+      }
+   }
+
+   /*
+    * the replacements take the positions of the replaced faces, the face array is unchanged
+    */
+   private void replaceFaces(List<TriangleMeshFace> faces, List<TriangleMeshFace> replacements) {
+      for (int i = 0; i < faces.size(); i++) {
+         TriangleMeshFace face = faces.get(i);
+         TriangleMeshFace replacement = replacements.get(i);
+         Integer index = faceToIndexMap.remove(face);
+         faceToIndexMap.put(replacement, index);
+         faceList.set(index.intValue(), replacement);
+         _faces.remove(face);
+         _faces.add(replacement);
+         removeIncidences(face);
+         addIncidences(replacement);
+      }
+   }
+
+   private void prepareForChanges() {
+      if (faceToIndexMap != null)
+         return;
+      faceToIndexMap = new HashMap<>();
+      vertexToFacesMap = new HashMap<>();
+      textureVertexToFacesMap = new HashMap<>();
+      for (int i = 0; i < faceList.size(); i++) {
+         TriangleMeshFace face = faceList.get(i);
+         faceToIndexMap.put(face, Integer.valueOf(i));
+         addIncidences(face);
+      }
+   }
+
+   private void addIncidences(TriangleMeshFace face) {
+      for (Vertex vertex : face.getVerticesWithCreationOrdering()) {
+         vertexToFacesMap.computeIfAbsent(vertex, v -> new ArrayList<>(6)).add(face);
+      }
+      for (Long key : textureKeysOf(face)) {
+         textureVertexToFacesMap.computeIfAbsent(key, v -> new ArrayList<>(6)).add(face);
+      }
+   }
+
+   private void removeIncidences(TriangleMeshFace face) {
+      for (Vertex vertex : face.getVerticesWithCreationOrdering()) {
+         removeIncidence(vertexToFacesMap, vertex, face);
+      }
+      for (Long key : textureKeysOf(face)) {
+         removeIncidence(textureVertexToFacesMap, key, face);
+      }
+   }
+
+   private static Set<Long> textureKeysOf(TriangleMeshFace face) {
+      Set<Long> keys = new HashSet<>();
+      for (Point2D textureVertex : face.getTextureVerticesWithCreationOrdering()) {
+         keys.add(Long.valueOf(TexCoordTable.keyOf(textureVertex)));
+      }
+      return keys;
+   }
+
+   private static <T> void removeIncidence(Map<T, List<TriangleMeshFace>> map, T key, TriangleMeshFace face) {
+      List<TriangleMeshFace> faces = map.get(key);
+      if (faces == null)
+         return;
+      faces.remove(face);
+      if (faces.isEmpty())
+         map.remove(key);
    }
 
    public final TriangleMesh toTriangleMesh() {
       return delegate.toTriangleMesh();
    }
 
+   /**
+    * The front direction of each face of the mesh, as x, y and z per face, in
+    * the order of the faces in the TriangleMesh. Each vector has length 1, or is
+    * 0 if the face has no area.
+    * 
+    * All of them are computed in one pass over the mesh arrays, which is much
+    * cheaper than asking each face for its front direction.
+    */
+   public float[] computeFaceNormals() {
+      return delegate.computeFaceNormals();
+   }
+
+   /**
+    * The normal of each point of the mesh, as x, y and z per point, in the order
+    * of the points in the TriangleMesh. It is the average of the front
+    * directions of the faces around the point, weighted by their area, and has
+    * length 1.
+    */
+   public float[] computeVertexNormals() {
+      return delegate.computeVertexNormals();
+   }
+
+   /**
+    * The connectivity of the faces, with faces and vertices given by their index
+    * in the TriangleMesh, for adjacency queries on large meshes. It is built on
+    * the first call, and again after faces are added or removed.
+    */
+   public HalfEdgeMesh getHalfEdgeMesh() {
+      if (halfEdges == null)
+         halfEdges = delegate.buildHalfEdgeMesh();
+      return halfEdges;
+   }
+
+   /**
+    * The faces that share an edge with the face, see HalfEdgeMesh for the edges
+    * that are not shared
+    */
+   public List<TriangleMeshFace> getAdjacentFaces(TriangleMeshFace face) {
+      prepareForChanges();
+      Integer index = faceToIndexMap.get(face);
+      if (index == null)
+         throw new IllegalArgumentException("The face is not in the mesh.");
+      HalfEdgeMesh connectivity = getHalfEdgeMesh();
+      List<TriangleMeshFace> adjacent = new ArrayList<>(TriangleMeshFaceWrapper.TRIANGLE_VERTEX_COUNT);
+      for (int side = 0; side < TriangleMeshFaceWrapper.TRIANGLE_VERTEX_COUNT; side++) {
+         int adjacentFace = connectivity.adjacentFace(index.intValue(), side);
+         if (adjacentFace >= 0)
+            adjacent.add(faceList.get(adjacentFace));
+      }
+      return adjacent;
+   }
+
+   /**
+    * The faces around the vertex, in order, see HalfEdgeMesh.facesAround()
+    */
+   public List<TriangleMeshFace> getFacesAround(Vertex vertex) {
+      int index = vertexIdentifierToIndexMap.get(vertex.identifier(), -1);
+      if (index < 0)
+         throw new IllegalArgumentException("The vertex is not in the mesh.");
+      int[] faces = getHalfEdgeMesh().facesAround(index);
+      List<TriangleMeshFace> around = new ArrayList<>(faces.length);
+      for (int face : faces) {
+         around.add(faceList.get(face));
+      }
+      return around;
+   }
+
+   /**
+    * Whether every edge is in exactly two faces that go along it in opposite
+    * directions
+    */
+   public boolean isClosed() {
+      return getHalfEdgeMesh().isClosed();
+   }
+
+   /**
+    * Whether no edge is in more than two faces, or in two faces that go along it
+    * in the same direction
+    */
+   public boolean isManifold() {
+      return getHalfEdgeMesh().isManifold();
+   }
+
    public Set<TriangleMeshFace> getFaces() {
       return Collections.unmodifiableSet(_faces);
    }
@@ -191,5 +716,13 @@ public class TriangleMeshFacade {
    public Set<Vertex> getVertices() {
       return Collections.unmodifiableSet(_vertices);
    }
+
+   /**
+    * The faces left out of the mesh because they collapsed when welding the
+    * vertices. Empty if the mesh was built without welding.
+    */
+   public List<TriangleMeshFace> getDegenerateFaces() {
+      return degenerateFaces;
+   }
    
 }
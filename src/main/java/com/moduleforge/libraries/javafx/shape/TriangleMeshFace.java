@@ -7,6 +7,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -30,6 +31,17 @@ import javafx.geometry.Point3D;
  */
 public class TriangleMeshFace {
 
+   private static final int PAIRWISE_CHECK_MAXIMUM_SIZE = 16;
+
+   /*
+    * The epsilon of the Geometry library, within which GeometryUtil.differentEnough() takes two
+    * points as the same. Whether it is compared per axis or as a distance, no two points farther
+    * apart than the diagonal of a cube of that size are the same, so the grid searches that far
+    * and differentEnough() alone decides; TriangleMeshFaceTest checks that the library agrees.
+    */
+   static final double DIFFERENT_ENOUGH_EPSILON = 1e-6;
+   static final double DIFFERENT_ENOUGH_SEARCH_DISTANCE = Math.sqrt(3) * DIFFERENT_ENOUGH_EPSILON;
+
    private static final List<Point2D> DEFAULT_TEXTURE_VERTICES = Arrays.asList(new Point2D(0.0f, 0.0f),
          new Point2D(0.0f, 1.0f), new Point2D(1.0f, 0.0f));
 
@@ -56,8 +68,11 @@ public class TriangleMeshFace {
     * 
     * The vector goes from (0, 0, 0) to the point returned and its length is 1
     * 
+    * Calculated the first time it is asked for. Computing it twice in a race is
+    * harmless, the result is the same.
+    * 
     */
-   private Point3D frontDirectionVector;
+   private volatile Point3D frontDirectionVector;
 
    private List<Point2D> textureVertices;
 
@@ -73,41 +88,65 @@ public class TriangleMeshFace {
     * so that the direction of the face can be stablished. As you can suppose all
     * faces created in this way should face the same direction
     * 
+    * The vertices may describe a concave polygon. A convex polygon is split into
+    * triangles that all share the first vertex.
+    * 
     */
    public static List<TriangleMeshFace> connectedFromOrdered(List<Vertex> verticesOnPlane) {
+      return connectedFromOrdered(verticesOnPlane, Collections.emptyList());
+   }
+
+   /**
+    * Same as {@link #connectedFromOrdered(List)}, for a polygon with holes.
+    * 
+    * The holes must lay on the plane of the polygon and inside of it. The
+    * ordering of the vertices of a hole must be circular, but its direction is
+    * not relevant.
+    * 
+    */
+   public static List<TriangleMeshFace> connectedFromOrdered(List<Vertex> verticesOnPlane, List<List<Vertex>> holes) {
 
       Preconditions.checkNotNull(verticesOnPlane);
+      Preconditions.checkNotNull(holes);
       if (verticesOnPlane.size() < TriangleMeshFaceWrapper.TRIANGLE_VERTEX_COUNT) {
          throw new IllegalArgumentException("There should be a minimum of three vertices.");
       }
-      boolean differentVertices = allVerticesAreDifferentEnough(verticesOnPlane);
+      List<Vertex> allVertices = new ArrayList<>(verticesOnPlane);
+      int[] holeStarts = new int[holes.size()];
+      for (int i = 0; i < holes.size(); i++) {
+         if (holes.get(i).size() < TriangleMeshFaceWrapper.TRIANGLE_VERTEX_COUNT) {
+            throw new IllegalArgumentException("There should be a minimum of three vertices in a hole.");
+         }
+         holeStarts[i] = allVertices.size();
+         allVertices.addAll(holes.get(i));
+      }
+      boolean differentVertices = allVerticesAreDifferentEnough(allVertices);
       if (!differentVertices) {
          throw new IllegalArgumentException("Some of the vertices are equal or almost equal.");
       }
 
-      List<Point3d> coordinatesOnPlane = apply(verticesOnPlane, a -> toPoint3d(a.getCoordinates()));
+      List<Point3d> coordinatesOnPlane = apply(allVertices, a -> toPoint3d(a.getCoordinates()));
       if (!GeometryUtil.inSamePlane(coordinatesOnPlane)) {
          throw new IllegalArgumentException("The vertices do not lay on a plane.");
       }
 
-      List<Vertex> verticesCopy = new ArrayList<>();
-      verticesCopy.addAll(verticesOnPlane);
-      List<TriangleMeshFace> faces = new ArrayList<>();
-      fromOrderedRecursive(verticesCopy, faces);
-      return faces;
-   }
-
-   private static void fromOrderedRecursive(List<Vertex> vertices, List<TriangleMeshFace> faces) {
-      List<Vertex> nextTriangle = Arrays.asList(new Vertex[] { vertices.get(0), vertices.get(1), vertices.get(2) });
-      TriangleMeshFace nextFace = fromOrderedTriplet(nextTriangle);
-      faces.add(nextFace);
-      boolean isTheLastTriangle = vertices.size() == TriangleMeshFaceWrapper.TRIANGLE_VERTEX_COUNT; 
-      if (isTheLastTriangle) {
-         return;
+      double[] coordinates = new double[allVertices.size() * 3];
+      for (int i = 0; i < allVertices.size(); i++) {
+         Vertex vertex = allVertices.get(i);
+         coordinates[3 * i] = vertex.getX();
+         coordinates[3 * i + 1] = vertex.getY();
+         coordinates[3 * i + 2] = vertex.getZ();
+      }
+      GrowableIntArray triangles = new GrowableIntArray(verticesOnPlane.size() * 3);
+      PolygonTriangulator.triangulate(coordinates, holeStarts, triangles);
+
+      List<TriangleMeshFace> faces = new ArrayList<>(triangles.size() / 3);
+      for (int t = 0; t < triangles.size(); t += 3) {
+         List<Vertex> triangle = Arrays.asList(allVertices.get(triangles.get(t)),
+               allVertices.get(triangles.get(t + 1)), allVertices.get(triangles.get(t + 2)));
+         faces.add(fromOrderedTriplet(triangle));
       }
-      int indexSecondElement = 1;
-      vertices.remove(indexSecondElement); // The second element only belongs to the triangle just created
-      fromOrderedRecursive(vertices, faces);
+      return faces;
    }
 
    /**
@@ -136,7 +175,6 @@ public class TriangleMeshFace {
       TriangleMeshFace face = new TriangleMeshFace();
       face.verticesInOrder = new ArrayList<>(vertices); // according to the javadoc the order is maintained
       face.textureVertices.addAll(DEFAULT_TEXTURE_VERTICES);
-      face.calculateFrontDirection();
       return face;
    }
 
@@ -168,9 +206,15 @@ public class TriangleMeshFace {
    /*
     * if the vertices are as close to each other as the floating point type allows,
     * that can bring some problems
+    * 
+    * Long lists are checked through a grid, so that each vertex is only compared with those
+    * within DIFFERENT_ENOUGH_SEARCH_DISTANCE of it
     */
    private static boolean allVerticesAreDifferentEnough(List<Vertex> vertices) {
 
+      if (vertices.size() > PAIRWISE_CHECK_MAXIMUM_SIZE) {
+         return allVerticesAreDifferentEnoughInGrid(vertices);
+      }
       for (int i = 0; i < vertices.size(); i++) {
          for (int j = i + 1; j < vertices.size(); j++) {
             Point3D outerLoopVertex = vertices.get(i).getCoordinates();
@@ -183,6 +227,21 @@ public class TriangleMeshFace {
       return true;
    }
 
+   private static boolean allVerticesAreDifferentEnoughInGrid(List<Vertex> vertices) {
+      double distance = DIFFERENT_ENOUGH_SEARCH_DISTANCE;
+      VertexGrid grid = new VertexGrid(distance, vertices.size());
+      for (Vertex vertex : vertices) {
+         Point3d point = toPoint3d(vertex.getCoordinates());
+         int near = grid.findNear(vertex.getX(), vertex.getY(), vertex.getZ(), distance, other -> !GeometryUtil
+               .differentEnough(point, new Point3d(grid.getX(other), grid.getY(other), grid.getZ(other))));
+         if (near >= 0) {
+            return false;
+         }
+         grid.add(vertex.getX(), vertex.getY(), vertex.getZ());
+      }
+      return true;
+   }
+
    /**
     * Ordered means that the counterclockwise direction of the vertices indicate
     * the side of the face
@@ -195,12 +254,56 @@ public class TriangleMeshFace {
       return fromOrderedTriplet(Arrays.asList(vertices)); // order is maintained
    }
 
-   private void calculateFrontDirection() {
+   /*
+    * copy of this face, in the same order and with the same texture vertices, where a vertex is
+    * replaced by another one
+    */
+   TriangleMeshFace withVertexReplaced(Vertex vertex, Vertex replacement) {
+      List<Vertex> vertices = new ArrayList<>(verticesInOrder);
+      vertices.replaceAll(v -> v.equals(vertex) ? replacement : v);
+      return withVertices(vertices);
+   }
+
+   /*
+    * copy of this face with the same texture vertices and other vertices, in the given order
+    */
+   TriangleMeshFace withVertices(List<Vertex> vertices) {
+      if (vertices.size() != TriangleMeshFaceWrapper.TRIANGLE_VERTEX_COUNT) {
+         throw new IllegalArgumentException();
+      }
+      if (!allVerticesAreDifferentEnough(vertices)) {
+         throw new IllegalArgumentException("Some of the vertices are equal or almost equal.");
+      }
+      TriangleMeshFace face = new TriangleMeshFace();
+      face.verticesInOrder = new ArrayList<>(vertices);
+      face.textureVertices.addAll(textureVertices);
+      return face;
+   }
+
+   /*
+    * copy of this face where a texture vertex, and those equal to it as floats, are replaced by
+    * another one
+    */
+   TriangleMeshFace withTextureVertexReplaced(Point2D textureVertex, Point2D replacement) {
+      long key = TexCoordTable.keyOf(textureVertex);
+      TriangleMeshFace face = new TriangleMeshFace();
+      face.verticesInOrder = new ArrayList<>(verticesInOrder);
+      face.textureVertices.addAll(textureVertices);
+      face.textureVertices.replaceAll(p -> TexCoordTable.keyOf(p) == key ? replacement : p);
+      face.frontDirectionVector = frontDirectionVector;
+      return face;
+   }
+
+   static boolean textureVertexWithinRange(Point2D textureVertex) {
+      return textureVerticesWithinRange(Collections.singletonList(textureVertex));
+   }
+
+   private Point3D calculateFrontDirection() {
       Point3D firstPoint = verticesInOrder.get(0).getCoordinates();
       Point3D secondPoint = verticesInOrder.get(1).getCoordinates();
       Point3D thirdPoint = verticesInOrder.get(2).getCoordinates();
       Vector3d normal = calculateNormalOfPlaneGivenBy(toPoint3d(firstPoint), toPoint3d(secondPoint), toPoint3d(thirdPoint));
-      frontDirectionVector = new Point3D(normal.getX(), normal.getY(), normal.getZ()); 
+      return new Point3D(normal.getX(), normal.getY(), normal.getZ()); 
             
    }
 
@@ -234,7 +337,7 @@ public class TriangleMeshFace {
     *         created
     */
    public Set<Vertex> getVertices() {
-      return new HashSet<>(verticesInOrder);
+      return new LinkedHashSet<>(verticesInOrder);
    }
 
    /**
@@ -246,7 +349,12 @@ public class TriangleMeshFace {
     * Counter clockwise point order indicates vector direction
     */
    public Point3D getFrontDirectionVector() {
-      return frontDirectionVector;
+      Point3D direction = frontDirectionVector;
+      if (direction == null) {
+         direction = calculateFrontDirection();
+         frontDirectionVector = direction;
+      }
+      return direction;
    }
 
    /**
@@ -256,10 +364,10 @@ public class TriangleMeshFace {
     */
    public TriangleMeshFace invertFace() {
       TriangleMeshFace inverted = new TriangleMeshFace();
-      double x = -frontDirectionVector.getX();
-      double y = -frontDirectionVector.getY();
-      double z = -frontDirectionVector.getZ();
-      inverted.frontDirectionVector = new Point3D(x, y, z);
+      Point3D direction = frontDirectionVector;
+      if (direction != null) {
+         inverted.frontDirectionVector = new Point3D(-direction.getX(), -direction.getY(), -direction.getZ());
+      }
       inverted.verticesInOrder = verticesInOrder.stream().collect(Collectors.toList());
       Collections.reverse(inverted.verticesInOrder);
       return inverted;
@@ -9,6 +9,8 @@ import org.javatuples.Pair;
 
 import com.moduleforge.libraries.util.Util;
 
+import javafx.scene.shape.VertexFormat;
+
 /*
  * We use lists in this class. Don't use collection because apparently the order in the vertices is important for the mesh
  * 
@@ -22,7 +24,7 @@ import com.moduleforge.libraries.util.Util;
 class TriangleMeshFaceWrapper {
 
    public static final int TRIANGLE_VERTEX_COUNT = 3;
-   private static final int DEFAULT_TEXTURE = 0;
+   static final int DEFAULT_TEXTURE = 0;
 
    private List<Pair<VertexIndex, VertexIndex>> vertices;
    private List<VertexIndex> vertexIndeces;
@@ -86,7 +88,15 @@ class TriangleMeshFaceWrapper {
     */
    static final int faceTotalCoordinateCount() {
       //three pairs
-      return TRIANGLE_VERTEX_COUNT * 2;
+      return faceTotalCoordinateCount(VertexFormat.POINT_TEXCOORD);
+   }
+
+   /*
+    * total number of coordinates of a face in the given format, for example three triples of
+    * point, normal and texture indices with VertexFormat.POINT_NORMAL_TEXCOORD
+    */
+   static final int faceTotalCoordinateCount(VertexFormat format) {
+      return TRIANGLE_VERTEX_COUNT * format.getVertexIndexSize();
    }
 
    private void createList(List<Pair<VertexIndex, VertexIndex>> v) {
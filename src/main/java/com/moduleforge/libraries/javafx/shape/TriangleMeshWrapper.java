@@ -7,11 +7,13 @@ import org.javatuples.Pair;
 
 import com.google.common.annotations.VisibleForTesting;
 
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableFloatArray;
+import javafx.collections.ObservableIntegerArray;
 import javafx.geometry.Point2D;
 import javafx.geometry.Point3D;
 import javafx.scene.shape.TriangleMesh;
-
-import static com.moduleforge.libraries.util.Util.toPrimitive;
+import javafx.scene.shape.VertexFormat;
 
 /*
  * 
@@ -29,14 +31,38 @@ class TriangleMeshWrapper {
 
    private TriangleMesh _delegate;
 
+   /*
+    * The arrays that changes are written to. They are the arrays of the delegate, except during
+    * an update, when they are private copies nobody listens to.
+    */
+   private ObservableFloatArray points;
+   private ObservableFloatArray texCoords;
+   private ObservableIntegerArray faces;
+   private ObservableIntegerArray faceSmoothingGroups;
+   private ObservableFloatArray normals;
+   private StagedArrays staged;
+
+   /*
+    * In the POINT_NORMAL_TEXCOORD format there is a normal per face if they are flat, otherwise
+    * one per point. Those the changes make stale are computed again from the points and faces,
+    * once per update; staleNormals is null in other formats.
+    */
+   private boolean flatNormals;
+   private final StaleNormals staleNormals;
+
    private TriangleMeshWrapper() {
-      _delegate = new TriangleMesh();
-      applyDefaultTexture();
+      this(new TriangleMesh());
    }
 
+   /*
+    * A new wrapper is in an update until commitUpdate() is called, so that setting it up sends
+    * each array only once to the delegate
+    */
    private TriangleMeshWrapper(TriangleMesh delegate) {
-      this();
       _delegate = delegate;
+      staleNormals = hasNormals() ? new StaleNormals(faceCoordinateCount()) : null;
+      beginUpdate();
+      applyDefaultTexture();
    }
 
    /*
@@ -46,6 +72,7 @@ class TriangleMeshWrapper {
    static final TriangleMeshWrapper fromOrdered(List<Point3D> vertices) {
       TriangleMeshWrapper mesh = new TriangleMeshWrapper();
       mesh.setVertices(vertices);
+      mesh.commitUpdate();
       return mesh;
    }
 
@@ -53,6 +80,26 @@ class TriangleMeshWrapper {
       TriangleMeshWrapper mesh = new TriangleMeshWrapper();
       mesh.setVertices(vertices);
       mesh.setTextureVertices(textureVertices);
+      mesh.commitUpdate();
+      return mesh;
+   }
+
+   /*
+    * in the vertex format the options ask for, with the texture coordinates of the table, which
+    * include the default texture vertex; still in the update, which the caller commits once the
+    * faces are set
+    */
+   static final TriangleMeshWrapper fromOrdered(List<Point3D> vertices, TexCoordTable textureVertices,
+         MeshBuildOptions options) {
+      TriangleMeshWrapper mesh;
+      if (options.isNormals()) {
+         mesh = new TriangleMeshWrapper(new TriangleMesh(VertexFormat.POINT_NORMAL_TEXCOORD));
+         mesh.flatNormals = !options.isSmoothNormals();
+      } else {
+         mesh = new TriangleMeshWrapper();
+      }
+      mesh.setVertices(vertices);
+      mesh.texCoords.setAll(textureVertices.toArray());
       return mesh;
    }
 
@@ -63,9 +110,13 @@ class TriangleMeshWrapper {
    static final TriangleMeshWrapper fromOrdered(Point3D... vertices) {
       TriangleMeshWrapper mesh = new TriangleMeshWrapper();
       mesh.setVertices(vertices);
+      mesh.commitUpdate();
       return mesh;
    }
 
+   /*
+    * the texture vertices go after the default one, so the first of them has index 1
+    */
    private void setTextureVertices(List<Point2D> vertices) {
       float[] elements = new float[vertices.size() * 2];
       int index = 0;
@@ -75,16 +126,26 @@ class TriangleMeshWrapper {
          elements[index] = (float) point.getY();
          index++;
       }
-      _delegate.getTexCoords().clear();
-      _delegate.getTexCoords().addAll(elements);
+      texCoords.addAll(elements);
    }
 
    /*
     * the order of the faces is important
     */
    void setFaces(List<TriangleMeshFaceWrapper> faces) {
-      int[] array = makeCoordinateArrayFrom(faces);
-      _delegate.getFaces().addAll(array);
+      setFaces(makeCoordinateArrayFrom(faces));
+   }
+
+   /*
+    * pairs of vertex index and texture vertex index, three pairs per face, or triples with the
+    * normal index in between in the POINT_NORMAL_TEXCOORD format; the normal indices are filled
+    * in here
+    */
+   void setFaces(int[] coordinates) {
+      assignNormalIndices(coordinates, getFaceCount());
+      faces.addAll(coordinates);
+      if (staleNormals != null)
+         staleNormals.allFacesReplaced();
    }
 
    private void setVertices(List<Point3D> vertices) {
@@ -98,7 +159,7 @@ class TriangleMeshWrapper {
          elements[index] = (float) point.getZ();
          index++;
       }
-      _delegate.getPoints().addAll(elements);
+      points.addAll(elements);
    }
 
    private void setVertices(Point3D... vertices) {
@@ -107,31 +168,317 @@ class TriangleMeshWrapper {
 
    @VisibleForTesting
    static int[] makeCoordinateArrayFrom(List<TriangleMeshFaceWrapper> faces) {
-      int arraySize = TriangleMeshFaceWrapper.faceTotalCoordinateCount() * faces.size();
-      int index = 0;
-      int[] array = new int[arraySize];
-      for (TriangleMeshFaceWrapper face : faces) {
-         for (Pair<VertexIndex, VertexIndex> vertex : face.getVertexIndexPairs()) {
-            array[index] = vertex.getValue0().value;
-            index++;
-            array[index] = vertex.getValue1().value;
-            index++;
+      return makeCoordinateArrayFrom(faces, MeshBuildOptions.defaults());
+   }
+
+   static int[] makeCoordinateArrayFrom(List<TriangleMeshFaceWrapper> faces, MeshBuildOptions options) {
+      return makeCoordinateArrayFrom(faces, VertexFormat.POINT_TEXCOORD, options);
+   }
+
+   /*
+    * the list should have fast random access when the build is parallel
+    * 
+    * the normal indices are left at 0, setFaces(int[]) fills them in
+    */
+   static int[] makeCoordinateArrayFrom(List<TriangleMeshFaceWrapper> faces, VertexFormat format,
+         MeshBuildOptions options) {
+      int faceCoordinateCount = TriangleMeshFaceWrapper.faceTotalCoordinateCount(format);
+      int vertexSize = format.getVertexIndexSize();
+      int pointOffset = format.getPointIndexOffset();
+      int texCoordOffset = format.getTexCoordIndexOffset();
+      int[] array = new int[faceCoordinateCount * faces.size()];
+      ParallelRanges.forEach(faces.size(), options, (from, to) -> {
+         int index = from * faceCoordinateCount;
+         for (TriangleMeshFaceWrapper face : faces.subList(from, to)) {
+            for (Pair<VertexIndex, VertexIndex> vertex : face.getVertexIndexPairs()) {
+               array[index + pointOffset] = vertex.getValue0().value;
+               array[index + texCoordOffset] = vertex.getValue1().value;
+               index += vertexSize;
+            }
          }
-      }
+      });
       return array;
    }
 
+   VertexFormat getVertexFormat() {
+      return _delegate.getVertexFormat();
+   }
+
+   boolean hasNormals() {
+      return getVertexFormat() == VertexFormat.POINT_NORMAL_TEXCOORD;
+   }
+
+   int faceCoordinateCount() {
+      return TriangleMeshFaceWrapper.faceTotalCoordinateCount(getVertexFormat());
+   }
+
+   /*
+    * faces given as coordinates, the first of them at position firstFace
+    */
+   private void assignNormalIndices(int[] coordinates, int firstFace) {
+      if (!hasNormals())
+         return;
+      int vertexSize = getVertexFormat().getVertexIndexSize();
+      int pointOffset = getVertexFormat().getPointIndexOffset();
+      int normalOffset = getVertexFormat().getNormalIndexOffset();
+      int faceCoordinateCount = faceCoordinateCount();
+      for (int index = 0; index < coordinates.length; index += vertexSize) {
+         coordinates[index + normalOffset] = flatNormals ? firstFace + index / faceCoordinateCount
+               : coordinates[index + pointOffset];
+      }
+   }
+
+   /*
+    * computes the normals the changes made stale again, and sends only those; during an update,
+    * this is left for the end of it
+    */
+   void updateNormals() {
+      if (staged == null)
+         refreshNormals();
+   }
+
+   private void refreshNormals() {
+      if (staleNormals != null && staleNormals.isStale())
+         staleNormals.refresh(points, faces, normals, flatNormals);
+   }
+
+   /*
+    * The following methods change parts of the mesh in place. Only the elements given are
+    * sent to the arrays of the TriangleMesh, right away or when the update ends if there is one.
+    */
+
+   int getPointCount() {
+      return points.size() / 3;
+   }
+
+   int getTexCoordCount() {
+      return texCoords.size() / 2;
+   }
+
+   int getFaceCount() {
+      return faces.size() / faceCoordinateCount();
+   }
+
+   /*
+    * the number of elements of all the arrays of the mesh
+    */
+   long arrayElementCount() {
+      return (long) points.size() + normals.size() + texCoords.size() + faces.size() + faceSmoothingGroups.size();
+   }
+
+   /*
+    * copies of the current arrays, those of the update if there is one
+    */
+   float[] pointArray() {
+      return points.toArray(null);
+   }
+
+   int[] faceArray() {
+      return faces.toArray(null);
+   }
+
+   /*
+    * Moves all the points through the affine transform at once; with reverseWinding the faces are
+    * turned around as well
+    */
+   void transformPoints(double[] matrix, boolean reverseWinding) {
+      float[] transformed = new float[points.size()];
+      PointTransform.apply(matrix, points.toArray(null), 0, transformed, 0, transformed.length);
+      points.setAll(transformed);
+      if (reverseWinding) {
+         int[] faceArray = faces.toArray(null);
+         AffineArrays.reverseWinding(faceArray, 0, faces.size(), faceCoordinateCount());
+         faces.setAll(faceArray);
+      }
+      if (staleNormals != null)
+         staleNormals.allPointsMoved();
+      updateNormals();
+   }
+
+   void appendPoints(float[] coordinates) {
+      points.addAll(coordinates);
+   }
+
+   void setPoint(int index, float x, float y, float z) {
+      points.set(index * 3, new float[] { x, y, z }, 0, 3);
+      if (staleNormals != null)
+         staleNormals.pointMoved(index);
+   }
+
+   void appendTexCoords(float[] coordinates) {
+      texCoords.addAll(coordinates);
+   }
+
+   void setTexCoord(int index, float u, float v) {
+      texCoords.set(index * 2, new float[] { u, v }, 0, 2);
+   }
+
+   /*
+    * points the vertices of the face that use texture coordinates 'from' to 'to'
+    */
+   void replaceTexCoordIndex(int face, int from, int to) {
+      int faceCoordinateCount = faceCoordinateCount();
+      int[] coordinates = faces.toArray(face * faceCoordinateCount, null, faceCoordinateCount);
+      int vertexSize = getVertexFormat().getVertexIndexSize();
+      for (int index = getVertexFormat().getTexCoordIndexOffset(); index < faceCoordinateCount; index += vertexSize) {
+         if (coordinates[index] == from)
+            coordinates[index] = to;
+      }
+      faces.set(face * faceCoordinateCount, coordinates, 0, faceCoordinateCount);
+   }
+
+   void appendFaces(int[] coordinates, int[] smoothingGroups) {
+      int firstFace = getFaceCount();
+      assignNormalIndices(coordinates, firstFace);
+      faces.addAll(coordinates);
+      faceSmoothingGroups.addAll(smoothingGroups);
+      if (staleNormals != null)
+         staleNormals.facesAdded(faces, firstFace, getFaceCount());
+   }
+
+   /*
+    * overwrites the face at position 'to' with the one at position 'from'
+    */
+   void copyFace(int from, int to) {
+      int faceCoordinateCount = faceCoordinateCount();
+      int[] coordinates = faces.toArray(from * faceCoordinateCount, null, faceCoordinateCount);
+      assignNormalIndices(coordinates, to);
+      if (staleNormals != null)
+         staleNormals.faceReplaced(faces, to, coordinates);
+      faces.set(to * faceCoordinateCount, coordinates, 0, faceCoordinateCount);
+      faceSmoothingGroups.set(to, faceSmoothingGroups.get(from));
+   }
+
+   /*
+    * face normals as laid out by MeshNormals, from the current arrays, including changes of an
+    * update still in progress
+    */
+   float[] computeFaceNormals() {
+      return MeshNormals.faceNormals(points.toArray(null), faces.toArray(null),
+            faceCoordinateCount());
+   }
+
+   float[] computeVertexNormals() {
+      return MeshNormals.vertexNormals(points.toArray(null), faces.toArray(null),
+            faceCoordinateCount());
+   }
+
+   /*
+    * keeps the first faceCount faces
+    */
+   void truncateFaces(int faceCount) {
+      if (staleNormals != null)
+         staleNormals.facesRemoved(faces, faceCount);
+      faces.resize(faceCount * faceCoordinateCount());
+      faceSmoothingGroups.resize(faceCount);
+   }
+
+   /*
+    * from now on changes are kept apart from the delegate
+    */
+   void beginUpdate() {
+      if (staged != null)
+         throw new IllegalStateException("An update is already in progress.");
+      staged = new StagedArrays(_delegate);
+      points = staged.points;
+      texCoords = staged.texCoords;
+      faces = staged.faces;
+      faceSmoothingGroups = staged.faceSmoothingGroups;
+      normals = staged.normals;
+   }
+
+   boolean isUpdating() {
+      return staged != null;
+   }
+
+   /*
+    * Ends the update and returns the action that sends the changes to the delegate, with at most
+    * one call per array. The action can be run later, from another thread, such as the JavaFX
+    * application thread. This wrapper must not be changed until then.
+    */
+   Runnable endUpdate() {
+      if (staged == null)
+         throw new IllegalStateException("There is no update in progress.");
+      refreshNormals();
+      StagedArrays changes = staged;
+      staged = null;
+      points = _delegate.getPoints();
+      texCoords = _delegate.getTexCoords();
+      faces = _delegate.getFaces();
+      faceSmoothingGroups = _delegate.getFaceSmoothingGroups();
+      normals = _delegate.getNormals();
+      return () -> changes.publishTo(_delegate);
+   }
+
+   void commitUpdate() {
+      endUpdate().run();
+   }
+
    private void applyDefaultTexture() {
-      _delegate.getTexCoords().addAll(0, 0);
+      texCoords.addAll(0, 0);
    }
 
    public final TriangleMesh toTriangleMesh() {
       return _delegate;
    }
 
-   public void applyFaceSmoothingGroups(List<Integer> faceSmoothingGroups) {
-      int[] arrFaceSmoothingGroups = 
-            toPrimitive(faceSmoothingGroups.toArray(new Integer[faceSmoothingGroups.size()]));
-      _delegate.getFaceSmoothingGroups().addAll(arrFaceSmoothingGroups);
+   void setFaceSmoothingGroups(int[] smoothingGroups) {
+      faceSmoothingGroups.setAll(smoothingGroups);
+   }
+
+   HalfEdgeMesh buildHalfEdgeMesh() {
+      return HalfEdgeMesh.from(faces.toArray(null), faceCoordinateCount(), getPointCount());
+   }
+
+   /*
+    * smoothing groups of the current faces, see SmoothingGroups
+    */
+   int[] computeSmoothingGroups(double creaseAngle) {
+      return SmoothingGroups.byCreaseAngle(points.toArray(null), faces.toArray(null),
+            faceCoordinateCount(), creaseAngle);
+   }
+
+   /*
+    * copies of the arrays of a mesh that remember which of them changed
+    */
+   private static final class StagedArrays {
+
+      final ObservableFloatArray points;
+      final ObservableFloatArray texCoords;
+      final ObservableIntegerArray faces;
+      final ObservableIntegerArray faceSmoothingGroups;
+      final ObservableFloatArray normals;
+
+      boolean pointsChanged;
+      boolean texCoordsChanged;
+      boolean facesChanged;
+      boolean faceSmoothingGroupsChanged;
+      boolean normalsChanged;
+
+      StagedArrays(TriangleMesh mesh) {
+         points = FXCollections.observableFloatArray(mesh.getPoints());
+         texCoords = FXCollections.observableFloatArray(mesh.getTexCoords());
+         faces = FXCollections.observableIntegerArray(mesh.getFaces());
+         faceSmoothingGroups = FXCollections.observableIntegerArray(mesh.getFaceSmoothingGroups());
+         normals = FXCollections.observableFloatArray(mesh.getNormals());
+         points.addListener((array, sizeChanged, from, to) -> pointsChanged = true);
+         texCoords.addListener((array, sizeChanged, from, to) -> texCoordsChanged = true);
+         faces.addListener((array, sizeChanged, from, to) -> facesChanged = true);
+         faceSmoothingGroups.addListener((array, sizeChanged, from, to) -> faceSmoothingGroupsChanged = true);
+         normals.addListener((array, sizeChanged, from, to) -> normalsChanged = true);
+      }
+
+      void publishTo(TriangleMesh mesh) {
+         if (pointsChanged)
+            mesh.getPoints().setAll(points);
+         if (texCoordsChanged)
+            mesh.getTexCoords().setAll(texCoords);
+         if (facesChanged)
+            mesh.getFaces().setAll(faces);
+         if (faceSmoothingGroupsChanged)
+            mesh.getFaceSmoothingGroups().setAll(faceSmoothingGroups);
+         if (normalsChanged)
+            mesh.getNormals().setAll(normals);
+      }
    }
 }
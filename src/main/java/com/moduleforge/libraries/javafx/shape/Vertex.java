@@ -1,6 +1,6 @@
 package com.moduleforge.libraries.javafx.shape;
 
-import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javafx.geometry.Point3D;
 
@@ -9,15 +9,32 @@ import javafx.geometry.Point3D;
  */
 public class Vertex {
    
-   private String identifier;
+   /*
+    * Identifiers are handed out to each thread in blocks, so that threads creating vertices
+    * only touch the shared counter once every IDENTIFIER_BLOCK_SIZE vertices
+    */
+   private static final int IDENTIFIER_BLOCK_SIZE = 1024;
+   private static final AtomicLong nextIdentifierBlock = new AtomicLong();
+   private static final ThreadLocal<long[]> identifierBlock = ThreadLocal.withInitial(() -> new long[2]);
+
+   private final long identifier;
    
    private Point3D coordinates;
    
    private Vertex() {
-      identifier = UUID.randomUUID().toString();
+      identifier = nextIdentifier();
       coordinates = Point3D.ZERO;
    }
 
+   private static long nextIdentifier() {
+      long[] block = identifierBlock.get(); // next identifier and end of the block
+      if (block[0] == block[1]) {
+         block[0] = nextIdentifierBlock.getAndAdd(IDENTIFIER_BLOCK_SIZE);
+         block[1] = block[0] + IDENTIFIER_BLOCK_SIZE;
+      }
+      return block[0]++;
+   }
+
    public static Vertex from(Point3D coordinates) {
       return from(coordinates.getX(), coordinates.getY(), coordinates.getZ());
    }
@@ -29,6 +46,13 @@ public class Vertex {
    }
    
    public String getIdentifier() {
+      return Long.toString(identifier);
+   }
+
+   /*
+    * unique among all vertices, cheaper to hash than getIdentifier()
+    */
+   long identifier() {
       return identifier;
    }
    
@@ -51,12 +75,12 @@ public class Vertex {
    @Override 
    public boolean equals(Object v) {
       if (v instanceof Vertex)
-         return identifier.equals(((Vertex)v).identifier);
+         return identifier == ((Vertex)v).identifier;
       return false;
    }
    
    @Override 
    public int hashCode() {
-      return this.identifier.hashCode();
+      return Long.hashCode(this.identifier);
    }
 }
@@ -0,0 +1,107 @@
+package com.moduleforge.libraries.javafx.shape;
+
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+
+/*
+ * Uniform grid over points in space, to find the points near a given one without comparing it
+ * with all of them
+ * 
+ * Cells are keyed by a hash of their coordinates in a LongIntHashMap, which holds the first
+ * point of each cell; the rest are chained through an int array. Two cells with the same hash
+ * share their chain, which only adds candidates, so the grid works for any coordinates.
+ * 
+ * Points are identified by the order in which they were added, starting at 0.
+ */
+final class VertexGrid {
+
+   private final double cellSize;
+   private final LongIntHashMap cellToFirstPoint;
+   private double[] coordinates;
+   private int[] nextInCell;
+   private int size;
+
+   /*
+    * the cell size should be the distance used to look for points
+    */
+   VertexGrid(double cellSize, int expectedSize) {
+      if (!(cellSize > 0))
+         throw new IllegalArgumentException("The cell size must be positive.");
+      this.cellSize = cellSize;
+      cellToFirstPoint = new LongIntHashMap(expectedSize);
+      coordinates = new double[Math.max(1, expectedSize) * 3];
+      nextInCell = new int[Math.max(1, expectedSize)];
+   }
+
+   int add(double x, double y, double z) {
+      if (size == nextInCell.length) {
+         nextInCell = Arrays.copyOf(nextInCell, size * 2);
+         coordinates = Arrays.copyOf(coordinates, size * 6);
+      }
+      int point = size++;
+      coordinates[point * 3] = x;
+      coordinates[point * 3 + 1] = y;
+      coordinates[point * 3 + 2] = z;
+      long key = cellKey(cell(x), cell(y), cell(z));
+      nextInCell[point] = cellToFirstPoint.get(key, -1);
+      cellToFirstPoint.put(key, point);
+      return point;
+   }
+
+   int size() {
+      return size;
+   }
+
+   double getX(int point) {
+      return coordinates[point * 3];
+   }
+
+   double getY(int point) {
+      return coordinates[point * 3 + 1];
+   }
+
+   double getZ(int point) {
+      return coordinates[point * 3 + 2];
+   }
+
+   /*
+    * the first point within the given distance of (x, y, z) that passes the test, or -1
+    * 
+    * The distance must not be greater than the cell size, only the cell of (x, y, z) and its
+    * neighbours are searched.
+    */
+   int findNear(double x, double y, double z, double distance, IntPredicate test) {
+      double squaredDistance = distance * distance;
+      long cx = cell(x);
+      long cy = cell(y);
+      long cz = cell(z);
+      for (long i = cx - 1; i <= cx + 1; i++) {
+         for (long j = cy - 1; j <= cy + 1; j++) {
+            for (long k = cz - 1; k <= cz + 1; k++) {
+               int point = cellToFirstPoint.get(cellKey(i, j, k), -1);
+               while (point >= 0) {
+                  double dx = coordinates[point * 3] - x;
+                  double dy = coordinates[point * 3 + 1] - y;
+                  double dz = coordinates[point * 3 + 2] - z;
+                  if (dx * dx + dy * dy + dz * dz <= squaredDistance && test.test(point))
+                     return point;
+                  point = nextInCell[point];
+               }
+            }
+         }
+      }
+      return -1;
+   }
+
+   int findNear(double x, double y, double z, double distance) {
+      return findNear(x, y, z, distance, point -> true);
+   }
+
+   private long cell(double coordinate) {
+      return (long) Math.floor(coordinate / cellSize);
+   }
+
+   private static long cellKey(long i, long j, long k) {
+      return i * 0x9E3779B97F4A7C15L + j * 0xC2B2AE3D27D4EB4FL + k * 0x165667B19E3779F9L;
+   }
+}
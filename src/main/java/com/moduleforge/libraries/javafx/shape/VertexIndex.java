@@ -1,29 +1,47 @@
 package com.moduleforge.libraries.javafx.shape;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
+/*
+ * Flyweight for the indices of vertices and texture vertices
+ * 
+ * The cache is an array with a fixed upper bound, so it never grows beyond that bound no
+ * matter how many meshes are built. Indices beyond the bound are not cached. The bound can be
+ * set with the system property CACHE_SIZE_PROPERTY.
+ * 
+ * Safe to use from several threads, without locking.
+ * 
+ * Meshes are encoded straight into int arrays by TriangleMeshFacade, this class is only needed
+ * to build TriangleMeshFaceWrapper objects
+ */
 class VertexIndex {
-   
-   private static final Map<Integer, VertexIndex> cache = new HashMap<>();
-   
+
+   static final String CACHE_SIZE_PROPERTY = "com.moduleforge.libraries.javafx.shape.vertexIndexCacheSize";
+   private static final int DEFAULT_CACHE_SIZE = 1 << 16;
+
+   private static final AtomicReferenceArray<VertexIndex> cache = new AtomicReferenceArray<>(cacheSize());
+
    final int value;
    
    private VertexIndex(int value) {
       this.value = value;
    }
+
+   private static int cacheSize() {
+      return Math.max(0, Integer.getInteger(CACHE_SIZE_PROPERTY, DEFAULT_CACHE_SIZE).intValue());
+   }
    
    static VertexIndex from(int value) {
-      VertexIndex cached = cache.get(Integer.valueOf(value));
+      if (value < 0 || value >= cache.length())
+         return new VertexIndex(value);
+
+      VertexIndex cached = cache.get(value);
       if (cached != null)
          return cached;
 
       VertexIndex vertexIndex = new VertexIndex(value);
-      cache(value, vertexIndex);
-      return vertexIndex;
-   }
-   
-   private static void cache(int value, VertexIndex vertexIndex) {
-      cache.put(Integer.valueOf(value), vertexIndex);
+      if (cache.compareAndSet(value, null, vertexIndex))
+         return vertexIndex;
+      return cache.get(value); // another thread got there first
    }
 }
@@ -0,0 +1,37 @@
+package com.moduleforge.libraries.javafx.shape;
+
+/*
+ * Applies an affine transform, given as a matrix in AffineArrays, to points laid out as x, y, z
+ *
+ * The version for Java 16 and later in the multi-release jar. The Vector API is still incubating,
+ * so it is only used when the jdk.incubator.vector module was added at run time, with
+ * --add-modules jdk.incubator.vector; otherwise, and for short arrays, this is the same as the
+ * plain Java version.
+ */
+final class PointTransform {
+
+   private static final boolean VECTOR_API = ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+   // below this many coordinates setting up the vectors takes longer than the loop
+   private static final int VECTOR_MINIMUM_LENGTH = 96;
+
+   private PointTransform() {
+      //
+   }
+
+   /*
+    * source and target may be the same array
+    */
+   static void apply(double[] m, float[] source, int sourceOffset, float[] target, int targetOffset, int length) {
+      // in place the vectors would read neighbouring points already written, so those stay scalar
+      if (VECTOR_API && source != target && length >= VECTOR_MINIMUM_LENGTH) {
+         VectorPointTransform.apply(m, source, sourceOffset, target, targetOffset, length);
+         return;
+      }
+      for (int i = 0; i < length; i += 3) {
+         double x = source[sourceOffset + i], y = source[sourceOffset + i + 1], z = source[sourceOffset + i + 2];
+         target[targetOffset + i] = (float) (m[0] * x + m[1] * y + m[2] * z + m[3]);
+         target[targetOffset + i + 1] = (float) (m[4] * x + m[5] * y + m[6] * z + m[7]);
+         target[targetOffset + i + 2] = (float) (m[8] * x + m[9] * y + m[10] * z + m[11]);
+      }
+   }
+}
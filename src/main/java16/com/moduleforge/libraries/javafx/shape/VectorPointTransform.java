@@ -0,0 +1,87 @@
+package com.moduleforge.libraries.javafx.shape;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorSpecies;
+
+/*
+ * PointTransform with the Vector API, only loaded when the jdk.incubator.vector module is present
+ *
+ * Coordinates are taken a vector at a time, whatever point they belong to. Lane j of the vector
+ * at element r of the range holds coordinate (r + j) % 3 of its point, so it needs the x, y and z
+ * of that point: they are in the vectors loaded up to two elements before and after, and
+ * blending them by that coordinate gives vectors of the x, the y and the z of each lane. The
+ * three possible phases of r are set up once per call. Only lanes of the same point are ever
+ * combined, so the elements read around the range do not change the result.
+ *
+ * Computed in float with fused multiply-add.
+ */
+final class VectorPointTransform {
+
+   private static final VectorSpecies<Float> SPECIES = FloatVector.SPECIES_PREFERRED;
+   private static final int LANES = SPECIES.length();
+   private static final int PHASES = 3;
+
+   private VectorPointTransform() {
+      //
+   }
+
+   static void apply(double[] m, float[] source, int sourceOffset, float[] target, int targetOffset, int length) {
+      FloatVector[][] columns = new FloatVector[PHASES][4];
+      @SuppressWarnings({ "rawtypes", "unchecked" })
+      VectorMask<Float>[] isY = new VectorMask[PHASES];
+      @SuppressWarnings({ "rawtypes", "unchecked" })
+      VectorMask<Float>[] isZ = new VectorMask[PHASES];
+      float[] lanes = new float[LANES];
+      boolean[] y = new boolean[LANES];
+      boolean[] z = new boolean[LANES];
+      for (int phase = 0; phase < PHASES; phase++) {
+         for (int column = 0; column < 4; column++) {
+            for (int j = 0; j < LANES; j++) {
+               lanes[j] = (float) m[((phase + j) % 3) * 4 + column];
+            }
+            columns[phase][column] = FloatVector.fromArray(SPECIES, lanes, 0);
+         }
+         for (int j = 0; j < LANES; j++) {
+            y[j] = (phase + j) % 3 == 1;
+            z[j] = (phase + j) % 3 == 2;
+         }
+         isY[phase] = VectorMask.fromArray(SPECIES, y, 0);
+         isZ[phase] = VectorMask.fromArray(SPECIES, z, 0);
+      }
+
+      // the vectors read two elements on each side, which must be in the array
+      int start = Math.max(0, 2 - sourceOffset);
+      int end = Math.min(length, source.length - 2 - sourceOffset) - LANES;
+      for (int r = 0; r < Math.min(start, length); r++) {
+         applyToElement(m, source, sourceOffset, target, targetOffset, r);
+      }
+      int r = start;
+      int phase = start % 3;
+      for (; r <= end; r += LANES) {
+         int at = sourceOffset + r;
+         FloatVector before2 = FloatVector.fromArray(SPECIES, source, at - 2);
+         FloatVector before1 = FloatVector.fromArray(SPECIES, source, at - 1);
+         FloatVector here = FloatVector.fromArray(SPECIES, source, at);
+         FloatVector after1 = FloatVector.fromArray(SPECIES, source, at + 1);
+         FloatVector after2 = FloatVector.fromArray(SPECIES, source, at + 2);
+         FloatVector xs = here.blend(before1, isY[phase]).blend(before2, isZ[phase]);
+         FloatVector ys = after1.blend(here, isY[phase]).blend(before1, isZ[phase]);
+         FloatVector zs = after2.blend(after1, isY[phase]).blend(here, isZ[phase]);
+         FloatVector[] c = columns[phase];
+         xs.fma(c[0], ys.fma(c[1], zs.fma(c[2], c[3]))).intoArray(target, targetOffset + r);
+         phase = (phase + LANES) % 3;
+      }
+      for (; r < length; r++) {
+         applyToElement(m, source, sourceOffset, target, targetOffset, r);
+      }
+   }
+
+   private static void applyToElement(double[] m, float[] source, int sourceOffset, float[] target,
+         int targetOffset, int r) {
+      int row = r % 3;
+      int point = sourceOffset + r - row;
+      target[targetOffset + r] = (float) (m[row * 4] * source[point] + m[row * 4 + 1] * source[point + 1]
+            + m[row * 4 + 2] * source[point + 2] + m[row * 4 + 3]);
+   }
+}
@@ -0,0 +1,92 @@
+package com.moduleforge.libraries.javafx.shape;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import javafx.scene.shape.TriangleMesh;
+
+public class AsyncMeshBuilderTest {
+
+   @Test
+   public void testBuild_SameMeshAsSynchronousBuild() throws Exception {
+      ExecutorService executor = Executors.newFixedThreadPool(3);
+      try {
+         AsyncMeshBuilder builder = AsyncMeshBuilder.create(executor, Runnable::run, 2,
+               AsyncMeshBuilder.DEFAULT_PUBLISH_BUDGET_NANOS);
+         List<CompletableFuture<TriangleMesh>> futures = new ArrayList<>();
+         for (int size = 1; size <= 8; size++) {
+            futures.add(builder.build(TriangleMeshFacadeTest.makeGrid(size)));
+         }
+         for (int size = 1; size <= 8; size++) {
+            TriangleMesh built = futures.get(size - 1).get(10, TimeUnit.SECONDS);
+            TriangleMesh expected = TriangleMeshFacade.from(TriangleMeshFacadeTest.makeGrid(size)).toTriangleMesh();
+            Assert.assertEquals(size * size * 2 * 6, built.getFaces().size());
+            Assert.assertEquals(expected.getPoints().size(), built.getPoints().size());
+         }
+      } finally {
+         executor.shutdown();
+      }
+   }
+
+   @Test
+   public void testBuild_CancelledBuildDroppedAndPermitReleased() throws Exception {
+      List<Runnable> tasks = new ArrayList<>();
+      AsyncMeshBuilder builder = AsyncMeshBuilder.create(tasks::add, Runnable::run, 1, 0);
+      Set<TriangleMeshFace> faces = TriangleMeshFacadeTest.makeGrid(2);
+
+      CompletableFuture<TriangleMesh> first = builder.build(faces);
+      CompletableFuture<TriangleMesh> second = builder.build(faces);
+      // only one build at a time
+      Assert.assertEquals(1, tasks.size());
+      Assert.assertEquals(1, builder.getWaitingCount());
+
+      second.cancel(false);
+      tasks.get(0).run();
+      Assert.assertEquals(8 * 6, first.get().getFaces().size());
+      Assert.assertEquals(0, builder.getWaitingCount());
+      Assert.assertEquals(1, tasks.size());
+
+      CompletableFuture<TriangleMeshFacade> third = builder.buildFacade(TriangleMeshFacade.verticesOf(faces), faces,
+            MeshBuildOptions.defaults());
+      Assert.assertEquals(2, tasks.size());
+      third.cancel(false);
+      tasks.get(1).run();
+      Assert.assertTrue(third.isCancelled());
+      builder.build(faces);
+      Assert.assertEquals(3, tasks.size());
+   }
+
+   @Test
+   public void testBuild_FailedPublishingCompletesFutureAndReleasesPermit() throws Exception {
+      List<Runnable> tasks = new ArrayList<>();
+      AtomicBoolean publisherRunning = new AtomicBoolean();
+      Executor publisher = task -> {
+         if (!publisherRunning.get())
+            throw new IllegalStateException("Toolkit not initialized");
+         task.run();
+      };
+      AsyncMeshBuilder builder = AsyncMeshBuilder.create(tasks::add, publisher, 1, 0);
+      Set<TriangleMeshFace> faces = TriangleMeshFacadeTest.makeGrid(2);
+
+      CompletableFuture<TriangleMesh> first = builder.build(faces);
+      CompletableFuture<TriangleMesh> second = builder.build(faces);
+      tasks.get(0).run();
+      Assert.assertTrue(first.isCompletedExceptionally());
+      // the permit of the failed build went to the waiting one
+      Assert.assertEquals(2, tasks.size());
+
+      publisherRunning.set(true);
+      tasks.get(1).run();
+      Assert.assertEquals(8 * 6, second.get().getFaces().size());
+   }
+}
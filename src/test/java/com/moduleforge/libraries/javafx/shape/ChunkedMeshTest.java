@@ -0,0 +1,98 @@
+package com.moduleforge.libraries.javafx.shape;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import javafx.geometry.BoundingBox;
+import javafx.geometry.Point3D;
+
+public class ChunkedMeshTest {
+
+   @Test
+   public void testFrom_ChunksSplitFacesAndShareBorderVertices() {
+      Set<TriangleMeshFace> faces = TriangleMeshFacadeTest.makeGrid(16);
+      ChunkedMesh mesh = ChunkedMesh.from(faces, 64);
+
+      Set<TriangleMeshFace> chunkFaces = new HashSet<>();
+      int pointCount = 0;
+      for (ChunkedMesh.Chunk chunk : mesh.getChunks()) {
+         Assert.assertTrue(chunk.getFaces().size() <= 64);
+         chunkFaces.addAll(chunk.getFaces());
+         pointCount += chunk.getMesh().getPoints().size() / 3;
+         // each chunk has the vertices of its own faces only
+         Set<Vertex> vertices = new HashSet<>();
+         for (TriangleMeshFace face : chunk.getFaces())
+            vertices.addAll(face.getVertices());
+         Assert.assertEquals(vertices.size() * 3, chunk.getMesh().getPoints().size());
+      }
+      Assert.assertEquals(faces, chunkFaces);
+      Assert.assertTrue(mesh.getChunks().size() >= 8);
+      Assert.assertTrue(pointCount > 17 * 17);
+      Assert.assertTrue(mesh.takeDirtyChunks().isEmpty());
+   }
+
+   @Test
+   public void testEdits_OnlyAffectedChunksDirty() {
+      Set<TriangleMeshFace> faces = TriangleMeshFacadeTest.makeGrid(16);
+      ChunkedMesh mesh = ChunkedMesh.from(faces, 64);
+
+      // the center of the grid is shared by the chunks of four cells
+      Vertex center = vertexAt(faces, 8, 8);
+      Vertex moved = mesh.moveVertex(center, new Point3D(8, 8, 1));
+      List<ChunkedMesh.Chunk> dirty = mesh.takeDirtyChunks();
+      Assert.assertEquals(4, dirty.size());
+      for (ChunkedMesh.Chunk chunk : dirty) {
+         Assert.assertFalse(chunk.isDirty());
+         Assert.assertEquals(1, chunk.getBounds().getMaxZ(), 0);
+      }
+
+      TriangleMeshFace face = null;
+      for (TriangleMeshFace candidate : mesh.getChunks().get(0).getFaces()) {
+         if (!candidate.getVertices().contains(moved))
+            face = candidate;
+      }
+      mesh.removeFaces(Collections.singleton(face));
+      Assert.assertEquals(Collections.singletonList(mesh.getChunks().get(0)), mesh.takeDirtyChunks());
+
+      List<ChunkedMesh.Chunk> corner = mesh.chunksIntersecting(new BoundingBox(0, 0, 0, 0.5, 0.5, 0));
+      Assert.assertEquals(1, corner.size());
+   }
+
+   @Test
+   public void testAddFaces_FaceAlreadyInTheMeshRejectedAndNoChunkChanged() {
+      Set<TriangleMeshFace> faces = TriangleMeshFacadeTest.makeGrid(16);
+      ChunkedMesh mesh = ChunkedMesh.from(faces, 64);
+
+      TriangleMeshFace newFace = TriangleMeshFace.fromOrdered(Vertex.from(-3, -3, 0), Vertex.from(-2, -3, 0),
+            Vertex.from(-2, -2, 0));
+      TriangleMeshFace existing = mesh.getChunks().get(mesh.getChunks().size() - 1).getFaces().iterator().next();
+      try {
+         mesh.addFaces(Arrays.asList(newFace, existing));
+         Assert.fail();
+      } catch (IllegalArgumentException e) {
+         Assert.assertTrue(mesh.takeDirtyChunks().isEmpty());
+         int faceCount = 0;
+         for (ChunkedMesh.Chunk chunk : mesh.getChunks()) {
+            Assert.assertFalse(chunk.getFaces().contains(newFace));
+            faceCount += chunk.getMesh().getFaces().size() / 6;
+         }
+         Assert.assertEquals(faces.size(), faceCount);
+      }
+   }
+
+   private static Vertex vertexAt(Set<TriangleMeshFace> faces, double x, double y) {
+      for (TriangleMeshFace face : faces) {
+         for (Vertex vertex : face.getVertices()) {
+            if (vertex.getX() == x && vertex.getY() == y)
+               return vertex;
+         }
+      }
+      throw new AssertionError();
+   }
+}
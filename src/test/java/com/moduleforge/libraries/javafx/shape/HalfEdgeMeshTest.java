@@ -0,0 +1,104 @@
+package com.moduleforge.libraries.javafx.shape;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class HalfEdgeMeshTest {
+
+   @Test
+   public void testFrom_ClosedTorus() {
+      HalfEdgeMesh mesh = HalfEdgeMesh.from(MeshDecimatorTest.torus(12, 8));
+
+      Assert.assertTrue(mesh.isClosed());
+      Assert.assertEquals(0, mesh.boundaryHalfEdges().length);
+      for (int h = 0; h < mesh.getHalfEdgeCount(); h++) {
+         int twin = mesh.twin(h);
+         Assert.assertEquals(h, mesh.twin(twin));
+         Assert.assertEquals(mesh.origin(h), mesh.target(twin));
+         Assert.assertEquals(mesh.target(h), mesh.origin(twin));
+      }
+      // every vertex of the torus grid is in six faces, with six neighbours
+      for (int v = 0; v < mesh.getVertexCount(); v++) {
+         Assert.assertEquals(6, mesh.facesAround(v).length);
+         Assert.assertEquals(6, distinct(mesh.verticesAround(v)));
+      }
+   }
+
+   @Test
+   public void testFrom_GridBoundary() {
+      TriangleMeshFacade facade = TriangleMeshFacade.from(TriangleMeshFacadeTest.makeGrid(4));
+      HalfEdgeMesh mesh = facade.getHalfEdgeMesh();
+
+      Assert.assertFalse(mesh.isClosed());
+      Assert.assertTrue(mesh.isManifold());
+      Assert.assertEquals(16, mesh.boundaryHalfEdges().length);
+      for (int h : mesh.boundaryHalfEdges()) {
+         Assert.assertEquals(HalfEdgeMesh.BOUNDARY, mesh.twin(h));
+      }
+      int faceCorners = 0;
+      for (int v = 0; v < mesh.getVertexCount(); v++) {
+         int[] faces = mesh.facesAround(v);
+         int[] vertices = mesh.verticesAround(v);
+         // a fan on the boundary has one more neighbour than faces
+         boolean boundary = mesh.isBoundary(mesh.outgoing(v));
+         Assert.assertEquals(faces.length + (boundary ? 1 : 0), vertices.length);
+         Assert.assertEquals(vertices.length, distinct(vertices));
+         if (!boundary)
+            Assert.assertEquals(6, faces.length);
+         faceCorners += faces.length;
+      }
+      // the fans around the vertices cover every corner of every face
+      Assert.assertEquals(mesh.getHalfEdgeCount(), faceCorners);
+   }
+
+   @Test
+   public void testFrom_NonManifoldEdge() {
+      // three triangles on the edge 0 1
+      int[] faces = { 0, 1, 2, 1, 0, 3, 0, 1, 4 };
+      HalfEdgeMesh mesh = HalfEdgeMesh.from(faces, 3, 5);
+
+      Assert.assertFalse(mesh.isManifold());
+      Assert.assertEquals(3, mesh.nonManifoldHalfEdges().length);
+      Assert.assertEquals(-1, mesh.adjacentFace(0, 0));
+      Assert.assertEquals(HalfEdgeMesh.NON_MANIFOLD, mesh.twin(3));
+      Assert.assertEquals(6, mesh.boundaryHalfEdges().length);
+   }
+
+   @Test
+   public void testFacade_AdjacentFacesFollowChanges() {
+      Set<TriangleMeshFace> faces = TriangleMeshFacadeTest.makeGrid(3);
+      TriangleMeshFacade facade = TriangleMeshFacade.from(faces);
+
+      for (TriangleMeshFace face : faces) {
+         List<TriangleMeshFace> adjacent = facade.getAdjacentFaces(face);
+         Assert.assertTrue(adjacent.size() >= 1 && adjacent.size() <= 3);
+         for (TriangleMeshFace other : adjacent) {
+            Set<Vertex> shared = new HashSet<>(face.getVertices());
+            shared.retainAll(other.getVertices());
+            Assert.assertEquals(2, shared.size());
+         }
+      }
+      TriangleMeshFace removed = faces.iterator().next();
+      List<TriangleMeshFace> neighbours = facade.getAdjacentFaces(removed);
+      facade.removeFaces(Collections.singleton(removed));
+      for (TriangleMeshFace neighbour : neighbours) {
+         Assert.assertFalse(facade.getAdjacentFaces(neighbour).contains(removed));
+      }
+      Vertex vertex = neighbours.get(0).getVertices().iterator().next();
+      for (TriangleMeshFace face : facade.getFacesAround(vertex)) {
+         Assert.assertTrue(face.getVertices().contains(vertex));
+      }
+   }
+
+   private static int distinct(int[] values) {
+      Set<Integer> set = new HashSet<>();
+      for (int value : values)
+         set.add(value);
+      return set.size();
+   }
+}
@@ -0,0 +1,47 @@
+package com.moduleforge.libraries.javafx.shape;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LongIntHashMapTest {
+
+   @Test
+   public void testPutAndGet_ManyKeysIncludingZero() {
+      LongIntHashMap map = new LongIntHashMap();
+      for (int i = 0; i < 10000; i++) {
+         map.put(i * 31L - 5000, i);
+      }
+      Assert.assertEquals(10000, map.size());
+      for (int i = 0; i < 10000; i++) {
+         Assert.assertEquals(i, map.get(i * 31L - 5000, -1));
+      }
+      Assert.assertEquals(-1, map.get(1, -1));
+      Assert.assertFalse(map.containsKey(1));
+   }
+
+   @Test
+   public void testPutIfAbsent_KeepsFirstValue() {
+      LongIntHashMap map = new LongIntHashMap(1);
+      Assert.assertEquals(7, map.putIfAbsent(0, 7));
+      Assert.assertEquals(7, map.putIfAbsent(0, 8));
+      Assert.assertEquals(3, map.putIfAbsent(Long.MIN_VALUE, 3));
+      Assert.assertEquals(3, map.putIfAbsent(Long.MIN_VALUE, 4));
+      Assert.assertEquals(2, map.size());
+   }
+
+   @Test
+   public void testRemove_RemainingKeysStillFound() {
+      LongIntHashMap map = new LongIntHashMap();
+      for (int i = 0; i < 2000; i++) {
+         map.put(i, i);
+      }
+      for (int i = 0; i < 2000; i += 3) {
+         Assert.assertEquals(i, map.remove(i, -1));
+      }
+      Assert.assertEquals(-1, map.remove(3, -1));
+      for (int i = 0; i < 2000; i++) {
+         Assert.assertEquals(i % 3 == 0 ? -1 : i, map.get(i, -1));
+      }
+      Assert.assertEquals(2000 - 667, map.size());
+   }
+}
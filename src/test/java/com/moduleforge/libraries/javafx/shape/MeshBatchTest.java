@@ -0,0 +1,132 @@
+package com.moduleforge.libraries.javafx.shape;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import javafx.geometry.Point3D;
+import javafx.scene.shape.TriangleMesh;
+import javafx.scene.shape.VertexFormat;
+import javafx.scene.transform.Affine;
+import javafx.scene.transform.Rotate;
+import javafx.scene.transform.Scale;
+import javafx.scene.transform.Translate;
+
+public class MeshBatchTest {
+
+   @Test
+   public void testFrom_PartsConcatenatedWithTransforms() {
+      TriangleMeshFacade first = TriangleMeshFacade.from(TriangleMeshFacadeTest.makeGrid(2));
+      TriangleMeshFacade second = TriangleMeshFacade.from(TriangleMeshFacadeTest.makeGrid(3));
+      MeshBatch batch = MeshBatch.from(Arrays.asList(first, second, first),
+            Arrays.asList(null, new Translate(100, 0, 0), new Scale(-1, 1, 1)));
+      TriangleMesh mesh = batch.getMesh();
+
+      Assert.assertEquals(8 + 18 + 8, mesh.getFaces().size() / 6);
+      Assert.assertEquals(8, batch.getFirstFace(1));
+      Assert.assertEquals(18, batch.getFaceCount(1));
+      Assert.assertEquals(0, batch.partOf(7));
+      Assert.assertEquals(1, batch.partOf(8));
+      Assert.assertEquals(2, batch.partOf(33));
+      Assert.assertSame(second.faceAt(3), batch.faceAt(11));
+
+      float[] points = mesh.getPoints().toArray(null);
+      int[] faces = mesh.getFaces().toArray(null);
+      double firstNormalZ = 0;
+      for (int face = 0; face < 34; face++) {
+         int part = batch.partOf(face);
+         Point3D[] corners = new Point3D[3];
+         for (int k = 0; k < 3; k++) {
+            int point = faces[face * 6 + k * 2] * 3;
+            corners[k] = new Point3D(points[point], points[point + 1], points[point + 2]);
+            if (part == 1)
+               Assert.assertTrue(corners[k].getX() >= 100);
+            if (part == 2)
+               Assert.assertTrue(corners[k].getX() <= 0);
+         }
+         // mirrored faces are turned around, so every face of the grids still faces the same way
+         double normalZ = corners[1].subtract(corners[0]).crossProduct(corners[2].subtract(corners[0])).getZ();
+         if (face == 0)
+            firstNormalZ = normalZ;
+         Assert.assertEquals(Math.signum(firstNormalZ), Math.signum(normalZ), 0);
+      }
+   }
+
+   @Test
+   public void testFrom_NormalsStayPerpendicularToRotatedAndShearedFaces() {
+      TriangleMeshFacade part = TriangleMeshFacade.from(TriangleMeshFacadeTest.makeGrid(2),
+            MeshBuildOptions.defaults().flatNormals());
+      MeshBatch batch = MeshBatch.from(Arrays.asList(part, part, part), Arrays.asList(new Rotate(90, Rotate.Y_AXIS),
+            new Rotate(30, new Point3D(1, 1, 0)), new Affine(1, 0, 1, 0, 0, 1, 2, 0, 0, 0, 1, 0)));
+      TriangleMesh mesh = batch.getMesh();
+      Assert.assertSame(VertexFormat.POINT_NORMAL_TEXCOORD, mesh.getVertexFormat());
+
+      float[] points = mesh.getPoints().toArray(null);
+      float[] normals = mesh.getNormals().toArray(null);
+      int[] faces = mesh.getFaces().toArray(null);
+      for (int face = 0; face < faces.length / 9; face++) {
+         Point3D[] corners = new Point3D[3];
+         for (int k = 0; k < 3; k++) {
+            int point = faces[face * 9 + k * 3] * 3;
+            corners[k] = new Point3D(points[point], points[point + 1], points[point + 2]);
+         }
+         Point3D expected = corners[1].subtract(corners[0]).crossProduct(corners[2].subtract(corners[0])).normalize();
+         for (int k = 0; k < 3; k++) {
+            int normal = faces[face * 9 + k * 3 + 1] * 3;
+            Point3D actual = new Point3D(normals[normal], normals[normal + 1], normals[normal + 2]);
+            Assert.assertEquals(1, expected.dotProduct(actual), 1e-5);
+         }
+      }
+   }
+
+   @Test
+   public void testUpdatePart_CopiesOnlyThatPart() {
+      TriangleMeshFacade first = TriangleMeshFacade.from(TriangleMeshFacadeTest.makeGrid(2));
+      TriangleMeshFacade second = TriangleMeshFacade.from(TriangleMeshFacadeTest.makeGrid(2));
+      MeshBatch batch = MeshBatch.from(Arrays.asList(first, second));
+      float[] before = batch.getMesh().getPoints().toArray(null);
+
+      Vertex corner = null;
+      for (Vertex vertex : second.getVertices()) {
+         if (vertex.getX() == 2 && vertex.getY() == 2)
+            corner = vertex;
+      }
+      second.moveVertex(corner, new Point3D(2, 2, 7));
+      batch.updatePart(1);
+      float[] after = batch.getMesh().getPoints().toArray(null);
+      Assert.assertArrayEquals(Arrays.copyOf(before, 27), Arrays.copyOf(after, 27), 0);
+      Assert.assertEquals(7, max(after, 27 + 2), 0);
+
+      batch.setTransform(1, new Translate(0, 0, 1));
+      Assert.assertEquals(8, max(batch.getMesh().getPoints().toArray(null), 27 + 2), 0);
+
+      second.removeFaces(Collections.singleton(second.faceAt(0)));
+      try {
+         batch.updatePart(1);
+         Assert.fail();
+      } catch (IllegalStateException e) {
+         // the batch must be built again
+      }
+   }
+
+   @Test
+   public void testUpdatePart_FacesOfAMirroredPartCopiedAgain() {
+      TriangleMeshFacade part = TriangleMeshFacade.from(TriangleMeshFacadeTest.makeGrid(2));
+      MeshBatch batch = MeshBatch.from(Arrays.asList(part), Arrays.asList(new Scale(1, 1, -1)));
+
+      // mirrored twice, once in the facade and once in the batch, the faces are as they were before
+      int[] faces = part.toTriangleMesh().getFaces().toArray(null);
+      part.bakeTransform(new Scale(1, 1, -1));
+      batch.updatePart(0);
+      Assert.assertArrayEquals(faces, batch.getMesh().getFaces().toArray(null));
+   }
+
+   private static float max(float[] values, int from) {
+      float max = Float.NEGATIVE_INFINITY;
+      for (int i = from; i < values.length; i += 3)
+         max = Math.max(max, values[i]);
+      return max;
+   }
+}
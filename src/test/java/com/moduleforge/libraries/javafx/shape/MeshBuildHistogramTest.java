@@ -0,0 +1,29 @@
+package com.moduleforge.libraries.javafx.shape;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class MeshBuildHistogramTest {
+
+   @Test
+   public void testPercentiles_WithinOneEighth() {
+      MeshBuildHistogram histogram = MeshBuildHistogram.create();
+      for (int i = 1; i <= 1000; i++) {
+         histogram.phaseCompleted(MeshBuildPhase.FACES, i * 1000L, 10, 60, -1);
+      }
+      Assert.assertEquals(1000, histogram.getCount(MeshBuildPhase.FACES));
+      Assert.assertEquals(10000, histogram.getElementCount(MeshBuildPhase.FACES));
+      Assert.assertEquals(60000, histogram.getArraySize(MeshBuildPhase.FACES));
+      Assert.assertEquals(0, histogram.getAllocatedBytes(MeshBuildPhase.FACES));
+      Assert.assertEquals(1_000_000, histogram.getMaxNanos(MeshBuildPhase.FACES));
+      Assert.assertEquals(500_500, histogram.getMeanNanos(MeshBuildPhase.FACES), 1e-6);
+      long median = histogram.getNanosAtPercentile(MeshBuildPhase.FACES, 50);
+      Assert.assertTrue(median >= 500_000 && median <= 500_000 * 9 / 8);
+      long p99 = histogram.getNanosAtPercentile(MeshBuildPhase.FACES, 99);
+      Assert.assertTrue(p99 >= 990_000 && p99 <= 1_000_000);
+      Assert.assertEquals(0, histogram.getNanosAtPercentile(MeshBuildPhase.UPLOAD, 50));
+
+      histogram.reset();
+      Assert.assertEquals(0, histogram.getCount(MeshBuildPhase.FACES));
+   }
+}
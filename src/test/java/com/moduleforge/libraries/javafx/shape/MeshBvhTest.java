@@ -0,0 +1,103 @@
+package com.moduleforge.libraries.javafx.shape;
+
+import java.util.Collections;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import javafx.geometry.Point3D;
+
+public class MeshBvhTest {
+
+   @Test
+   public void testIntersect_SameAsTestingEveryFace() {
+      TriangleMeshFacade facade = TriangleMeshFacade.from(TriangleMeshFacadeTest.makeGrid(20));
+      MeshBvh bvh = MeshBvh.from(facade);
+      Random random = new Random(7);
+
+      Assert.assertTrue(bvh.getDepth() < 20);
+      for (int i = 0; i < 200; i++) {
+         Point3D origin = new Point3D(random.nextDouble() * 24 - 2, random.nextDouble() * 24 - 2, 5);
+         Point3D direction = new Point3D(random.nextDouble() - 0.5, random.nextDouble() - 0.5, -1);
+         MeshBvh.Hit hit = bvh.intersect(origin, direction);
+         // the grid is the plane z = 0 from 0 to 20
+         double t = 5 / direction.normalize().getZ() * -1;
+         Point3D expected = origin.add(direction.normalize().multiply(t));
+         boolean inside = expected.getX() >= 0 && expected.getX() <= 20 && expected.getY() >= 0 && expected.getY() <= 20;
+         if (!inside) {
+            Assert.assertNull(hit);
+            continue;
+         }
+         Assert.assertEquals(t, hit.getDistance(), 1e-9);
+         Assert.assertEquals(0, expected.distance(hit.getPoint()), 1e-9);
+         Assert.assertTrue(contains(hit.getFace(), hit.getPoint()));
+      }
+      Assert.assertNull(bvh.intersect(new Point3D(5, 5, 5), new Point3D(0, 0, 1)));
+      Assert.assertNull(bvh.intersect(new Point3D(5, 5, 5), new Point3D(0, 0, -1), 4));
+   }
+
+   @Test
+   public void testClosestPoint_ParallelBuildAndRefit() {
+      TriangleMeshFacade facade = TriangleMeshFacade.from(TriangleMeshFacadeTest.makeGrid(30));
+      ForkJoinPool pool = new ForkJoinPool(4);
+      try {
+         MeshBvh bvh = MeshBvh.from(facade, MeshBuildOptions.defaults().parallel(pool, 64));
+         Assert.assertTrue(bvh.getNodeCount() > 1 && bvh.getNodeCount() <= 2 * 1800 - 1);
+
+         MeshBvh.Hit above = bvh.closestPoint(new Point3D(3.3, 4.6, 2));
+         Assert.assertEquals(2, above.getDistance(), 1e-9);
+         Assert.assertEquals(0, new Point3D(3.3, 4.6, 0).distance(above.getPoint()), 1e-9);
+         MeshBvh.Hit outside = bvh.closestPoint(new Point3D(-3, 10, 4));
+         Assert.assertEquals(5, outside.getDistance(), 1e-9);
+         Assert.assertNull(bvh.closestPoint(new Point3D(-3, 10, 4), 4.9));
+
+         // raise a vertex in the middle, the boxes follow it
+         Vertex center = null;
+         for (Vertex vertex : facade.getVertices()) {
+            if (vertex.getX() == 15 && vertex.getY() == 15)
+               center = vertex;
+         }
+         facade.moveVertex(center, new Point3D(15, 15, 3));
+         Assert.assertNull(bvh.intersect(new Point3D(15, 15, 2.5), new Point3D(0, 0, 1)));
+         bvh.refit();
+         MeshBvh.Hit peak = bvh.intersect(new Point3D(15, 15, 2.5), new Point3D(0, 0, 1));
+         Assert.assertEquals(0.5, peak.getDistance(), 1e-9);
+         Assert.assertTrue(peak.getFace().getVertices().stream().anyMatch(v -> v.getZ() == 3));
+         Assert.assertEquals(0.5, bvh.closestPoint(new Point3D(15, 15, 3.5)).getDistance(), 1e-9);
+      } finally {
+         pool.shutdown();
+      }
+   }
+
+   @Test
+   public void testRefit_FacesReplacedByAsManyRejected() {
+      TriangleMeshFacade facade = TriangleMeshFacade.from(TriangleMeshFacadeTest.makeGrid(4));
+      MeshBvh bvh = MeshBvh.from(facade);
+
+      TriangleMeshFace removed = facade.faceAt(0);
+      facade.removeFaces(Collections.singleton(removed));
+      facade.addFaces(Collections.singleton(TriangleMeshFace.fromOrdered(Vertex.from(10, 0, 0),
+            Vertex.from(11, 0, 0), Vertex.from(11, 1, 0))));
+      Assert.assertEquals(32, facade.getFaces().size());
+      try {
+         bvh.refit();
+         Assert.fail();
+      } catch (IllegalStateException e) {
+         // a new hierarchy must be built
+      }
+   }
+
+   private static boolean contains(TriangleMeshFace face, Point3D point) {
+      double minX = Double.MAX_VALUE, maxX = -Double.MAX_VALUE, minY = Double.MAX_VALUE, maxY = -Double.MAX_VALUE;
+      for (Vertex vertex : face.getVertices()) {
+         minX = Math.min(minX, vertex.getX());
+         maxX = Math.max(maxX, vertex.getX());
+         minY = Math.min(minY, vertex.getY());
+         maxY = Math.max(maxY, vertex.getY());
+      }
+      return point.getX() >= minX - 1e-9 && point.getX() <= maxX + 1e-9 && point.getY() >= minY - 1e-9
+            && point.getY() <= maxY + 1e-9;
+   }
+}
@@ -0,0 +1,60 @@
+package com.moduleforge.libraries.javafx.shape;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import javafx.scene.shape.TriangleMesh;
+
+public class MeshCacheTest {
+
+   @Test
+   public void testShare_SameContentSameMesh() {
+      MeshCache cache = MeshCache.create(1 << 20);
+      TriangleMesh first = TriangleMeshFacade.from(TriangleMeshFacadeTest.makeGrid(4)).toTriangleMesh();
+      TriangleMesh copy = copyOf(first);
+      TriangleMesh other = TriangleMeshFacade.from(TriangleMeshFacadeTest.makeGrid(5)).toTriangleMesh();
+
+      Assert.assertSame(first, cache.share(first));
+      Assert.assertSame(first, cache.share(copy));
+      Assert.assertSame(other, cache.share(other));
+      Assert.assertEquals(1, cache.getHitCount());
+      Assert.assertEquals(2, cache.getMissCount());
+      Assert.assertEquals(MeshCache.bytesOf(first) + MeshCache.bytesOf(other), cache.getWeight());
+
+      copy.getPoints().set(0, 100);
+      Assert.assertSame(copy, cache.share(copy));
+   }
+
+   @Test
+   public void testGet_EvictedMeshFoundWhileInUse() {
+      MeshCache cache = MeshCache.create(1, mesh -> 1);
+      int[] loads = new int[1];
+      TriangleMesh bolt = cache.get("bolt", () -> {
+         loads[0]++;
+         return new TriangleMesh();
+      });
+      Assert.assertSame(bolt, cache.get("bolt", () -> {
+         throw new AssertionError();
+      }));
+
+      cache.get("panel", TriangleMesh::new);
+      Assert.assertEquals(1, cache.getEvictionCount());
+      Assert.assertEquals(1, cache.getWeight());
+      // no longer held by the cache, but still in use here
+      Assert.assertSame(bolt, cache.get("bolt", TriangleMesh::new));
+      Assert.assertEquals(1, loads[0]);
+      Assert.assertEquals(2, cache.getHitCount());
+
+      cache.invalidate("bolt");
+      Assert.assertNotSame(bolt, cache.get("bolt", TriangleMesh::new));
+   }
+
+   private static TriangleMesh copyOf(TriangleMesh mesh) {
+      TriangleMesh copy = new TriangleMesh(mesh.getVertexFormat());
+      copy.getPoints().setAll(mesh.getPoints().toArray(null));
+      copy.getTexCoords().setAll(mesh.getTexCoords().toArray(null));
+      copy.getFaces().setAll(mesh.getFaces().toArray(null));
+      copy.getFaceSmoothingGroups().setAll(mesh.getFaceSmoothingGroups().toArray(null));
+      return copy;
+   }
+}
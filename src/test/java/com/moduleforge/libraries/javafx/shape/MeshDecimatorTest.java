@@ -0,0 +1,133 @@
+package com.moduleforge.libraries.javafx.shape;
+
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import javafx.scene.PerspectiveCamera;
+import javafx.scene.shape.MeshView;
+import javafx.scene.shape.TriangleMesh;
+
+public class MeshDecimatorTest {
+
+   @Test
+   public void testLodChain_ClosedMeshStaysClosed() {
+      TriangleMesh torus = torus(40, 20);
+      List<TriangleMesh> chain = MeshDecimator.lodChain(torus, 0.5, 0.1);
+
+      Assert.assertEquals(2, chain.size());
+      Assert.assertEquals(800, faceCount(chain.get(0)));
+      Assert.assertEquals(160, faceCount(chain.get(1)));
+      for (TriangleMesh level : chain) {
+         // every edge of a closed manifold mesh is in two faces, once in each direction
+         LongIntHashMap directedEdges = new LongIntHashMap();
+         int[] faces = level.getFaces().toArray(null);
+         for (int f = 0; f < faces.length; f += 6) {
+            for (int k = 0; k < 3; k++) {
+               long edge = ((long) faces[f + k * 2] << 32) | faces[f + ((k + 1) % 3) * 2];
+               Assert.assertFalse(directedEdges.containsKey(edge));
+               directedEdges.put(edge, f);
+            }
+         }
+         for (int f = 0; f < faces.length; f += 6) {
+            for (int k = 0; k < 3; k++) {
+               long reversed = ((long) faces[f + ((k + 1) % 3) * 2] << 32) | faces[f + k * 2];
+               Assert.assertTrue(directedEdges.containsKey(reversed));
+            }
+         }
+      }
+   }
+
+   @Test
+   public void testDecimate_FlatGridKeepsBoundaryAndTexture() {
+      int size = 10;
+      TriangleMeshBuilder builder = TriangleMeshBuilder.create();
+      for (int i = 0; i <= size; i++) {
+         for (int j = 0; j <= size; j++) {
+            builder.addVertex(i, j, 0);
+            builder.addTexCoord(i / (float) size, j / (float) size);
+         }
+      }
+      for (int i = 0; i < size; i++) {
+         for (int j = 0; j < size; j++) {
+            int a = i * (size + 1) + j, b = a + size + 1, c = b + 1, d = a + 1;
+            builder.addFace(a, a + 1, b, b + 1, c, c + 1);
+            builder.addFace(a, a + 1, c, c + 1, d, d + 1);
+         }
+      }
+      TriangleMesh decimated = MeshDecimator.decimate(builder.toTriangleMesh(), 0.2);
+
+      Assert.assertTrue(faceCount(decimated) < 200);
+      float[] points = decimated.getPoints().toArray(null);
+      float[] texCoords = decimated.getTexCoords().toArray(null);
+      int[] faces = decimated.getFaces().toArray(null);
+      int boundaryPoints = 0;
+      double area = 0;
+      for (int p = 0; p < points.length; p += 3) {
+         if (points[p] == 0 || points[p] == size || points[p + 1] == 0 || points[p + 1] == size)
+            boundaryPoints++;
+      }
+      for (int f = 0; f < faces.length; f += 6) {
+         for (int k = 0; k < 3; k++) {
+            // the texture vertex still matches the position
+            Assert.assertEquals(points[faces[f + k * 2] * 3] / size, texCoords[faces[f + k * 2 + 1] * 2], 1e-6);
+         }
+         int a = faces[f] * 3, b = faces[f + 2] * 3, c = faces[f + 4] * 3;
+         double cross = (points[b] - points[a]) * (points[c + 1] - points[a + 1])
+               - (points[b + 1] - points[a + 1]) * (points[c] - points[a]);
+         Assert.assertTrue(cross > 0);
+         area += cross / 2;
+      }
+      Assert.assertEquals(4 * size, boundaryPoints);
+      Assert.assertEquals(size * size, area, 1e-6);
+   }
+
+   @Test
+   public void testLodSelector_PicksLevelBySizeOnScreen() {
+      List<TriangleMesh> chain = MeshDecimator.lodChain(torus(40, 20), 1, 0.5, 0.1);
+      LodSelector selector = LodSelector.from(chain, 200, 50);
+      MeshView view = new MeshView();
+      PerspectiveCamera camera = new PerspectiveCamera(true);
+
+      view.setTranslateZ(10);
+      Assert.assertTrue(selector.update(view, camera, 1000));
+      Assert.assertSame(chain.get(0), view.getMesh());
+      Assert.assertFalse(selector.update(view, camera, 1000));
+
+      view.setTranslateZ(1000);
+      selector.update(view, camera, 1000);
+      Assert.assertSame(chain.get(2), view.getMesh());
+      Assert.assertSame(chain.get(1), selector.select(100));
+   }
+
+   private static int faceCount(TriangleMesh mesh) {
+      return mesh.getFaces().size() / mesh.getFaceElementSize();
+   }
+
+   /*
+    * rings x segments quads, two triangles each, closed in both directions
+    */
+   static TriangleMesh torus(int rings, int segments) {
+      TriangleMeshBuilder builder = TriangleMeshBuilder.create();
+      for (int i = 0; i < rings; i++) {
+         double theta = 2 * Math.PI * i / rings;
+         for (int j = 0; j < segments; j++) {
+            double phi = 2 * Math.PI * j / segments;
+            double r = 3 + Math.cos(phi);
+            builder.addVertex((float) (r * Math.cos(theta)), (float) (r * Math.sin(theta)), (float) Math.sin(phi));
+         }
+      }
+      for (int i = 0; i < rings; i++) {
+         for (int j = 0; j < segments; j++) {
+            int a = i * segments + j;
+            int b = ((i + 1) % rings) * segments + j;
+            int c = ((i + 1) % rings) * segments + (j + 1) % segments;
+            int d = i * segments + (j + 1) % segments;
+            builder.addFace(a, b, c);
+            builder.addFace(a, c, d);
+         }
+      }
+      return builder.toTriangleMesh();
+   }
+}
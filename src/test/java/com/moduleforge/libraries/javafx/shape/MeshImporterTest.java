@@ -0,0 +1,86 @@
+package com.moduleforge.libraries.javafx.shape;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import javafx.scene.shape.TriangleMesh;
+
+public class MeshImporterTest {
+
+   @Test
+   public void testObj_QuadTextureAndRelativeIndices() throws IOException {
+      String obj = "# a square and a triangle\r\n"
+            + "v 0 0 0\r\n"
+            + "v 1.0 0 0\r\n"
+            + "v 1 1 0\r\n"
+            + "v 0 1e0 0\r\n"
+            + "v -2.5E-1 0.5 0\n"
+            + "vt 0 0\n"
+            + "vt 1 1\n"
+            + "vn 0 0 1\n"
+            + "s 2\n"
+            + "f 1/1/1 2/2/1 3//1 4\n"
+            + "s off\n"
+            + "f -1 -5/-2 -2\n";
+
+      TriangleMesh mesh = ObjImporter.read(channelOf(obj.getBytes(StandardCharsets.US_ASCII)));
+
+      float[] expectedPoints = { 0, 0, 0, 1, 0, 0, 1, 1, 0, 0, 1, 0, -0.25f, 0.5f, 0 };
+      Assert.assertArrayEquals(expectedPoints, mesh.getPoints().toArray(null), 0);
+      // the default texture vertex first, then those of the file with v flipped
+      float[] expectedTexCoords = { 0, 0, 0, 1, 1, 0 };
+      Assert.assertArrayEquals(expectedTexCoords, mesh.getTexCoords().toArray(null), 0);
+      int[] expectedFaces = { 0, 1, 1, 2, 2, 0, 0, 1, 2, 0, 3, 0, 4, 0, 0, 1, 3, 0 };
+      Assert.assertArrayEquals(expectedFaces, mesh.getFaces().toArray(null));
+      int[] expectedSmoothingGroups = { 2, 2, 0 };
+      Assert.assertArrayEquals(expectedSmoothingGroups, mesh.getFaceSmoothingGroups().toArray(null));
+   }
+
+   @Test
+   public void testObj_UnknownVertexReportsLine() {
+      String obj = "v 0 0 0\nv 1 0 0\nv 0 1 0\nf 1 2 4\n";
+      try {
+         ObjImporter.read(channelOf(obj.getBytes(StandardCharsets.US_ASCII)));
+         Assert.fail();
+      } catch (IOException e) {
+         Assert.assertTrue(e.getMessage().contains("line 4"));
+      }
+   }
+
+   @Test
+   public void testStl_SharedVerticesMergedAndDegenerateFacesLeftOut() throws IOException {
+      float[][] triangles = {
+            { 0, 0, 0, 1, 0, 0, 1, 1, 0 },
+            { 0, 0, 0, 1, 1, 0, -0f, 1, 0 },
+            { 1, 0, 0, 1, 0, 0, 0, 1, 0 } };
+      ByteBuffer stl = ByteBuffer.allocate(84 + triangles.length * 50).order(ByteOrder.LITTLE_ENDIAN);
+      stl.position(80);
+      stl.putInt(triangles.length);
+      for (float[] triangle : triangles) {
+         stl.putFloat(0).putFloat(0).putFloat(1);
+         for (float coordinate : triangle) {
+            stl.putFloat(coordinate);
+         }
+         stl.putShort((short) 0);
+      }
+
+      TriangleMesh mesh = StlImporter.read(channelOf(stl.array()));
+
+      float[] expectedPoints = { 0, 0, 0, 1, 0, 0, 1, 1, 0, 0, 1, 0 };
+      Assert.assertArrayEquals(expectedPoints, mesh.getPoints().toArray(null), 0);
+      int[] expectedFaces = { 0, 0, 1, 0, 2, 0, 0, 0, 2, 0, 3, 0 };
+      Assert.assertArrayEquals(expectedFaces, mesh.getFaces().toArray(null));
+   }
+
+   private static ReadableByteChannel channelOf(byte[] bytes) {
+      return Channels.newChannel(new ByteArrayInputStream(bytes));
+   }
+}
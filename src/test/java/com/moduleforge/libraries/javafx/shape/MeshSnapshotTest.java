@@ -0,0 +1,101 @@
+package com.moduleforge.libraries.javafx.shape;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import javafx.scene.shape.TriangleMesh;
+import javafx.scene.shape.VertexFormat;
+
+public class MeshSnapshotTest {
+
+   @Test
+   public void testReadWrite_SameArraysWithNormals() throws IOException {
+      TriangleMesh mesh = square();
+      mesh.setVertexFormat(VertexFormat.POINT_NORMAL_TEXCOORD);
+      mesh.getNormals().setAll(0, 0, 1);
+      mesh.getFaces().setAll(0, 0, 0, 1, 0, 0, 2, 0, 1, 0, 0, 0, 2, 0, 1, 3, 0, 0);
+      Path file = Files.createTempFile("mesh", ".snapshot");
+      try {
+         MeshSnapshot.write(mesh, file);
+         TriangleMesh buffered = new TriangleMesh();
+         MeshSnapshot.readBuffered(file, buffered);
+
+         for (TriangleMesh loaded : new TriangleMesh[] { MeshSnapshot.read(file), buffered }) {
+            Assert.assertEquals(VertexFormat.POINT_NORMAL_TEXCOORD, loaded.getVertexFormat());
+            Assert.assertArrayEquals(mesh.getPoints().toArray(null), loaded.getPoints().toArray(null), 0);
+            Assert.assertArrayEquals(mesh.getNormals().toArray(null), loaded.getNormals().toArray(null), 0);
+            Assert.assertArrayEquals(mesh.getTexCoords().toArray(null), loaded.getTexCoords().toArray(null), 0);
+            Assert.assertArrayEquals(mesh.getFaces().toArray(null), loaded.getFaces().toArray(null));
+            Assert.assertArrayEquals(mesh.getFaceSmoothingGroups().toArray(null),
+                  loaded.getFaceSmoothingGroups().toArray(null));
+         }
+      } finally {
+         Files.delete(file);
+      }
+   }
+
+   @Test
+   public void testRead_CorruptFileRejectedAndMeshUnchanged() throws IOException {
+      Path file = Files.createTempFile("mesh", ".snapshot");
+      try {
+         MeshSnapshot.write(square(), file);
+         byte[] bytes = Files.readAllBytes(file);
+         bytes[MeshSnapshot.HEADER_SIZE + 5] ^= 1;
+         Files.write(file, bytes);
+         TriangleMesh mesh = new TriangleMesh();
+         mesh.getPoints().setAll(7, 7, 7);
+         try {
+            MeshSnapshot.read(file, mesh);
+            Assert.fail();
+         } catch (IOException e) {
+            Assert.assertArrayEquals(new float[] { 7, 7, 7 }, mesh.getPoints().toArray(null), 0);
+         }
+         try {
+            MeshSnapshot.readBuffered(file, mesh);
+            Assert.fail();
+         } catch (IOException e) {
+            Assert.assertArrayEquals(new float[] { 7, 7, 7 }, mesh.getPoints().toArray(null), 0);
+         }
+      } finally {
+         Files.delete(file);
+      }
+   }
+
+   @Test
+   public void testRead_FaceOutsideOfThePointsRejectedAndMeshUnchanged() throws IOException {
+      Path file = Files.createTempFile("mesh", ".snapshot");
+      try {
+         TriangleMesh written = square();
+         written.getFaces().set(0, 99);
+         MeshSnapshot.write(written, file);
+         TriangleMesh mesh = new TriangleMesh();
+         mesh.getPoints().setAll(7, 7, 7);
+         try {
+            MeshSnapshot.read(file, mesh);
+            Assert.fail();
+         } catch (IOException e) {
+            Assert.assertArrayEquals(new float[] { 7, 7, 7 }, mesh.getPoints().toArray(null), 0);
+            Assert.assertEquals(0, mesh.getFaces().size());
+         }
+      } finally {
+         Files.delete(file);
+      }
+   }
+
+   private static TriangleMesh square() {
+      TriangleMeshBuilder builder = TriangleMeshBuilder.create();
+      int a = builder.addVertex(0, 0, 0);
+      int b = builder.addVertex(1, 0, 0);
+      int c = builder.addVertex(1, 1, 0);
+      int d = builder.addVertex(0, 1, 0);
+      int textureC = builder.addTexCoord(1, 1);
+      builder.addFace(a, b, c);
+      builder.addFace(a, 0, c, textureC, d, 0);
+      builder.setFaceSmoothingGroup(1, 4);
+      return builder.toTriangleMesh();
+   }
+}
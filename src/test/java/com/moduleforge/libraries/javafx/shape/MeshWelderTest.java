@@ -0,0 +1,65 @@
+package com.moduleforge.libraries.javafx.shape;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class MeshWelderTest {
+
+   @Test
+   public void testWeld_SharedEdgeCreatedTwice() {
+      TriangleMeshFace first = TriangleMeshFace.fromOrdered(Vertex.from(0, 0, 0), Vertex.from(1, 0, 0),
+            Vertex.from(1, 1, 0));
+      TriangleMeshFace second = TriangleMeshFace.fromOrdered(Vertex.from(0, 0, 0), Vertex.from(1, 1, 1e-9),
+            Vertex.from(0, 1, 0));
+
+      MeshWelder.Result result = MeshWelder.withDefaultEpsilon().weld(Arrays.asList(first, second));
+
+      Assert.assertEquals(4, result.getVertices().size());
+      Assert.assertEquals(2, result.getMergedVertexCount());
+      Assert.assertEquals(2, result.getFaces().size());
+      Assert.assertTrue(result.getFaces().contains(first));
+      Assert.assertTrue(result.getDegenerateFaces().isEmpty());
+      for (TriangleMeshFace face : result.getFaces()) {
+         Assert.assertTrue(result.getVertices().containsAll(face.getVerticesWithCreationOrdering()));
+      }
+   }
+
+   @Test
+   public void testWeld_CollapsedFacesAreDegenerate() {
+      TriangleMeshFace collapsed = TriangleMeshFace.fromOrdered(Vertex.from(0, 0, 0), Vertex.from(0.01, 0, 0),
+            Vertex.from(0, 1, 0));
+      TriangleMeshFace flat = TriangleMeshFace.fromOrdered(Vertex.from(5, 0, 0), Vertex.from(7, 0, 0),
+            Vertex.from(6, 0.001, 0));
+      TriangleMeshFace kept = TriangleMeshFace.fromOrdered(Vertex.from(10, 0, 0), Vertex.from(11, 0, 0),
+            Vertex.from(10, 1, 0));
+
+      MeshWelder.Result result = MeshWelder.withEpsilon(0.1).weld(Arrays.asList(collapsed, flat, kept));
+
+      Assert.assertEquals(Arrays.asList(collapsed, flat), result.getDegenerateFaces());
+      Assert.assertEquals(1, result.getFaces().size());
+   }
+
+   @Test
+   public void testFacade_WeldingSharesPoints() {
+      Set<TriangleMeshFace> faces = new LinkedHashSet<>();
+      for (int i = 0; i < 10; i++) {
+         List<Vertex> strip = new ArrayList<>();
+         strip.add(Vertex.from(i, 0, 0));
+         strip.add(Vertex.from(i + 1, 0, 0));
+         strip.add(Vertex.from(i + 1, 1, 0));
+         faces.add(TriangleMeshFace.fromOrderedTriplet(strip));
+      }
+
+      TriangleMeshFacade facade = TriangleMeshFacade.from(faces, MeshBuildOptions.defaults().welding(1e-6));
+
+      Assert.assertEquals(21, facade.getVertices().size());
+      Assert.assertEquals(21 * 3, facade.toTriangleMesh().getPoints().size());
+      Assert.assertEquals(10, facade.getFaces().size());
+   }
+}
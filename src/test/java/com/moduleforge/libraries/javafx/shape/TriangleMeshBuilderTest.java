@@ -0,0 +1,51 @@
+package com.moduleforge.libraries.javafx.shape;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import javafx.scene.shape.TriangleMesh;
+
+public class TriangleMeshBuilderTest {
+
+   @Test
+   public void testToTriangleMesh_Square() {
+      TriangleMeshBuilder builder = TriangleMeshBuilder.withExpectedSize(4, 2);
+      int a = builder.addVertex(0, 0, 0);
+      int b = builder.addVertex(1, 0, 0);
+      int c = builder.addVertex(1, 1, 0);
+      int d = builder.addVertex(0, 1, 0);
+      int textureC = builder.addTexCoord(1, 1);
+      builder.addFace(a, b, c);
+      builder.addFace(a, 0, c, textureC, d, 0);
+      builder.setFaceSmoothingGroup(1, 2);
+
+      TriangleMesh mesh = builder.toTriangleMesh();
+
+      float[] expectedPoints = { 0, 0, 0, 1, 0, 0, 1, 1, 0, 0, 1, 0 };
+      Assert.assertArrayEquals(expectedPoints, mesh.getPoints().toArray(null), 0);
+      float[] expectedTexCoords = { 0, 0, 1, 1 };
+      Assert.assertArrayEquals(expectedTexCoords, mesh.getTexCoords().toArray(null), 0);
+      int[] expectedFaces = { 0, 0, 1, 0, 2, 0, 0, 0, 2, 1, 3, 0 };
+      Assert.assertArrayEquals(expectedFaces, mesh.getFaces().toArray(null));
+      int[] expectedSmoothingGroups = { 0, 2 };
+      Assert.assertArrayEquals(expectedSmoothingGroups, mesh.getFaceSmoothingGroups().toArray(null));
+   }
+
+   @Test
+   public void testAddVertex_GrowsBeyondExpectedSize() {
+      TriangleMeshBuilder builder = TriangleMeshBuilder.create();
+      for (int i = 0; i < 1000; i++) {
+         Assert.assertEquals(i, builder.addVertex(i, i, i));
+      }
+      Assert.assertEquals(1000, builder.getVertexCount());
+      Assert.assertEquals(999f, builder.toTriangleMesh().getPoints().get(2997), 0);
+   }
+
+   @Test(expected = IllegalArgumentException.class)
+   public void testAddFace_UnknownVertex() {
+      TriangleMeshBuilder builder = TriangleMeshBuilder.create();
+      builder.addVertex(0, 0, 0);
+      builder.addVertex(1, 0, 0);
+      builder.addFace(0, 1, 2);
+   }
+}
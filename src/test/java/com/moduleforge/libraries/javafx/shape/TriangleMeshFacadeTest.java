@@ -0,0 +1,541 @@
+package com.moduleforge.libraries.javafx.shape;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import javafx.geometry.Point2D;
+import javafx.geometry.Point3D;
+import javafx.scene.shape.TriangleMesh;
+import javafx.scene.shape.VertexFormat;
+import javafx.scene.transform.Scale;
+import javafx.scene.transform.Transform;
+import javafx.scene.transform.Translate;
+
+public class TriangleMeshFacadeTest {
+
+   @Test
+   public void testFrom_FacesPointToTheirVerticesAndTextureVertices() {
+      Set<TriangleMeshFace> faces = makeGrid(6);
+      TriangleMeshFacade facade = TriangleMeshFacade.from(faces);
+      TriangleMesh mesh = facade.toTriangleMesh();
+
+      Assert.assertEquals(faces.size() * 6, mesh.getFaces().size());
+      Assert.assertEquals(facade.getVertices().size() * 3, mesh.getPoints().size());
+      assertMeshContainsFaces(mesh, faces);
+   }
+
+   @Test
+   public void testFrom_ParallelBuildSameAsSequential() {
+      Set<TriangleMeshFace> faces = makeGrid(40);
+      Set<Vertex> vertices = new HashSet<>();
+      for (TriangleMeshFace face : faces)
+         vertices.addAll(face.getVertices());
+      ForkJoinPool pool = new ForkJoinPool(4);
+      try {
+         TriangleMesh sequential = TriangleMeshFacade.from(vertices, faces).toTriangleMesh();
+         TriangleMesh parallel = TriangleMeshFacade
+               .from(vertices, faces, MeshBuildOptions.defaults().parallel(pool, 16)).toTriangleMesh();
+         Assert.assertArrayEquals(sequential.getFaces().toArray(null), parallel.getFaces().toArray(null));
+         Assert.assertArrayEquals(sequential.getPoints().toArray(null), parallel.getPoints().toArray(null), 0);
+      } finally {
+         pool.shutdown();
+      }
+   }
+
+   @Test
+   public void testFrom_LocalityOrdering() {
+      Set<TriangleMeshFace> faces = makeGrid(16);
+      TriangleMeshFacade facade = TriangleMeshFacade.from(faces, MeshBuildOptions.defaults().localityOrdering(true));
+      TriangleMesh mesh = facade.toTriangleMesh();
+      assertMeshContainsFaces(mesh, faces);
+
+      // vertices are numbered by first use
+      int[] coordinates = mesh.getFaces().toArray(null);
+      int nextUnused = 0;
+      for (int i = 0; i < coordinates.length; i += 2) {
+         Assert.assertTrue(coordinates[i] <= nextUnused);
+         if (coordinates[i] == nextUnused)
+            nextUnused++;
+      }
+      // the first faces are all in the same corner of the grid
+      for (int i = 0; i < 8 * 6; i += 2) {
+         Assert.assertTrue(mesh.getPoints().get(coordinates[i] * 3) <= 4);
+         Assert.assertTrue(mesh.getPoints().get(coordinates[i] * 3 + 1) <= 4);
+      }
+   }
+
+   @Test
+   public void testChanges_MeshMatchesFaces() {
+      Set<TriangleMeshFace> faces = makeGrid(5);
+      TriangleMeshFacade facade = TriangleMeshFacade.from(faces);
+      TriangleMesh mesh = facade.toTriangleMesh();
+
+      List<TriangleMeshFace> removed = new ArrayList<>(faces).subList(0, 7);
+      facade.removeFaces(removed);
+      Assert.assertEquals(faces.size() - 7, facade.getFaces().size());
+
+      Vertex far = Vertex.from(100, 100, 0);
+      Vertex corner = findVertex(facade, 5, 5);
+      List<Vertex> triangle = list(corner, Vertex.from(100, 0, 0), far);
+      List<Point2D> texture = new ArrayList<>();
+      texture.add(new Point2D(0.5, 0.5));
+      texture.add(new Point2D(0.25, 0.5));
+      texture.add(new Point2D(0.5, 0.25));
+      facade.addFaces(Collections.singleton(TriangleMeshFace.fromOrdered(triangle, texture)));
+
+      Vertex moved = facade.moveVertex(corner, new Point3D(6, 6, 1));
+      Assert.assertTrue(facade.getVertices().contains(moved));
+      Assert.assertFalse(facade.getVertices().contains(corner));
+      facade.updateTexCoord(new Point2D(0.5, 0.25), new Point2D(0.75, 0.75));
+
+      Assert.assertEquals(facade.getFaces().size() * 6, mesh.getFaces().size());
+      Assert.assertEquals(facade.getFaces().size(), mesh.getFaceSmoothingGroups().size());
+      assertMeshContainsFaces(mesh, facade.getFaces());
+   }
+
+   @Test
+   public void testUpdateTexCoord_ReplacementAlreadyInMeshSharesItsSlot() {
+      TriangleMeshFacade facade = TriangleMeshFacade.from(makeGrid(4));
+      TriangleMesh mesh = facade.toTriangleMesh();
+
+      facade.updateTexCoord(new Point2D(0.25, 0.25), new Point2D(0.5, 0.5));
+      assertMeshContainsFaces(mesh, facade.getFaces());
+      // one slot for both, so all of them move together
+      facade.updateTexCoord(new Point2D(0.5, 0.5), new Point2D(0.1, 0.9));
+      assertMeshContainsFaces(mesh, facade.getFaces());
+      for (TriangleMeshFace face : facade.getFaces()) {
+         Assert.assertFalse(face.getTextureVerticesWithCreationOrdering().contains(new Point2D(0.25, 0.25)));
+         Assert.assertFalse(face.getTextureVerticesWithCreationOrdering().contains(new Point2D(0.5, 0.5)));
+      }
+   }
+
+   @Test
+   public void testUpdateTexCoord_TextureVerticesEqualAsFloatsChangeTogether() {
+      Vertex a = Vertex.from(0, 0, 0);
+      Vertex b = Vertex.from(1, 0, 0);
+      Vertex c = Vertex.from(1, 1, 0);
+      Vertex d = Vertex.from(0, 1, 0);
+      List<Point2D> first = new ArrayList<>();
+      first.add(new Point2D(0, 0));
+      first.add(new Point2D(0.5, 0));
+      first.add(new Point2D(0.5, 0.5));
+      List<Point2D> second = new ArrayList<>();
+      second.add(new Point2D(0, 0));
+      second.add(new Point2D(0.5 + 1e-12, 0.5));
+      second.add(new Point2D(0, 0.5));
+      Set<TriangleMeshFace> faces = new HashSet<>();
+      faces.add(TriangleMeshFace.fromOrdered(list(a, b, c), first));
+      faces.add(TriangleMeshFace.fromOrdered(list(a, c, d), second));
+      TriangleMeshFacade facade = TriangleMeshFacade.from(faces);
+      TriangleMesh mesh = facade.toTriangleMesh();
+
+      facade.updateTexCoord(new Point2D(0.5, 0.5), new Point2D(0.75, 0.75));
+      for (TriangleMeshFace face : facade.getFaces())
+         Assert.assertTrue(face.getTextureVerticesWithCreationOrdering().contains(new Point2D(0.75, 0.75)));
+      assertMeshContainsFaces(mesh, facade.getFaces());
+
+      facade.updateTexCoord(new Point2D(0.75, 0.75), new Point2D(0.25, 0.25));
+      assertMeshContainsFaces(mesh, facade.getFaces());
+      int texCoordCount = mesh.getTexCoords().size();
+      facade.addFaces(Collections.singleton(TriangleMeshFace.fromOrdered(list(b, Vertex.from(2, 0, 0), c),
+            textureList(new Point2D(0.25, 0.25), new Point2D(1, 0), new Point2D(1, 1)))));
+      // (0.25, 0.25) is in the mesh already
+      Assert.assertEquals(texCoordCount + 2 * 2, mesh.getTexCoords().size());
+      assertMeshContainsFaces(mesh, facade.getFaces());
+   }
+
+   @Test
+   public void testUpdate_OneChangePerArrayOnCommit() {
+      Set<TriangleMeshFace> faces = makeGrid(5);
+      TriangleMeshFacade facade = TriangleMeshFacade.from(faces);
+      TriangleMesh mesh = facade.toTriangleMesh();
+      int[] facesBefore = mesh.getFaces().toArray(null);
+      int[] changes = new int[2];
+      mesh.getFaces().addListener((array, sizeChanged, from, to) -> changes[0]++);
+      mesh.getPoints().addListener((array, sizeChanged, from, to) -> changes[1]++);
+
+      MeshUpdate update = facade.beginUpdate();
+      facade.removeFaces(new ArrayList<>(faces).subList(0, 10));
+      facade.moveVertex(findVertex(facade, 1, 1), new Point3D(1, 1, 2));
+      facade.moveVertex(findVertex(facade, 2, 2), new Point3D(2, 2, 2));
+      Assert.assertArrayEquals(facesBefore, mesh.getFaces().toArray(null));
+      Assert.assertEquals(0, changes[0] + changes[1]);
+
+      update.commit();
+      Assert.assertEquals(1, changes[0]);
+      Assert.assertEquals(1, changes[1]);
+      assertMeshContainsFaces(mesh, facade.getFaces());
+      Assert.assertEquals(facade.getFaces().size() * 6, mesh.getFaces().size());
+   }
+
+   @Test
+   public void testNormals_FaceAndAreaWeightedVertexNormals() {
+      Vertex a = Vertex.from(0, 0, 0);
+      Vertex b = Vertex.from(1, 0, 0);
+      Vertex c = Vertex.from(0, 4, 0);
+      Vertex d = Vertex.from(0, 0, 3);
+      Set<TriangleMeshFace> faces = new HashSet<>();
+      faces.add(TriangleMeshFace.fromOrdered(a, b, c)); // area 2, facing z
+      faces.add(TriangleMeshFace.fromOrdered(a, c, d)); // area 6, facing x
+      TriangleMeshFacade facade = TriangleMeshFacade.from(faces);
+      TriangleMesh mesh = facade.toTriangleMesh();
+
+      float[] faceNormals = facade.computeFaceNormals();
+      Assert.assertEquals(6, faceNormals.length);
+      for (int f = 0; f < 2; f++) {
+         // the face with point d is the one facing x
+         boolean facingX = false;
+         for (int k = 0; k < 3; k++) {
+            int p = mesh.getFaces().get(f * 6 + k * 2);
+            facingX |= mesh.getPoints().get(p * 3 + 2) == 3;
+         }
+         Assert.assertArrayEquals(facingX ? new float[] { 1, 0, 0 } : new float[] { 0, 0, 1 },
+               new float[] { faceNormals[f * 3], faceNormals[f * 3 + 1], faceNormals[f * 3 + 2] }, 1e-6f);
+      }
+
+      float[] vertexNormals = facade.computeVertexNormals();
+      float shared = (float) (1 / Math.sqrt(10));
+      for (int p = 0; p < 4; p++) {
+         float[] expected;
+         if (mesh.getPoints().get(p * 3) == 1)
+            expected = new float[] { 0, 0, 1 };
+         else if (mesh.getPoints().get(p * 3 + 2) == 3)
+            expected = new float[] { 1, 0, 0 };
+         else
+            expected = new float[] { 3 * shared, 0, shared };
+         Assert.assertArrayEquals(expected,
+               new float[] { vertexNormals[p * 3], vertexNormals[p * 3 + 1], vertexNormals[p * 3 + 2] }, 1e-6f);
+      }
+   }
+
+   @Test
+   public void testSmoothingGroups_CubeSidesSmoothInsideHardAtEdges() {
+      Vertex[] v = new Vertex[8];
+      for (int i = 0; i < 8; i++)
+         v[i] = Vertex.from(i >> 2 & 1, i >> 1 & 1, i & 1); // index is xyz in binary
+      Set<TriangleMeshFace> faces = new HashSet<>();
+      addQuad(faces, v[0], v[2], v[6], v[4]);
+      addQuad(faces, v[1], v[5], v[7], v[3]);
+      addQuad(faces, v[0], v[1], v[3], v[2]);
+      addQuad(faces, v[4], v[6], v[7], v[5]);
+      addQuad(faces, v[0], v[4], v[5], v[1]);
+      addQuad(faces, v[2], v[3], v[7], v[6]);
+
+      TriangleMeshFacade flat = TriangleMeshFacade.from(faces);
+      Assert.assertArrayEquals(new int[12], flat.toTriangleMesh().getFaceSmoothingGroups().toArray(null));
+
+      TriangleMeshFacade facade = TriangleMeshFacade.from(faces, MeshBuildOptions.defaults().creaseAngle(30));
+      int[] groups = facade.toTriangleMesh().getFaceSmoothingGroups().toArray(null);
+      float[] normals = facade.computeFaceNormals();
+      Assert.assertEquals(12, groups.length);
+      for (int f = 0; f < 12; f++) {
+         Assert.assertEquals(1, Integer.bitCount(groups[f]));
+         for (int g = 0; g < 12; g++) {
+            float dot = normals[f * 3] * normals[g * 3] + normals[f * 3 + 1] * normals[g * 3 + 1]
+                  + normals[f * 3 + 2] * normals[g * 3 + 2];
+            if (dot > 0.5)
+               Assert.assertEquals(groups[f], groups[g]);
+            else if (Math.abs(dot) < 0.5)
+               Assert.assertNotEquals(groups[f], groups[g]);
+         }
+      }
+   }
+
+   @Test
+   public void testNormals_PointNormalTexCoordFormat() {
+      Set<TriangleMeshFace> faces = makeGrid(4);
+      TriangleMeshFacade facade = TriangleMeshFacade.from(faces, MeshBuildOptions.defaults().smoothNormals());
+      TriangleMesh mesh = facade.toTriangleMesh();
+      Assert.assertSame(VertexFormat.POINT_NORMAL_TEXCOORD, mesh.getVertexFormat());
+      Assert.assertEquals(faces.size() * 9, mesh.getFaces().size());
+      Assert.assertEquals(mesh.getPoints().size(), mesh.getNormals().size());
+      assertMeshContainsFaces(mesh, faces);
+      for (int i = 0; i < mesh.getFaces().size(); i += 3) {
+         Assert.assertEquals(mesh.getFaces().get(i), mesh.getFaces().get(i + 1));
+      }
+      for (int i = 0; i < mesh.getNormals().size(); i += 3) {
+         Assert.assertEquals(1, mesh.getNormals().get(i + 2), 1e-6);
+      }
+
+      // the normals follow a moved point
+      facade.moveVertex(findVertex(facade, 2, 2), new Point3D(2, 2, 1));
+      int index = -1;
+      for (int i = 0; i < mesh.getPoints().size(); i += 3) {
+         if (mesh.getPoints().get(i) == 1 && mesh.getPoints().get(i + 1) == 2)
+            index = i / 3;
+      }
+      // a point on the slope of the bump
+      Assert.assertTrue(mesh.getNormals().get(index * 3 + 2) < 0.99);
+      Assert.assertArrayEquals(facade.computeVertexNormals(), mesh.getNormals().toArray(null), 1e-6f);
+   }
+
+   @Test
+   public void testListener_PhasesReportedWithCounts() {
+      Set<TriangleMeshFace> faces = makeGrid(8);
+      MeshBuildHistogram histogram = MeshBuildHistogram.create();
+      TriangleMeshFacade.from(faces, MeshBuildOptions.defaults().listener(histogram));
+      TriangleMeshFacade.from(faces, MeshBuildOptions.defaults().listener(histogram).smoothNormals());
+
+      Assert.assertEquals(2, histogram.getBuildCount());
+      Assert.assertEquals(2, histogram.getCount(MeshBuildPhase.VALIDATION));
+      Assert.assertEquals(0, histogram.getCount(MeshBuildPhase.WELDING));
+      Assert.assertEquals(2 * 81, histogram.getElementCount(MeshBuildPhase.POINTS));
+      Assert.assertEquals(2 * 81 * 3, histogram.getArraySize(MeshBuildPhase.POINTS));
+      Assert.assertEquals(2 * 128, histogram.getElementCount(MeshBuildPhase.FACES));
+      Assert.assertEquals(128 * 6 + 128 * 9, histogram.getArraySize(MeshBuildPhase.FACES));
+      Assert.assertEquals(0, histogram.getArraySize(MeshBuildPhase.VERTEX_INDEX));
+      Assert.assertEquals(128, histogram.getSlowestBuildFaceCount());
+      Assert.assertTrue(histogram.getBuildNanosAtPercentile(50) > 0);
+      Assert.assertTrue(histogram.getBuildNanosAtPercentile(100) <= histogram.getSlowestBuildNanos());
+   }
+
+   @Test
+   public void testNormals_FlatNormalsFollowRemovedFaces() {
+      Set<TriangleMeshFace> faces = makeGrid(4);
+      TriangleMeshFacade facade = TriangleMeshFacade.from(faces, MeshBuildOptions.defaults().flatNormals());
+      TriangleMesh mesh = facade.toTriangleMesh();
+      Assert.assertEquals(faces.size() * 3, mesh.getNormals().size());
+
+      MeshUpdate update = facade.beginUpdate();
+      facade.removeFaces(new ArrayList<>(faces).subList(0, 5));
+      facade.moveVertex(findVertex(facade, 4, 4), new Point3D(4, 4, 3));
+      update.commit();
+
+      int faceCount = facade.getFaces().size();
+      Assert.assertEquals(faceCount * 9, mesh.getFaces().size());
+      Assert.assertEquals(faceCount * 3, mesh.getNormals().size());
+      for (int f = 0; f < faceCount; f++) {
+         for (int k = 0; k < 3; k++)
+            Assert.assertEquals(f, mesh.getFaces().get(f * 9 + k * 3 + 1));
+      }
+      Assert.assertArrayEquals(facade.computeFaceNormals(), mesh.getNormals().toArray(null), 1e-6f);
+      assertMeshContainsFaces(mesh, facade.getFaces());
+   }
+
+   @Test
+   public void testNormals_EditsSendOnlyTheNormalsTheyTouch() {
+      for (MeshBuildOptions options : new MeshBuildOptions[] { MeshBuildOptions.defaults().smoothNormals(),
+            MeshBuildOptions.defaults().flatNormals() }) {
+         Set<TriangleMeshFace> faces = makeGrid(20);
+         TriangleMeshFacade facade = TriangleMeshFacade.from(faces, options);
+         TriangleMesh mesh = facade.toTriangleMesh();
+         boolean flat = mesh.getNormals().size() == faces.size() * 3;
+         int[] sent = new int[1];
+         mesh.getNormals().addListener((array, sizeChanged, from, to) -> sent[0] += to - from);
+
+         facade.moveVertex(findVertex(facade, 10, 10), new Point3D(10, 10, 2));
+         // the six faces around the point, or the point and its six neighbours
+         Assert.assertTrue(sent[0] <= 7 * 3);
+         assertNormalsUpToDate(facade, flat);
+
+         sent[0] = 0;
+         List<TriangleMeshFace> removed = new ArrayList<>(facade.getFaces()).subList(0, 3);
+         facade.removeFaces(removed);
+         facade.addFaces(Collections.singleton(removed.get(0)));
+         Assert.assertTrue(sent[0] < mesh.getNormals().size() / 4);
+         assertNormalsUpToDate(facade, flat);
+      }
+   }
+
+   private static void assertNormalsUpToDate(TriangleMeshFacade facade, boolean flat) {
+      float[] expected = flat ? facade.computeFaceNormals() : facade.computeVertexNormals();
+      Assert.assertArrayEquals(expected, facade.toTriangleMesh().getNormals().toArray(null), 1e-6f);
+   }
+
+   @Test
+   public void testTexCoords_SharedWhenEqualAsFloatsDefaultSlotKept() {
+      Vertex a = Vertex.from(0, 0, 0);
+      Vertex b = Vertex.from(1, 0, 0);
+      Vertex c = Vertex.from(1, 1, 0);
+      Vertex d = Vertex.from(0, 1, 0);
+      List<Point2D> first = new ArrayList<>();
+      first.add(new Point2D(0, 0));
+      first.add(new Point2D(0.5, 0));
+      first.add(new Point2D(0.5, 0.5));
+      List<Point2D> second = new ArrayList<>();
+      second.add(new Point2D(0, 0));
+      second.add(new Point2D(0.5 + 1e-12, 0.5));
+      second.add(new Point2D(0, 0.5));
+      Set<TriangleMeshFace> faces = new HashSet<>();
+      faces.add(TriangleMeshFace.fromOrdered(list(a, b, c), first));
+      faces.add(TriangleMeshFace.fromOrdered(list(a, c, d), second));
+      TriangleMesh mesh = TriangleMeshFacade.from(faces).toTriangleMesh();
+
+      // the default slot and four texture vertices
+      Assert.assertEquals(5 * 2, mesh.getTexCoords().size());
+      Assert.assertEquals(0, mesh.getTexCoords().get(0), 0);
+      Assert.assertEquals(0, mesh.getTexCoords().get(1), 0);
+      for (int i = 1; i < mesh.getFaces().size(); i += 2) {
+         Assert.assertNotEquals(TriangleMeshFaceWrapper.DEFAULT_TEXTURE, mesh.getFaces().get(i));
+      }
+      assertMeshContainsFaces(mesh, faces);
+   }
+
+   @Test
+   public void testBakeTransform_PointsMovedTransformsAddUp() {
+      TriangleMeshFacade facade = TriangleMeshFacade.from(makeGrid(3));
+      TriangleMesh mesh = facade.toTriangleMesh();
+      float[] before = mesh.getPoints().toArray(null);
+      int[] faces = mesh.getFaces().toArray(null);
+
+      facade.bakeTransform(new Translate(1, 2, 3));
+      facade.bakeTransform(new Scale(2, 2, 2));
+
+      float[] after = mesh.getPoints().toArray(null);
+      for (int i = 0; i < before.length; i++)
+         Assert.assertEquals(2 * (before[i] + 1 + i % 3), after[i], 1e-5f);
+      Assert.assertArrayEquals(faces, mesh.getFaces().toArray(null));
+      Transform baked = facade.getBakedTransform();
+      Assert.assertEquals(2, baked.getMxx(), 0);
+      Assert.assertEquals(6, baked.getTz(), 0);
+      // the vertices keep their own coordinates, the mesh has them through the transform
+      Vertex moved = facade.moveVertex(findVertex(facade, 1, 1), new Point3D(1, 1, 1));
+      Assert.assertEquals(1, moved.getZ(), 0);
+      Assert.assertTrue(containsPoint(mesh, 4, 6, 8));
+      facade.addFaces(Collections.singleton(TriangleMeshFace.fromOrdered(Vertex.from(3, 0, 0),
+            Vertex.from(4, 0, 0), Vertex.from(4, 1, 0))));
+      Assert.assertTrue(containsPoint(mesh, 10, 6, 6));
+   }
+
+   @Test
+   public void testBakeTransform_MirrorKeepsFacesFacingOut() {
+      TriangleMeshFacade facade = TriangleMeshFacade.from(makeGrid(3));
+      float[] before = facade.computeFaceNormals();
+
+      facade.bakeTransform(new Scale(1, 1, -1));
+      facade.addFaces(Collections.singleton(TriangleMeshFace.fromOrdered(Vertex.from(3, 0, 0),
+            Vertex.from(4, 0, 0), Vertex.from(4, 1, 0))));
+
+      float[] after = facade.computeFaceNormals();
+      Assert.assertEquals(before.length + 3, after.length);
+      for (int i = 2; i < after.length; i += 3)
+         Assert.assertEquals(-1, after[i], 1e-6f);
+      Assert.assertTrue(before[2] > 0);
+   }
+
+   @Test
+   public void testBakeTransform_MirrorTurnsHalfEdgesAround() {
+      TriangleMeshFacade facade = TriangleMeshFacade.from(makeGrid(3));
+      HalfEdgeMesh before = facade.getHalfEdgeMesh();
+
+      facade.bakeTransform(new Scale(-1, 1, 1));
+      HalfEdgeMesh after = facade.getHalfEdgeMesh();
+      HalfEdgeMesh expected = HalfEdgeMesh.from(facade.toTriangleMesh());
+      Assert.assertNotSame(before, after);
+      for (int halfEdge = 0; halfEdge < expected.getHalfEdgeCount(); halfEdge++) {
+         Assert.assertEquals(expected.origin(halfEdge), after.origin(halfEdge));
+         Assert.assertEquals(expected.target(halfEdge), after.target(halfEdge));
+      }
+   }
+
+   @Test(expected = IllegalArgumentException.class)
+   public void testBakeTransform_SingularRejected() {
+      TriangleMeshFacade.from(makeGrid(2)).bakeTransform(new Scale(1, 0, 1));
+   }
+
+   private static boolean containsPoint(TriangleMesh mesh, float x, float y, float z) {
+      for (int i = 0; i < mesh.getPoints().size(); i += 3) {
+         if (mesh.getPoints().get(i) == x && mesh.getPoints().get(i + 1) == y && mesh.getPoints().get(i + 2) == z)
+            return true;
+      }
+      return false;
+   }
+
+   private static void addQuad(Set<TriangleMeshFace> faces, Vertex a, Vertex b, Vertex c, Vertex d) {
+      faces.add(TriangleMeshFace.fromOrdered(a, b, c));
+      faces.add(TriangleMeshFace.fromOrdered(a, c, d));
+   }
+
+   private static Vertex findVertex(TriangleMeshFacade facade, double x, double y) {
+      for (Vertex v : facade.getVertices()) {
+         if (v.getX() == x && v.getY() == y)
+            return v;
+      }
+      throw new AssertionError();
+   }
+
+   /*
+    * a square grid of size x size cells on the plane z = 0, two triangles per cell
+    */
+   static Set<TriangleMeshFace> makeGrid(int size) {
+      Vertex[][] vertices = new Vertex[size + 1][size + 1];
+      for (int i = 0; i <= size; i++) {
+         for (int j = 0; j <= size; j++) {
+            vertices[i][j] = Vertex.from(i, j, 0);
+         }
+      }
+      Set<TriangleMeshFace> faces = new HashSet<>();
+      for (int i = 0; i < size; i++) {
+         for (int j = 0; j < size; j++) {
+            List<Vertex> first = list(vertices[i][j], vertices[i + 1][j], vertices[i + 1][j + 1]);
+            List<Vertex> second = list(vertices[i][j], vertices[i + 1][j + 1], vertices[i][j + 1]);
+            faces.add(TriangleMeshFace.fromOrdered(first, textureOf(first, size)));
+            faces.add(TriangleMeshFace.fromOrdered(second, textureOf(second, size)));
+         }
+      }
+      return faces;
+   }
+
+   private static List<Vertex> list(Vertex... vertices) {
+      List<Vertex> list = new ArrayList<>();
+      for (Vertex v : vertices)
+         list.add(v);
+      return list;
+   }
+
+   private static List<Point2D> textureList(Point2D... textureVertices) {
+      List<Point2D> list = new ArrayList<>();
+      for (Point2D t : textureVertices)
+         list.add(t);
+      return list;
+   }
+
+   private static List<Point2D> textureOf(List<Vertex> vertices, int size) {
+      List<Point2D> texture = new ArrayList<>();
+      for (Vertex v : vertices)
+         texture.add(new Point2D(v.getX() / size, v.getY() / size));
+      return texture;
+   }
+
+   /*
+    * each face must be found in the mesh arrays, with its coordinates and texture coordinates
+    * in the same order
+    */
+   static void assertMeshContainsFaces(TriangleMesh mesh, Set<TriangleMeshFace> faces) {
+      int faceSize = mesh.getFaceElementSize();
+      int vertexSize = faceSize / 3;
+      int texCoordOffset = mesh.getVertexFormat().getTexCoordIndexOffset();
+      Set<String> encoded = new HashSet<>();
+      for (int f = 0; f < mesh.getFaces().size(); f += faceSize) {
+         StringBuilder key = new StringBuilder();
+         for (int k = 0; k < 3; k++) {
+            int point = mesh.getFaces().get(f + k * vertexSize);
+            int texCoord = mesh.getFaces().get(f + k * vertexSize + texCoordOffset);
+            key.append(mesh.getPoints().get(point * 3)).append(',')
+                  .append(mesh.getPoints().get(point * 3 + 1)).append(',')
+                  .append(mesh.getPoints().get(point * 3 + 2)).append('/')
+                  .append(mesh.getTexCoords().get(texCoord * 2)).append(',')
+                  .append(mesh.getTexCoords().get(texCoord * 2 + 1)).append(';');
+         }
+         encoded.add(key.toString());
+      }
+      for (TriangleMeshFace face : faces) {
+         StringBuilder key = new StringBuilder();
+         for (int k = 0; k < 3; k++) {
+            Vertex v = face.getVerticesWithCreationOrdering().get(k);
+            Point2D t = face.getTextureVerticesWithCreationOrdering().get(k);
+            key.append((float) v.getX()).append(',').append((float) v.getY()).append(',')
+                  .append((float) v.getZ()).append('/').append((float) t.getX()).append(',')
+                  .append((float) t.getY()).append(';');
+         }
+         Assert.assertTrue("face not found: " + key, encoded.contains(key.toString()));
+      }
+   }
+}
@@ -3,9 +3,13 @@ package com.moduleforge.libraries.javafx.shape;
 import java.util.ArrayList;
 import java.util.List;
 
+import javax.vecmath.Point3d;
+
 import org.junit.Test;
 import org.junit.Assert;
 
+import com.moduleforge.libraries.geometry.GeometryUtil;
+
 import javafx.geometry.Point3D;
 
 public class TriangleMeshFaceTest {
@@ -54,6 +58,61 @@ public class TriangleMeshFaceTest {
       Assert.assertTrue(faces.size() == 2);
    }
    
+   @Test(expected = IllegalArgumentException.class)
+   public final void testFromOrderedListOfVertex_ManyVerticesTwoOfThemEqual() {
+      List<Vertex> list = new ArrayList<>();
+      for (int i = 0; i < 100; i++) {
+         double angle = 2 * Math.PI * i / 100;
+         list.add(Vertex.from(new Point3D(Math.cos(angle), Math.sin(angle), 0)));
+      }
+      list.add(Vertex.from(new Point3D(Math.cos(0.5), Math.sin(0.5), 0)));
+      list.add(Vertex.from(new Point3D(Math.cos(0.5), Math.sin(0.5), 0)));
+      TriangleMeshFace.connectedFromOrdered(list);
+   }
+
+   @Test(expected = IllegalArgumentException.class)
+   public final void testFromOrderedListOfVertex_ManyVerticesTwoOfThemAlmostEqual() {
+      List<Vertex> list = new ArrayList<>();
+      for (int i = 0; i < 20; i++) {
+         double angle = 2 * Math.PI * i / 20;
+         list.add(Vertex.from(new Point3D(Math.cos(angle), Math.sin(angle), 0)));
+      }
+      // closer to the first vertex than differentEnough() allows, checked through the grid
+      list.add(1, Vertex.from(new Point3D(1 - TriangleMeshFace.DIFFERENT_ENOUGH_EPSILON / 2, 0, 0)));
+      TriangleMeshFace.connectedFromOrdered(list);
+   }
+
+   @Test(expected = IllegalArgumentException.class)
+   public final void testFromOrderedListOfVertex_ManyVerticesTwoOfThemAlmostEqualAlongADiagonal() {
+      List<Vertex> list = new ArrayList<>();
+      for (int i = 0; i < 20; i++) {
+         double angle = 2 * Math.PI * i / 20;
+         list.add(Vertex.from(new Point3D(Math.cos(angle), Math.sin(angle), 0)));
+      }
+      double offset = TriangleMeshFace.DIFFERENT_ENOUGH_EPSILON / 3;
+      list.add(1, Vertex.from(new Point3D(1 - offset, offset, offset)));
+      TriangleMeshFace.connectedFromOrdered(list);
+   }
+
+   @Test
+   public final void testDifferentEnough_PointsBeyondTheGridSearchAlwaysDifferent() {
+      // the grid check relies on this, near the origin and far from it, in any direction
+      double beyond = TriangleMeshFace.DIFFERENT_ENOUGH_SEARCH_DISTANCE * 1.01;
+      double[][] directions = { { 1, 0, 0 }, { 0, 1, 0 }, { 0, 0, 1 }, { 1, 1, 0 }, { 1, 1, 1 }, { -1, 1, -1 } };
+      for (double magnitude : new double[] { 0, 1, 1e3 }) {
+         Point3d point = new Point3d(magnitude, magnitude, magnitude);
+         for (double[] direction : directions) {
+            double scale = beyond / Math.sqrt(direction[0] * direction[0] + direction[1] * direction[1]
+                  + direction[2] * direction[2]);
+            Point3d other = new Point3d(magnitude + direction[0] * scale, magnitude + direction[1] * scale,
+                  magnitude + direction[2] * scale);
+            Assert.assertTrue(GeometryUtil.differentEnough(point, other));
+         }
+      }
+      Assert.assertFalse(GeometryUtil.differentEnough(new Point3d(1, 1, 1),
+            new Point3d(1 + TriangleMeshFace.DIFFERENT_ENOUGH_EPSILON / 2, 1, 1)));
+   }
+
 //   @Test
    public final void testFromOrderedListOfVertex_FiveVerticesResultInThreeFaces() {
       List<Vertex> list = new ArrayList<>();
@@ -70,7 +129,74 @@ public class TriangleMeshFaceTest {
       Assert.assertTrue(faces.size() == 3);
    }
 
-   
+   @Test
+   public final void testConnectedFromOrdered_ConvexPolygonIsAFanFromFirstVertex() {
+      List<Vertex> list = new ArrayList<>();
+      for (int i = 0; i < 6; i++) {
+         double angle = 2 * Math.PI * i / 6;
+         list.add(Vertex.from(new Point3D(Math.cos(angle), 0, Math.sin(angle))));
+      }
+      List<TriangleMeshFace> faces = TriangleMeshFace.connectedFromOrdered(list);
+      Assert.assertEquals(4, faces.size());
+      for (int i = 0; i < faces.size(); i++) {
+         List<Vertex> triangle = faces.get(i).getVerticesWithCreationOrdering();
+         Assert.assertEquals(list.get(0), triangle.get(0));
+         Assert.assertEquals(list.get(i + 1), triangle.get(1));
+         Assert.assertEquals(list.get(i + 2), triangle.get(2));
+      }
+   }
+
+   @Test
+   public final void testConnectedFromOrdered_LargeConcavePolygon() {
+      // star with alternating radius, counterclockwise on the plane y = 2
+      int count = 20000;
+      List<Vertex> list = new ArrayList<>();
+      double area = 0;
+      for (int i = 0; i < count; i++) {
+         double angle = -2 * Math.PI * i / count;
+         double radius = i % 2 == 0 ? 10 : 9;
+         list.add(Vertex.from(new Point3D(radius * Math.cos(angle), 2, radius * Math.sin(angle))));
+      }
+      for (int i = 0; i < count; i++) {
+         Vertex a = list.get(i), b = list.get((i + 1) % count);
+         area += (a.getZ() * b.getX() - b.getZ() * a.getX()) / 2;
+      }
+      List<TriangleMeshFace> faces = TriangleMeshFace.connectedFromOrdered(list);
+      Assert.assertEquals(count - 2, faces.size());
+      assertFacingAndArea(faces, new Point3D(0, 1, 0), area);
+   }
+
+   @Test
+   public final void testConnectedFromOrdered_PolygonWithHole() {
+      List<Vertex> outer = new ArrayList<>();
+      outer.add(Vertex.from(new Point3D(0, 0, 1)));
+      outer.add(Vertex.from(new Point3D(10, 0, 1)));
+      outer.add(Vertex.from(new Point3D(10, 10, 1)));
+      outer.add(Vertex.from(new Point3D(0, 10, 1)));
+      List<Vertex> hole = new ArrayList<>();
+      hole.add(Vertex.from(new Point3D(2, 2, 1)));
+      hole.add(Vertex.from(new Point3D(2, 6, 1)));
+      hole.add(Vertex.from(new Point3D(7, 6, 1)));
+      hole.add(Vertex.from(new Point3D(7, 2, 1)));
+      List<List<Vertex>> holes = new ArrayList<>();
+      holes.add(hole);
+      List<TriangleMeshFace> faces = TriangleMeshFace.connectedFromOrdered(outer, holes);
+      Assert.assertEquals(8, faces.size());
+      assertFacingAndArea(faces, new Point3D(0, 0, 1), 100 - 20);
+   }
+
+   private static void assertFacingAndArea(List<TriangleMeshFace> faces, Point3D front, double area) {
+      double sum = 0;
+      for (TriangleMeshFace face : faces) {
+         Assert.assertEquals(1, face.getFrontDirectionVector().dotProduct(front), 1e-9);
+         List<Vertex> v = face.getVerticesWithCreationOrdering();
+         Point3D ab = v.get(1).getCoordinates().subtract(v.get(0).getCoordinates());
+         Point3D ac = v.get(2).getCoordinates().subtract(v.get(0).getCoordinates());
+         sum += ab.crossProduct(ac).magnitude() / 2;
+      }
+      Assert.assertEquals(area, sum, 1e-6 * area);
+   }
+
    // ax + by + cz + d = 0
    //z = -ax/c - by/c - d/c
    public static double getZOfPlane(double x, double y, double a, double b, double c, double d) {
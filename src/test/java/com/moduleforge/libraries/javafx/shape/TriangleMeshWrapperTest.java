@@ -7,6 +7,10 @@ import org.javatuples.Pair;
 import org.junit.Assert;
 import org.junit.Test;
 
+import javafx.geometry.Point2D;
+import javafx.geometry.Point3D;
+import javafx.scene.shape.TriangleMesh;
+
 public class TriangleMeshWrapperTest {
 
    @Test
@@ -71,4 +75,19 @@ public class TriangleMeshWrapperTest {
       
    }
 
+   @Test
+   public void testFromOrdered_VerticesSentToTheMesh() {
+      List<Point3D> vertices = new ArrayList<>();
+      vertices.add(new Point3D(0, 0, 0));
+      vertices.add(new Point3D(1, 2, 3));
+      List<Point2D> textureVertices = new ArrayList<>();
+      textureVertices.add(new Point2D(0.5, 0.5));
+
+      TriangleMesh mesh = TriangleMeshWrapper.fromOrdered(vertices, textureVertices).toTriangleMesh();
+      Assert.assertArrayEquals(new float[] { 0, 0, 0, 1, 2, 3 }, mesh.getPoints().toArray(null), 0);
+      Assert.assertEquals(2 * 2, mesh.getTexCoords().size());
+      Assert.assertEquals(6, TriangleMeshWrapper.fromOrdered(vertices).toTriangleMesh().getPoints().size());
+      Assert.assertEquals(3, TriangleMeshWrapper.fromOrdered(new Point3D(4, 5, 6)).toTriangleMesh().getPoints().size());
+   }
+
 }
@@ -0,0 +1,35 @@
+package com.moduleforge.libraries.javafx.shape;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class VertexTest {
+
+   @Test
+   public void testVertexIdentifiers_UniqueAcrossThreads() throws InterruptedException {
+      int threadCount = 4;
+      int verticesPerThread = 5000;
+      Vertex[][] created = new Vertex[threadCount][verticesPerThread];
+      Thread[] threads = new Thread[threadCount];
+      for (int t = 0; t < threadCount; t++) {
+         Vertex[] target = created[t];
+         threads[t] = new Thread(() -> {
+            for (int i = 0; i < verticesPerThread; i++)
+               target[i] = Vertex.from(i, i, i);
+         });
+         threads[t].start();
+      }
+      for (Thread thread : threads)
+         thread.join();
+
+      Set<Long> identifiers = new HashSet<>();
+      for (Vertex[] vertices : created) {
+         for (Vertex vertex : vertices)
+            identifiers.add(vertex.identifier());
+      }
+      Assert.assertEquals(threadCount * verticesPerThread, identifiers.size());
+   }
+}